@@ -0,0 +1,100 @@
+package ru.tinkoff.piapi.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Сравнение результата прогона JMH (формат {@code -rf json}) с опубликованным baseline.
+ * <p>
+ * Сравниваются основная метрика и нормированная аллокация {@code gc.alloc.rate.norm} (байт на операцию).
+ * Процесс завершается с кодом 1, если хотя бы один бенчмарк деградировал сильнее порога.
+ * <p>
+ * Изменение основной метрики считается деградацией, только если оно больше суммы погрешностей
+ * ({@code scoreError}, полуширина доверительного интервала 99.9%) обоих прогонов: разница в пределах
+ * погрешности — шум, и бенчмарк помечается как неточный, если его погрешность сама превышает порог.
+ * <p>
+ * Использование: {@code BaselineComparator <baseline.json> <result.json> [порог в процентах, по умолчанию 10]}
+ */
+public final class BaselineComparator {
+
+  private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+  private BaselineComparator() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("usage: BaselineComparator <baseline.json> <result.json> [threshold-percent]");
+      System.exit(2);
+    }
+    var threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+    var baseline = load(new File(args[0]));
+    var current = load(new File(args[1]));
+
+    var regressions = 0;
+    System.out.printf("%-90s %14s %14s %9s %9s %12s %12s%n",
+      "benchmark", "baseline", "current", "diff %", "error %", "B/op base", "B/op cur");
+    for (var entry : current.entrySet()) {
+      var now = entry.getValue();
+      var before = baseline.get(entry.getKey());
+      if (before == null) {
+        System.out.printf("%-90s %14s %14.3f %9s%n", entry.getKey(), "-", now.score, "new");
+        continue;
+      }
+      var diff = (now.score - before.score) / before.score * 100.0;
+      // Для throughput рост — это улучшение, для времени на операцию — деградация.
+      var worse = now.higherIsBetter ? -diff : diff;
+      var error = (now.scoreError + before.scoreError) / before.score * 100.0;
+      var allocWorse = before.allocNorm > 0 && now.allocNorm > before.allocNorm * (1 + threshold / 100.0) + 8;
+      var regression = worse > Math.max(threshold, error) || allocWorse;
+      if (regression) {
+        regressions++;
+      }
+      System.out.printf("%-90s %14.3f %14.3f %+8.1f%% %8.1f%% %12.1f %12.1f%s%n",
+        entry.getKey(), before.score, now.score, diff, error, before.allocNorm, now.allocNorm,
+        regression ? "  <-- REGRESSION" : error > threshold ? "  (noisy)" : "");
+    }
+    if (regressions > 0) {
+      System.out.printf("%d regression(s) above %.1f%%%n", regressions, threshold);
+      System.exit(1);
+    }
+  }
+
+  private static Map<String, Result> load(File file) throws IOException {
+    var results = new LinkedHashMap<String, Result>();
+    for (JsonNode node : new ObjectMapper().readTree(file)) {
+      var key = new StringBuilder(node.get("benchmark").asText());
+      var params = node.get("params");
+      if (params != null) {
+        params.fields().forEachRemaining(p -> key.append(':').append(p.getKey()).append('=').append(p.getValue().asText()));
+      }
+      var primary = node.get("primaryMetric");
+      var alloc = node.path("secondaryMetrics").path(ALLOC_METRIC).path("score");
+      results.put(key.toString(), new Result(
+        primary.get("score").asDouble(),
+        primary.path("scoreError").asDouble(0),
+        "thrpt".equals(node.get("mode").asText()),
+        alloc.isMissingNode() ? -1 : alloc.asDouble()));
+    }
+    return results;
+  }
+
+  private static class Result {
+    private final double score;
+    private final double scoreError;
+    private final boolean higherIsBetter;
+    private final double allocNorm;
+
+    Result(double score, double scoreError, boolean higherIsBetter, double allocNorm) {
+      this.score = score;
+      this.scoreError = Double.isNaN(scoreError) ? 0 : scoreError;
+      this.higherIsBetter = higherIsBetter;
+      this.allocNorm = allocNorm;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package ru.tinkoff.piapi.benchmarks;
+
+import com.google.protobuf.Timestamp;
+import ru.tinkoff.piapi.contract.v1.Candle;
+import ru.tinkoff.piapi.contract.v1.LastPrice;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.MoneyValue;
+import ru.tinkoff.piapi.contract.v1.PortfolioPosition;
+import ru.tinkoff.piapi.contract.v1.PortfolioResponse;
+import ru.tinkoff.piapi.contract.v1.PositionsFutures;
+import ru.tinkoff.piapi.contract.v1.PositionsResponse;
+import ru.tinkoff.piapi.contract.v1.PositionsSecurities;
+import ru.tinkoff.piapi.contract.v1.Quotation;
+import ru.tinkoff.piapi.contract.v1.SubscriptionInterval;
+import ru.tinkoff.piapi.contract.v1.Trade;
+import ru.tinkoff.piapi.contract.v1.TradeDirection;
+import ru.tinkoff.piapi.contract.v1.VirtualPortfolioPosition;
+
+/**
+ * Детерминированные тестовые данные для бенчмарков.
+ */
+final class BenchmarkData {
+
+  private BenchmarkData() {
+  }
+
+  static Quotation quotation(long units, int nano) {
+    return Quotation.newBuilder().setUnits(units).setNano(nano).build();
+  }
+
+  static MoneyValue money(long units, int nano) {
+    return MoneyValue.newBuilder().setUnits(units).setNano(nano).setCurrency("rub").build();
+  }
+
+  static Timestamp timestamp(long seconds) {
+    return Timestamp.newBuilder().setSeconds(seconds).build();
+  }
+
+  static String figi(int i) {
+    return String.format("BBG%09d", i);
+  }
+
+  static PortfolioResponse portfolio(int positions) {
+    var builder = PortfolioResponse.newBuilder()
+      .setTotalAmountShares(money(100_000, 500_000_000))
+      .setTotalAmountBonds(money(50_000, 0))
+      .setTotalAmountEtf(money(25_000, 250_000_000))
+      .setTotalAmountCurrencies(money(10_000, 0))
+      .setTotalAmountFutures(money(0, 0))
+      .setTotalAmountOptions(money(0, 0))
+      .setTotalAmountSp(money(0, 0))
+      .setTotalAmountPortfolio(money(185_000, 750_000_000))
+      .setExpectedYield(quotation(3, 140_000_000))
+      .setAccountId("2000000000");
+    for (int i = 0; i < positions; i++) {
+      builder.addPositions(PortfolioPosition.newBuilder()
+        .setFigi(figi(i))
+        .setInstrumentType("share")
+        .setQuantity(quotation(10 + i, 0))
+        .setAveragePositionPrice(money(100 + i, 120_000_000))
+        .setExpectedYield(quotation(i, 500_000_000))
+        .setCurrentNkd(money(0, 0))
+        .setAveragePositionPricePt(quotation(0, 0))
+        .setCurrentPrice(money(101 + i, 0))
+        .setAveragePositionPriceFifo(money(100 + i, 100_000_000))
+        .setQuantityLots(quotation(1 + i, 0)));
+    }
+    builder.addVirtualPositions(VirtualPortfolioPosition.newBuilder()
+      .setFigi(figi(positions))
+      .setInstrumentType("share")
+      .setQuantity(quotation(1, 0))
+      .setAveragePositionPrice(money(10, 0))
+      .setExpectedYield(quotation(0, 0))
+      .setExpectedYieldFifo(quotation(0, 0))
+      .setExpireDate(timestamp(1_700_000_000L))
+      .setCurrentPrice(money(10, 0))
+      .setAveragePositionPriceFifo(money(10, 0)));
+    return builder.build();
+  }
+
+  static PositionsResponse positions(int securities) {
+    var builder = PositionsResponse.newBuilder()
+      .addMoney(money(10_000, 0))
+      .addMoney(MoneyValue.newBuilder().setUnits(100).setCurrency("usd").build())
+      .addBlocked(money(1_000, 0));
+    for (int i = 0; i < securities; i++) {
+      builder.addSecurities(PositionsSecurities.newBuilder()
+        .setFigi(figi(i))
+        .setBalance(10 + i)
+        .setBlocked(i % 3));
+    }
+    builder.addFutures(PositionsFutures.newBuilder().setFigi(figi(securities)).setBalance(1));
+    return builder.build();
+  }
+
+  static MarketDataResponse candle(int i) {
+    return MarketDataResponse.newBuilder()
+      .setCandle(Candle.newBuilder()
+        .setFigi(figi(i % 16))
+        .setInterval(SubscriptionInterval.SUBSCRIPTION_INTERVAL_ONE_MINUTE)
+        .setOpen(quotation(100, 0))
+        .setHigh(quotation(101, 500_000_000))
+        .setLow(quotation(99, 250_000_000))
+        .setClose(quotation(100, 750_000_000))
+        .setVolume(1_000 + i)
+        .setTime(timestamp(1_700_000_000L + 60L * i)))
+      .build();
+  }
+
+  static MarketDataResponse trade(int i) {
+    return MarketDataResponse.newBuilder()
+      .setTrade(Trade.newBuilder()
+        .setFigi(figi(i % 16))
+        .setDirection(TradeDirection.TRADE_DIRECTION_BUY)
+        .setPrice(quotation(100, 10_000_000 * (i % 100)))
+        .setQuantity(1 + i % 10)
+        .setTime(timestamp(1_700_000_000L + i)))
+      .build();
+  }
+
+  static MarketDataResponse lastPrice(int i) {
+    return MarketDataResponse.newBuilder()
+      .setLastPrice(LastPrice.newBuilder()
+        .setFigi(figi(i % 16))
+        .setPrice(quotation(100, 10_000_000 * (i % 100)))
+        .setTime(timestamp(1_700_000_000L + i)))
+      .build();
+  }
+}
@@ -0,0 +1,70 @@
+package ru.tinkoff.piapi.benchmarks;
+
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.tinkoff.piapi.core.exception.ApiRuntimeException;
+import ru.tinkoff.piapi.core.utils.Helpers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы {@link Helpers#unaryCall} на успешном вызове и на маппинге ошибки в {@link ApiRuntimeException}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HelpersBenchmark {
+
+  private String value;
+  private StatusRuntimeException knownError;
+  private StatusRuntimeException exhaustedError;
+
+  @Setup
+  public void setup() {
+    value = "ok";
+    var trailers = new Metadata();
+    trailers.put(Metadata.Key.of("x-tracking-id", Metadata.ASCII_STRING_MARSHALLER), "bench-tracking-id");
+    trailers.put(Metadata.Key.of("message", Metadata.ASCII_STRING_MARSHALLER), "instrument not found");
+    knownError = Status.NOT_FOUND.withDescription("50002").asRuntimeException(trailers);
+    exhaustedError = Status.RESOURCE_EXHAUSTED.asRuntimeException(trailers);
+  }
+
+  @Benchmark
+  public String unaryCallSuccess() {
+    return Helpers.unaryCall(() -> value);
+  }
+
+  @Benchmark
+  public Object unaryCallKnownError() {
+    return mapError(knownError);
+  }
+
+  @Benchmark
+  public Object unaryCallResourceExhausted() {
+    return mapError(exhaustedError);
+  }
+
+  private static Object mapError(StatusRuntimeException error) {
+    try {
+      return Helpers.unaryCall(() -> {
+        throw error;
+      });
+    } catch (ApiRuntimeException e) {
+      return e;
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package ru.tinkoff.piapi.benchmarks;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.tinkoff.piapi.contract.v1.GetLastPricesRequest;
+import ru.tinkoff.piapi.contract.v1.GetLastPricesResponse;
+import ru.tinkoff.piapi.contract.v1.LastPrice;
+import ru.tinkoff.piapi.contract.v1.MarketDataRequest;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.MarketDataServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.MarketDataStreamServiceGrpc;
+import ru.tinkoff.piapi.core.InvestApi;
+import ru.tinkoff.piapi.core.stream.MarketDataSubscriptionService;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сквозная пропускная способность unary-вызовов и стримов SDK поверх in-process канала gRPC.
+ * <p>
+ * Сетевой стек исключён, поэтому измеряются только накладные расходы SDK, gRPC и protobuf.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InProcessThroughputBenchmark {
+
+  private static final int STREAM_BATCH = 1_000;
+
+  private Server server;
+  private ManagedChannel channel;
+  private InvestApi api;
+  private MarketDataSubscriptionService subscription;
+  private List<String> instrumentIds;
+  private volatile CountDownLatch batchLatch;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    var serverName = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(serverName)
+      .addService(new LastPricesService())
+      .addService(new StreamService())
+      .build()
+      .start();
+    channel = InProcessChannelBuilder.forName(serverName).build();
+    api = InvestApi.create(channel);
+    instrumentIds = List.of(BenchmarkData.figi(1));
+    subscription = api.getMarketDataStreamService().newStream("benchmark", response -> {
+      if (response.hasCandle()) {
+        batchLatch.countDown();
+      }
+    }, null);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    subscription.cancel();
+    channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public List<LastPrice> unaryGetLastPrices() {
+    return api.getMarketDataService().getLastPricesSync(instrumentIds);
+  }
+
+  @Benchmark
+  public List<LastPrice> unaryGetLastPricesAsync() {
+    return api.getMarketDataService().getLastPrices(instrumentIds).join();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(STREAM_BATCH)
+  public void streamMessages() throws InterruptedException {
+    var latch = new CountDownLatch(STREAM_BATCH);
+    batchLatch = latch;
+    subscription.subscribeCandles(instrumentIds);
+    latch.await();
+  }
+
+  private static class LastPricesService extends MarketDataServiceGrpc.MarketDataServiceImplBase {
+    private final GetLastPricesResponse response = GetLastPricesResponse.newBuilder()
+      .addLastPrices(BenchmarkData.lastPrice(1).getLastPrice())
+      .build();
+
+    @Override
+    public void getLastPrices(GetLastPricesRequest request, StreamObserver<GetLastPricesResponse> responseObserver) {
+      responseObserver.onNext(response);
+      responseObserver.onCompleted();
+    }
+  }
+
+  private static class StreamService extends MarketDataStreamServiceGrpc.MarketDataStreamServiceImplBase {
+    private final MarketDataResponse[] batch = new MarketDataResponse[STREAM_BATCH];
+
+    StreamService() {
+      for (int i = 0; i < STREAM_BATCH; i++) {
+        batch[i] = BenchmarkData.candle(i);
+      }
+    }
+
+    @Override
+    public StreamObserver<MarketDataRequest> marketDataStream(StreamObserver<MarketDataResponse> responseObserver) {
+      return new StreamObserver<>() {
+        @Override
+        public void onNext(MarketDataRequest value) {
+          for (var message : batch) {
+            responseObserver.onNext(message);
+          }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+          responseObserver.onCompleted();
+        }
+      };
+    }
+  }
+}
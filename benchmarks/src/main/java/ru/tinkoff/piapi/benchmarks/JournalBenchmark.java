@@ -0,0 +1,72 @@
+package ru.tinkoff.piapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.core.stream.journal.JournalWriter;
+import ru.tinkoff.piapi.core.stream.journal.MarketDataRecorder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись сообщений стрима котировок в журнал через {@link MarketDataRecorder}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JournalBenchmark {
+
+  private static final int BATCH = 1024;
+
+  private Path directory;
+  private JournalWriter writer;
+  private MarketDataRecorder recorder;
+  private MarketDataResponse[] messages;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("journal-benchmark");
+    writer = new JournalWriter(directory, "md", 16 * 1024 * 1024, Duration.ofHours(1));
+    recorder = new MarketDataRecorder(response -> {
+    }, writer);
+    messages = new MarketDataResponse[BATCH];
+    for (int i = 0; i < BATCH; i++) {
+      messages[i] = i % 2 == 0 ? BenchmarkData.candle(i) : BenchmarkData.trade(i);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    writer.close();
+    try (var files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public void record() {
+    for (var message : messages) {
+      recorder.process(message);
+    }
+  }
+}
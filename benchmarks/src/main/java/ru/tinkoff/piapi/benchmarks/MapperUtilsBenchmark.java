@@ -0,0 +1,72 @@
+package ru.tinkoff.piapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.tinkoff.piapi.contract.v1.GetFuturesMarginResponse;
+import ru.tinkoff.piapi.contract.v1.MoneyValue;
+import ru.tinkoff.piapi.contract.v1.Quotation;
+import ru.tinkoff.piapi.core.utils.MapperUtils;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразования {@link Quotation}/{@link MoneyValue} &lt;-&gt; {@link BigDecimal} из {@link MapperUtils}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapperUtilsBenchmark {
+
+  private Quotation quotation;
+  private MoneyValue moneyValue;
+  private BigDecimal decimal;
+  private GetFuturesMarginResponse futuresMargin;
+
+  @Setup
+  public void setup() {
+    quotation = BenchmarkData.quotation(114, 250_000_000);
+    moneyValue = BenchmarkData.money(1_250, 990_000_000);
+    decimal = new BigDecimal("2718.281828459");
+    futuresMargin = GetFuturesMarginResponse.newBuilder()
+      .setMinPriceIncrement(BenchmarkData.quotation(0, 10_000_000))
+      .setMinPriceIncrementAmount(BenchmarkData.quotation(0, 7_500_000))
+      .build();
+  }
+
+  @Benchmark
+  public BigDecimal quotationToBigDecimal() {
+    return MapperUtils.quotationToBigDecimal(quotation);
+  }
+
+  @Benchmark
+  public BigDecimal moneyValueToBigDecimal() {
+    return MapperUtils.moneyValueToBigDecimal(moneyValue);
+  }
+
+  @Benchmark
+  public Quotation bigDecimalToQuotation() {
+    return MapperUtils.bigDecimalToQuotation(decimal);
+  }
+
+  @Benchmark
+  public MoneyValue bigDecimalToMoneyValue() {
+    return MapperUtils.bigDecimalToMoneyValue(decimal, "RUB");
+  }
+
+  @Benchmark
+  public BigDecimal futuresPrice() {
+    return MapperUtils.futuresPrice(quotation, futuresMargin);
+  }
+}
@@ -0,0 +1,64 @@
+package ru.tinkoff.piapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.tinkoff.piapi.contract.v1.MoneyValue;
+import ru.tinkoff.piapi.contract.v1.Quotation;
+import ru.tinkoff.piapi.core.models.Money;
+import ru.tinkoff.piapi.core.models.Quantity;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Арифметика {@link Quantity} и маппинг {@link Money}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelsBenchmark {
+
+  private Quotation quotation;
+  private MoneyValue moneyValue;
+  private Quantity quantity;
+  private BigDecimal delta;
+
+  @Setup
+  public void setup() {
+    quotation = BenchmarkData.quotation(42, 125_000_000);
+    moneyValue = BenchmarkData.money(1_000, 500_000_000);
+    quantity = Quantity.ofQuotation(quotation);
+    delta = new BigDecimal("0.015");
+  }
+
+  @Benchmark
+  public Quantity quantityOfQuotation() {
+    return Quantity.ofQuotation(quotation);
+  }
+
+  @Benchmark
+  public Quantity quantityAddSubtract() {
+    return quantity.add(delta).subtract(quantity).add(Quantity.ONE);
+  }
+
+  @Benchmark
+  public Quotation quantityToQuotation() {
+    return quantity.toQuotation();
+  }
+
+  @Benchmark
+  public Money moneyFromResponse() {
+    return Money.fromResponse(moneyValue);
+  }
+}
@@ -0,0 +1,53 @@
+package ru.tinkoff.piapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.tinkoff.piapi.contract.v1.PortfolioResponse;
+import ru.tinkoff.piapi.contract.v1.PositionsResponse;
+import ru.tinkoff.piapi.core.models.Portfolio;
+import ru.tinkoff.piapi.core.models.Positions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маппинг ответов в модели {@link Portfolio} и {@link Positions} в зависимости от количества позиций.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PortfolioMappingBenchmark {
+
+  @Param({"10", "100"})
+  public int positions;
+
+  private PortfolioResponse portfolioResponse;
+  private PositionsResponse positionsResponse;
+
+  @Setup
+  public void setup() {
+    portfolioResponse = BenchmarkData.portfolio(positions);
+    positionsResponse = BenchmarkData.positions(positions);
+  }
+
+  @Benchmark
+  public Portfolio portfolioFromResponse() {
+    return Portfolio.fromResponse(portfolioResponse);
+  }
+
+  @Benchmark
+  public Positions positionsFromResponse() {
+    return Positions.fromResponse(positionsResponse);
+  }
+}
@@ -0,0 +1,79 @@
+package ru.tinkoff.piapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.core.stream.StreamObserverWithProcessor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Диспетчеризация сообщений стрима через {@link StreamObserverWithProcessor} в пользовательский обработчик.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamDispatchBenchmark {
+
+  private static final int BATCH = 1024;
+
+  private MarketDataResponse[] messages;
+  private StreamObserverWithProcessor<MarketDataResponse> observer;
+  private Blackhole blackhole;
+
+  @Setup
+  public void setup(Blackhole blackhole) {
+    this.blackhole = blackhole;
+    messages = new MarketDataResponse[BATCH];
+    for (int i = 0; i < BATCH; i++) {
+      switch (i % 3) {
+        case 0:
+          messages[i] = BenchmarkData.candle(i);
+          break;
+        case 1:
+          messages[i] = BenchmarkData.trade(i);
+          break;
+        default:
+          messages[i] = BenchmarkData.lastPrice(i);
+      }
+    }
+    observer = new StreamObserverWithProcessor<>(this::process, null);
+  }
+
+  private void process(MarketDataResponse response) {
+    switch (response.getPayloadCase()) {
+      case CANDLE:
+        blackhole.consume(response.getCandle().getClose().getUnits());
+        break;
+      case TRADE:
+        blackhole.consume(response.getTrade().getQuantity());
+        break;
+      case LAST_PRICE:
+        blackhole.consume(response.getLastPrice().getPrice().getNano());
+        break;
+      default:
+        blackhole.consume(response);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public void dispatch() {
+    for (var message : messages) {
+      observer.onNext(message);
+    }
+  }
+}
@@ -684,6 +684,8 @@ public class InstrumentsService {
 
   /**
    * Получение (синхронное) актива по его идентификатору.
+   * Каждый вызов обращается к серверу; для повторных запросов есть
+   * {@link ru.tinkoff.piapi.core.instruments.AssetCache#getAssetSync(String)}.
    *
    * @return Данные по активу.
    */
@@ -1325,6 +1327,49 @@ public class InstrumentsService {
     return getInstrumentByPositionUid(positionUid, instrumentsStub::optionBy, OptionResponse::getInstrument);
   }
 
+  /**
+   * Получение (синхронное) списка опционов на базовый актив.
+   *
+   * @param basicAssetUid         Идентификатор базового актива опциона. Обязателен, если не указан basicAssetPositionUid.
+   * @param basicAssetPositionUid Идентификатор позиции базового актива опциона.
+   * @return Список опционов.
+   */
+  @Nonnull
+  public List<Option> getOptionsBySync(@Nullable String basicAssetUid, @Nullable String basicAssetPositionUid) {
+    return Helpers.unaryCall(() -> instrumentsBlockingStub.optionsBy(
+        filterOptionsRequest(basicAssetUid, basicAssetPositionUid))
+      .getInstrumentsList());
+  }
+
+  /**
+   * Получение (асинхронное) списка опционов на базовый актив.
+   *
+   * @param basicAssetUid         Идентификатор базового актива опциона. Обязателен, если не указан basicAssetPositionUid.
+   * @param basicAssetPositionUid Идентификатор позиции базового актива опциона.
+   * @return Список опционов.
+   */
+  @Nonnull
+  public CompletableFuture<List<Option>> getOptionsBy(@Nullable String basicAssetUid,
+                                                      @Nullable String basicAssetPositionUid) {
+    return Helpers.<OptionsResponse>unaryAsyncCall(
+        observer -> instrumentsStub.optionsBy(
+          filterOptionsRequest(basicAssetUid, basicAssetPositionUid),
+          observer))
+      .thenApply(OptionsResponse::getInstrumentsList);
+  }
+
+  private static FilterOptionsRequest filterOptionsRequest(@Nullable String basicAssetUid,
+                                                           @Nullable String basicAssetPositionUid) {
+    var request = FilterOptionsRequest.newBuilder();
+    if (basicAssetUid != null) {
+      request.setBasicAssetUid(basicAssetUid);
+    }
+    if (basicAssetPositionUid != null) {
+      request.setBasicAssetPositionUid(basicAssetPositionUid);
+    }
+    return request.build();
+  }
+
   /**
    * Получение (асинхронное) накопленного купонного дохода по облигации.
    *
@@ -1614,6 +1659,8 @@ public class InstrumentsService {
 
   /**
    * Получение (синхронное) бренда по его идентификатору.
+   * Каждый вызов обращается к серверу; для повторных запросов есть
+   * {@link ru.tinkoff.piapi.core.instruments.AssetCache#getBrandSync(String)}.
    *
    * @param uid идентификатор бренда.
    * @return Бренд.
@@ -1622,6 +1669,36 @@ public class InstrumentsService {
     return Helpers.unaryCall(() -> instrumentsBlockingStub.getBrandBy(GetBrandRequest.newBuilder().setId(uid).build()));
   }
 
+  /**
+   * Получение (асинхронное) фундаментальных показателей по активам.
+   *
+   * @param assetUids идентификаторы активов, не более 100 шт.
+   * @return Фундаментальные показатели.
+   */
+  @Nonnull
+  public CompletableFuture<List<GetAssetFundamentalsResponse.StatisticResponse>> getAssetFundamentals(
+    @Nonnull Iterable<String> assetUids) {
+    return Helpers.<GetAssetFundamentalsResponse>unaryAsyncCall(
+        observer -> instrumentsStub.getAssetFundamentals(
+          GetAssetFundamentalsRequest.newBuilder().addAllAssets(assetUids).build(),
+          observer))
+      .thenApply(GetAssetFundamentalsResponse::getFundamentalsList);
+  }
+
+  /**
+   * Получение (синхронное) фундаментальных показателей по активам.
+   *
+   * @param assetUids идентификаторы активов, не более 100 шт.
+   * @return Фундаментальные показатели.
+   */
+  @Nonnull
+  public List<GetAssetFundamentalsResponse.StatisticResponse> getAssetFundamentalsSync(
+    @Nonnull Iterable<String> assetUids) {
+    return Helpers.unaryCall(() -> instrumentsBlockingStub.getAssetFundamentals(
+        GetAssetFundamentalsRequest.newBuilder().addAllAssets(assetUids).build())
+      .getFundamentalsList());
+  }
+
   /**
    * Регистронезависимый поиск (асинхронный) инструмента по одному из его идентификаторов.
    *
@@ -18,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import ru.tinkoff.piapi.core.stream.MarketDataStreamService;
 import ru.tinkoff.piapi.core.stream.OperationsStreamService;
 import ru.tinkoff.piapi.core.stream.OrdersStreamService;
+import ru.tinkoff.piapi.core.stream.StreamWatchdog;
 import ru.tinkoff.piapi.contract.v1.*;
 
 import javax.annotation.Nonnull;
@@ -65,20 +66,33 @@ public class InvestApi {
   private final SandboxService sandboxService;
   private final boolean readonlyMode;
   private final boolean sandboxMode;
+  private final StreamWatchdog streamWatchdog;
 
   private InvestApi(@Nonnull Channel channel, boolean readonlyMode, boolean sandboxMode) {
+    this(channel, readonlyMode, sandboxMode, null);
+  }
+
+  private InvestApi(@Nonnull Channel channel,
+                    boolean readonlyMode,
+                    boolean sandboxMode,
+                    @Nullable StreamWatchdog streamWatchdog) {
     this.readonlyMode = readonlyMode;
     this.sandboxMode = sandboxMode;
     this.channel = channel;
+    this.streamWatchdog = streamWatchdog;
     this.instrumentsService = new InstrumentsService(
       InstrumentsServiceGrpc.newBlockingStub(channel),
       InstrumentsServiceGrpc.newStub(channel));
     this.marketDataService = new MarketDataService(
       MarketDataServiceGrpc.newBlockingStub(channel),
       MarketDataServiceGrpc.newStub(channel));
-    this.marketDataStreamService = new MarketDataStreamService(MarketDataStreamServiceGrpc.newStub(channel));
-    this.ordersStreamService = new OrdersStreamService(OrdersStreamServiceGrpc.newStub(channel));
-    this.operationsStreamService = new OperationsStreamService(OperationsStreamServiceGrpc.newStub(channel));
+    this.marketDataStreamService = new MarketDataStreamService(
+      MarketDataStreamServiceGrpc.newStub(channel),
+      streamWatchdog);
+    this.ordersStreamService = new OrdersStreamService(OrdersStreamServiceGrpc.newStub(channel), streamWatchdog);
+    this.operationsStreamService = new OperationsStreamService(
+      OperationsStreamServiceGrpc.newStub(channel),
+      streamWatchdog);
     this.userService = new UsersService(
       UsersServiceGrpc.newBlockingStub(channel),
       UsersServiceGrpc.newStub(channel),
@@ -243,6 +257,21 @@ public class InvestApi {
 
   @Nonnull
   public static Channel defaultChannel(String token, String appName, String target) {
+    return defaultChannel(token, appName, target, new ClientInterceptor[0]);
+  }
+
+  /**
+   * Создание GRPC-соединения с дополнительными перехватчиками вызовов,
+   * например для сбора метрик.
+   *
+   * @param token        Токен для торговли.
+   * @param appName      Application name для сбора статистики.
+   * @param target       Адрес API.
+   * @param interceptors Дополнительные перехватчики. Выполняются раньше стандартных.
+   * @return GRPC-соединение.
+   */
+  @Nonnull
+  public static Channel defaultChannel(String token, String appName, String target, ClientInterceptor... interceptors) {
     var headers = new Metadata();
     addAuthHeader(headers, token);
     addAppNameHeader(headers, appName);
@@ -270,6 +299,7 @@ public class InvestApi {
         new LoggingInterceptor(),
         MetadataUtils.newAttachHeadersInterceptor(headers),
         new TimeoutInterceptor(requestTimeout))
+      .intercept(interceptors)
       .withOption(
         ChannelOption.CONNECT_TIMEOUT_MILLIS,
         (int) connectionTimeout.toMillis()) // Намерено сужаем тип - предполагается,
@@ -317,7 +347,20 @@ public class InvestApi {
     var headersWrapper = new HeadersWrapper();
     var metadataCatch = MetadataUtils.newCaptureMetadataInterceptor(headersWrapper.headersRef, headersWrapper.trailersRef);
     var intercepted = ClientInterceptors.intercept(channel, metadataCatch);
-    return api.apply(new InvestApi(intercepted, readonlyMode, sandboxMode), headersWrapper);
+    return api.apply(new InvestApi(intercepted, readonlyMode, sandboxMode, streamWatchdog), headersWrapper);
+  }
+
+  /**
+   * Создание экземпляра API, стримы которого контролирует сторож активности.
+   * Зависшие стримы закрываются, а в их onErrorCallback приходит ошибка
+   * с причиной {@link ru.tinkoff.piapi.core.exception.StreamStaleException}.
+   *
+   * @param watchdog Сторож активности стримов.
+   * @return Экземпляр API с тем же подключением и режимами.
+   */
+  @Nonnull
+  public InvestApi withStreamWatchdog(@Nonnull StreamWatchdog watchdog) {
+    return new InvestApi(channel, readonlyMode, sandboxMode, watchdog);
   }
 
   private static Properties loadProps() {
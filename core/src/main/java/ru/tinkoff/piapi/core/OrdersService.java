@@ -62,6 +62,20 @@ public class OrdersService {
         .build()));
   }
 
+  /**
+   * Выставление (синхронное) заявки по подготовленному запросу.
+   *
+   * @param request запрос выставления заявки. Если идентификатор заявки не задан, он будет сгенерирован
+   * @return        Информация о выставлении поручения
+   */
+  @Nonnull
+  public PostOrderResponse postOrderSync(@Nonnull PostOrderRequest request) {
+    ValidationUtils.checkReadonly(readonlyMode);
+    var finalRequest = withOrderId(request);
+
+    return Helpers.unaryCall(() -> ordersBlockingStub.postOrder(finalRequest));
+  }
+
   /**
    * @param instrumentId    figi / instrument_uid инструмента
    * @param quantity        количество лотов
@@ -235,6 +249,21 @@ public class OrdersService {
         observer));
   }
 
+  /**
+   * Выставление (асинхронное) заявки по подготовленному запросу.
+   *
+   * @param request запрос выставления заявки. Если идентификатор заявки не задан, он будет сгенерирован
+   * @return        Информация о выставлении поручения
+   */
+  @Nonnull
+  public CompletableFuture<PostOrderResponse> postOrder(@Nonnull PostOrderRequest request) {
+    ValidationUtils.checkReadonly(readonlyMode);
+    var finalRequest = withOrderId(request);
+
+    return Helpers.unaryAsyncCall(
+      observer -> ordersStub.postOrder(finalRequest, observer));
+  }
+
   /**
    * @param instrumentId    figi / instrument_uid инструмента
    * @param quantity        количество лотов
@@ -620,4 +649,11 @@ public class OrdersService {
       observer -> ordersStub.postOrderAsync(request.build(), observer));
   }
 
+  private static PostOrderRequest withOrderId(PostOrderRequest request) {
+    var orderId = request.getOrderId().isEmpty() ? UUID.randomUUID().toString() : request.getOrderId();
+    return request.toBuilder()
+      .setOrderId(Helpers.preprocessInputOrderId(orderId))
+      .build();
+  }
+
 }
@@ -0,0 +1,317 @@
+package ru.tinkoff.piapi.core;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientInterceptors;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import ru.tinkoff.piapi.contract.v1.AccessLevel;
+import ru.tinkoff.piapi.contract.v1.Account;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Клиент API из нескольких подключений с разными токенами.
+ * <p>
+ * Ограничения частоты запросов действуют на токен, поэтому запросы на чтение (инструменты, свечи, последние
+ * цены и т.д.) распределяются между подключениями: либо на наименее загруженное по числу выполняющихся
+ * унарных вызовов ({@link #leastLoaded()}), либо по хэшу идентификатора инструмента ({@link #forInstrument(String)}),
+ * чтобы запросы по одному инструменту шли через один токен. Суммарная пропускная способность чтения растёт
+ * с числом токенов.
+ * <p>
+ * Торговые запросы счёта всегда отправляются через подключение, токен которого владеет счётом
+ * ({@link #forAccount(String)}). Владельцы счетов определяются {@link #discoverAccounts()} либо задаются
+ * {@link #registerAccount(String, int)}: если счёт доступен нескольким токенам, предпочтение отдаётся
+ * токену с полным доступом.
+ * <p>
+ * Подключения, созданные {@link #createWithTokens(Collection, String)}, закрываются {@link #destroy(int)}.
+ * Соединения, переданные в {@link #create(Collection)}, закрывает вызывающий код.
+ */
+public class ShardedInvestApi {
+
+  private final InvestApi[] shards;
+  private final LoadInterceptor[] loads;
+  private final List<ManagedChannel> ownedChannels;
+  private final Map<String, Integer> accountShards = new ConcurrentHashMap<>();
+  private final AtomicInteger cursor = new AtomicInteger();
+
+  private ShardedInvestApi(Collection<? extends Channel> channels, List<ManagedChannel> ownedChannels) {
+    if (channels.isEmpty()) {
+      throw new IllegalArgumentException("Нужно указать хотя бы одно подключение");
+    }
+    this.shards = new InvestApi[channels.size()];
+    this.loads = new LoadInterceptor[channels.size()];
+    var i = 0;
+    for (var channel : channels) {
+      loads[i] = new LoadInterceptor();
+      shards[i] = InvestApi.create(ClientInterceptors.intercept(channel, loads[i]));
+      i++;
+    }
+    this.ownedChannels = ownedChannels;
+  }
+
+  /**
+   * Создание клиента из готовых GRPC-соединений, каждое со своим токеном.
+   */
+  @Nonnull
+  public static ShardedInvestApi create(@Nonnull Collection<Channel> channels) {
+    return new ShardedInvestApi(channels, List.of());
+  }
+
+  /**
+   * Создание клиента со стандартными GRPC-соединениями для каждого токена.
+   *
+   * @param appName Application name для сбора статистики либо {@code null}.
+   */
+  @Nonnull
+  public static ShardedInvestApi createWithTokens(@Nonnull Collection<String> tokens, @Nullable String appName) {
+    var channels = new ArrayList<ManagedChannel>(tokens.size());
+    for (var token : tokens) {
+      var channel = appName == null ? InvestApi.defaultChannel(token) : InvestApi.defaultChannel(token, appName);
+      channels.add((ManagedChannel) channel);
+    }
+    return new ShardedInvestApi(channels, List.copyOf(channels));
+  }
+
+  public int getShardCount() {
+    return shards.length;
+  }
+
+  /**
+   * Подключение по номеру. Его канал обёрнут перехватчиком учёта загрузки, поэтому подключения закрываются
+   * не {@link InvestApi#destroy(int)}, а {@link #destroy(int)}.
+   */
+  @Nonnull
+  public InvestApi getShard(int index) {
+    return shards[index];
+  }
+
+  /**
+   * Число выполняющихся унарных вызовов подключения.
+   */
+  public int getInFlight(int index) {
+    return loads[index].inFlight.get();
+  }
+
+  /**
+   * Подключение с наименьшим числом выполняющихся унарных вызовов.
+   * При равной загрузке подключения выбираются по очереди.
+   */
+  @Nonnull
+  public InvestApi leastLoaded() {
+    var start = Math.floorMod(cursor.getAndIncrement(), shards.length);
+    var best = start;
+    var bestLoad = loads[start].inFlight.get();
+    for (int i = 1; i < shards.length && bestLoad > 0; i++) {
+      var index = (start + i) % shards.length;
+      var load = loads[index].inFlight.get();
+      if (load < bestLoad) {
+        best = index;
+        bestLoad = load;
+      }
+    }
+    return shards[best];
+  }
+
+  /**
+   * Подключение, закреплённое за инструментом по хэшу идентификатора.
+   *
+   * @param instrumentId figi / instrument_uid инструмента
+   */
+  @Nonnull
+  public InvestApi forInstrument(@Nonnull String instrumentId) {
+    var hash = instrumentId.hashCode();
+    return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+  }
+
+  /**
+   * Подключение, токен которого владеет счётом.
+   */
+  @Nonnull
+  public InvestApi forAccount(@Nonnull String accountId) {
+    var index = accountShards.get(accountId);
+    if (index == null) {
+      throw new IllegalArgumentException("Счёт " + accountId + " не закреплён ни за одним токеном");
+    }
+    return shards[index];
+  }
+
+  /**
+   * Остановка подключений, созданных {@link #createWithTokens(Collection, String)}.
+   *
+   * @param waitChannelTerminationSec Ожидание завершения каждого канала, сек.
+   */
+  public void destroy(int waitChannelTerminationSec) {
+    ownedChannels.forEach(ManagedChannel::shutdownNow);
+    try {
+      for (var channel : ownedChannels) {
+        channel.awaitTermination(waitChannelTerminationSec, TimeUnit.SECONDS);
+      }
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Закрепление счёта за подключением.
+   */
+  public void registerAccount(@Nonnull String accountId, int index) {
+    if (index < 0 || index >= shards.length) {
+      throw new IllegalArgumentException("Нет подключения с номером " + index);
+    }
+    accountShards.put(accountId, index);
+  }
+
+  /**
+   * Номер подключения, за которым закреплён счёт, либо -1.
+   */
+  public int getAccountShard(@Nonnull String accountId) {
+    return accountShards.getOrDefault(accountId, -1);
+  }
+
+  /**
+   * Определение владельцев счетов (асинхронное) запросом счетов через каждое подключение.
+   */
+  @Nonnull
+  public CompletableFuture<Void> discoverAccounts() {
+    var futures = new ArrayList<CompletableFuture<List<Account>>>(shards.length);
+    for (var shard : shards) {
+      futures.add(shard.getUserService().getAccounts());
+    }
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenRun(() -> {
+      var accounts = new ArrayList<List<Account>>(futures.size());
+      for (var future : futures) {
+        accounts.add(future.join());
+      }
+      registerAccounts(accounts);
+    });
+  }
+
+  /**
+   * Определение владельцев счетов (синхронное) запросом счетов через каждое подключение.
+   */
+  public void discoverAccountsSync() {
+    var accounts = new ArrayList<List<Account>>(shards.length);
+    for (var shard : shards) {
+      accounts.add(shard.getUserService().getAccountsSync());
+    }
+    registerAccounts(accounts);
+  }
+
+  /**
+   * Сервис инструментов наименее загруженного подключения.
+   */
+  @Nonnull
+  public InstrumentsService getInstrumentsService() {
+    return leastLoaded().getInstrumentsService();
+  }
+
+  /**
+   * Сервис котировок наименее загруженного подключения.
+   */
+  @Nonnull
+  public MarketDataService getMarketDataService() {
+    return leastLoaded().getMarketDataService();
+  }
+
+  /**
+   * Сервис котировок подключения, закреплённого за инструментом.
+   */
+  @Nonnull
+  public MarketDataService getMarketDataService(@Nonnull String instrumentId) {
+    return forInstrument(instrumentId).getMarketDataService();
+  }
+
+  /**
+   * Сервис торговых поручений подключения, владеющего счётом.
+   */
+  @Nonnull
+  public OrdersService getOrdersService(@Nonnull String accountId) {
+    return forAccount(accountId).getOrdersService();
+  }
+
+  /**
+   * Сервис стоп-заявок подключения, владеющего счётом.
+   */
+  @Nonnull
+  public StopOrdersService getStopOrdersService(@Nonnull String accountId) {
+    return forAccount(accountId).getStopOrdersService();
+  }
+
+  /**
+   * Сервис операций подключения, владеющего счётом.
+   */
+  @Nonnull
+  public OperationsService getOperationsService(@Nonnull String accountId) {
+    return forAccount(accountId).getOperationsService();
+  }
+
+  private void registerAccounts(List<List<Account>> accounts) {
+    for (int i = 0; i < accounts.size(); i++) {
+      for (var account : accounts.get(i)) {
+        if (account.getAccessLevel() == AccessLevel.ACCOUNT_ACCESS_LEVEL_NO_ACCESS) {
+          continue;
+        }
+        var current = accountShards.get(account.getId());
+        if (current == null || account.getAccessLevel() == AccessLevel.ACCOUNT_ACCESS_LEVEL_FULL_ACCESS
+          && !hasFullAccess(accounts.get(current), account.getId())) {
+          accountShards.put(account.getId(), i);
+        }
+      }
+    }
+  }
+
+  private static boolean hasFullAccess(List<Account> accounts, String accountId) {
+    for (var account : accounts) {
+      if (account.getId().equals(accountId)) {
+        return account.getAccessLevel() == AccessLevel.ACCOUNT_ACCESS_LEVEL_FULL_ACCESS;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Учёт выполняющихся унарных вызовов подключения. Стримы не учитываются: они открыты долго
+   * и не расходуют лимит унарных запросов.
+   */
+  private static final class LoadInterceptor implements ClientInterceptor {
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+      var call = next.newCall(method, callOptions);
+      if (method.getType() != MethodDescriptor.MethodType.UNARY) {
+        return call;
+      }
+      return new ForwardingClientCall.SimpleForwardingClientCall<>(call) {
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+          inFlight.incrementAndGet();
+          super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+            @Override
+            public void onClose(Status status, Metadata trailers) {
+              inFlight.decrementAndGet();
+              super.onClose(status, trailers);
+            }
+          }, headers);
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package ru.tinkoff.piapi.core.cache;
+
+/**
+ * Приблизительный счётчик частоты обращений к ключам (Count-Min Sketch) для политики вытеснения TinyLFU.
+ * <p>
+ * Четыре строки счётчиков до 15, частота ключа — минимум по строкам. После {@code 10 * maximumSize} увеличений
+ * все счётчики уменьшаются вдвое, чтобы старая популярность постепенно забывалась. Не потокобезопасен.
+ */
+final class FrequencySketch {
+
+  private static final int depth = 4;
+  private static final int maxCount = 15;
+  private static final int[] seeds = {0x97cb3127, 0xb8f0f83b, 0xc2b2ae35, 0x85ebca6b};
+
+  private final byte[][] counters;
+  private final int mask;
+  private final int sampleSize;
+  private int additions;
+
+  FrequencySketch(int maximumSize) {
+    var width = Integer.highestOneBit(Math.max(16, maximumSize - 1) << 1);
+    this.counters = new byte[depth][width];
+    this.mask = width - 1;
+    this.sampleSize = 10 * Math.max(16, maximumSize);
+  }
+
+  int frequency(int hash) {
+    var result = maxCount;
+    for (int i = 0; i < depth; i++) {
+      result = Math.min(result, counters[i][index(hash, i)]);
+    }
+    return result;
+  }
+
+  void increment(int hash) {
+    var added = false;
+    for (int i = 0; i < depth; i++) {
+      var row = counters[i];
+      var index = index(hash, i);
+      if (row[index] < maxCount) {
+        row[index]++;
+        added = true;
+      }
+    }
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  private void reset() {
+    for (var row : counters) {
+      for (int i = 0; i < row.length; i++) {
+        row[i] >>= 1;
+      }
+    }
+    additions /= 2;
+  }
+
+  private int index(int hash, int row) {
+    var h = (hash ^ seeds[row]) * seeds[row];
+    return (h ^ (h >>> 16)) & mask;
+  }
+}
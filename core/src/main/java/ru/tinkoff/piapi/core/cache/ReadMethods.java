@@ -0,0 +1,41 @@
+package ru.tinkoff.piapi.core.cache;
+
+import io.grpc.MethodDescriptor;
+
+import javax.annotation.Nullable;
+import java.util.Set;
+
+/**
+ * Определение методов API, которые только читают данные.
+ * <p>
+ * Используется белый список по именам методов: новые методы, не похожие на чтение, считаются изменяющими
+ * и не объединяются и не кэшируются.
+ */
+final class ReadMethods {
+
+  private static final Set<String> listings = Set.of(
+    "Shares", "Bonds", "Etfs", "Futures", "Options", "Currencies", "Indicatives", "TradingSchedules");
+
+  private ReadMethods() {
+  }
+
+  /**
+   * Унарный метод чтения: {@code Get*}, {@code Find*}, {@code *By} и списки инструментов.
+   */
+  static boolean isRead(MethodDescriptor<?, ?> method) {
+    if (method.getType() != MethodDescriptor.MethodType.UNARY) {
+      return false;
+    }
+    return isRead(method.getBareMethodName());
+  }
+
+  /**
+   * Имя метода без имени сервиса похоже на метод чтения.
+   */
+  static boolean isRead(@Nullable String name) {
+    if (name == null) {
+      return false;
+    }
+    return name.startsWith("Get") || name.startsWith("Find") || name.endsWith("By") || listings.contains(name);
+  }
+}
@@ -0,0 +1,347 @@
+package ru.tinkoff.piapi.core.cache;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Перехватчик, объединяющий одновременные одинаковые запросы на чтение в один вызов API.
+ * <p>
+ * Ключ запроса — подключение, полное имя метода и сериализованное сообщение запроса, поэтому запросы соединений
+ * с разными токенами не объединяются. Если вызов с таким ключом уже выполняется, новый вызов не отправляется,
+ * а ожидает ответа выполняющегося: все ожидающие получают один и тот же объект ответа либо одну и ту же ошибку.
+ * После завершения вызова ключ освобождается, поэтому следующий запрос снова идёт в API. Полезно в моменты
+ * массовых одинаковых запросов, например при открытии торгов.
+ * <p>
+ * Объединяются только унарные методы чтения ({@code Get*}, {@code Find*}, {@code *By}, списки инструментов).
+ * Выставление, замена и отмена заявок, операции песочницы и прочие изменяющие методы всегда выполняются
+ * отдельными вызовами. Отмена одного из ожидающих не отменяет вызов, пока его ждут остальные.
+ * <p>
+ * Общий вызов отправляется с метаданными первого запроса, а заголовки ответа, в том числе {@code x-tracking-id},
+ * у всех ожидающих общие. Срок ({@link CallOptions#getDeadline()}) в общий вызов не передаётся,
+ * а соблюдается для каждого запроса отдельно: по его истечении запрос завершается статусом
+ * {@code DEADLINE_EXCEEDED} и перестаёт ждать общий вызов, который продолжается для остальных.
+ * <p>
+ * Подключается через
+ * {@link ru.tinkoff.piapi.core.InvestApi#defaultChannel(String, String, String, ClientInterceptor...)}.
+ */
+public class RequestCollapsingInterceptor implements ClientInterceptor {
+
+  private static final Logger logger = LoggerFactory.getLogger(RequestCollapsingInterceptor.class);
+  private static final Executor directExecutor = Runnable::run;
+  private static final ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    var thread = new Thread(runnable, "request-collapsing-deadline");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final Map<RequestKey, Flight<?, ?>> flights = new ConcurrentHashMap<>();
+  private final AtomicLong calls = new AtomicLong();
+  private final AtomicLong collapsed = new AtomicLong();
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+    MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    if (!ReadMethods.isRead(method)) {
+      return next.newCall(method, callOptions);
+    }
+    return new CollapsingCall<>(method, callOptions, next);
+  }
+
+  /**
+   * Число запросов на чтение, прошедших через перехватчик.
+   */
+  public long getCallCount() {
+    return calls.get();
+  }
+
+  /**
+   * Число запросов, присоединённых к уже выполняющемуся вызову.
+   */
+  public long getCollapsedCount() {
+    return collapsed.get();
+  }
+
+  /**
+   * Число выполняющихся общих вызовов.
+   */
+  public int getInFlightCount() {
+    return flights.size();
+  }
+
+  private final class CollapsingCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+    private final MethodDescriptor<ReqT, RespT> method;
+    private final CallOptions callOptions;
+    private final Channel next;
+    private Listener<RespT> listener;
+    private Metadata headers;
+    private ReqT message;
+    private Subscriber<RespT> subscriber;
+    private Flight<ReqT, RespT> flight;
+    private boolean cancelled;
+
+    CollapsingCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+      this.method = method;
+      this.callOptions = callOptions;
+      this.next = next;
+    }
+
+    @Override
+    public void start(Listener<RespT> responseListener, Metadata headers) {
+      this.listener = responseListener;
+      this.headers = headers;
+    }
+
+    @Override
+    public void request(int numMessages) {
+      // Ответ унарного вызова доставляется целиком после завершения общего вызова.
+    }
+
+    @Override
+    public void sendMessage(ReqT message) {
+      this.message = message;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void halfClose() {
+      synchronized (this) {
+        if (cancelled) {
+          return;
+        }
+        var executor = callOptions.getExecutor();
+        subscriber = new Subscriber<>(listener, executor == null ? directExecutor : executor);
+      }
+      calls.incrementAndGet();
+      // Общий вызов выполняется на исполнителе канала и без срока: первый запрос может завершиться
+      // раньше остальных.
+      var sharedOptions = callOptions.withExecutor(null).withDeadline(null);
+      if (!(message instanceof MessageLite)) {
+        flight = new Flight<>(null, subscriber, next.newCall(method, sharedOptions));
+        watchDeadline();
+        flight.start(headers, message);
+        return;
+      }
+      var key = new RequestKey(next, headers, method.getFullMethodName(), ((MessageLite) message).toByteString());
+      while (true) {
+        var existing = (Flight<ReqT, RespT>) flights.get(key);
+        if (existing == null) {
+          var created = new Flight<>(key, subscriber, next.newCall(method, sharedOptions));
+          if (flights.putIfAbsent(key, created) == null) {
+            flight = created;
+            watchDeadline();
+            created.start(headers, message);
+            return;
+          }
+        } else if (existing.join(subscriber)) {
+          collapsed.incrementAndGet();
+          flight = existing;
+          watchDeadline();
+          return;
+        }
+      }
+    }
+
+    private void watchDeadline() {
+      var deadline = callOptions.getDeadline();
+      if (deadline == null) {
+        return;
+      }
+      var target = subscriber;
+      var joined = flight;
+      target.timeout = deadline.runOnExpiration(() -> {
+        if (joined.leave(target)) {
+          var status = Status.DEADLINE_EXCEEDED.withDescription("Истёк срок ожидания ответа: " + deadline);
+          target.deliver(null, null, status, new Metadata());
+        }
+      }, deadlines);
+    }
+
+    @Override
+    public void cancel(@Nullable String message, @Nullable Throwable cause) {
+      Subscriber<RespT> target;
+      synchronized (this) {
+        if (cancelled) {
+          return;
+        }
+        cancelled = true;
+        target = subscriber;
+      }
+      var status = Status.CANCELLED.withDescription(message == null ? "Вызов отменён" : message).withCause(cause);
+      if (target == null) {
+        if (listener != null) {
+          new Subscriber<>(listener, directExecutor).deliver(null, null, status, new Metadata());
+        }
+      } else if (flight != null && flight.leave(target)) {
+        target.deliver(null, null, status, new Metadata());
+      }
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setMessageCompression(boolean enabled) {
+    }
+
+    @Override
+    public Attributes getAttributes() {
+      return Attributes.EMPTY;
+    }
+  }
+
+  /**
+   * Выполняющийся общий вызов и ожидающие его запросы.
+   */
+  private final class Flight<ReqT, RespT> extends ClientCall.Listener<RespT> {
+    private final RequestKey key;
+    private final ClientCall<ReqT, RespT> call;
+    private final List<Subscriber<RespT>> subscribers = new ArrayList<>(2);
+    private boolean done;
+    private Metadata headers;
+    private RespT response;
+
+    Flight(@Nullable RequestKey key, Subscriber<RespT> subscriber, ClientCall<ReqT, RespT> call) {
+      this.key = key;
+      this.call = call;
+      this.subscribers.add(subscriber);
+    }
+
+    void start(Metadata headers, ReqT message) {
+      try {
+        call.start(this, headers);
+        call.request(2);
+        call.sendMessage(message);
+        call.halfClose();
+      } catch (RuntimeException e) {
+        call.cancel(null, e);
+        complete(Status.fromThrowable(e), new Metadata());
+      }
+    }
+
+    synchronized boolean join(Subscriber<RespT> subscriber) {
+      if (done) {
+        return false;
+      }
+      subscribers.add(subscriber);
+      return true;
+    }
+
+    /**
+     * @return {@code false}, если ответ уже доставлен или доставляется.
+     */
+    boolean leave(Subscriber<RespT> subscriber) {
+      synchronized (this) {
+        if (done || !subscribers.remove(subscriber)) {
+          return false;
+        }
+        if (!subscribers.isEmpty()) {
+          return true;
+        }
+        done = true;
+      }
+      unregister();
+      call.cancel("Все ожидающие запросы отменены", null);
+      return true;
+    }
+
+    @Override
+    public void onHeaders(Metadata headers) {
+      this.headers = headers;
+    }
+
+    @Override
+    public void onMessage(RespT message) {
+      this.response = message;
+    }
+
+    @Override
+    public void onClose(Status status, Metadata trailers) {
+      complete(status, trailers);
+    }
+
+    private void complete(Status status, Metadata trailers) {
+      unregister();
+      List<Subscriber<RespT>> targets;
+      synchronized (this) {
+        if (done) {
+          return;
+        }
+        done = true;
+        targets = new ArrayList<>(subscribers);
+        subscribers.clear();
+      }
+      for (var target : targets) {
+        target.deliver(headers, response, status, trailers);
+      }
+    }
+
+    private void unregister() {
+      if (key != null) {
+        flights.remove(key, this);
+      }
+    }
+  }
+
+  private static final class Subscriber<RespT> {
+    private final ClientCall.Listener<RespT> listener;
+    private final Executor executor;
+    @Nullable
+    private volatile ScheduledFuture<?> timeout;
+
+    Subscriber(ClientCall.Listener<RespT> listener, Executor executor) {
+      this.listener = listener;
+      this.executor = executor;
+    }
+
+    /**
+     * Доставка результата одной задачей на исполнителе запроса, чтобы сохранить порядок событий.
+     */
+    void deliver(@Nullable Metadata headers, @Nullable RespT response, Status status, Metadata trailers) {
+      var scheduled = timeout;
+      if (scheduled != null) {
+        scheduled.cancel(false);
+      }
+      executor.execute(() -> {
+        try {
+          if (headers != null) {
+            listener.onHeaders(copy(headers));
+          }
+          if (response != null) {
+            listener.onMessage(response);
+          }
+          listener.onClose(status, copy(trailers));
+        } catch (RuntimeException e) {
+          logger.warn("Ошибка при доставке ответа объединённого запроса", e);
+        }
+      });
+    }
+
+    private static Metadata copy(Metadata metadata) {
+      var copy = new Metadata();
+      copy.merge(metadata);
+      return copy;
+    }
+  }
+}
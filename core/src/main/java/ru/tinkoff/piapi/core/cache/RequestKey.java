@@ -0,0 +1,55 @@
+package ru.tinkoff.piapi.core.cache;
+
+import com.google.protobuf.ByteString;
+import io.grpc.Channel;
+import io.grpc.Metadata;
+
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+/**
+ * Ключ запроса: подключение, от имени которого выполняется запрос, полное имя метода и сериализованное
+ * сообщение запроса.
+ * <p>
+ * Подключение определяется каналом, в который перехватчик передаёт вызов, и заголовком {@code Authorization},
+ * если он добавлен до перехватчика. Поэтому перехватчик, общий для соединений с разными токенами, не отдаёт
+ * ответ одного токена запросам другого: у каждого соединения {@code InvestApi.defaultChannel} свой канал.
+ */
+final class RequestKey {
+  private static final Metadata.Key<String> authorization =
+    Metadata.Key.of("Authorization", Metadata.ASCII_STRING_MARSHALLER);
+
+  private final Channel channel;
+  @Nullable
+  private final String credentials;
+  private final String method;
+  private final ByteString request;
+  private final int hash;
+
+  RequestKey(Channel channel, @Nullable Metadata headers, String method, ByteString request) {
+    this.channel = channel;
+    this.credentials = headers == null ? null : headers.get(authorization);
+    this.method = method;
+    this.request = request;
+    this.hash = 31 * (31 * (31 * System.identityHashCode(channel) + Objects.hashCode(credentials))
+      + method.hashCode()) + request.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof RequestKey)) {
+      return false;
+    }
+    var other = (RequestKey) o;
+    return hash == other.hash && channel == other.channel && Objects.equals(credentials, other.credentials)
+      && method.equals(other.method) && request.equals(other.request);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+}
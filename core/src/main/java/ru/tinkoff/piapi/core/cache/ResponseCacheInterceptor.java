@@ -0,0 +1,508 @@
+package ru.tinkoff.piapi.core.cache;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientInterceptors;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.tinkoff.piapi.contract.v1.InstrumentsServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.UsersServiceGrpc;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Перехватчик, кэширующий ответы справочных методов чтения с ограниченным временем жизни.
+ * <p>
+ * Время жизни задаётся для каждого метода по полному имени, например
+ * {@code InstrumentsServiceGrpc.getGetCountriesMethod().getFullMethodName()}; набор для редко меняющихся
+ * справочников возвращает {@link #referenceTtls()}. Остальные методы проходят мимо кэша, изменяющие методы
+ * кэшировать нельзя. Ключ записи — подключение, полное имя метода и сериализованное сообщение запроса:
+ * перехватчик можно разделять между соединениями с разными токенами, ответы одного токена не отдаются запросам
+ * другого. Кэшируются только успешные ответы; закэшированный ответ отдаётся без заголовков ответа сервера.
+ * <p>
+ * После истечения времени жизни запись ещё {@code staleWhileRevalidate} отдаётся как устаревшая, а в фоне
+ * выполняется один запрос обновления. Если обновление не удалось, следующее обращение к устаревшей записи
+ * запускает его снова. Позже запись считается отсутствующей.
+ * <p>
+ * Размер кэша ограничен числом записей. Вытеснение в стиле W-TinyLFU: новые записи попадают в небольшое окно LRU,
+ * вытесняемая из окна запись попадает в основную область только если обращались к ней чаще, чем к кандидату
+ * на вытеснение оттуда. Частота оценивается приблизительным счётчиком {@link FrequencySketch}. Основная область
+ * разделена на пробную и защищённую части: повторное обращение переводит запись в защищённую.
+ * <p>
+ * Статистика попаданий и промахов доступна через {@link #getHitCount()}, {@link #getStaleHitCount()},
+ * {@link #getMissCount()} и {@link #getHitRate()}. Перехватчик потокобезопасен. Подключается через
+ * {@link ru.tinkoff.piapi.core.InvestApi#defaultChannel(String, String, String, ClientInterceptor...)}.
+ */
+public class ResponseCacheInterceptor implements ClientInterceptor {
+
+  private static final Logger logger = LoggerFactory.getLogger(ResponseCacheInterceptor.class);
+  private static final Executor directExecutor = Runnable::run;
+  private static final int windowSegment = 0;
+  private static final int probationSegment = 1;
+  private static final int protectedSegment = 2;
+
+  private final Map<String, Long> ttlMillis = new HashMap<>();
+  private final long staleMillis;
+  private final Clock clock;
+  private final int windowMaxSize;
+  private final int mainMaxSize;
+  private final int protectedMaxSize;
+  private final FrequencySketch sketch;
+  private final Map<RequestKey, Entry> entries = new HashMap<>();
+  private final LinkedHashMap<RequestKey, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<RequestKey, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<RequestKey, Entry> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong staleHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong refreshes = new AtomicLong();
+
+  /**
+   * @param maximumSize          Наибольшее число записей.
+   * @param ttls                 Время жизни ответов по полным именам методов.
+   * @param staleWhileRevalidate Время после истечения записи, в течение которого она отдаётся с фоновым
+   *                             обновлением. {@link Duration#ZERO} отключает фоновое обновление.
+   */
+  public ResponseCacheInterceptor(int maximumSize,
+                                  @Nonnull Map<String, Duration> ttls,
+                                  @Nonnull Duration staleWhileRevalidate) {
+    this(maximumSize, ttls, staleWhileRevalidate, Clock.systemUTC());
+  }
+
+  ResponseCacheInterceptor(int maximumSize,
+                           @Nonnull Map<String, Duration> ttls,
+                           @Nonnull Duration staleWhileRevalidate,
+                           @Nonnull Clock clock) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("Размер кэша должен быть положительным");
+    }
+    if (staleWhileRevalidate.isNegative()) {
+      throw new IllegalArgumentException("Время фонового обновления не может быть отрицательным");
+    }
+    for (var ttl : ttls.entrySet()) {
+      var method = ttl.getKey();
+      if (!ReadMethods.isRead(method.substring(method.lastIndexOf('/') + 1))) {
+        throw new IllegalArgumentException("Метод " + method + " не является методом чтения");
+      }
+      if (ttl.getValue().isNegative() || ttl.getValue().isZero()) {
+        throw new IllegalArgumentException("Время жизни ответов метода " + method + " должно быть положительным");
+      }
+      ttlMillis.put(method, ttl.getValue().toMillis());
+    }
+    this.staleMillis = staleWhileRevalidate.toMillis();
+    this.clock = clock;
+    this.windowMaxSize = Math.max(1, maximumSize / 100);
+    this.mainMaxSize = maximumSize - windowMaxSize;
+    this.protectedMaxSize = mainMaxSize * 4 / 5;
+    this.sketch = new FrequencySketch(maximumSize);
+  }
+
+  /**
+   * Время жизни ответов справочных методов, которые меняются редко: купоны, дивиденды, страны, бренды,
+   * гарантийное обеспечение фьючерсов и счета пользователя.
+   */
+  @Nonnull
+  public static Map<String, Duration> referenceTtls() {
+    return Map.of(
+      InstrumentsServiceGrpc.getGetBondCouponsMethod().getFullMethodName(), Duration.ofHours(1),
+      InstrumentsServiceGrpc.getGetDividendsMethod().getFullMethodName(), Duration.ofHours(1),
+      InstrumentsServiceGrpc.getGetCountriesMethod().getFullMethodName(), Duration.ofDays(1),
+      InstrumentsServiceGrpc.getGetBrandsMethod().getFullMethodName(), Duration.ofHours(1),
+      InstrumentsServiceGrpc.getGetFuturesMarginMethod().getFullMethodName(), Duration.ofMinutes(1),
+      UsersServiceGrpc.getGetAccountsMethod().getFullMethodName(), Duration.ofMinutes(5));
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+    MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    var ttl = ttlMillis.get(method.getFullMethodName());
+    if (ttl == null || !ReadMethods.isRead(method)) {
+      return next.newCall(method, callOptions);
+    }
+    return new CachingCall<>(method, callOptions, next, ttl);
+  }
+
+  /**
+   * Число ответов, отданных из кэша до истечения времени жизни.
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Число устаревших ответов, отданных из кэша во время фонового обновления.
+   */
+  public long getStaleHitCount() {
+    return staleHits.get();
+  }
+
+  /**
+   * Число запросов, отправленных в API из-за отсутствия записи.
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Число записей, вытесненных или не допущенных в кэш из-за ограничения размера.
+   */
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  /**
+   * Число запущенных фоновых обновлений.
+   */
+  public long getRefreshCount() {
+    return refreshes.get();
+  }
+
+  /**
+   * Доля запросов, обслуженных кэшем, либо 0, если запросов не было.
+   */
+  public double getHitRate() {
+    var served = hits.get() + staleHits.get();
+    var total = served + misses.get();
+    return total == 0 ? 0 : (double) served / total;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Удаление всех записей. Статистика не сбрасывается.
+   */
+  public synchronized void invalidateAll() {
+    entries.clear();
+    window.clear();
+    probation.clear();
+    protectedEntries.clear();
+  }
+
+  /**
+   * Запись для отдачи из кэша (свежая или устаревшая) либо {@code null}.
+   */
+  @Nullable
+  private synchronized Entry lookup(RequestKey key, long now) {
+    sketch.increment(key.hashCode());
+    var entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (now >= entry.staleUntil) {
+      remove(entry);
+      return null;
+    }
+    touch(entry);
+    return entry;
+  }
+
+  private synchronized void store(RequestKey key, Object value, long ttl) {
+    var now = clock.millis();
+    var entry = entries.get(key);
+    if (entry != null) {
+      entry.update(value, now + ttl, now + ttl + staleMillis);
+      touch(entry);
+      return;
+    }
+    entry = new Entry(key);
+    entry.update(value, now + ttl, now + ttl + staleMillis);
+    entries.put(key, entry);
+    window.put(key, entry);
+    if (window.size() > windowMaxSize) {
+      var candidate = eldest(window);
+      window.remove(candidate.key);
+      admit(candidate, now);
+    }
+  }
+
+  /**
+   * Перевод записи из окна в основную область, если к ней обращались чаще, чем к вытесняемой оттуда.
+   */
+  private void admit(Entry candidate, long now) {
+    if (probation.size() + protectedEntries.size() < mainMaxSize) {
+      candidate.segment = probationSegment;
+      probation.put(candidate.key, candidate);
+      return;
+    }
+    evictions.incrementAndGet();
+    var victim = eldest(probation.isEmpty() ? protectedEntries : probation);
+    if (victim == null || now < victim.staleUntil
+      && sketch.frequency(candidate.key.hashCode()) <= sketch.frequency(victim.key.hashCode())) {
+      entries.remove(candidate.key);
+      return;
+    }
+    remove(victim);
+    candidate.segment = probationSegment;
+    probation.put(candidate.key, candidate);
+  }
+
+  private void touch(Entry entry) {
+    switch (entry.segment) {
+      case windowSegment:
+        window.get(entry.key);
+        break;
+      case probationSegment:
+        probation.remove(entry.key);
+        entry.segment = protectedSegment;
+        protectedEntries.put(entry.key, entry);
+        if (protectedEntries.size() > protectedMaxSize) {
+          var demoted = eldest(protectedEntries);
+          protectedEntries.remove(demoted.key);
+          demoted.segment = probationSegment;
+          probation.put(demoted.key, demoted);
+        }
+        break;
+      default:
+        protectedEntries.get(entry.key);
+    }
+  }
+
+  private void remove(Entry entry) {
+    entries.remove(entry.key);
+    switch (entry.segment) {
+      case windowSegment:
+        window.remove(entry.key);
+        break;
+      case probationSegment:
+        probation.remove(entry.key);
+        break;
+      default:
+        protectedEntries.remove(entry.key);
+    }
+  }
+
+  @Nullable
+  private static Entry eldest(LinkedHashMap<RequestKey, Entry> segment) {
+    var iterator = segment.values().iterator();
+    return iterator.hasNext() ? iterator.next() : null;
+  }
+
+  private <ReqT, RespT> void refresh(RequestKey key, Entry entry, long ttl, MethodDescriptor<ReqT, RespT> method,
+                                     CallOptions callOptions, Channel next, Metadata headers, ReqT request) {
+    refreshes.incrementAndGet();
+    // Обновление отправляется с заголовками запроса, который его запустил, чтобы выполниться от того же имени.
+    var copy = new Metadata();
+    copy.merge(headers);
+    var call = ClientInterceptors.intercept(next, MetadataUtils.newAttachHeadersInterceptor(copy))
+      .newCall(method, callOptions.withExecutor(null));
+    try {
+      ClientCalls.asyncUnaryCall(call, request, new StreamObserver<>() {
+        private RespT response;
+
+        @Override
+        public void onNext(RespT value) {
+          response = value;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+          logger.warn("Не удалось обновить кэшированный ответ метода {}", method.getFullMethodName(), t);
+          entry.refreshing.set(false);
+        }
+
+        @Override
+        public void onCompleted() {
+          if (response != null) {
+            store(key, response, ttl);
+          }
+          entry.refreshing.set(false);
+        }
+      });
+    } catch (RuntimeException e) {
+      logger.warn("Не удалось обновить кэшированный ответ метода {}", method.getFullMethodName(), e);
+      entry.refreshing.set(false);
+    }
+  }
+
+  private final class CachingCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+    private final MethodDescriptor<ReqT, RespT> method;
+    private final CallOptions callOptions;
+    private final Channel next;
+    private final long ttl;
+    private Listener<RespT> listener;
+    private Metadata headers;
+    private ReqT message;
+    private int requested;
+    private volatile ClientCall<ReqT, RespT> delegate;
+    private volatile boolean closed;
+
+    CachingCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next, long ttl) {
+      this.method = method;
+      this.callOptions = callOptions;
+      this.next = next;
+      this.ttl = ttl;
+    }
+
+    @Override
+    public void start(Listener<RespT> responseListener, Metadata headers) {
+      this.listener = responseListener;
+      this.headers = headers;
+    }
+
+    @Override
+    public void request(int numMessages) {
+      var call = delegate;
+      if (call != null) {
+        call.request(numMessages);
+      } else {
+        requested += numMessages;
+      }
+    }
+
+    @Override
+    public void sendMessage(ReqT message) {
+      this.message = message;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void halfClose() {
+      if (closed) {
+        return;
+      }
+      if (!(message instanceof MessageLite)) {
+        forward(listener);
+        return;
+      }
+      var key = new RequestKey(next, headers, method.getFullMethodName(), ((MessageLite) message).toByteString());
+      var now = clock.millis();
+      var entry = lookup(key, now);
+      if (entry == null) {
+        misses.incrementAndGet();
+        forward(new StoringListener<>(listener, key, ttl));
+        return;
+      }
+      var value = (RespT) entry.value;
+      if (now < entry.freshUntil) {
+        hits.incrementAndGet();
+      } else {
+        staleHits.incrementAndGet();
+        if (entry.refreshing.compareAndSet(false, true)) {
+          refresh(key, entry, ttl, method, callOptions, next, headers, message);
+        }
+      }
+      closed = true;
+      var executor = callOptions.getExecutor();
+      (executor == null ? directExecutor : executor).execute(() -> {
+        listener.onHeaders(new Metadata());
+        listener.onMessage(value);
+        listener.onClose(Status.OK, new Metadata());
+      });
+    }
+
+    @Override
+    public void cancel(@Nullable String message, @Nullable Throwable cause) {
+      var call = delegate;
+      if (call != null) {
+        call.cancel(message, cause);
+        return;
+      }
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (listener != null) {
+        listener.onClose(
+          Status.CANCELLED.withDescription(message == null ? "Вызов отменён" : message).withCause(cause),
+          new Metadata());
+      }
+    }
+
+    @Override
+    public boolean isReady() {
+      var call = delegate;
+      return call == null || call.isReady();
+    }
+
+    @Override
+    public void setMessageCompression(boolean enabled) {
+    }
+
+    @Override
+    public Attributes getAttributes() {
+      var call = delegate;
+      return call == null ? Attributes.EMPTY : call.getAttributes();
+    }
+
+    private void forward(Listener<RespT> responseListener) {
+      var call = next.newCall(method, callOptions);
+      delegate = call;
+      call.start(responseListener, headers);
+      if (requested > 0) {
+        call.request(requested);
+      }
+      call.sendMessage(message);
+      call.halfClose();
+    }
+  }
+
+  private final class StoringListener<RespT>
+    extends ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT> {
+
+    private final RequestKey key;
+    private final long ttl;
+    private RespT response;
+
+    StoringListener(ClientCall.Listener<RespT> listener, RequestKey key, long ttl) {
+      super(listener);
+      this.key = key;
+      this.ttl = ttl;
+    }
+
+    @Override
+    public void onMessage(RespT message) {
+      response = message;
+      super.onMessage(message);
+    }
+
+    @Override
+    public void onClose(Status status, Metadata trailers) {
+      if (status.isOk() && response != null) {
+        store(key, response, ttl);
+      }
+      super.onClose(status, trailers);
+    }
+  }
+
+  private static final class Entry {
+    private final RequestKey key;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Object value;
+    private volatile long freshUntil;
+    private volatile long staleUntil;
+    private int segment = windowSegment;
+
+    Entry(RequestKey key) {
+      this.key = key;
+    }
+
+    void update(Object value, long freshUntil, long staleUntil) {
+      this.value = value;
+      this.freshUntil = freshUntil;
+      this.staleUntil = staleUntil;
+    }
+  }
+}
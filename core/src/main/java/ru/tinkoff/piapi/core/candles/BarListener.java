@@ -0,0 +1,19 @@
+package ru.tinkoff.piapi.core.candles;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Обработчик изменений баров.
+ */
+@FunctionalInterface
+public interface BarListener {
+
+  /**
+   * Вызывается при каждом изменении формирующегося бара и при закрытии бара.
+   * Значения бара доступны в {@code series} по индексу 0 до следующего обновления.
+   *
+   * @param series Ряд баров инструмента.
+   * @param closed {@code true}, если бар закрыт и больше не изменится.
+   */
+  void onBar(@Nonnull BarSeries series, boolean closed);
+}
@@ -0,0 +1,209 @@
+package ru.tinkoff.piapi.core.candles;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Ряд баров одного инструмента в кольцевом буфере фиксированной ёмкости.
+ * <p>
+ * Цены хранятся в виде целого количества нано-единиц валюты ({@code units * 10^9 + nano}), см.
+ * {@link ru.tinkoff.piapi.core.utils.MapperUtils#nanosToBigDecimal(long)}. Объём — в лотах.
+ * Бары адресуются смещением от последнего: 0 — последний (возможно, ещё формирующийся) бар,
+ * 1 — предыдущий и так далее до {@code size() - 1}.
+ * <p>
+ * Экземпляр изменяется агрегатором и не является потокобезопасным: читать значения следует
+ * в {@link BarListener} или в том же потоке, который передаёт данные в {@link CandleAggregator}.
+ */
+public final class BarSeries {
+
+  private static final long NO_MINUTE = Long.MIN_VALUE;
+
+  private final String instrumentId;
+  private final BarSpec spec;
+  private final int capacity;
+  private final long[] time;
+  private final long[] open;
+  private final long[] high;
+  private final long[] low;
+  private final long[] close;
+  private final long[] volume;
+  private final int[] count;
+  private int head = -1;
+  private int size;
+  private boolean lastClosed;
+
+  /**
+   * Состояние временного бара, собираемого из минутных свечей: минута последней свечи
+   * и итог по предыдущим минутам бара. Минутная свеча приходит многократно по мере сделок,
+   * поэтому бар пересчитывается как итог предыдущих минут плюс последнее состояние текущей.
+   */
+  private long minute = NO_MINUTE;
+  private long baseHigh;
+  private long baseLow;
+  private long baseVolume;
+  private int baseCount;
+
+  BarSeries(String instrumentId, BarSpec spec, int capacity) {
+    this.instrumentId = instrumentId;
+    this.spec = spec;
+    this.capacity = capacity;
+    this.time = new long[capacity];
+    this.open = new long[capacity];
+    this.high = new long[capacity];
+    this.low = new long[capacity];
+    this.close = new long[capacity];
+    this.volume = new long[capacity];
+    this.count = new int[capacity];
+  }
+
+  /**
+   * Идентификатор инструмента: instrument_uid либо figi, если uid не передан.
+   */
+  @Nonnull
+  public String getInstrumentId() {
+    return instrumentId;
+  }
+
+  @Nonnull
+  public BarSpec getSpec() {
+    return spec;
+  }
+
+  /**
+   * Количество баров в буфере, не больше ёмкости.
+   */
+  public int size() {
+    return size;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Признак того, что последний бар закрыт.
+   */
+  public boolean isLastClosed() {
+    return lastClosed;
+  }
+
+  /**
+   * Время начала бара в миллисекундах от epoch. Для баров по объёму и количеству — время первой сделки или свечи.
+   */
+  public long time(int ago) {
+    return time[index(ago)];
+  }
+
+  public long open(int ago) {
+    return open[index(ago)];
+  }
+
+  public long high(int ago) {
+    return high[index(ago)];
+  }
+
+  public long low(int ago) {
+    return low[index(ago)];
+  }
+
+  public long close(int ago) {
+    return close[index(ago)];
+  }
+
+  /**
+   * Объём бара в лотах.
+   */
+  public long volume(int ago) {
+    return volume[index(ago)];
+  }
+
+  /**
+   * Количество сделок или минутных свечей, вошедших в бар.
+   */
+  public int count(int ago) {
+    return count[index(ago)];
+  }
+
+  private int index(int ago) {
+    if (ago < 0 || ago >= size) {
+      throw new IndexOutOfBoundsException("Бар " + ago + " отсутствует, в ряду " + size + " баров");
+    }
+    var i = head - ago;
+    return i < 0 ? i + capacity : i;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  void markClosed() {
+    lastClosed = true;
+  }
+
+  /**
+   * Начало нового бара. Самый старый бар вытесняется, если буфер заполнен.
+   */
+  void push(long barTime, long openPrice) {
+    head = head + 1 == capacity ? 0 : head + 1;
+    if (size < capacity) {
+      size++;
+    }
+    time[head] = barTime;
+    open[head] = openPrice;
+    high[head] = openPrice;
+    low[head] = openPrice;
+    close[head] = openPrice;
+    volume[head] = 0;
+    count[head] = 0;
+    lastClosed = false;
+    minute = NO_MINUTE;
+    baseVolume = 0;
+    baseCount = 0;
+  }
+
+  /**
+   * Добавление завершённого обновления: сделки или закрытой минутной свечи.
+   */
+  void add(long highPrice, long lowPrice, long closePrice, long lots) {
+    if (highPrice > high[head]) {
+      high[head] = highPrice;
+    }
+    if (lowPrice < low[head]) {
+      low[head] = lowPrice;
+    }
+    close[head] = closePrice;
+    volume[head] += lots;
+    count[head]++;
+  }
+
+  /**
+   * Применение очередного состояния минутной свечи к временному бару.
+   *
+   * @return {@code false}, если свеча относится к уже учтённой более ранней минуте.
+   */
+  boolean applyMinute(long candleMinute, long o, long h, long l, long c, long v) {
+    if (candleMinute < minute) {
+      return false;
+    }
+    if (candleMinute != minute) {
+      if (minute != NO_MINUTE) {
+        baseHigh = high[head];
+        baseLow = low[head];
+        baseVolume = volume[head];
+        baseCount = count[head];
+      }
+      minute = candleMinute;
+    }
+    if (baseCount == 0) {
+      open[head] = o;
+      high[head] = h;
+      low[head] = l;
+    } else {
+      high[head] = Math.max(baseHigh, h);
+      low[head] = Math.min(baseLow, l);
+    }
+    close[head] = c;
+    volume[head] = baseVolume + v;
+    count[head] = baseCount + 1;
+    return true;
+  }
+}
@@ -0,0 +1,103 @@
+package ru.tinkoff.piapi.core.candles;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+/**
+ * Параметры баров: по времени, по объёму или по количеству обновлений.
+ */
+@Getter
+@EqualsAndHashCode
+public final class BarSpec {
+
+  public enum Type {
+    /**
+     * Бар закрывается по окончании интервала времени.
+     */
+    TIME,
+    /**
+     * Бар закрывается, когда суммарный объём в лотах достигает порога.
+     */
+    VOLUME,
+    /**
+     * Бар закрывается после заданного количества сделок или свечей.
+     */
+    TICKS
+  }
+
+  private final Type type;
+  /**
+   * Длительность бара в миллисекундах, порог объёма в лотах либо количество обновлений.
+   */
+  private final long size;
+  /**
+   * Смещение границ временных баров относительно начала эпохи в миллисекундах.
+   */
+  private final long offsetMillis;
+
+  private BarSpec(Type type, long size, long offsetMillis) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Размер бара должен быть положительным: " + size);
+    }
+    this.type = type;
+    this.size = size;
+    this.offsetMillis = offsetMillis;
+  }
+
+  /**
+   * Бары по времени, выровненные по UTC.
+   *
+   * @param period Длительность бара.
+   */
+  @Nonnull
+  public static BarSpec time(@Nonnull Duration period) {
+    return time(period, Duration.ZERO);
+  }
+
+  /**
+   * Бары по времени со смещёнными границами. Например, дневные бары по московскому времени:
+   * {@code time(Duration.ofDays(1), Duration.ofHours(-3))}.
+   *
+   * @param period Длительность бара.
+   * @param offset Смещение границ баров относительно UTC.
+   */
+  @Nonnull
+  public static BarSpec time(@Nonnull Duration period, @Nonnull Duration offset) {
+    return new BarSpec(Type.TIME, period.toMillis(), Math.floorMod(offset.toMillis(), period.toMillis()));
+  }
+
+  /**
+   * Бары по объёму.
+   *
+   * @param lots Объём бара в лотах.
+   */
+  @Nonnull
+  public static BarSpec volume(long lots) {
+    return new BarSpec(Type.VOLUME, lots, 0);
+  }
+
+  /**
+   * Бары по количеству сделок (или свечей, если агрегируются свечи).
+   *
+   * @param count Количество обновлений в баре.
+   */
+  @Nonnull
+  public static BarSpec ticks(int count) {
+    return new BarSpec(Type.TICKS, count, 0);
+  }
+
+  /**
+   * Начало временного бара, в который попадает момент времени.
+   */
+  long barStart(long timeMillis) {
+    return Math.floorDiv(timeMillis - offsetMillis, size) * size + offsetMillis;
+  }
+
+  @Override
+  public String toString() {
+    return type == Type.TIME ? Duration.ofMillis(size).toString() : type + ":" + size;
+  }
+}
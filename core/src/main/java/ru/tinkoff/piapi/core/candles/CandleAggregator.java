@@ -0,0 +1,279 @@
+package ru.tinkoff.piapi.core.candles;
+
+import com.google.protobuf.Timestamp;
+import ru.tinkoff.piapi.contract.v1.Candle;
+import ru.tinkoff.piapi.contract.v1.HistoricCandle;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.SubscriptionInterval;
+import ru.tinkoff.piapi.contract.v1.Trade;
+import ru.tinkoff.piapi.core.stream.StreamProcessor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ru.tinkoff.piapi.core.utils.MapperUtils.quotationToNanos;
+
+/**
+ * Локальная агрегация минутных свечей или обезличенных сделок в бары произвольных интервалов
+ * (2, 3, 5, 15, 30 минут, час, 4 часа, день и т.д.), бары по объёму и по количеству сделок.
+ * <p>
+ * Подключается как обработчик стрима котировок. Каждое изменение формирующегося бара передаётся
+ * в {@link BarListener} с признаком {@code closed = false}, закрытие бара — с {@code closed = true}.
+ * Временной бар закрывается, когда приходят данные следующего интервала либо при вызове
+ * {@link #closeExpired(Instant)}.
+ * <p>
+ * Для одного инструмента следует подписываться либо на свечи, либо на сделки: агрегатор не
+ * сопоставляет их между собой. Минутная свеча обновляется сервером многократно, поэтому в бары
+ * по объёму и количеству она попадает только после закрытия минуты — с приходом свечи следующей
+ * минуты или по {@link #closeExpired(Instant)}.
+ * <p>
+ * Не является потокобезопасным: рассчитан на вызовы из потока обработки стрима.
+ */
+public class CandleAggregator implements StreamProcessor<MarketDataResponse> {
+
+  private static final long MINUTE_MILLIS = 60_000;
+
+  private final BarSpec[] specs;
+  private final int capacity;
+  private final BarListener listener;
+  private final Map<String, InstrumentBars> instruments = new HashMap<>();
+
+  /**
+   * @param specs    Параметры формируемых баров.
+   * @param capacity Количество хранимых баров каждого вида на инструмент.
+   * @param listener Обработчик изменений баров.
+   */
+  public CandleAggregator(@Nonnull List<BarSpec> specs, int capacity, @Nonnull BarListener listener) {
+    if (specs.isEmpty() || capacity < 1) {
+      throw new IllegalArgumentException("Нужно указать хотя бы один вид баров и положительную ёмкость.");
+    }
+    this.specs = specs.toArray(new BarSpec[0]);
+    this.capacity = capacity;
+    this.listener = listener;
+  }
+
+  @Override
+  public void process(MarketDataResponse response) {
+    if (response.hasCandle()) {
+      onCandle(response.getCandle());
+    } else if (response.hasTrade()) {
+      onTrade(response.getTrade());
+    }
+  }
+
+  /**
+   * Обработка минутной свечи из стрима. Свечи других интервалов игнорируются.
+   */
+  public void onCandle(@Nonnull Candle candle) {
+    if (candle.getInterval() != SubscriptionInterval.SUBSCRIPTION_INTERVAL_ONE_MINUTE
+      && candle.getInterval() != SubscriptionInterval.SUBSCRIPTION_INTERVAL_UNSPECIFIED) {
+      return;
+    }
+    onMinute(
+      instrumentId(candle.getInstrumentUid(), candle.getFigi()),
+      toMillis(candle.getTime()),
+      quotationToNanos(candle.getOpen()),
+      quotationToNanos(candle.getHigh()),
+      quotationToNanos(candle.getLow()),
+      quotationToNanos(candle.getClose()),
+      candle.getVolume());
+  }
+
+  /**
+   * Загрузка минутной свечи из истории, например из {@code getCandles} с интервалом
+   * {@code CANDLE_INTERVAL_1_MIN}. Свечи должны передаваться в порядке возрастания времени
+   * и до начала обработки стрима.
+   *
+   * @param instrumentId Идентификатор инструмента, под которым он приходит в стриме:
+   *                     instrument_uid либо figi, если uid не передаётся.
+   */
+  public void onHistoricCandle(@Nonnull String instrumentId, @Nonnull HistoricCandle candle) {
+    onMinute(
+      instrumentId,
+      toMillis(candle.getTime()),
+      quotationToNanos(candle.getOpen()),
+      quotationToNanos(candle.getHigh()),
+      quotationToNanos(candle.getLow()),
+      quotationToNanos(candle.getClose()),
+      candle.getVolume());
+  }
+
+  /**
+   * Обработка обезличенной сделки.
+   */
+  public void onTrade(@Nonnull Trade trade) {
+    var bars = bars(instrumentId(trade.getInstrumentUid(), trade.getFigi()));
+    var millis = toMillis(trade.getTime());
+    var price = quotationToNanos(trade.getPrice());
+    var lots = trade.getQuantity();
+    for (var series : bars.series) {
+      if (series.getSpec().getType() == BarSpec.Type.TIME) {
+        if (startTimeBar(series, millis, price)) {
+          series.add(price, price, price, lots);
+          listener.onBar(series, false);
+        }
+      } else {
+        addToCountBar(series, millis, price, price, price, price, lots);
+      }
+    }
+  }
+
+  /**
+   * Закрытие временных баров, интервал которых завершился к моменту {@code now}, и передача
+   * в бары по объёму и количеству минутной свечи, минута которой завершилась. Позволяет
+   * получать закрытые бары без ожидания данных следующего интервала, например по таймеру.
+   */
+  public void closeExpired(@Nonnull Instant now) {
+    var nowMillis = now.toEpochMilli();
+    for (var bars : instruments.values()) {
+      if (bars.pendingMinute != Long.MIN_VALUE && !bars.pendingDone && bars.pendingMinute + MINUTE_MILLIS <= nowMillis) {
+        flushPending(bars);
+      }
+      for (var series : bars.series) {
+        var spec = series.getSpec();
+        if (spec.getType() == BarSpec.Type.TIME && !series.isEmpty() && !series.isLastClosed()
+          && series.time(0) + spec.getSize() <= nowMillis) {
+          series.markClosed();
+          listener.onBar(series, true);
+        }
+      }
+    }
+  }
+
+  /**
+   * Ряд баров инструмента.
+   *
+   * @return Ряд баров либо {@code null}, если по инструменту ещё не было данных или такой вид баров не задан.
+   */
+  @Nullable
+  public BarSeries getSeries(@Nonnull String instrumentId, @Nonnull BarSpec spec) {
+    var bars = instruments.get(instrumentId);
+    if (bars == null) {
+      return null;
+    }
+    for (var series : bars.series) {
+      if (series.getSpec().equals(spec)) {
+        return series;
+      }
+    }
+    return null;
+  }
+
+  private void onMinute(String instrumentId, long minute, long o, long h, long l, long c, long v) {
+    var bars = bars(instrumentId);
+    if (minute < bars.pendingMinute || minute == bars.pendingMinute && bars.pendingDone) {
+      return;
+    }
+    if (minute > bars.pendingMinute && bars.pendingMinute != Long.MIN_VALUE && !bars.pendingDone) {
+      flushPending(bars);
+    }
+    bars.pendingMinute = minute;
+    bars.pendingDone = false;
+    bars.open = o;
+    bars.high = h;
+    bars.low = l;
+    bars.close = c;
+    bars.volume = v;
+    for (var series : bars.series) {
+      if (series.getSpec().getType() == BarSpec.Type.TIME
+        && startTimeBar(series, minute, o)
+        && series.applyMinute(minute, o, h, l, c, v)) {
+        listener.onBar(series, false);
+      }
+    }
+  }
+
+  /**
+   * Передача завершённой минутной свечи в бары по объёму и количеству.
+   */
+  private void flushPending(InstrumentBars bars) {
+    bars.pendingDone = true;
+    for (var series : bars.series) {
+      if (series.getSpec().getType() != BarSpec.Type.TIME) {
+        addToCountBar(series, bars.pendingMinute, bars.open, bars.high, bars.low, bars.close, bars.volume);
+      }
+    }
+  }
+
+  /**
+   * Подготовка временного бара, в который попадают данные с заданным временем: закрытие
+   * предыдущего бара и начало нового, если интервал сменился.
+   *
+   * @return {@code false}, если данные относятся к уже закрытому бару.
+   */
+  private boolean startTimeBar(BarSeries series, long millis, long openPrice) {
+    var barStart = series.getSpec().barStart(millis);
+    if (!series.isEmpty()) {
+      var current = series.time(0);
+      if (barStart < current || barStart == current && series.isLastClosed()) {
+        return false;
+      }
+      if (barStart == current) {
+        return true;
+      }
+      if (!series.isLastClosed()) {
+        series.markClosed();
+        listener.onBar(series, true);
+      }
+    }
+    series.push(barStart, openPrice);
+    return true;
+  }
+
+  private void addToCountBar(BarSeries series, long millis, long o, long h, long l, long c, long v) {
+    if (series.isEmpty() || series.isLastClosed()) {
+      series.push(millis, o);
+    }
+    series.add(h, l, c, v);
+    var spec = series.getSpec();
+    var closed = spec.getType() == BarSpec.Type.VOLUME
+      ? series.volume(0) >= spec.getSize()
+      : series.count(0) >= spec.getSize();
+    if (closed) {
+      series.markClosed();
+    }
+    listener.onBar(series, closed);
+  }
+
+  private InstrumentBars bars(String instrumentId) {
+    var bars = instruments.get(instrumentId);
+    if (bars == null) {
+      bars = new InstrumentBars(instrumentId, specs, capacity);
+      instruments.put(instrumentId, bars);
+    }
+    return bars;
+  }
+
+  private static String instrumentId(String instrumentUid, String figi) {
+    return instrumentUid.isEmpty() ? figi : instrumentUid;
+  }
+
+  private static long toMillis(Timestamp timestamp) {
+    return timestamp.getSeconds() * 1000 + timestamp.getNanos() / 1_000_000;
+  }
+
+  private static class InstrumentBars {
+    private final BarSeries[] series;
+    /**
+     * Последнее состояние минутной свечи, ещё не переданное в бары по объёму и количеству.
+     */
+    private long pendingMinute = Long.MIN_VALUE;
+    private boolean pendingDone;
+    private long open;
+    private long high;
+    private long low;
+    private long close;
+    private long volume;
+
+    InstrumentBars(String instrumentId, BarSpec[] specs, int capacity) {
+      this.series = new BarSeries[specs.length];
+      for (int i = 0; i < specs.length; i++) {
+        series[i] = new BarSeries(instrumentId, specs[i], capacity);
+      }
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package ru.tinkoff.piapi.core.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class StreamStaleException extends RuntimeException {
+
+  private final String streamName;
+  private final Duration silence;
+
+  public StreamStaleException(String streamName, Duration silence) {
+    super(String.format("Стрим %s не получал сообщений %d мс и закрыт как зависший.", streamName, silence.toMillis()));
+    this.streamName = streamName;
+    this.silence = silence;
+  }
+}
@@ -0,0 +1,68 @@
+package ru.tinkoff.piapi.core.indicators;
+
+import com.google.protobuf.Timestamp;
+import ru.tinkoff.piapi.contract.v1.GetTechAnalysisResponse;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Линии Боллинджера (BB, {@code INDICATOR_TYPE_BB}): SMA цены и линии, отстоящие от неё на заданное
+ * количество стандартных отклонений. Отклонение считается по генеральной совокупности цен окна.
+ */
+public final class BollingerBands implements Indicator {
+
+  private final RollingWindow window;
+  private final double multiplier;
+
+  /**
+   * @param length     Период скользящего среднего.
+   * @param multiplier Количество стандартных отклонений до верхней и нижней линий.
+   */
+  public BollingerBands(int length, double multiplier) {
+    this.window = new RollingWindow(length);
+    this.multiplier = multiplier;
+  }
+
+  @Override
+  public void add(double price) {
+    window.add(price);
+  }
+
+  @Override
+  public boolean isReady() {
+    return window.isFull();
+  }
+
+  @Override
+  public long count() {
+    return window.count();
+  }
+
+  /**
+   * Средняя линия либо {@link Double#NaN}, если индикатор не готов.
+   */
+  public double getMiddle() {
+    return isReady() ? window.mean() : Double.NaN;
+  }
+
+  public double getUpper() {
+    return getMiddle() + multiplier * window.deviation();
+  }
+
+  public double getLower() {
+    return getMiddle() - multiplier * window.deviation();
+  }
+
+  @Nonnull
+  @Override
+  public GetTechAnalysisResponse.TechAnalysisItem toItem(@Nonnull Timestamp timestamp) {
+    var item = GetTechAnalysisResponse.TechAnalysisItem.newBuilder().setTimestamp(timestamp);
+    if (isReady()) {
+      item
+        .setMiddleBand(Indicators.toQuotation(getMiddle()))
+        .setUpperBand(Indicators.toQuotation(getUpper()))
+        .setLowerBand(Indicators.toQuotation(getLower()));
+    }
+    return item.build();
+  }
+}
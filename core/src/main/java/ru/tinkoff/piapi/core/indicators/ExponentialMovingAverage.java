@@ -0,0 +1,65 @@
+package ru.tinkoff.piapi.core.indicators;
+
+import com.google.protobuf.Timestamp;
+import ru.tinkoff.piapi.contract.v1.GetTechAnalysisResponse;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Экспоненциальное скользящее среднее (EMA, {@code INDICATOR_TYPE_EMA}) с коэффициентом
+ * {@code 2 / (length + 1)}. Начальное значение — простое среднее первых {@code length} цен.
+ */
+public final class ExponentialMovingAverage implements Indicator {
+
+  private final int length;
+  private final double alpha;
+  private long count;
+  private double value;
+
+  public ExponentialMovingAverage(int length) {
+    if (length < 1) {
+      throw new IllegalArgumentException("Период индикатора должен быть положительным: " + length);
+    }
+    this.length = length;
+    this.alpha = 2.0 / (length + 1);
+  }
+
+  @Override
+  public void add(double price) {
+    count++;
+    if (count < length) {
+      value += price;
+    } else if (count == length) {
+      value = (value + price) / length;
+    } else {
+      value += alpha * (price - value);
+    }
+  }
+
+  @Override
+  public boolean isReady() {
+    return count >= length;
+  }
+
+  @Override
+  public long count() {
+    return count;
+  }
+
+  /**
+   * Значение индикатора либо {@link Double#NaN}, если индикатор не готов.
+   */
+  public double getValue() {
+    return isReady() ? value : Double.NaN;
+  }
+
+  @Nonnull
+  @Override
+  public GetTechAnalysisResponse.TechAnalysisItem toItem(@Nonnull Timestamp timestamp) {
+    var item = GetTechAnalysisResponse.TechAnalysisItem.newBuilder().setTimestamp(timestamp);
+    if (isReady()) {
+      item.setSignal(Indicators.toQuotation(value));
+    }
+    return item.build();
+  }
+}
@@ -0,0 +1,37 @@
+package ru.tinkoff.piapi.core.indicators;
+
+import com.google.protobuf.Timestamp;
+import ru.tinkoff.piapi.contract.v1.GetTechAnalysisResponse;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Индикатор технического анализа, пересчитываемый инкрементально по закрытым свечам.
+ * <p>
+ * Каждое новое значение обрабатывается за O(1). Реализации не являются потокобезопасными.
+ */
+public interface Indicator {
+
+  /**
+   * Учёт цены очередной закрытой свечи.
+   */
+  void add(double price);
+
+  /**
+   * Признак того, что накоплено достаточно данных для расчёта значения.
+   */
+  boolean isReady();
+
+  /**
+   * Количество учтённых свечей.
+   */
+  long count();
+
+  /**
+   * Текущее значение в формате ответа {@code getTechAnalysis}. Поля не заполняются, пока индикатор не готов.
+   *
+   * @param timestamp Время последней учтённой свечи.
+   */
+  @Nonnull
+  GetTechAnalysisResponse.TechAnalysisItem toItem(@Nonnull Timestamp timestamp);
+}
@@ -0,0 +1,142 @@
+package ru.tinkoff.piapi.core.indicators;
+
+import ru.tinkoff.piapi.contract.v1.GetTechAnalysisRequest;
+import ru.tinkoff.piapi.contract.v1.HistoricCandle;
+import ru.tinkoff.piapi.contract.v1.Quotation;
+import ru.tinkoff.piapi.core.candles.BarListener;
+import ru.tinkoff.piapi.core.candles.BarSeries;
+import ru.tinkoff.piapi.core.candles.BarSpec;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static ru.tinkoff.piapi.core.utils.MapperUtils.bigDecimalToQuotation;
+import static ru.tinkoff.piapi.core.utils.MapperUtils.quotationToBigDecimal;
+
+/**
+ * Создание индикаторов по параметрам {@link GetTechAnalysisRequest} и подача в них свечей:
+ * исторических из {@code getCandles} и закрытых баров {@link ru.tinkoff.piapi.core.candles.CandleAggregator}.
+ * <p>
+ * Пример: индикатор заполняется историей, после чего обновляется по закрытым 5-минутным барам из стрима.
+ * <pre>{@code
+ * var rsi = new RelativeStrengthIndex(14);
+ * Indicators.seed(rsi, api.getMarketDataService().getCandlesSync(uid, from, to, CandleInterval.CANDLE_INTERVAL_5_MIN),
+ *   TypeOfPrice.TYPE_OF_PRICE_CLOSE);
+ * var aggregator = new CandleAggregator(List.of(fiveMinutes), 100,
+ *   Indicators.listener(uid, fiveMinutes, TypeOfPrice.TYPE_OF_PRICE_CLOSE, rsi));
+ * }</pre>
+ */
+public final class Indicators {
+
+  private static final double NANOS_PER_UNIT = 1_000_000_000d;
+
+  private Indicators() {
+  }
+
+  /**
+   * Индикатор с параметрами запроса {@code getTechAnalysis}: тип, период, множитель отклонения и периоды сглаживания.
+   */
+  @Nonnull
+  public static Indicator create(@Nonnull GetTechAnalysisRequest request) {
+    switch (request.getIndicatorType()) {
+      case INDICATOR_TYPE_SMA:
+        return new SimpleMovingAverage(request.getLength());
+      case INDICATOR_TYPE_EMA:
+        return new ExponentialMovingAverage(request.getLength());
+      case INDICATOR_TYPE_RSI:
+        return new RelativeStrengthIndex(request.getLength());
+      case INDICATOR_TYPE_BB:
+        return new BollingerBands(request.getLength(),
+          quotationToBigDecimal(request.getDeviation().getDeviationMultiplier()).doubleValue());
+      case INDICATOR_TYPE_MACD:
+        var smoothing = request.getSmoothing();
+        return new MovingAverageConvergenceDivergence(
+          smoothing.getFastLength(), smoothing.getSlowLength(), smoothing.getSignalSmoothing());
+      default:
+        throw new IllegalArgumentException("Неизвестный тип индикатора: " + request.getIndicatorType());
+    }
+  }
+
+  /**
+   * Заполнение индикатора историческими свечами. Незавершённые свечи пропускаются.
+   *
+   * @param candles Свечи в порядке возрастания времени.
+   */
+  public static void seed(@Nonnull Indicator indicator,
+                          @Nonnull Iterable<HistoricCandle> candles,
+                          @Nonnull GetTechAnalysisRequest.TypeOfPrice typeOfPrice) {
+    for (var candle : candles) {
+      if (candle.getIsComplete()) {
+        indicator.add(price(candle, typeOfPrice));
+      }
+    }
+  }
+
+  /**
+   * Обработчик баров, обновляющий индикатор по закрытым барам заданного инструмента и вида.
+   */
+  @Nonnull
+  public static BarListener listener(@Nonnull String instrumentId,
+                                     @Nonnull BarSpec spec,
+                                     @Nonnull GetTechAnalysisRequest.TypeOfPrice typeOfPrice,
+                                     @Nonnull Indicator indicator) {
+    return (series, closed) -> {
+      if (closed && series.getInstrumentId().equals(instrumentId) && series.getSpec().equals(spec)) {
+        indicator.add(price(series, 0, typeOfPrice));
+      }
+    };
+  }
+
+  /**
+   * Цена исторической свечи заданного типа.
+   */
+  public static double price(@Nonnull HistoricCandle candle, @Nonnull GetTechAnalysisRequest.TypeOfPrice typeOfPrice) {
+    switch (typeOfPrice) {
+      case TYPE_OF_PRICE_CLOSE:
+        return toDouble(candle.getClose());
+      case TYPE_OF_PRICE_OPEN:
+        return toDouble(candle.getOpen());
+      case TYPE_OF_PRICE_HIGH:
+        return toDouble(candle.getHigh());
+      case TYPE_OF_PRICE_LOW:
+        return toDouble(candle.getLow());
+      case TYPE_OF_PRICE_AVG:
+        return (toDouble(candle.getClose()) + toDouble(candle.getOpen())
+          + toDouble(candle.getHigh()) + toDouble(candle.getLow())) / 4;
+      default:
+        throw new IllegalArgumentException("Неизвестный тип цены: " + typeOfPrice);
+    }
+  }
+
+  /**
+   * Цена бара заданного типа.
+   *
+   * @param ago Смещение бара от последнего, см. {@link BarSeries}.
+   */
+  public static double price(@Nonnull BarSeries series, int ago, @Nonnull GetTechAnalysisRequest.TypeOfPrice typeOfPrice) {
+    switch (typeOfPrice) {
+      case TYPE_OF_PRICE_CLOSE:
+        return series.close(ago) / NANOS_PER_UNIT;
+      case TYPE_OF_PRICE_OPEN:
+        return series.open(ago) / NANOS_PER_UNIT;
+      case TYPE_OF_PRICE_HIGH:
+        return series.high(ago) / NANOS_PER_UNIT;
+      case TYPE_OF_PRICE_LOW:
+        return series.low(ago) / NANOS_PER_UNIT;
+      case TYPE_OF_PRICE_AVG:
+        return (series.close(ago) / NANOS_PER_UNIT + series.open(ago) / NANOS_PER_UNIT
+          + series.high(ago) / NANOS_PER_UNIT + series.low(ago) / NANOS_PER_UNIT) / 4;
+      default:
+        throw new IllegalArgumentException("Неизвестный тип цены: " + typeOfPrice);
+    }
+  }
+
+  static Quotation toQuotation(double value) {
+    return bigDecimalToQuotation(BigDecimal.valueOf(value).setScale(9, RoundingMode.HALF_UP));
+  }
+
+  private static double toDouble(Quotation value) {
+    return value.getUnits() + value.getNano() / NANOS_PER_UNIT;
+  }
+}
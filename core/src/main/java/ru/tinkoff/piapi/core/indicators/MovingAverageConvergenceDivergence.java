@@ -0,0 +1,78 @@
+package ru.tinkoff.piapi.core.indicators;
+
+import com.google.protobuf.Timestamp;
+import ru.tinkoff.piapi.contract.v1.GetTechAnalysisResponse;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Схождение/расхождение скользящих средних (MACD, {@code INDICATOR_TYPE_MACD}).
+ * <p>
+ * Линия MACD — разность быстрой и медленной EMA цены, сигнальная линия — EMA линии MACD.
+ * Линия MACD доступна после {@code slowLength} свечей, сигнальная — ещё через {@code signalLength - 1}.
+ */
+public final class MovingAverageConvergenceDivergence implements Indicator {
+
+  private final ExponentialMovingAverage fast;
+  private final ExponentialMovingAverage slow;
+  private final ExponentialMovingAverage signal;
+
+  public MovingAverageConvergenceDivergence(int fastLength, int slowLength, int signalLength) {
+    this.fast = new ExponentialMovingAverage(fastLength);
+    this.slow = new ExponentialMovingAverage(slowLength);
+    this.signal = new ExponentialMovingAverage(signalLength);
+  }
+
+  @Override
+  public void add(double price) {
+    fast.add(price);
+    slow.add(price);
+    if (fast.isReady() && slow.isReady()) {
+      signal.add(getMacd());
+    }
+  }
+
+  @Override
+  public boolean isReady() {
+    return fast.isReady() && slow.isReady();
+  }
+
+  @Override
+  public long count() {
+    return slow.count();
+  }
+
+  /**
+   * Линия MACD либо {@link Double#NaN}, если индикатор не готов.
+   */
+  public double getMacd() {
+    return fast.getValue() - slow.getValue();
+  }
+
+  /**
+   * Сигнальная линия либо {@link Double#NaN}, если она ещё не рассчитана.
+   */
+  public double getSignal() {
+    return signal.getValue();
+  }
+
+  /**
+   * Гистограмма: разность линии MACD и сигнальной линии.
+   */
+  public double getHistogram() {
+    return getMacd() - getSignal();
+  }
+
+  @Nonnull
+  @Override
+  public GetTechAnalysisResponse.TechAnalysisItem toItem(@Nonnull Timestamp timestamp) {
+    var item = GetTechAnalysisResponse.TechAnalysisItem.newBuilder().setTimestamp(timestamp);
+    if (isReady()) {
+      item.setMacd(Indicators.toQuotation(getMacd()));
+    }
+    if (signal.isReady()) {
+      item.setSignal(Indicators.toQuotation(getSignal()));
+    }
+    return item.build();
+  }
+}
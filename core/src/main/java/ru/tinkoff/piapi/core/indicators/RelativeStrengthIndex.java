@@ -0,0 +1,84 @@
+package ru.tinkoff.piapi.core.indicators;
+
+import com.google.protobuf.Timestamp;
+import ru.tinkoff.piapi.contract.v1.GetTechAnalysisResponse;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Индекс относительной силы (RSI, {@code INDICATOR_TYPE_RSI}) со сглаживанием Уайлдера.
+ * Первые средние рост и падение — простые средние за {@code length} изменений цены,
+ * поэтому индикатор готов после {@code length + 1} свечей.
+ */
+public final class RelativeStrengthIndex implements Indicator {
+
+  private final int length;
+  private long count;
+  private double previous;
+  private double averageGain;
+  private double averageLoss;
+
+  public RelativeStrengthIndex(int length) {
+    if (length < 1) {
+      throw new IllegalArgumentException("Период индикатора должен быть положительным: " + length);
+    }
+    this.length = length;
+  }
+
+  @Override
+  public void add(double price) {
+    count++;
+    if (count == 1) {
+      previous = price;
+      return;
+    }
+    var change = price - previous;
+    previous = price;
+    var gain = change > 0 ? change : 0;
+    var loss = change < 0 ? -change : 0;
+    if (count <= length) {
+      averageGain += gain;
+      averageLoss += loss;
+    } else if (count == length + 1) {
+      averageGain = (averageGain + gain) / length;
+      averageLoss = (averageLoss + loss) / length;
+    } else {
+      averageGain = (averageGain * (length - 1) + gain) / length;
+      averageLoss = (averageLoss * (length - 1) + loss) / length;
+    }
+  }
+
+  @Override
+  public boolean isReady() {
+    return count > length;
+  }
+
+  @Override
+  public long count() {
+    return count;
+  }
+
+  /**
+   * Значение индикатора от 0 до 100 либо {@link Double#NaN}, если индикатор не готов.
+   * Если цена в окне не менялась (нет ни роста, ни падения), индекс нейтрален и равен 50.
+   */
+  public double getValue() {
+    if (!isReady()) {
+      return Double.NaN;
+    }
+    if (averageLoss == 0) {
+      return averageGain == 0 ? 50 : 100;
+    }
+    return 100 - 100 / (1 + averageGain / averageLoss);
+  }
+
+  @Nonnull
+  @Override
+  public GetTechAnalysisResponse.TechAnalysisItem toItem(@Nonnull Timestamp timestamp) {
+    var item = GetTechAnalysisResponse.TechAnalysisItem.newBuilder().setTimestamp(timestamp);
+    if (isReady()) {
+      item.setSignal(Indicators.toQuotation(getValue()));
+    }
+    return item.build();
+  }
+}
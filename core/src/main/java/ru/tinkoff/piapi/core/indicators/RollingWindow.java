@@ -0,0 +1,70 @@
+package ru.tinkoff.piapi.core.indicators;
+
+/**
+ * Окно последних значений фиксированной длины с накопленными суммой и суммой квадратов.
+ * <p>
+ * Суммы обновляются за O(1). Чтобы ошибка округления не накапливалась, при каждом полном
+ * обороте окна они пересчитываются заново, что в среднем также даёт O(1) на значение.
+ */
+final class RollingWindow {
+
+  private final double[] values;
+  private int next;
+  private long count;
+  private double sum;
+  private double sumOfSquares;
+
+  RollingWindow(int length) {
+    if (length < 1) {
+      throw new IllegalArgumentException("Период индикатора должен быть положительным: " + length);
+    }
+    this.values = new double[length];
+  }
+
+  void add(double value) {
+    var evicted = values[next];
+    values[next] = value;
+    if (count >= values.length) {
+      sum -= evicted;
+      sumOfSquares -= evicted * evicted;
+    }
+    sum += value;
+    sumOfSquares += value * value;
+    count++;
+    next = next + 1 == values.length ? 0 : next + 1;
+    if (next == 0) {
+      recalculate();
+    }
+  }
+
+  boolean isFull() {
+    return count >= values.length;
+  }
+
+  long count() {
+    return count;
+  }
+
+  double mean() {
+    return sum / values.length;
+  }
+
+  /**
+   * Стандартное отклонение по генеральной совокупности значений окна.
+   */
+  double deviation() {
+    var mean = mean();
+    return Math.sqrt(Math.max(0, sumOfSquares / values.length - mean * mean));
+  }
+
+  private void recalculate() {
+    var s = 0.0;
+    var sq = 0.0;
+    for (var value : values) {
+      s += value;
+      sq += value * value;
+    }
+    sum = s;
+    sumOfSquares = sq;
+  }
+}
@@ -0,0 +1,50 @@
+package ru.tinkoff.piapi.core.indicators;
+
+import com.google.protobuf.Timestamp;
+import ru.tinkoff.piapi.contract.v1.GetTechAnalysisResponse;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Простое скользящее среднее (SMA, {@code INDICATOR_TYPE_SMA}).
+ */
+public final class SimpleMovingAverage implements Indicator {
+
+  private final RollingWindow window;
+
+  public SimpleMovingAverage(int length) {
+    this.window = new RollingWindow(length);
+  }
+
+  @Override
+  public void add(double price) {
+    window.add(price);
+  }
+
+  @Override
+  public boolean isReady() {
+    return window.isFull();
+  }
+
+  @Override
+  public long count() {
+    return window.count();
+  }
+
+  /**
+   * Значение индикатора либо {@link Double#NaN}, если индикатор не готов.
+   */
+  public double getValue() {
+    return isReady() ? window.mean() : Double.NaN;
+  }
+
+  @Nonnull
+  @Override
+  public GetTechAnalysisResponse.TechAnalysisItem toItem(@Nonnull Timestamp timestamp) {
+    var item = GetTechAnalysisResponse.TechAnalysisItem.newBuilder().setTimestamp(timestamp);
+    if (isReady()) {
+      item.setSignal(Indicators.toQuotation(getValue()));
+    }
+    return item.build();
+  }
+}
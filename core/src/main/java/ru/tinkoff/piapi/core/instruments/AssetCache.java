@@ -0,0 +1,260 @@
+package ru.tinkoff.piapi.core.instruments;
+
+import ru.tinkoff.piapi.contract.v1.AssetFull;
+import ru.tinkoff.piapi.contract.v1.Brand;
+import ru.tinkoff.piapi.contract.v1.GetAssetFundamentalsResponse.StatisticResponse;
+import ru.tinkoff.piapi.core.InstrumentsService;
+import ru.tinkoff.piapi.core.utils.RequestLimiter;
+
+import javax.annotation.Nonnull;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Кеш фундаментальных показателей, активов и брендов с ограниченным временем жизни записей.
+ * <p>
+ * Показатели запрашиваются через {@link InstrumentsService#getAssetFundamentals(Iterable)}: отсутствующие в кеше
+ * активы объединяются в запросы по {@link #MAX_ASSETS_PER_REQUEST} штук, которые выполняются параллельно.
+ * Активы и бренды запрашиваются через {@link InstrumentsService#getAssetBy(String)} и
+ * {@link InstrumentsService#getBrandBy(String)} и хранятся в том же кеше.
+ * <p>
+ * Сам {@link InstrumentsService} кеш не использует: {@link InstrumentsService#getAssetBySync(String)} и
+ * {@link InstrumentsService#getBrandBySync(String)} всегда обращаются к серверу. Для повторного использования
+ * ответов вызывающий код обращается к {@link #getAssetSync(String)} и {@link #getBrandSync(String)} этого кеша.
+ * <p>
+ * Все запросы кеша проходят через общее ограничение числа одновременно выполняемых запросов, чтобы не выходить
+ * за лимиты API; остальные ждут в очереди без блокировки потоков. Одновременные обращения к одному и тому же
+ * отсутствующему в кеше ключу порождают один запрос. Неуспешные ответы не кешируются.
+ */
+public class AssetCache {
+
+  /**
+   * Максимальное число активов в одном запросе фундаментальных показателей.
+   */
+  public static final int MAX_ASSETS_PER_REQUEST = 100;
+
+  private final InstrumentsService instrumentsService;
+  private final long ttlMillis;
+  private final RequestLimiter limiter;
+  private final Clock clock;
+  private final Map<String, Entry<StatisticResponse>> fundamentals = new ConcurrentHashMap<>();
+  private final Map<String, Entry<AssetFull>> assets = new ConcurrentHashMap<>();
+  private final Map<String, Entry<Brand>> brands = new ConcurrentHashMap<>();
+
+  /**
+   * @param ttl                   Время жизни записи кеша.
+   * @param maxConcurrentRequests Максимальное число одновременно выполняемых запросов.
+   */
+  public AssetCache(@Nonnull InstrumentsService instrumentsService,
+                    @Nonnull Duration ttl,
+                    int maxConcurrentRequests) {
+    this(instrumentsService, ttl, maxConcurrentRequests, Clock.systemUTC());
+  }
+
+  public AssetCache(@Nonnull InstrumentsService instrumentsService,
+                    @Nonnull Duration ttl,
+                    int maxConcurrentRequests,
+                    @Nonnull Clock clock) {
+    this.instrumentsService = instrumentsService;
+    this.ttlMillis = ttl.toMillis();
+    this.limiter = new RequestLimiter(maxConcurrentRequests);
+    this.clock = clock;
+  }
+
+  /**
+   * Получение (асинхронное) фундаментальных показателей по активам.
+   *
+   * @param assetUids идентификаторы активов в любом количестве.
+   * @return Показатели по идентификатору актива. Активы, по которым показателей нет, в результат не попадают.
+   */
+  @Nonnull
+  public CompletableFuture<Map<String, StatisticResponse>> getFundamentals(@Nonnull Collection<String> assetUids) {
+    var now = clock.millis();
+    var entries = new LinkedHashMap<String, Entry<StatisticResponse>>();
+    var batch = new HashMap<String, Entry<StatisticResponse>>();
+    for (var uid : assetUids) {
+      if (entries.containsKey(uid)) {
+        continue;
+      }
+      var entry = entry(fundamentals, uid, now);
+      entries.put(uid, entry);
+      if (entry.claim()) {
+        batch.put(uid, entry);
+        if (batch.size() == MAX_ASSETS_PER_REQUEST) {
+          loadFundamentals(batch);
+          batch = new HashMap<>();
+        }
+      }
+    }
+    if (!batch.isEmpty()) {
+      loadFundamentals(batch);
+    }
+    var futures = entries.values().stream().map(entry -> entry.value).toArray(CompletableFuture[]::new);
+    return CompletableFuture.allOf(futures).thenApply(ignored -> {
+      var result = new LinkedHashMap<String, StatisticResponse>();
+      entries.forEach((uid, entry) -> {
+        var value = entry.value.join();
+        if (value != null) {
+          result.put(uid, value);
+        }
+      });
+      return result;
+    });
+  }
+
+  /**
+   * Получение (синхронное) фундаментальных показателей по активам.
+   *
+   * @param assetUids идентификаторы активов в любом количестве.
+   * @return Показатели по идентификатору актива. Активы, по которым показателей нет, в результат не попадают.
+   */
+  @Nonnull
+  public Map<String, StatisticResponse> getFundamentalsSync(@Nonnull Collection<String> assetUids) {
+    return join(getFundamentals(assetUids));
+  }
+
+  /**
+   * Получение (асинхронное) актива по его идентификатору.
+   */
+  @Nonnull
+  public CompletableFuture<AssetFull> getAsset(@Nonnull String uid) {
+    return load(assets, uid, () -> instrumentsService.getAssetBy(uid));
+  }
+
+  /**
+   * Получение (синхронное) актива по его идентификатору.
+   */
+  @Nonnull
+  public AssetFull getAssetSync(@Nonnull String uid) {
+    return join(getAsset(uid));
+  }
+
+  /**
+   * Получение (асинхронное) бренда по его идентификатору.
+   */
+  @Nonnull
+  public CompletableFuture<Brand> getBrand(@Nonnull String uid) {
+    return load(brands, uid, () -> instrumentsService.getBrandBy(uid));
+  }
+
+  /**
+   * Получение (синхронное) бренда по его идентификатору.
+   */
+  @Nonnull
+  public Brand getBrandSync(@Nonnull String uid) {
+    return join(getBrand(uid));
+  }
+
+  /**
+   * Удаление записей с истёкшим временем жизни. Устаревшие записи не возвращаются и без этого,
+   * метод лишь освобождает занятую ими память.
+   */
+  public void evictExpired() {
+    var now = clock.millis();
+    evictExpired(fundamentals, now);
+    evictExpired(assets, now);
+    evictExpired(brands, now);
+  }
+
+  /**
+   * Удаление всех записей.
+   */
+  public void invalidateAll() {
+    fundamentals.clear();
+    assets.clear();
+    brands.clear();
+  }
+
+  /**
+   * Общее число записей в кеше, включая устаревшие и ожидающие ответа.
+   */
+  public int size() {
+    return fundamentals.size() + assets.size() + brands.size();
+  }
+
+  private void loadFundamentals(Map<String, Entry<StatisticResponse>> batch) {
+    limiter.submit(() -> instrumentsService.getAssetFundamentals(List.copyOf(batch.keySet())))
+      .whenComplete((statistics, error) -> {
+        if (error != null) {
+          batch.forEach((uid, entry) -> fail(fundamentals, uid, entry, error));
+          return;
+        }
+        for (var statistic : statistics) {
+          var entry = batch.get(statistic.getAssetUid());
+          if (entry != null) {
+            entry.value.complete(statistic);
+          }
+        }
+        batch.values().forEach(entry -> entry.value.complete(null));
+      });
+  }
+
+  private <T> CompletableFuture<T> load(Map<String, Entry<T>> cache,
+                                        String key,
+                                        Supplier<CompletableFuture<T>> call) {
+    var entry = entry(cache, key, clock.millis());
+    if (entry.claim()) {
+      limiter.submit(call).whenComplete((value, error) -> {
+        if (error != null) {
+          fail(cache, key, entry, error);
+        } else {
+          entry.value.complete(value);
+        }
+      });
+    }
+    return entry.value;
+  }
+
+  private <T> Entry<T> entry(Map<String, Entry<T>> cache, String key, long now) {
+    return cache.compute(key, (k, entry) -> entry != null && entry.expiresAt > now
+      ? entry
+      : new Entry<>(now + ttlMillis));
+  }
+
+  private static <T> void fail(Map<String, Entry<T>> cache, String key, Entry<T> entry, Throwable error) {
+    cache.remove(key, entry);
+    entry.value.completeExceptionally(error);
+  }
+
+  private static <T> void evictExpired(Map<String, Entry<T>> cache, long now) {
+    cache.values().removeIf(entry -> entry.expiresAt <= now && entry.value.isDone());
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private static final class Entry<T> {
+    private final CompletableFuture<T> value = new CompletableFuture<>();
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private final long expiresAt;
+
+    Entry(long expiresAt) {
+      this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Возвращает {@code true} ровно одному вызывающему, который должен выполнить запрос.
+     */
+    boolean claim() {
+      return claimed.compareAndSet(false, true);
+    }
+  }
+}
@@ -0,0 +1,340 @@
+package ru.tinkoff.piapi.core.instruments;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.MessageOrBuilder;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.core.InstrumentsService;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Сопоставление идентификаторов инструментов (figi, uid, position_uid, тикер) плотным целым номерам 0, 1, 2, ...
+ * <p>
+ * Номер позволяет хранить состояние по инструментам в массивах и на каждом сообщении стрима выполнять
+ * один поиск строки в компактной хеш-таблице вместо поиска в нескольких {@code HashMap<String, ...>}:
+ * <pre>{@code
+ * var interner = new InstrumentIdInterner();
+ * interner.registerAll(api.getInstrumentsService());
+ * var lastPrices = new double[interner.size()];
+ * ...
+ * var id = interner.idOf(response);
+ * if (id != InstrumentIdInterner.UNKNOWN) {
+ *   lastPrices[id] = ...;
+ * }
+ * }</pre>
+ * Тикер регистрируется в двух видах: {@code ticker_classCode} и просто {@code ticker}. Без кода режима торгов
+ * тикер соответствует инструменту, зарегистрированному первым.
+ * <p>
+ * Регистрация выполняется под блокировкой, поиск — без блокировок и может выполняться из любых потоков
+ * одновременно с регистрацией. Номера не переиспользуются и не меняются.
+ */
+public class InstrumentIdInterner {
+
+  /**
+   * Номер неизвестного инструмента.
+   */
+  public static final int UNKNOWN = -1;
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final Object lock = new Object();
+  private volatile Entry[] table = new Entry[INITIAL_CAPACITY * 8];
+  private volatile InstrumentIds[] instruments = new InstrumentIds[INITIAL_CAPACITY];
+  private volatile int size;
+  private int keyCount;
+
+  /**
+   * Номер инструмента по любому из его идентификаторов.
+   *
+   * @return Номер либо {@link #UNKNOWN}.
+   */
+  public int idOf(@Nullable String identifier) {
+    if (identifier == null || identifier.isEmpty()) {
+      return UNKNOWN;
+    }
+    var entries = table;
+    var hash = hash(identifier);
+    var mask = entries.length - 1;
+    for (int i = hash & mask; ; i = (i + 1) & mask) {
+      var entry = entries[i];
+      if (entry == null) {
+        return UNKNOWN;
+      }
+      if (entry.hash == hash && entry.key.equals(identifier)) {
+        return entry.id;
+      }
+    }
+  }
+
+  /**
+   * Номер инструмента, к которому относятся данные сообщения стрима котировок: свеча, сделка,
+   * стакан, торговый статус или цена последней сделки. Инструмент ищется по instrument_uid, затем по figi.
+   *
+   * @return Номер либо {@link #UNKNOWN}, если инструмент не зарегистрирован или сообщение не содержит данных инструмента.
+   */
+  public int idOf(@Nonnull MarketDataResponse response) {
+    switch (response.getPayloadCase()) {
+      case CANDLE:
+        return idOf(response.getCandle().getInstrumentUid(), response.getCandle().getFigi());
+      case TRADE:
+        return idOf(response.getTrade().getInstrumentUid(), response.getTrade().getFigi());
+      case ORDERBOOK:
+        return idOf(response.getOrderbook().getInstrumentUid(), response.getOrderbook().getFigi());
+      case TRADING_STATUS:
+        return idOf(response.getTradingStatus().getInstrumentUid(), response.getTradingStatus().getFigi());
+      case LAST_PRICE:
+        return idOf(response.getLastPrice().getInstrumentUid(), response.getLastPrice().getFigi());
+      default:
+        return UNKNOWN;
+    }
+  }
+
+  private int idOf(String instrumentUid, String figi) {
+    var id = idOf(instrumentUid);
+    return id == UNKNOWN ? idOf(figi) : id;
+  }
+
+  /**
+   * Количество зарегистрированных инструментов. Номера инструментов лежат в диапазоне {@code [0, size())}.
+   */
+  public int size() {
+    return size;
+  }
+
+  @Nonnull
+  public String getFigi(int id) {
+    return ids(id).figi;
+  }
+
+  @Nonnull
+  public String getUid(int id) {
+    return ids(id).uid;
+  }
+
+  @Nonnull
+  public String getPositionUid(int id) {
+    return ids(id).positionUid;
+  }
+
+  @Nonnull
+  public String getTicker(int id) {
+    return ids(id).ticker;
+  }
+
+  @Nonnull
+  public String getClassCode(int id) {
+    return ids(id).classCode;
+  }
+
+  /**
+   * Регистрация инструмента. Если инструмент уже известен по uid или figi, возвращается его номер,
+   * а недостающие идентификаторы дополняются. Пустые идентификаторы не регистрируются.
+   *
+   * @return Номер инструмента.
+   */
+  public int register(@Nonnull String figi,
+                      @Nonnull String uid,
+                      @Nonnull String positionUid,
+                      @Nonnull String ticker,
+                      @Nonnull String classCode) {
+    if (figi.isEmpty() && uid.isEmpty()) {
+      throw new IllegalArgumentException("Для регистрации инструмента нужен figi или uid.");
+    }
+    synchronized (lock) {
+      var id = idOf(uid, figi);
+      if (id == UNKNOWN) {
+        id = size;
+        if (id == instruments.length) {
+          instruments = Arrays.copyOf(instruments, id * 2);
+        }
+        instruments[id] = new InstrumentIds(figi, uid, positionUid, ticker, classCode);
+      } else {
+        var known = instruments[id];
+        instruments[id] = new InstrumentIds(
+          known.figi.isEmpty() ? figi : known.figi,
+          known.uid.isEmpty() ? uid : known.uid,
+          known.positionUid.isEmpty() ? positionUid : known.positionUid,
+          known.ticker.isEmpty() ? ticker : known.ticker,
+          known.classCode.isEmpty() ? classCode : known.classCode);
+      }
+      put(figi, id);
+      put(uid, id);
+      put(positionUid, id);
+      if (!ticker.isEmpty()) {
+        if (!classCode.isEmpty()) {
+          put(ticker + "_" + classCode, id);
+        }
+        put(ticker, id);
+      }
+      if (id == size) {
+        size = id + 1;
+      }
+      return id;
+    }
+  }
+
+  /**
+   * Регистрация инструмента из ответа {@link InstrumentsService}: {@code Share}, {@code Bond}, {@code Etf},
+   * {@code Currency}, {@code Future}, {@code Option}, {@code Instrument}, {@code InstrumentShort} и т.п.
+   * Идентификаторы берутся из полей figi, uid (либо instrument_uid), position_uid, ticker и class_code.
+   *
+   * @return Номер инструмента.
+   */
+  public int register(@Nonnull MessageOrBuilder instrument) {
+    var uid = stringField(instrument, "uid");
+    return register(
+      stringField(instrument, "figi"),
+      uid.isEmpty() ? stringField(instrument, "instrument_uid") : uid,
+      stringField(instrument, "position_uid"),
+      stringField(instrument, "ticker"),
+      stringField(instrument, "class_code"));
+  }
+
+  public void registerAll(@Nonnull Iterable<? extends MessageOrBuilder> instruments) {
+    for (var instrument : instruments) {
+      register(instrument);
+    }
+  }
+
+  /**
+   * Регистрация акций, облигаций, фондов, валют, фьючерсов и опционов, включая недоступные для торговли через API.
+   */
+  public void registerAll(@Nonnull InstrumentsService instrumentsService) {
+    registerAll(instrumentsService.getAllSharesSync());
+    registerAll(instrumentsService.getAllBondsSync());
+    registerAll(instrumentsService.getAllEtfsSync());
+    registerAll(instrumentsService.getAllCurrenciesSync());
+    registerAll(instrumentsService.getAllFuturesSync());
+    registerAll(instrumentsService.getAllOptionsSync());
+  }
+
+  /**
+   * Регистрация пар figi и instrument_uid из ответов на подписку стрима котировок.
+   * Прочие сообщения игнорируются.
+   */
+  public void registerSubscriptions(@Nonnull MarketDataResponse response) {
+    switch (response.getPayloadCase()) {
+      case SUBSCRIBE_CANDLES_RESPONSE:
+        response.getSubscribeCandlesResponse().getCandlesSubscriptionsList()
+          .forEach(subscription -> registerSubscription(subscription.getFigi(), subscription.getInstrumentUid()));
+        break;
+      case SUBSCRIBE_ORDER_BOOK_RESPONSE:
+        response.getSubscribeOrderBookResponse().getOrderBookSubscriptionsList()
+          .forEach(subscription -> registerSubscription(subscription.getFigi(), subscription.getInstrumentUid()));
+        break;
+      case SUBSCRIBE_TRADES_RESPONSE:
+        response.getSubscribeTradesResponse().getTradeSubscriptionsList()
+          .forEach(subscription -> registerSubscription(subscription.getFigi(), subscription.getInstrumentUid()));
+        break;
+      case SUBSCRIBE_INFO_RESPONSE:
+        response.getSubscribeInfoResponse().getInfoSubscriptionsList()
+          .forEach(subscription -> registerSubscription(subscription.getFigi(), subscription.getInstrumentUid()));
+        break;
+      case SUBSCRIBE_LAST_PRICE_RESPONSE:
+        response.getSubscribeLastPriceResponse().getLastPriceSubscriptionsList()
+          .forEach(subscription -> registerSubscription(subscription.getFigi(), subscription.getInstrumentUid()));
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void registerSubscription(String figi, String instrumentUid) {
+    if (!figi.isEmpty() || !instrumentUid.isEmpty()) {
+      register(figi, instrumentUid, "", "", "");
+    }
+  }
+
+  private InstrumentIds ids(int id) {
+    if (id < 0 || id >= size) {
+      throw new IndexOutOfBoundsException("Инструмент с номером " + id + " не зарегистрирован");
+    }
+    var ids = instruments[id];
+    if (ids == null) {
+      synchronized (lock) {
+        ids = instruments[id];
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Добавление ключа, если он ещё не зарегистрирован. Вызывается под блокировкой.
+   * Новая запись публикуется без блокировки читателей: её поля неизменяемы, а таблица
+   * при расширении подменяется целиком.
+   */
+  private void put(String key, int id) {
+    if (key.isEmpty() || idOf(key) != UNKNOWN) {
+      return;
+    }
+    var entries = table;
+    if ((keyCount + 1) * 2 > entries.length) {
+      entries = resize(entries);
+    }
+    insert(entries, new Entry(key, hash(key), id));
+    keyCount++;
+    table = entries;
+  }
+
+  private static Entry[] resize(Entry[] entries) {
+    var resized = new Entry[entries.length * 2];
+    for (var entry : entries) {
+      if (entry != null) {
+        insert(resized, entry);
+      }
+    }
+    return resized;
+  }
+
+  private static void insert(Entry[] entries, Entry entry) {
+    var mask = entries.length - 1;
+    var i = entry.hash & mask;
+    while (entries[i] != null) {
+      i = (i + 1) & mask;
+    }
+    entries[i] = entry;
+  }
+
+  private static int hash(String key) {
+    var h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static String stringField(MessageOrBuilder message, String name) {
+    var field = message.getDescriptorForType().findFieldByName(name);
+    if (field == null || field.getJavaType() != Descriptors.FieldDescriptor.JavaType.STRING || field.isRepeated()) {
+      return "";
+    }
+    return (String) message.getField(field);
+  }
+
+  private static final class Entry {
+    private final String key;
+    private final int hash;
+    private final int id;
+
+    Entry(String key, int hash, int id) {
+      this.key = key;
+      this.hash = hash;
+      this.id = id;
+    }
+  }
+
+  private static final class InstrumentIds {
+    private final String figi;
+    private final String uid;
+    private final String positionUid;
+    private final String ticker;
+    private final String classCode;
+
+    InstrumentIds(String figi, String uid, String positionUid, String ticker, String classCode) {
+      this.figi = figi;
+      this.uid = uid;
+      this.positionUid = positionUid;
+      this.ticker = ticker;
+      this.classCode = classCode;
+    }
+  }
+}
@@ -0,0 +1,326 @@
+package ru.tinkoff.piapi.core.instruments;
+
+import ru.tinkoff.piapi.contract.v1.Bond;
+import ru.tinkoff.piapi.contract.v1.Currency;
+import ru.tinkoff.piapi.contract.v1.Etf;
+import ru.tinkoff.piapi.contract.v1.Future;
+import ru.tinkoff.piapi.contract.v1.Instrument;
+import ru.tinkoff.piapi.contract.v1.InstrumentType;
+import ru.tinkoff.piapi.contract.v1.Option;
+import ru.tinkoff.piapi.contract.v1.Quotation;
+import ru.tinkoff.piapi.contract.v1.SecurityTradingStatus;
+import ru.tinkoff.piapi.contract.v1.Share;
+import ru.tinkoff.piapi.core.InstrumentsService;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ru.tinkoff.piapi.core.utils.MapperUtils.quotationToNanos;
+
+/**
+ * Компактная таблица параметров инструментов, необходимых для проверки заявок: лотность, шаг цены,
+ * валюта, биржа, торговый статус и признаки доступности операций.
+ * <p>
+ * Параметры хранятся по столбцам в массивах примитивов, индексом служит номер инструмента из
+ * {@link InstrumentIdInterner}. Это позволяет не держать в памяти объекты {@code Share}, {@code Bond} и т.д.
+ * целиком: строка таблицы занимает несколько десятков байт. Шаг цены хранится в нано-единицах валюты
+ * ({@code units * 10^9 + nano}), валюта и биржа — номерами в словарях таблицы.
+ * <p>
+ * Таблица заполняется из ответов {@link InstrumentsService}. Заполнение не является потокобезопасным:
+ * его следует выполнять до начала чтения из других потоков либо под внешней синхронизацией.
+ */
+public class InstrumentMetadataTable {
+
+  public static final int API_TRADE_AVAILABLE = 1;
+  public static final int BUY_AVAILABLE = 1 << 1;
+  public static final int SELL_AVAILABLE = 1 << 2;
+  public static final int SHORT_ENABLED = 1 << 3;
+  public static final int FOR_QUAL_INVESTOR = 1 << 4;
+  public static final int WEEKEND = 1 << 5;
+  public static final int OTC = 1 << 6;
+  public static final int BLOCKED_TCA = 1 << 7;
+  public static final int FOR_IIS = 1 << 8;
+  public static final int LIQUIDITY = 1 << 9;
+  /**
+   * Признак наличия строки инструмента в таблице.
+   */
+  private static final int PRESENT = 1 << 31;
+  /**
+   * Код нераспознанного значения перечисления: {@code forNumber} возвращает для него {@code null}.
+   */
+  private static final byte UNKNOWN = -1;
+
+  private final InstrumentIdInterner interner;
+  private final Dictionary currencies = new Dictionary();
+  private final Dictionary exchanges = new Dictionary();
+  private int[] lot;
+  private long[] minPriceIncrement;
+  private short[] currency;
+  private short[] exchange;
+  private int[] flags;
+  private byte[] kind;
+  private byte[] tradingStatus;
+
+  public InstrumentMetadataTable(@Nonnull InstrumentIdInterner interner) {
+    this.interner = interner;
+    var capacity = Math.max(16, interner.size());
+    this.lot = new int[capacity];
+    this.minPriceIncrement = new long[capacity];
+    this.currency = new short[capacity];
+    this.exchange = new short[capacity];
+    this.flags = new int[capacity];
+    this.kind = new byte[capacity];
+    this.tradingStatus = new byte[capacity];
+  }
+
+  @Nonnull
+  public InstrumentIdInterner getInterner() {
+    return interner;
+  }
+
+  /**
+   * Заполнение таблицы акциями, облигациями, фондами, валютами, фьючерсами и опционами,
+   * включая недоступные для торговли через API.
+   */
+  public void loadAll(@Nonnull InstrumentsService instrumentsService) {
+    instrumentsService.getAllSharesSync().forEach(this::put);
+    instrumentsService.getAllBondsSync().forEach(this::put);
+    instrumentsService.getAllEtfsSync().forEach(this::put);
+    instrumentsService.getAllCurrenciesSync().forEach(this::put);
+    instrumentsService.getAllFuturesSync().forEach(this::put);
+    instrumentsService.getAllOptionsSync().forEach(this::put);
+  }
+
+  /**
+   * Добавление или обновление строки инструмента. Инструмент регистрируется в {@link InstrumentIdInterner}.
+   *
+   * @return Номер инструмента.
+   */
+  public int put(@Nonnull Share share) {
+    return put(interner.register(share), InstrumentType.INSTRUMENT_TYPE_SHARE_VALUE, share.getLot(),
+      share.getMinPriceIncrement(), share.getCurrency(), share.getExchange(), share.getTradingStatusValue(),
+      flags(share.getApiTradeAvailableFlag(), share.getBuyAvailableFlag(), share.getSellAvailableFlag(),
+        share.getShortEnabledFlag(), share.getForQualInvestorFlag(), share.getWeekendFlag(), share.getOtcFlag(),
+        share.getBlockedTcaFlag(), share.getForIisFlag(), share.getLiquidityFlag()));
+  }
+
+  public int put(@Nonnull Bond bond) {
+    return put(interner.register(bond), InstrumentType.INSTRUMENT_TYPE_BOND_VALUE, bond.getLot(),
+      bond.getMinPriceIncrement(), bond.getCurrency(), bond.getExchange(), bond.getTradingStatusValue(),
+      flags(bond.getApiTradeAvailableFlag(), bond.getBuyAvailableFlag(), bond.getSellAvailableFlag(),
+        bond.getShortEnabledFlag(), bond.getForQualInvestorFlag(), bond.getWeekendFlag(), bond.getOtcFlag(),
+        bond.getBlockedTcaFlag(), bond.getForIisFlag(), bond.getLiquidityFlag()));
+  }
+
+  public int put(@Nonnull Etf etf) {
+    return put(interner.register(etf), InstrumentType.INSTRUMENT_TYPE_ETF_VALUE, etf.getLot(),
+      etf.getMinPriceIncrement(), etf.getCurrency(), etf.getExchange(), etf.getTradingStatusValue(),
+      flags(etf.getApiTradeAvailableFlag(), etf.getBuyAvailableFlag(), etf.getSellAvailableFlag(),
+        etf.getShortEnabledFlag(), etf.getForQualInvestorFlag(), etf.getWeekendFlag(), etf.getOtcFlag(),
+        etf.getBlockedTcaFlag(), etf.getForIisFlag(), etf.getLiquidityFlag()));
+  }
+
+  public int put(@Nonnull Currency currency) {
+    return put(interner.register(currency), InstrumentType.INSTRUMENT_TYPE_CURRENCY_VALUE, currency.getLot(),
+      currency.getMinPriceIncrement(), currency.getCurrency(), currency.getExchange(), currency.getTradingStatusValue(),
+      flags(currency.getApiTradeAvailableFlag(), currency.getBuyAvailableFlag(), currency.getSellAvailableFlag(),
+        currency.getShortEnabledFlag(), currency.getForQualInvestorFlag(), currency.getWeekendFlag(),
+        currency.getOtcFlag(), currency.getBlockedTcaFlag(), currency.getForIisFlag(), false));
+  }
+
+  public int put(@Nonnull Future future) {
+    return put(interner.register(future), InstrumentType.INSTRUMENT_TYPE_FUTURES_VALUE, future.getLot(),
+      future.getMinPriceIncrement(), future.getCurrency(), future.getExchange(), future.getTradingStatusValue(),
+      flags(future.getApiTradeAvailableFlag(), future.getBuyAvailableFlag(), future.getSellAvailableFlag(),
+        future.getShortEnabledFlag(), future.getForQualInvestorFlag(), future.getWeekendFlag(),
+        future.getOtcFlag(), future.getBlockedTcaFlag(), future.getForIisFlag(), false));
+  }
+
+  public int put(@Nonnull Option option) {
+    return put(interner.register(option), InstrumentType.INSTRUMENT_TYPE_OPTION_VALUE, option.getLot(),
+      option.getMinPriceIncrement(), option.getCurrency(), option.getExchange(), option.getTradingStatusValue(),
+      flags(option.getApiTradeAvailableFlag(), option.getBuyAvailableFlag(), option.getSellAvailableFlag(),
+        option.getShortEnabledFlag(), option.getForQualInvestorFlag(), option.getWeekendFlag(),
+        option.getOtcFlag(), option.getBlockedTcaFlag(), option.getForIisFlag(), false));
+  }
+
+  public int put(@Nonnull Instrument instrument) {
+    return put(interner.register(instrument), instrument.getInstrumentKindValue(), instrument.getLot(),
+      instrument.getMinPriceIncrement(), instrument.getCurrency(), instrument.getExchange(),
+      instrument.getTradingStatusValue(),
+      flags(instrument.getApiTradeAvailableFlag(), instrument.getBuyAvailableFlag(),
+        instrument.getSellAvailableFlag(), instrument.getShortEnabledFlag(), instrument.getForQualInvestorFlag(),
+        instrument.getWeekendFlag(), instrument.getOtcFlag(), instrument.getBlockedTcaFlag(),
+        instrument.getForIisFlag(), false));
+  }
+
+  /**
+   * Признак наличия параметров инструмента в таблице.
+   */
+  public boolean contains(int id) {
+    return id >= 0 && id < flags.length && (flags[id] & PRESENT) != 0;
+  }
+
+  /**
+   * Лотность инструмента.
+   */
+  public int lot(int id) {
+    return lot[checked(id)];
+  }
+
+  /**
+   * Шаг цены в нано-единицах валюты.
+   */
+  public long minPriceIncrement(int id) {
+    return minPriceIncrement[checked(id)];
+  }
+
+  /**
+   * Номер валюты расчётов в словаре таблицы, см. {@link #currencyName(int)}.
+   */
+  public int currencyId(int id) {
+    return currency[checked(id)];
+  }
+
+  /**
+   * Код валюты по номеру в словаре таблицы.
+   */
+  @Nonnull
+  public String currencyName(int currencyId) {
+    return currencies.name(currencyId);
+  }
+
+  /**
+   * Номер торговой площадки в словаре таблицы, см. {@link #exchangeName(int)}.
+   */
+  public int exchangeId(int id) {
+    return exchange[checked(id)];
+  }
+
+  @Nonnull
+  public String exchangeName(int exchangeId) {
+    return exchanges.name(exchangeId);
+  }
+
+  /**
+   * Признаки инструмента: комбинация констант {@link #API_TRADE_AVAILABLE}, {@link #BUY_AVAILABLE} и т.д.
+   */
+  public int flags(int id) {
+    return flags[checked(id)] & ~PRESENT;
+  }
+
+  /**
+   * Проверка, что у инструмента установлены все заданные признаки.
+   */
+  public boolean hasFlags(int id, int mask) {
+    return (flags[checked(id)] & mask) == mask;
+  }
+
+  @Nonnull
+  public InstrumentType kind(int id) {
+    var value = InstrumentType.forNumber(kind[checked(id)]);
+    return value == null ? InstrumentType.UNRECOGNIZED : value;
+  }
+
+  /**
+   * Торговый статус на момент загрузки списка инструментов.
+   */
+  @Nonnull
+  public SecurityTradingStatus tradingStatus(int id) {
+    var value = SecurityTradingStatus.forNumber(tradingStatus[checked(id)]);
+    return value == null ? SecurityTradingStatus.UNRECOGNIZED : value;
+  }
+
+  /**
+   * Обновление торгового статуса. Как и заполнение таблицы, не является потокобезопасным: статусы из стрима
+   * котировок, обрабатываемого в другом потоке, учитывает {@link ru.tinkoff.piapi.core.orders.PreTradeChecker}.
+   */
+  public void setTradingStatus(int id, @Nonnull SecurityTradingStatus status) {
+    tradingStatus[checked(id)] = status == SecurityTradingStatus.UNRECOGNIZED ? UNKNOWN : code(status.getNumber());
+  }
+
+  private int put(int id, int instrumentKind, int lotSize, Quotation increment,
+                  String currencyCode, String exchangeCode, int status, int instrumentFlags) {
+    ensureCapacity(id + 1);
+    lot[id] = lotSize;
+    minPriceIncrement[id] = quotationToNanos(increment);
+    currency[id] = currencies.id(currencyCode);
+    exchange[id] = exchanges.id(exchangeCode);
+    kind[id] = code(instrumentKind);
+    tradingStatus[id] = code(status);
+    flags[id] = instrumentFlags | PRESENT;
+    return id;
+  }
+
+  /**
+   * Значения перечислений из новых версий контракта, не помещающиеся в байт, хранятся как неизвестные.
+   */
+  private static byte code(int value) {
+    return value >= 0 && value <= Byte.MAX_VALUE ? (byte) value : UNKNOWN;
+  }
+
+  private int checked(int id) {
+    if (!contains(id)) {
+      throw new IllegalArgumentException("Параметры инструмента с номером " + id + " не загружены");
+    }
+    return id;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= flags.length) {
+      return;
+    }
+    var length = Math.max(capacity, flags.length * 2);
+    lot = Arrays.copyOf(lot, length);
+    minPriceIncrement = Arrays.copyOf(minPriceIncrement, length);
+    currency = Arrays.copyOf(currency, length);
+    exchange = Arrays.copyOf(exchange, length);
+    kind = Arrays.copyOf(kind, length);
+    tradingStatus = Arrays.copyOf(tradingStatus, length);
+    flags = Arrays.copyOf(flags, length);
+  }
+
+  private static int flags(boolean apiTradeAvailable, boolean buyAvailable, boolean sellAvailable,
+                           boolean shortEnabled, boolean forQualInvestor, boolean weekend, boolean otc,
+                           boolean blockedTca, boolean forIis, boolean liquidity) {
+    return (apiTradeAvailable ? API_TRADE_AVAILABLE : 0)
+      | (buyAvailable ? BUY_AVAILABLE : 0)
+      | (sellAvailable ? SELL_AVAILABLE : 0)
+      | (shortEnabled ? SHORT_ENABLED : 0)
+      | (forQualInvestor ? FOR_QUAL_INVESTOR : 0)
+      | (weekend ? WEEKEND : 0)
+      | (otc ? OTC : 0)
+      | (blockedTca ? BLOCKED_TCA : 0)
+      | (forIis ? FOR_IIS : 0)
+      | (liquidity ? LIQUIDITY : 0);
+  }
+
+  /**
+   * Словарь коротких строковых кодов (валют, площадок) с номерами по порядку добавления.
+   */
+  private static class Dictionary {
+    private final Map<String, Short> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    short id(String name) {
+      var id = ids.get(name);
+      if (id == null) {
+        if (names.size() == Short.MAX_VALUE) {
+          throw new IllegalStateException("Слишком много различных значений: " + names.size());
+        }
+        id = (short) names.size();
+        ids.put(name, id);
+        names.add(name);
+      }
+      return id;
+    }
+
+    String name(int id) {
+      return names.get(id);
+    }
+  }
+}
@@ -0,0 +1,376 @@
+package ru.tinkoff.piapi.core.instruments;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.MessageOrBuilder;
+import ru.tinkoff.piapi.contract.v1.InstrumentShort;
+import ru.tinkoff.piapi.contract.v1.InstrumentType;
+import ru.tinkoff.piapi.core.InstrumentsService;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Локальный поиск инструментов — замена {@link InstrumentsService#findInstrumentSync(String)} без запроса к API.
+ * <p>
+ * Поиск выполняется по точному совпадению figi, uid, position_uid, ISIN или {@code ticker_classCode},
+ * по началу тикера и по вхождению строки в название. Результаты возвращаются в формате {@link InstrumentShort}
+ * в порядке: точные совпадения идентификаторов, тикеры, названия. Регистр не учитывается.
+ * <p>
+ * Индекс неизменяем и подменяется целиком при обновлении, поэтому поиск не блокируется и может выполняться
+ * из любых потоков одновременно с обновлением. При перестроении переиспользуются подготовленные записи
+ * инструментов, не изменившихся с прошлого обновления.
+ */
+public class InstrumentSearchIndex {
+
+  private static final int GRAM = 3;
+
+  private final Object updateLock = new Object();
+  private volatile Snapshot snapshot = new Snapshot(new Entry[0]);
+
+  /**
+   * Загрузка акций, облигаций, фондов, валют, фьючерсов и опционов и перестроение индекса.
+   */
+  public void refresh(@Nonnull InstrumentsService instrumentsService) {
+    var instruments = new ArrayList<InstrumentShort>();
+    instrumentsService.getAllSharesSync()
+      .forEach(share -> instruments.add(toInstrumentShort(share, InstrumentType.INSTRUMENT_TYPE_SHARE, "share")));
+    instrumentsService.getAllBondsSync()
+      .forEach(bond -> instruments.add(toInstrumentShort(bond, InstrumentType.INSTRUMENT_TYPE_BOND, "bond")));
+    instrumentsService.getAllEtfsSync()
+      .forEach(etf -> instruments.add(toInstrumentShort(etf, InstrumentType.INSTRUMENT_TYPE_ETF, "etf")));
+    instrumentsService.getAllCurrenciesSync()
+      .forEach(currency -> instruments.add(
+        toInstrumentShort(currency, InstrumentType.INSTRUMENT_TYPE_CURRENCY, "currency")));
+    instrumentsService.getAllFuturesSync()
+      .forEach(future -> instruments.add(
+        toInstrumentShort(future, InstrumentType.INSTRUMENT_TYPE_FUTURES, "futures")));
+    instrumentsService.getAllOptionsSync()
+      .forEach(option -> instruments.add(toInstrumentShort(option, InstrumentType.INSTRUMENT_TYPE_OPTION, "option")));
+    update(instruments);
+  }
+
+  /**
+   * Загрузка инструментов и перестроение индекса в фоне. До завершения поиск выполняется по прежнему индексу.
+   */
+  @Nonnull
+  public CompletableFuture<Void> refreshAsync(@Nonnull InstrumentsService instrumentsService,
+                                              @Nonnull Executor executor) {
+    return CompletableFuture.runAsync(() -> refresh(instrumentsService), executor);
+  }
+
+  /**
+   * Перестроение индекса по заданному набору инструментов.
+   */
+  public void update(@Nonnull Collection<InstrumentShort> instruments) {
+    synchronized (updateLock) {
+      var previous = new HashMap<String, Entry>();
+      for (var entry : snapshot.entries) {
+        previous.put(key(entry.instrument), entry);
+      }
+      var entries = new Entry[instruments.size()];
+      var i = 0;
+      for (var instrument : instruments) {
+        var entry = previous.get(key(instrument));
+        entries[i++] = entry != null && entry.instrument.equals(instrument) ? entry : new Entry(instrument);
+      }
+      snapshot = new Snapshot(entries);
+    }
+  }
+
+  /**
+   * Количество инструментов в индексе.
+   */
+  public int size() {
+    return snapshot.entries.length;
+  }
+
+  /**
+   * Поиск инструментов без фильтров.
+   */
+  @Nonnull
+  public List<InstrumentShort> find(@Nonnull String query) {
+    return find(query, null, false, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Поиск инструментов.
+   *
+   * @param query                 Строка поиска.
+   * @param instrumentKind        Тип инструмента либо {@code null}, если тип не важен.
+   * @param apiTradeAvailableOnly Только инструменты, доступные для торговли через API.
+   * @param limit                 Максимальное количество результатов.
+   */
+  @Nonnull
+  public List<InstrumentShort> find(@Nonnull String query,
+                                    @Nullable InstrumentType instrumentKind,
+                                    boolean apiTradeAvailableOnly,
+                                    int limit) {
+    var normalized = normalize(query.trim());
+    var result = new ArrayList<InstrumentShort>();
+    if (normalized.isEmpty() || limit <= 0) {
+      return result;
+    }
+    var current = snapshot;
+    var search = new Search(current, instrumentKind, apiTradeAvailableOnly, limit, result);
+    var exact = current.exact.get(normalized);
+    if (exact != null) {
+      for (var index : exact) {
+        if (!search.accept(index)) {
+          return result;
+        }
+      }
+    }
+    var from = lowerBound(current.tickers, normalized);
+    for (int index = from; index < current.tickers.length && current.tickers[index].startsWith(normalized); index++) {
+      if (!search.accept(index)) {
+        return result;
+      }
+    }
+    if (normalized.length() < GRAM) {
+      for (int index = 0; index < current.entries.length; index++) {
+        if (current.entries[index].name.contains(normalized) && !search.accept(index)) {
+          return result;
+        }
+      }
+      return result;
+    }
+    var candidates = current.candidates(normalized);
+    for (var index : candidates) {
+      if (current.entries[index].name.contains(normalized) && !search.accept(index)) {
+        return result;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Инструмент по точному совпадению figi, uid, position_uid, ISIN или {@code ticker_classCode}.
+   *
+   * @return Инструмент либо {@code null}, если он не найден.
+   */
+  @Nullable
+  public InstrumentShort get(@Nonnull String id) {
+    var current = snapshot;
+    var exact = current.exact.get(normalize(id));
+    return exact == null ? null : current.entries[exact[0]].instrument;
+  }
+
+  /**
+   * Преобразование инструмента из ответа {@link InstrumentsService} ({@code Share}, {@code Bond} и т.д.)
+   * в {@link InstrumentShort}. Копируются одноимённые поля.
+   */
+  @Nonnull
+  public static InstrumentShort toInstrumentShort(@Nonnull MessageOrBuilder instrument,
+                                                  @Nonnull InstrumentType instrumentKind,
+                                                  @Nonnull String instrumentType) {
+    var builder = InstrumentShort.newBuilder();
+    var source = instrument.getDescriptorForType();
+    for (var field : InstrumentShort.getDescriptor().getFields()) {
+      var sourceField = source.findFieldByName(field.getName());
+      if (sourceField == null || sourceField.getJavaType() != field.getJavaType() || sourceField.isRepeated()
+        || field.getJavaType() == Descriptors.FieldDescriptor.JavaType.ENUM) {
+        continue;
+      }
+      if (field.getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE
+        && (sourceField.getMessageType() != field.getMessageType() || !instrument.hasField(sourceField))) {
+        continue;
+      }
+      builder.setField(field, instrument.getField(sourceField));
+    }
+    return builder
+      .setInstrumentKind(instrumentKind)
+      .setInstrumentType(instrumentType)
+      .build();
+  }
+
+  private static String key(InstrumentShort instrument) {
+    return instrument.getUid().isEmpty() ? instrument.getFigi() : instrument.getUid();
+  }
+
+  private static String normalize(String value) {
+    return value.toLowerCase(Locale.ROOT);
+  }
+
+  private static int lowerBound(String[] sorted, String key) {
+    var low = 0;
+    var high = sorted.length;
+    while (low < high) {
+      var mid = (low + high) >>> 1;
+      if (sorted[mid].compareTo(key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Подготовленная запись инструмента: нормализованные тикер и название и n-граммы названия.
+   */
+  private static final class Entry {
+    private final InstrumentShort instrument;
+    private final String ticker;
+    private final String name;
+    private final String[] grams;
+
+    Entry(InstrumentShort instrument) {
+      this.instrument = instrument;
+      this.ticker = normalize(instrument.getTicker());
+      this.name = normalize(instrument.getName());
+      var unique = new LinkedHashSet<String>();
+      for (int i = 0; i + GRAM <= name.length(); i++) {
+        unique.add(name.substring(i, i + GRAM));
+      }
+      this.grams = unique.toArray(new String[0]);
+    }
+  }
+
+  private static final class Snapshot {
+    /**
+     * Записи, упорядоченные по тикеру.
+     */
+    private final Entry[] entries;
+    private final String[] tickers;
+    private final Map<String, int[]> exact = new HashMap<>();
+    private final Map<String, int[]> grams = new HashMap<>();
+
+    Snapshot(Entry[] entries) {
+      Arrays.sort(entries, Comparator.comparing((Entry entry) -> entry.ticker)
+        .thenComparing(entry -> entry.instrument.getClassCode()));
+      this.entries = entries;
+      this.tickers = new String[entries.length];
+      var exactLists = new HashMap<String, IntList>();
+      var gramLists = new HashMap<String, IntList>();
+      for (int i = 0; i < entries.length; i++) {
+        var entry = entries[i];
+        var instrument = entry.instrument;
+        tickers[i] = entry.ticker;
+        addKey(exactLists, instrument.getFigi(), i);
+        addKey(exactLists, instrument.getUid(), i);
+        addKey(exactLists, instrument.getPositionUid(), i);
+        addKey(exactLists, instrument.getIsin(), i);
+        if (!instrument.getTicker().isEmpty() && !instrument.getClassCode().isEmpty()) {
+          addKey(exactLists, instrument.getTicker() + "_" + instrument.getClassCode(), i);
+        }
+        for (var gram : entry.grams) {
+          gramLists.computeIfAbsent(gram, key -> new IntList()).add(i);
+        }
+      }
+      exactLists.forEach((key, list) -> exact.put(key, list.toArray()));
+      gramLists.forEach((key, list) -> grams.put(key, list.toArray()));
+    }
+
+    /**
+     * Записи, название которых содержит все n-граммы строки поиска: пересечение списков,
+     * начиная с самого короткого.
+     */
+    int[] candidates(String query) {
+      int[] shortest = null;
+      var lists = new ArrayList<int[]>();
+      for (int i = 0; i + GRAM <= query.length(); i++) {
+        var list = grams.get(query.substring(i, i + GRAM));
+        if (list == null) {
+          return new int[0];
+        }
+        lists.add(list);
+        if (shortest == null || list.length < shortest.length) {
+          shortest = list;
+        }
+      }
+      var result = shortest;
+      for (var list : lists) {
+        if (list != shortest) {
+          result = intersect(result, list);
+        }
+      }
+      return result;
+    }
+
+    private static int[] intersect(int[] left, int[] right) {
+      var result = new int[Math.min(left.length, right.length)];
+      var size = 0;
+      var j = 0;
+      for (var value : left) {
+        while (j < right.length && right[j] < value) {
+          j++;
+        }
+        if (j < right.length && right[j] == value) {
+          result[size++] = value;
+        }
+      }
+      return Arrays.copyOf(result, size);
+    }
+
+    private static void addKey(Map<String, IntList> lists, String key, int index) {
+      if (!key.isEmpty()) {
+        lists.computeIfAbsent(normalize(key), k -> new IntList()).add(index);
+      }
+    }
+  }
+
+  /**
+   * Сбор результатов поиска без повторов с учётом фильтров и ограничения количества.
+   */
+  private static final class Search {
+    private final Snapshot snapshot;
+    private final InstrumentType instrumentKind;
+    private final boolean apiTradeAvailableOnly;
+    private final int limit;
+    private final List<InstrumentShort> result;
+    private final BitSet seen = new BitSet();
+
+    Search(Snapshot snapshot, InstrumentType instrumentKind, boolean apiTradeAvailableOnly, int limit,
+           List<InstrumentShort> result) {
+      this.snapshot = snapshot;
+      this.instrumentKind = instrumentKind == InstrumentType.INSTRUMENT_TYPE_UNSPECIFIED ? null : instrumentKind;
+      this.apiTradeAvailableOnly = apiTradeAvailableOnly;
+      this.limit = limit;
+      this.result = result;
+    }
+
+    /**
+     * @return {@code false}, если набрано максимальное количество результатов.
+     */
+    boolean accept(int index) {
+      if (seen.get(index)) {
+        return true;
+      }
+      seen.set(index);
+      var instrument = snapshot.entries[index].instrument;
+      if ((instrumentKind == null || instrument.getInstrumentKind() == instrumentKind)
+        && (!apiTradeAvailableOnly || instrument.getApiTradeAvailableFlag())) {
+        result.add(instrument);
+      }
+      return result.size() < limit;
+    }
+  }
+
+  private static final class IntList {
+    private int[] values = new int[4];
+    private int size;
+
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
+  }
+}
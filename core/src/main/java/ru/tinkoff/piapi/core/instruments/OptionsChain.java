@@ -0,0 +1,379 @@
+package ru.tinkoff.piapi.core.instruments;
+
+import ru.tinkoff.piapi.contract.v1.LastPrice;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.Option;
+import ru.tinkoff.piapi.contract.v1.OptionDirection;
+import ru.tinkoff.piapi.core.InstrumentsService;
+import ru.tinkoff.piapi.core.stream.StreamProcessor;
+import ru.tinkoff.piapi.core.utils.MapperUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Локальная опционная доска: опционы базовых активов, сгруппированные по датам экспирации и страйкам.
+ * <p>
+ * Опционы загружаются через {@link InstrumentsService#getOptionsBySync(String, String)} по идентификатору
+ * базового актива. Для каждого актива хранятся отсортированные массивы дат экспирации и страйков
+ * (в миллиардных долях), поэтому поиск ближайшей экспирации и ближайшего страйка — двоичный поиск без запросов к API.
+ * <p>
+ * Доску можно подключить как обработчик стрима котировок с подпиской на последние цены опционов:
+ * цены хранятся в примитивных массивах рядом с опционами и доступны через {@link #getLastPrice(String)}.
+ * <p>
+ * Доска актива заменяется целиком при обновлении, поэтому её можно использовать из любых потоков.
+ */
+public class OptionsChain implements StreamProcessor<MarketDataResponse> {
+
+  private static final long NO_PRICE = Long.MIN_VALUE;
+
+  private final Map<String, Chain> chains = new ConcurrentHashMap<>();
+  private final Map<String, Chain> chainsByOption = new ConcurrentHashMap<>();
+
+  /**
+   * Загрузка опционов базового актива.
+   *
+   * @param basicAssetUid Идентификатор базового актива.
+   */
+  public void refresh(@Nonnull InstrumentsService instrumentsService, @Nonnull String basicAssetUid) {
+    update(basicAssetUid, instrumentsService.getOptionsBySync(basicAssetUid, null));
+  }
+
+  /**
+   * Загрузка опционов базового актива в фоне. До завершения запросы обслуживаются по прежней доске.
+   */
+  @Nonnull
+  public CompletableFuture<Void> refreshAsync(@Nonnull InstrumentsService instrumentsService,
+                                              @Nonnull String basicAssetUid,
+                                              @Nonnull Executor executor) {
+    return CompletableFuture.runAsync(() -> refresh(instrumentsService, basicAssetUid), executor);
+  }
+
+  /**
+   * Замена опционов базового актива. Известные последние цены опционов, оставшихся на доске, сохраняются.
+   *
+   * @param basicAssetUid Идентификатор базового актива, под которым будет доступна доска.
+   */
+  public void update(@Nonnull String basicAssetUid, @Nonnull Collection<Option> options) {
+    synchronized (chains) {
+      var previous = chains.get(basicAssetUid);
+      var chain = new Chain(options, previous);
+      for (var uid : chain.slots.keySet()) {
+        chainsByOption.put(uid, chain);
+      }
+      if (previous != null) {
+        for (var uid : previous.slots.keySet()) {
+          chainsByOption.remove(uid, previous);
+        }
+      }
+      chains.put(basicAssetUid, chain);
+    }
+  }
+
+  /**
+   * Базовые активы, для которых загружены опционы.
+   */
+  @Nonnull
+  public Set<String> getBasicAssets() {
+    return Set.copyOf(chains.keySet());
+  }
+
+  /**
+   * Даты экспирации опционов базового актива по возрастанию.
+   */
+  @Nonnull
+  public List<Instant> getExpirations(@Nonnull String basicAssetUid) {
+    var chain = chains.get(basicAssetUid);
+    if (chain == null) {
+      return List.of();
+    }
+    var result = new ArrayList<Instant>(chain.expirations.length);
+    for (var expiration : chain.expirations) {
+      result.add(Instant.ofEpochMilli(expiration));
+    }
+    return result;
+  }
+
+  /**
+   * Ближайшая дата экспирации не раньше заданного момента.
+   *
+   * @return Дата экспирации либо {@code null}, если таких опционов нет.
+   */
+  @Nullable
+  public Instant getNearestExpiration(@Nonnull String basicAssetUid, @Nonnull Instant from) {
+    var chain = chains.get(basicAssetUid);
+    if (chain == null) {
+      return null;
+    }
+    var index = chain.expirationAtOrAfter(from.toEpochMilli());
+    return index < 0 ? null : Instant.ofEpochMilli(chain.expirations[index]);
+  }
+
+  /**
+   * Страйки опционов с заданной датой экспирации по возрастанию.
+   */
+  @Nonnull
+  public List<BigDecimal> getStrikes(@Nonnull String basicAssetUid, @Nonnull Instant expiration) {
+    var series = series(basicAssetUid, expiration);
+    if (series == null) {
+      return List.of();
+    }
+    var result = new ArrayList<BigDecimal>(series.strikes.length);
+    for (var strike : series.strikes) {
+      result.add(toBigDecimal(strike));
+    }
+    return result;
+  }
+
+  /**
+   * Страйк с заданной датой экспирации, ближайший к цене. При равном расстоянии выбирается меньший.
+   *
+   * @return Страйк либо {@code null}, если опционов с такой датой экспирации нет.
+   */
+  @Nullable
+  public BigDecimal getNearestStrike(@Nonnull String basicAssetUid,
+                                     @Nonnull Instant expiration,
+                                     @Nonnull BigDecimal price) {
+    var series = series(basicAssetUid, expiration);
+    if (series == null) {
+      return null;
+    }
+    var index = series.nearest(toNanos(price), null);
+    return index < 0 ? null : toBigDecimal(series.strikes[index]);
+  }
+
+  /**
+   * Опцион с заданными датой экспирации, страйком и направлением.
+   *
+   * @return Опцион либо {@code null}, если его нет на доске.
+   */
+  @Nullable
+  public Option getOption(@Nonnull String basicAssetUid,
+                          @Nonnull Instant expiration,
+                          @Nonnull BigDecimal strike,
+                          @Nonnull OptionDirection direction) {
+    var series = series(basicAssetUid, expiration);
+    if (series == null) {
+      return null;
+    }
+    var index = Arrays.binarySearch(series.strikes, toNanos(strike));
+    return index < 0 ? null : series.option(index, direction);
+  }
+
+  /**
+   * Опцион заданного направления с ближайшей не раньше заданного момента датой экспирации
+   * и ближайшим к цене страйком среди опционов этого направления.
+   *
+   * @return Опцион либо {@code null}, если подходящих опционов нет.
+   */
+  @Nullable
+  public Option getNearestOption(@Nonnull String basicAssetUid,
+                                 @Nonnull Instant from,
+                                 @Nonnull BigDecimal price,
+                                 @Nonnull OptionDirection direction) {
+    var chain = chains.get(basicAssetUid);
+    if (chain == null) {
+      return null;
+    }
+    var nanos = toNanos(price);
+    var index = chain.expirationAtOrAfter(from.toEpochMilli());
+    for (; index >= 0 && index < chain.series.length; index++) {
+      var series = chain.series[index];
+      var strike = series.nearest(nanos, direction);
+      if (strike >= 0) {
+        return series.option(strike, direction);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void process(MarketDataResponse response) {
+    if (response.hasLastPrice()) {
+      onLastPrice(response.getLastPrice());
+    }
+  }
+
+  /**
+   * Учёт последней цены опциона из стрима котировок. Цены прочих инструментов игнорируются.
+   */
+  public void onLastPrice(@Nonnull LastPrice lastPrice) {
+    var uid = lastPrice.getInstrumentUid();
+    var chain = chainsByOption.get(uid);
+    if (chain != null) {
+      chain.prices.set(chain.slots.get(uid), MapperUtils.quotationToNanos(lastPrice.getPrice()));
+    }
+  }
+
+  /**
+   * Последняя полученная из стрима цена опциона.
+   *
+   * @param optionUid uid опциона.
+   * @return Цена либо {@code null}, если опциона нет на доске или цены по нему не приходили.
+   */
+  @Nullable
+  public BigDecimal getLastPrice(@Nonnull String optionUid) {
+    var chain = chainsByOption.get(optionUid);
+    if (chain == null) {
+      return null;
+    }
+    var price = chain.prices.get(chain.slots.get(optionUid));
+    return price == NO_PRICE ? null : toBigDecimal(price);
+  }
+
+  @Nullable
+  private Series series(String basicAssetUid, Instant expiration) {
+    var chain = chains.get(basicAssetUid);
+    if (chain == null) {
+      return null;
+    }
+    var index = Arrays.binarySearch(chain.expirations, expiration.toEpochMilli());
+    return index < 0 ? null : chain.series[index];
+  }
+
+  private static BigDecimal toBigDecimal(long nanos) {
+    var value = MapperUtils.nanosToBigDecimal(nanos);
+    return value.scale() < 0 ? value.setScale(0) : value;
+  }
+
+  private static long toNanos(BigDecimal value) {
+    return MapperUtils.quotationToNanos(MapperUtils.bigDecimalToQuotation(value));
+  }
+
+  /**
+   * Опционы одного базового актива: отсортированные даты экспирации и серии страйков по каждой из них.
+   * Последние цены хранятся в одном массиве, индекс опциона в нём задаётся {@link #slots}.
+   */
+  private static final class Chain {
+    private final long[] expirations;
+    private final Series[] series;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final AtomicLongArray prices;
+
+    Chain(Collection<Option> options, @Nullable Chain previous) {
+      var sorted = new ArrayList<>(options);
+      sorted.sort(Comparator.<Option>comparingLong(option -> expirationMillis(option))
+        .thenComparingLong(option -> MapperUtils.moneyValueToNanos(option.getStrikePrice())));
+      var expirationList = new ArrayList<Long>();
+      var seriesList = new ArrayList<Series>();
+      var from = 0;
+      for (int i = 1; i <= sorted.size(); i++) {
+        if (i == sorted.size() || expirationMillis(sorted.get(i)) != expirationMillis(sorted.get(from))) {
+          expirationList.add(expirationMillis(sorted.get(from)));
+          seriesList.add(new Series(sorted.subList(from, i)));
+          from = i;
+        }
+      }
+      expirations = expirationList.stream().mapToLong(Long::longValue).toArray();
+      series = seriesList.toArray(new Series[0]);
+      prices = new AtomicLongArray(sorted.size());
+      for (var option : sorted) {
+        var slot = slots.size();
+        if (slots.putIfAbsent(option.getUid(), slot) == null) {
+          var price = previous == null ? null : previous.slots.get(option.getUid());
+          prices.set(slot, price == null ? NO_PRICE : previous.prices.get(price));
+        }
+      }
+    }
+
+    int expirationAtOrAfter(long time) {
+      var index = Arrays.binarySearch(expirations, time);
+      if (index < 0) {
+        index = -index - 1;
+      }
+      return index < expirations.length ? index : -1;
+    }
+
+    private static long expirationMillis(Option option) {
+      var expiration = option.getExpirationDate();
+      return expiration.getSeconds() * 1000 + expiration.getNanos() / 1_000_000;
+    }
+  }
+
+  /**
+   * Опционы одной даты экспирации: отсортированные страйки и опционы колл и пут по каждому из них.
+   */
+  private static final class Series {
+    private final long[] strikes;
+    private final Option[] calls;
+    private final Option[] puts;
+
+    Series(List<Option> options) {
+      var strikeList = new ArrayList<Long>();
+      var callList = new ArrayList<Option>();
+      var putList = new ArrayList<Option>();
+      for (var option : options) {
+        var strike = MapperUtils.moneyValueToNanos(option.getStrikePrice());
+        if (strikeList.isEmpty() || strikeList.get(strikeList.size() - 1) != strike) {
+          strikeList.add(strike);
+          callList.add(null);
+          putList.add(null);
+        }
+        var last = strikeList.size() - 1;
+        if (option.getDirection() == OptionDirection.OPTION_DIRECTION_CALL) {
+          callList.set(last, option);
+        } else if (option.getDirection() == OptionDirection.OPTION_DIRECTION_PUT) {
+          putList.set(last, option);
+        }
+      }
+      strikes = strikeList.stream().mapToLong(Long::longValue).toArray();
+      calls = callList.toArray(new Option[0]);
+      puts = putList.toArray(new Option[0]);
+    }
+
+    @Nullable
+    Option option(int index, OptionDirection direction) {
+      if (direction == OptionDirection.OPTION_DIRECTION_CALL) {
+        return calls[index];
+      }
+      if (direction == OptionDirection.OPTION_DIRECTION_PUT) {
+        return puts[index];
+      }
+      return null;
+    }
+
+    /**
+     * Индекс страйка, ближайшего к цене, среди страйков, по которым есть опцион заданного направления
+     * ({@code null} — любого), либо -1.
+     */
+    int nearest(long price, @Nullable OptionDirection direction) {
+      var index = Arrays.binarySearch(strikes, price);
+      if (index >= 0 && matches(index, direction)) {
+        return index;
+      }
+      var above = index >= 0 ? index + 1 : -index - 1;
+      var below = above - 1;
+      while (below >= 0 && !matches(below, direction)) {
+        below--;
+      }
+      while (above < strikes.length && !matches(above, direction)) {
+        above++;
+      }
+      if (below < 0) {
+        return above < strikes.length ? above : -1;
+      }
+      if (above >= strikes.length) {
+        return below;
+      }
+      return price - strikes[below] <= strikes[above] - price ? below : above;
+    }
+
+    private boolean matches(int index, @Nullable OptionDirection direction) {
+      return direction == null || option(index, direction) != null;
+    }
+  }
+}
@@ -0,0 +1,283 @@
+package ru.tinkoff.piapi.core.instruments;
+
+import com.google.protobuf.Timestamp;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.SecurityTradingStatus;
+import ru.tinkoff.piapi.contract.v1.TradingDay;
+import ru.tinkoff.piapi.contract.v1.TradingSchedule;
+import ru.tinkoff.piapi.contract.v1.TradingStatus;
+import ru.tinkoff.piapi.core.InstrumentsService;
+import ru.tinkoff.piapi.core.stream.StreamProcessor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Кеш расписаний торгов, позволяющий без запросов к API узнать, идут ли торги на площадке,
+ * какая сессия открыта и когда начнётся следующая.
+ * <p>
+ * Расписания всех площадок загружаются через {@link InstrumentsService#getTradingSchedulesSync(Instant, Instant)}
+ * на заданный горизонт и хранятся в виде отсортированных массивов интервалов: каждый запрос — двоичный поиск.
+ * Если в расписании дня переданы торговые интервалы ({@code intervals}), используются они, иначе — время
+ * премаркета, основной и вечерней сессий.
+ * <p>
+ * Кеш можно подключить как обработчик стрима котировок с подпиской на торговые статусы
+ * ({@code subscribeInfo}): последний статус инструмента имеет приоритет над расписанием
+ * в {@link #isLimitOrderAvailable(String, String, Instant)} и {@link #isMarketOrderAvailable(String, String, Instant)}.
+ * <p>
+ * Расписание заменяется целиком при обновлении, поэтому кеш можно использовать из любых потоков.
+ */
+public class TradingScheduleCache implements StreamProcessor<MarketDataResponse> {
+
+  public static final String SESSION_PREMARKET = "premarket";
+  public static final String SESSION_MAIN = "main";
+  public static final String SESSION_EVENING = "evening";
+
+  private static final ZoneId MOSCOW = ZoneId.of("Europe/Moscow");
+
+  private final Duration horizon;
+  private final Clock clock;
+  private final Map<String, TradingStatus> statuses = new ConcurrentHashMap<>();
+  private volatile Map<String, ExchangeSchedule> exchanges = Map.of();
+
+  /**
+   * @param horizon На сколько вперёд загружать расписание при обновлении.
+   */
+  public TradingScheduleCache(@Nonnull Duration horizon) {
+    this(horizon, Clock.systemUTC());
+  }
+
+  public TradingScheduleCache(@Nonnull Duration horizon, @Nonnull Clock clock) {
+    this.horizon = horizon;
+    this.clock = clock;
+  }
+
+  /**
+   * Загрузка расписаний всех площадок с начала текущих суток по московскому времени на горизонт вперёд.
+   */
+  public void refresh(@Nonnull InstrumentsService instrumentsService) {
+    var now = clock.instant();
+    var from = LocalDate.ofInstant(now, MOSCOW).atStartOfDay(MOSCOW).toInstant();
+    update(instrumentsService.getTradingSchedulesSync(from, now.plus(horizon)));
+  }
+
+  /**
+   * Загрузка расписаний в фоне. До завершения запросы обслуживаются по прежнему расписанию.
+   */
+  @Nonnull
+  public CompletableFuture<Void> refreshAsync(@Nonnull InstrumentsService instrumentsService,
+                                              @Nonnull Executor executor) {
+    return CompletableFuture.runAsync(() -> refresh(instrumentsService), executor);
+  }
+
+  /**
+   * Замена расписаний площадок.
+   */
+  public void update(@Nonnull Collection<TradingSchedule> schedules) {
+    var result = new HashMap<String, ExchangeSchedule>();
+    for (var schedule : schedules) {
+      result.put(schedule.getExchange(), new ExchangeSchedule(schedule.getDaysList()));
+    }
+    exchanges = result;
+  }
+
+  @Override
+  public void process(MarketDataResponse response) {
+    if (response.hasTradingStatus()) {
+      onTradingStatus(response.getTradingStatus());
+    }
+  }
+
+  /**
+   * Учёт торгового статуса инструмента из стрима котировок.
+   */
+  public void onTradingStatus(@Nonnull TradingStatus status) {
+    if (!status.getInstrumentUid().isEmpty()) {
+      statuses.put(status.getInstrumentUid(), status);
+    }
+    if (!status.getFigi().isEmpty()) {
+      statuses.put(status.getFigi(), status);
+    }
+  }
+
+  /**
+   * Последний полученный из стрима торговый статус инструмента.
+   *
+   * @param instrumentId instrument_uid или figi.
+   * @return Статус либо {@code null}, если статусы инструмента не приходили.
+   */
+  @Nullable
+  public TradingStatus getTradingStatus(@Nonnull String instrumentId) {
+    return statuses.get(instrumentId);
+  }
+
+  /**
+   * Признак того, что по расписанию на площадке идут торги.
+   */
+  public boolean isOpen(@Nonnull String exchange, @Nonnull Instant time) {
+    return getSession(exchange, time) != null;
+  }
+
+  /**
+   * Название открытой торговой сессии.
+   *
+   * @return Название интервала из расписания, {@link #SESSION_PREMARKET}, {@link #SESSION_MAIN},
+   * {@link #SESSION_EVENING} либо {@code null}, если торги не идут или расписание площадки не загружено.
+   */
+  @Nullable
+  public String getSession(@Nonnull String exchange, @Nonnull Instant time) {
+    var schedule = exchanges.get(exchange);
+    return schedule == null ? null : schedule.sessionAt(time.toEpochMilli());
+  }
+
+  /**
+   * Время начала ближайшей сессии, начинающейся позже заданного момента.
+   *
+   * @return Время начала либо {@code null}, если в загруженном расписании такой сессии нет.
+   */
+  @Nullable
+  public Instant getNextOpen(@Nonnull String exchange, @Nonnull Instant time) {
+    var schedule = exchanges.get(exchange);
+    if (schedule == null) {
+      return null;
+    }
+    var next = schedule.nextStart(time.toEpochMilli());
+    return next == Long.MIN_VALUE ? null : Instant.ofEpochMilli(next);
+  }
+
+  /**
+   * Время до начала ближайшей сессии: ноль, если торги уже идут.
+   *
+   * @return Длительность либо {@code null}, если в загруженном расписании такой сессии нет.
+   */
+  @Nullable
+  public Duration getTimeToOpen(@Nonnull String exchange, @Nonnull Instant time) {
+    if (isOpen(exchange, time)) {
+      return Duration.ZERO;
+    }
+    var next = getNextOpen(exchange, time);
+    return next == null ? null : Duration.between(time, next);
+  }
+
+  /**
+   * Доступность лимитных заявок: по последнему торговому статусу инструмента, если он известен, иначе по расписанию.
+   */
+  public boolean isLimitOrderAvailable(@Nonnull String instrumentId, @Nonnull String exchange, @Nonnull Instant time) {
+    var status = statuses.get(instrumentId);
+    return status != null ? status.getLimitOrderAvailableFlag() : isOpen(exchange, time);
+  }
+
+  /**
+   * Доступность рыночных заявок: по последнему торговому статусу инструмента, если он известен, иначе по расписанию.
+   */
+  public boolean isMarketOrderAvailable(@Nonnull String instrumentId, @Nonnull String exchange, @Nonnull Instant time) {
+    var status = statuses.get(instrumentId);
+    if (status != null) {
+      return status.getMarketOrderAvailableFlag()
+        && status.getTradingStatus() != SecurityTradingStatus.SECURITY_TRADING_STATUS_NOT_AVAILABLE_FOR_TRADING;
+    }
+    return isOpen(exchange, time);
+  }
+
+  /**
+   * Торговые интервалы площадки, упорядоченные по началу. Интервалы могут пересекаться, поэтому
+   * дополнительно хранится максимум окончаний среди интервалов с меньшим или равным началом.
+   */
+  private static final class ExchangeSchedule {
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+    private final String[] sessions;
+
+    ExchangeSchedule(List<TradingDay> days) {
+      var intervals = new ArrayList<Interval>();
+      for (var day : days) {
+        if (!day.getIsTradingDay()) {
+          continue;
+        }
+        if (day.getIntervalsCount() > 0) {
+          for (var interval : day.getIntervalsList()) {
+            add(intervals, interval.getType(), interval.getInterval().getStartTs(), interval.getInterval().getEndTs());
+          }
+        } else {
+          add(intervals, SESSION_PREMARKET, day.getPremarketStartTime(), day.getPremarketEndTime());
+          add(intervals, SESSION_MAIN, day.getStartTime(), day.getEndTime());
+          add(intervals, SESSION_EVENING, day.getEveningStartTime(), day.getEveningEndTime());
+        }
+      }
+      intervals.sort(Comparator.comparingLong(interval -> interval.start));
+      var size = intervals.size();
+      starts = new long[size];
+      ends = new long[size];
+      maxEnds = new long[size];
+      sessions = new String[size];
+      for (int i = 0; i < size; i++) {
+        var interval = intervals.get(i);
+        starts[i] = interval.start;
+        ends[i] = interval.end;
+        maxEnds[i] = i == 0 ? interval.end : Math.max(maxEnds[i - 1], interval.end);
+        sessions[i] = interval.session;
+      }
+    }
+
+    String sessionAt(long time) {
+      for (int i = lastStartingAtOrBefore(time); i >= 0 && maxEnds[i] > time; i--) {
+        if (ends[i] > time) {
+          return sessions[i];
+        }
+      }
+      return null;
+    }
+
+    long nextStart(long time) {
+      var i = lastStartingAtOrBefore(time) + 1;
+      return i < starts.length ? starts[i] : Long.MIN_VALUE;
+    }
+
+    private int lastStartingAtOrBefore(long time) {
+      var index = Arrays.binarySearch(starts, time);
+      if (index < 0) {
+        return -index - 2;
+      }
+      while (index + 1 < starts.length && starts[index + 1] == time) {
+        index++;
+      }
+      return index;
+    }
+
+    private static void add(List<Interval> intervals, String session, Timestamp start, Timestamp end) {
+      var startMillis = start.getSeconds() * 1000 + start.getNanos() / 1_000_000;
+      var endMillis = end.getSeconds() * 1000 + end.getNanos() / 1_000_000;
+      if (startMillis != 0 && endMillis > startMillis) {
+        intervals.add(new Interval(session, startMillis, endMillis));
+      }
+    }
+  }
+
+  private static final class Interval {
+    private final String session;
+    private final long start;
+    private final long end;
+
+    Interval(String session, long start, long end) {
+      this.session = session;
+      this.start = start;
+      this.end = end;
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package ru.tinkoff.piapi.core.metrics;
+
+import java.time.Instant;
+
+/**
+ * Перевод {@link System#nanoTime()} во время от epoch без обращения к системным часам на каждое значение.
+ * <p>
+ * Смещение между монотонными и системными часами пересчитывается не чаще раза в секунду,
+ * что ограничивает накопленный дрейф и оставляет горячий путь без аллокаций.
+ */
+final class EpochClock {
+
+  private static final long CALIBRATION_INTERVAL_NANOS = 1_000_000_000L;
+
+  private static volatile long offset;
+  private static volatile long calibratedAt;
+
+  static {
+    calibrate();
+  }
+
+  private EpochClock() {
+  }
+
+  static long toEpochNanos(long nanoTime) {
+    if (nanoTime - calibratedAt > CALIBRATION_INTERVAL_NANOS) {
+      calibrate();
+    }
+    return nanoTime + offset;
+  }
+
+  private static void calibrate() {
+    var now = Instant.now();
+    var nanoTime = System.nanoTime();
+    offset = now.getEpochSecond() * 1_000_000_000L + now.getNano() - nanoTime;
+    calibratedAt = nanoTime;
+  }
+}
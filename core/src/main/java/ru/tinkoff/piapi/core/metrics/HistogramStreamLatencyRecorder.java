@@ -0,0 +1,95 @@
+package ru.tinkoff.piapi.core.metrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реализация {@link StreamLatencyRecorder}, накапливающая задержки в {@link LatencyHistogram}
+ * отдельно для каждого стрима и типа сообщения.
+ * <p>
+ * Гистограммы создаются при первом сообщении данного типа, дальнейшая запись выполняется без аллокаций.
+ */
+public class HistogramStreamLatencyRecorder implements StreamLatencyRecorder {
+
+  private final Map<String, Map<String, StreamLatency>> streams = new ConcurrentHashMap<>();
+
+  @Override
+  public void record(@Nonnull String stream,
+                     @Nonnull String payload,
+                     long networkNanos,
+                     long decodeNanos,
+                     long processingNanos) {
+    var latency = get(stream, payload);
+    if (latency == null) {
+      latency = streams
+        .computeIfAbsent(stream, key -> new ConcurrentHashMap<>())
+        .computeIfAbsent(payload, key -> new StreamLatency());
+    }
+    if (networkNanos != UNKNOWN) {
+      latency.network.record(networkNanos);
+    }
+    if (decodeNanos != UNKNOWN) {
+      latency.decode.record(decodeNanos);
+    }
+    if (processingNanos != UNKNOWN) {
+      latency.processing.record(processingNanos);
+    }
+  }
+
+  /**
+   * Задержки сообщений заданного типа в стриме.
+   *
+   * @param stream  Имя стрима.
+   * @param payload Тип сообщения.
+   * @return Задержки либо {@code null}, если таких сообщений не было.
+   */
+  @Nullable
+  public StreamLatency get(@Nonnull String stream, @Nonnull String payload) {
+    var payloads = streams.get(stream);
+    return payloads == null ? null : payloads.get(payload);
+  }
+
+  /**
+   * Все накопленные задержки: имя стрима -&gt; тип сообщения -&gt; задержки.
+   */
+  @Nonnull
+  public Map<String, Map<String, StreamLatency>> getAll() {
+    return Collections.unmodifiableMap(streams);
+  }
+
+  /**
+   * Гистограммы задержек одного типа сообщений.
+   */
+  public static class StreamLatency {
+    private final LatencyHistogram network = new LatencyHistogram();
+    private final LatencyHistogram decode = new LatencyHistogram();
+    private final LatencyHistogram processing = new LatencyHistogram();
+
+    /**
+     * Сетевая задержка: от времени в сообщении до получения клиентом.
+     */
+    @Nonnull
+    public LatencyHistogram getNetwork() {
+      return network;
+    }
+
+    /**
+     * Время декодирования сообщения.
+     */
+    @Nonnull
+    public LatencyHistogram getDecode() {
+      return decode;
+    }
+
+    /**
+     * Время работы обработчика стрима.
+     */
+    @Nonnull
+    public LatencyHistogram getProcessing() {
+      return processing;
+    }
+  }
+}
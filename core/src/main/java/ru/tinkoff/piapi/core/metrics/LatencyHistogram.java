@@ -0,0 +1,119 @@
+package ru.tinkoff.piapi.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Потокобезопасная гистограмма задержек в духе HdrHistogram.
+ * <p>
+ * Значения раскладываются по логарифмически-линейным корзинам: внутри каждой степени двойки
+ * диапазон делится на {@value #SUB_BUCKET_HALF} равных частей, поэтому относительная погрешность
+ * не превышает {@code 1 / }{@value #SUB_BUCKET_HALF} (около 1.6%) на всём диапазоне {@code long}.
+ * Запись значения не выделяет память и не берёт блокировок. Отрицательные значения учитываются как 0.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 7;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+  private static final int BUCKET_COUNT = indexOf(Long.MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong totalCount = new AtomicLong();
+  private final AtomicLong totalSum = new AtomicLong();
+  private final AtomicLong maxValue = new AtomicLong();
+
+  /**
+   * Запись значения.
+   *
+   * @param value Значение, обычно задержка в наносекундах.
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    counts.incrementAndGet(indexOf(value));
+    totalCount.incrementAndGet();
+    totalSum.addAndGet(value);
+    long max;
+    while (value > (max = maxValue.get()) && !maxValue.compareAndSet(max, value)) {
+      Thread.onSpinWait();
+    }
+  }
+
+  /**
+   * Количество записанных значений.
+   */
+  public long count() {
+    return totalCount.get();
+  }
+
+  /**
+   * Максимальное записанное значение.
+   */
+  public long max() {
+    return maxValue.get();
+  }
+
+  /**
+   * Среднее записанных значений.
+   */
+  public double mean() {
+    var count = totalCount.get();
+    return count == 0 ? 0 : (double) totalSum.get() / count;
+  }
+
+  /**
+   * Значение, не превышаемое заданной долей записанных значений (с точностью до ширины корзины).
+   *
+   * @param percentile Процентиль от 0 до 100.
+   * @return Верхняя граница корзины, в которую попадает процентиль, но не больше {@link #max()}.
+   */
+  public long valueAtPercentile(double percentile) {
+    var count = totalCount.get();
+    if (count == 0) {
+      return 0;
+    }
+    var target = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100.0) / 100.0));
+    var seen = 0L;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts.get(i);
+      if (seen >= target) {
+        return Math.min(highestEquivalentValue(i), max());
+      }
+    }
+    return max();
+  }
+
+  /**
+   * Сброс всех записанных значений.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts.set(i, 0);
+    }
+    totalCount.set(0);
+    totalSum.set(0);
+    maxValue.set(0);
+  }
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    var shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+  }
+
+  static long lowestEquivalentValue(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    var shift = index / SUB_BUCKET_HALF - 1;
+    return (long) (index - shift * SUB_BUCKET_HALF) << shift;
+  }
+
+  static long highestEquivalentValue(int index) {
+    return index + 1 < BUCKET_COUNT ? lowestEquivalentValue(index + 1) - 1 : Long.MAX_VALUE;
+  }
+}
@@ -0,0 +1,65 @@
+package ru.tinkoff.piapi.core.metrics;
+
+import io.grpc.Status;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Приёмник метрик вызовов одного метода API.
+ * <p>
+ * Экземпляр получается один раз через {@link RpcMetrics#method} и дальше вызывается на каждый вызов
+ * и каждое сообщение, поэтому реализация не должна блокироваться и выделять память.
+ * Все методы по умолчанию ничего не делают.
+ */
+public interface MethodMetrics {
+
+  /**
+   * Реализация, отбрасывающая все значения.
+   */
+  MethodMetrics NOOP = new MethodMetrics() {
+  };
+
+  /**
+   * Начало вызова.
+   */
+  default void callStarted() {
+  }
+
+  /**
+   * Завершение вызова.
+   *
+   * @param code         Код статуса завершения.
+   * @param errorId      Идентификатор ошибки API ({@link ru.tinkoff.piapi.core.utils.Helpers#getErrorId})
+   *                     либо {@code null} при успешном завершении.
+   * @param latencyNanos Длительность вызова в наносекундах.
+   */
+  default void callCompleted(@Nonnull Status.Code code, @Nullable String errorId, long latencyNanos) {
+  }
+
+  /**
+   * Отправка сообщения.
+   *
+   * @param bytes Размер сообщения в байтах.
+   */
+  default void messageSent(int bytes) {
+  }
+
+  /**
+   * Получение сообщения.
+   *
+   * @param bytes Размер сообщения в байтах.
+   */
+  default void messageReceived(int bytes) {
+  }
+
+  /**
+   * Значения заголовков ограничения частоты запросов из ответа сервера.
+   *
+   * @param limit        Значение x-ratelimit-limit.
+   * @param remaining    Значение x-ratelimit-remaining.
+   * @param resetSeconds Значение x-ratelimit-reset: секунд до сброса ограничения.
+   */
+  default void rateLimit(int limit, int remaining, int resetSeconds) {
+  }
+}
@@ -0,0 +1,150 @@
+package ru.tinkoff.piapi.core.metrics;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import ru.tinkoff.piapi.core.utils.Helpers;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Перехватчик, собирающий метрики вызовов API: длительность, количество выполняющихся вызовов,
+ * коды завершения и идентификаторы ошибок API, размеры сообщений и заголовки ограничения частоты запросов.
+ * <p>
+ * Метрики передаются в {@link RpcMetrics}. Подключается через
+ * {@link ru.tinkoff.piapi.core.InvestApi#defaultChannel(String, String, String, ClientInterceptor...)}.
+ */
+public class MetricsInterceptor implements ClientInterceptor {
+
+  private static final Metadata.Key<String> rateLimitKey =
+    Metadata.Key.of("x-ratelimit-limit", Metadata.ASCII_STRING_MARSHALLER);
+  private static final Metadata.Key<String> rateLimitRemainingKey =
+    Metadata.Key.of("x-ratelimit-remaining", Metadata.ASCII_STRING_MARSHALLER);
+  private static final Metadata.Key<String> rateLimitResetKey =
+    Metadata.Key.of("x-ratelimit-reset", Metadata.ASCII_STRING_MARSHALLER);
+
+  private final RpcMetrics metrics;
+  private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+  public MetricsInterceptor(@Nonnull RpcMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+    MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    var methodMetrics = methods.get(method.getFullMethodName());
+    if (methodMetrics == null) {
+      methodMetrics = methods.computeIfAbsent(method.getFullMethodName(),
+        key -> metrics.method(method.getServiceName(), method.getBareMethodName()));
+    }
+    return new MetricsClientCall<>(next.newCall(method, callOptions), methodMetrics);
+  }
+
+  static class MetricsClientCall<ReqT, RespT>
+    extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+    private final MethodMetrics metrics;
+
+    MetricsClientCall(ClientCall<ReqT, RespT> call, MethodMetrics metrics) {
+      super(call);
+      this.metrics = metrics;
+    }
+
+    @Override
+    public void start(Listener<RespT> responseListener, Metadata headers) {
+      metrics.callStarted();
+      super.start(new MetricsClientCallListener<>(responseListener, metrics, System.nanoTime()), headers);
+    }
+
+    @Override
+    public void sendMessage(ReqT message) {
+      if (message instanceof MessageLite) {
+        metrics.messageSent(((MessageLite) message).getSerializedSize());
+      }
+      super.sendMessage(message);
+    }
+  }
+
+  static class MetricsClientCallListener<RespT>
+    extends ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT> {
+
+    private final MethodMetrics metrics;
+    private final long startNanos;
+    private boolean rateLimitReported;
+
+    MetricsClientCallListener(ClientCall.Listener<RespT> listener, MethodMetrics metrics, long startNanos) {
+      super(listener);
+      this.metrics = metrics;
+      this.startNanos = startNanos;
+    }
+
+    @Override
+    public void onHeaders(Metadata headers) {
+      reportRateLimit(headers);
+      super.onHeaders(headers);
+    }
+
+    @Override
+    public void onMessage(RespT message) {
+      if (message instanceof MessageLite) {
+        metrics.messageReceived(((MessageLite) message).getSerializedSize());
+      }
+      super.onMessage(message);
+    }
+
+    @Override
+    public void onClose(Status status, Metadata trailers) {
+      if (!rateLimitReported) {
+        reportRateLimit(trailers);
+      }
+      metrics.callCompleted(
+        status.getCode(),
+        status.isOk() ? null : Helpers.getErrorId(status),
+        System.nanoTime() - startNanos);
+      super.onClose(status, trailers);
+    }
+
+    private void reportRateLimit(Metadata metadata) {
+      var remaining = metadata.get(rateLimitRemainingKey);
+      if (remaining == null) {
+        return;
+      }
+      rateLimitReported = true;
+      metrics.rateLimit(
+        parse(metadata.get(rateLimitKey)),
+        parse(remaining),
+        parse(metadata.get(rateLimitResetKey)));
+    }
+
+    /**
+     * Значение заголовка либо -1, если заголовок отсутствует или не является числом.
+     * Учитывается только число в начале значения: после него может следовать описание окна ограничения.
+     */
+    private static int parse(String value) {
+      if (value == null) {
+        return -1;
+      }
+      var result = 0;
+      var digits = 0;
+      for (int i = 0; i < value.length(); i++) {
+        var c = value.charAt(i);
+        if (c < '0' || c > '9') {
+          break;
+        }
+        result = result * 10 + (c - '0');
+        digits++;
+      }
+      return digits == 0 ? -1 : result;
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package ru.tinkoff.piapi.core.metrics;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Точка подключения систем метрик к {@link MetricsInterceptor}.
+ * <p>
+ * Реализация создаёт приёмник метрик для каждого метода API. Вызывается один раз на метод,
+ * результат кэшируется перехватчиком.
+ */
+@FunctionalInterface
+public interface RpcMetrics {
+
+  /**
+   * Реализация, отбрасывающая все значения.
+   */
+  RpcMetrics NOOP = (service, method) -> MethodMetrics.NOOP;
+
+  /**
+   * @param service Полное имя сервиса, например {@code tinkoff.public.invest.api.contract.v1.OrdersService}.
+   * @param method  Имя метода, например {@code PostOrder}.
+   * @return Приёмник метрик метода.
+   */
+  @Nonnull
+  MethodMetrics method(@Nonnull String service, @Nonnull String method);
+}
@@ -0,0 +1,72 @@
+package ru.tinkoff.piapi.core.metrics;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.MethodDescriptor;
+
+import java.io.InputStream;
+
+/**
+ * Перехватчик, замеряющий время декодирования сообщений стримов.
+ * <p>
+ * Оборачивает маршаллер ответов потоковых методов: момент начала разбора считается моментом получения
+ * сообщения, а длительность разбора — задержкой декодирования. gRPC разбирает сообщение и передаёт его
+ * наблюдателю в одном и том же потоке, поэтому замер сохраняется в поле потока и забирается
+ * {@link StreamLatencyProcessor} при обработке того же сообщения. Унарные методы не затрагиваются.
+ */
+public class StreamDecodeInterceptor implements ClientInterceptor {
+
+  private static final ThreadLocal<DecodeTiming> lastDecode = ThreadLocal.withInitial(DecodeTiming::new);
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+    MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    if (method.getType() == MethodDescriptor.MethodType.UNARY) {
+      return next.newCall(method, callOptions);
+    }
+    var timed = method.toBuilder(
+        method.getRequestMarshaller(),
+        new TimedMarshaller<>(method.getResponseMarshaller()))
+      .build();
+    return next.newCall(timed, callOptions);
+  }
+
+  /**
+   * Последний замер декодирования в текущем потоке.
+   */
+  static DecodeTiming lastDecode() {
+    return lastDecode.get();
+  }
+
+  static class DecodeTiming {
+    Object message;
+    long startNanos;
+    long endNanos;
+  }
+
+  private static class TimedMarshaller<T> implements MethodDescriptor.Marshaller<T> {
+    private final MethodDescriptor.Marshaller<T> delegate;
+
+    TimedMarshaller(MethodDescriptor.Marshaller<T> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public InputStream stream(T value) {
+      return delegate.stream(value);
+    }
+
+    @Override
+    public T parse(InputStream stream) {
+      var start = System.nanoTime();
+      var message = delegate.parse(stream);
+      var timing = lastDecode.get();
+      timing.endNanos = System.nanoTime();
+      timing.startNanos = start;
+      timing.message = message;
+      return message;
+    }
+  }
+}
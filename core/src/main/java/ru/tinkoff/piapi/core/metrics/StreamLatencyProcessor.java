@@ -0,0 +1,173 @@
+package ru.tinkoff.piapi.core.metrics;
+
+import com.google.protobuf.Timestamp;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.OrderStateStreamResponse;
+import ru.tinkoff.piapi.contract.v1.PortfolioStreamResponse;
+import ru.tinkoff.piapi.contract.v1.PositionsStreamResponse;
+import ru.tinkoff.piapi.contract.v1.TradesStreamResponse;
+import ru.tinkoff.piapi.core.stream.StreamProcessor;
+
+import javax.annotation.Nonnull;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Обработчик стрима, измеряющий задержки каждого сообщения и передающий их в {@link StreamLatencyRecorder}.
+ * <p>
+ * Сетевая задержка считается от времени, указанного в сообщении, до момента получения: начала
+ * декодирования, если канал использует {@link StreamDecodeInterceptor}, иначе — вызова обработчика.
+ * Задержка декодирования доступна только вместе с {@link StreamDecodeInterceptor}.
+ * Задержка обработки — время работы исходного обработчика.
+ *
+ * @param <T> Тип сообщений стрима.
+ */
+public class StreamLatencyProcessor<T> implements StreamProcessor<T> {
+
+  private final String stream;
+  private final StreamProcessor<T> delegate;
+  private final StreamLatencyRecorder recorder;
+  private final Function<T, String> payloadName;
+  private final ToLongFunction<T> payloadEpochNanos;
+
+  /**
+   * @param stream            Имя стрима для метрик.
+   * @param delegate          Исходный обработчик.
+   * @param recorder          Приёмник задержек.
+   * @param payloadName       Тип сообщения для метрик. Должен возвращать заранее созданные строки.
+   * @param payloadEpochNanos Время из сообщения в наносекундах от epoch либо {@link StreamLatencyRecorder#UNKNOWN}.
+   */
+  public StreamLatencyProcessor(@Nonnull String stream,
+                                @Nonnull StreamProcessor<T> delegate,
+                                @Nonnull StreamLatencyRecorder recorder,
+                                @Nonnull Function<T, String> payloadName,
+                                @Nonnull ToLongFunction<T> payloadEpochNanos) {
+    this.stream = stream;
+    this.delegate = delegate;
+    this.recorder = recorder;
+    this.payloadName = payloadName;
+    this.payloadEpochNanos = payloadEpochNanos;
+  }
+
+  @Override
+  public void process(T value) {
+    var start = System.nanoTime();
+    var timing = StreamDecodeInterceptor.lastDecode();
+    var decoded = timing.message == value;
+    var receivedAt = decoded ? timing.startNanos : start;
+    var decodeNanos = decoded ? timing.endNanos - timing.startNanos : StreamLatencyRecorder.UNKNOWN;
+    var sentAt = payloadEpochNanos.applyAsLong(value);
+    var networkNanos = sentAt == StreamLatencyRecorder.UNKNOWN
+      ? StreamLatencyRecorder.UNKNOWN
+      : EpochClock.toEpochNanos(receivedAt) - sentAt;
+    try {
+      delegate.process(value);
+    } finally {
+      recorder.record(stream, payloadName.apply(value), networkNanos, decodeNanos, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Замер задержек стрима котировок. Сетевая задержка считается по времени свечи последней сделки,
+   * сделки, стакана, цены последней сделки, торгового статуса и пинга.
+   */
+  @Nonnull
+  public static StreamLatencyProcessor<MarketDataResponse> forMarketData(
+    @Nonnull StreamProcessor<MarketDataResponse> delegate,
+    @Nonnull StreamLatencyRecorder recorder) {
+    return new StreamLatencyProcessor<>("marketdata", delegate, recorder,
+      response -> response.getPayloadCase().name(),
+      response -> {
+        switch (response.getPayloadCase()) {
+          case CANDLE:
+            return response.getCandle().hasLastTradeTs()
+              ? epochNanos(response.getCandle().getLastTradeTs())
+              : StreamLatencyRecorder.UNKNOWN;
+          case TRADE:
+            return epochNanos(response.getTrade().getTime());
+          case ORDERBOOK:
+            return epochNanos(response.getOrderbook().getTime());
+          case LAST_PRICE:
+            return epochNanos(response.getLastPrice().getTime());
+          case TRADING_STATUS:
+            return epochNanos(response.getTradingStatus().getTime());
+          case PING:
+            return epochNanos(response.getPing().getTime());
+          default:
+            return StreamLatencyRecorder.UNKNOWN;
+        }
+      });
+  }
+
+  /**
+   * Замер задержек стрима сделок по поручениям.
+   */
+  @Nonnull
+  public static StreamLatencyProcessor<TradesStreamResponse> forTrades(
+    @Nonnull StreamProcessor<TradesStreamResponse> delegate,
+    @Nonnull StreamLatencyRecorder recorder) {
+    return new StreamLatencyProcessor<>("trades", delegate, recorder,
+      response -> response.getPayloadCase().name(),
+      response -> {
+        switch (response.getPayloadCase()) {
+          case ORDER_TRADES:
+            return epochNanos(response.getOrderTrades().getCreatedAt());
+          case PING:
+            return epochNanos(response.getPing().getTime());
+          default:
+            return StreamLatencyRecorder.UNKNOWN;
+        }
+      });
+  }
+
+  /**
+   * Замер задержек стрима состояний заявок. Сетевая задержка считается только по пингам.
+   */
+  @Nonnull
+  public static StreamLatencyProcessor<OrderStateStreamResponse> forOrderState(
+    @Nonnull StreamProcessor<OrderStateStreamResponse> delegate,
+    @Nonnull StreamLatencyRecorder recorder) {
+    return new StreamLatencyProcessor<>("order-state", delegate, recorder,
+      response -> response.getPayloadCase().name(),
+      response -> response.hasPing() ? epochNanos(response.getPing().getTime()) : StreamLatencyRecorder.UNKNOWN);
+  }
+
+  /**
+   * Замер задержек стрима портфеля. Сетевая задержка считается только по пингам.
+   */
+  @Nonnull
+  public static StreamLatencyProcessor<PortfolioStreamResponse> forPortfolio(
+    @Nonnull StreamProcessor<PortfolioStreamResponse> delegate,
+    @Nonnull StreamLatencyRecorder recorder) {
+    return new StreamLatencyProcessor<>("portfolio", delegate, recorder,
+      response -> response.getPayloadCase().name(),
+      response -> response.hasPing() ? epochNanos(response.getPing().getTime()) : StreamLatencyRecorder.UNKNOWN);
+  }
+
+  /**
+   * Замер задержек стрима позиций.
+   */
+  @Nonnull
+  public static StreamLatencyProcessor<PositionsStreamResponse> forPositions(
+    @Nonnull StreamProcessor<PositionsStreamResponse> delegate,
+    @Nonnull StreamLatencyRecorder recorder) {
+    return new StreamLatencyProcessor<>("positions", delegate, recorder,
+      response -> response.getPayloadCase().name(),
+      response -> {
+        switch (response.getPayloadCase()) {
+          case POSITION:
+            return epochNanos(response.getPosition().getDate());
+          case PING:
+            return epochNanos(response.getPing().getTime());
+          default:
+            return StreamLatencyRecorder.UNKNOWN;
+        }
+      });
+  }
+
+  private static long epochNanos(Timestamp timestamp) {
+    return timestamp.getSeconds() == 0 && timestamp.getNanos() == 0
+      ? StreamLatencyRecorder.UNKNOWN
+      : timestamp.getSeconds() * 1_000_000_000L + timestamp.getNanos();
+  }
+}
@@ -0,0 +1,43 @@
+package ru.tinkoff.piapi.core.metrics;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Приёмник задержек обработки сообщений стримов.
+ * <p>
+ * Для каждого сообщения передаются три независимые задержки:
+ * <ul>
+ *   <li>сетевая — от времени, указанного в сообщении биржей или сервером, до получения сообщения клиентом;</li>
+ *   <li>декодирования — время разбора сообщения из байтов;</li>
+ *   <li>обработки — время работы обработчика стрима.</li>
+ * </ul>
+ * Недоступная задержка передаётся как {@link #UNKNOWN}. Метод вызывается в потоке стрима для каждого
+ * сообщения, поэтому реализация не должна блокироваться и выделять память.
+ */
+@FunctionalInterface
+public interface StreamLatencyRecorder {
+
+  /**
+   * Значение задержки, которую не удалось измерить.
+   */
+  long UNKNOWN = Long.MIN_VALUE;
+
+  /**
+   * Реализация, отбрасывающая все значения.
+   */
+  StreamLatencyRecorder NOOP = (stream, payload, networkNanos, decodeNanos, processingNanos) -> {
+  };
+
+  /**
+   * @param stream          Имя стрима.
+   * @param payload         Тип сообщения стрима, например {@code TRADE}.
+   * @param networkNanos    Сетевая задержка в наносекундах. Может быть отрицательной при расхождении часов.
+   * @param decodeNanos     Задержка декодирования в наносекундах.
+   * @param processingNanos Задержка обработки в наносекундах.
+   */
+  void record(@Nonnull String stream,
+              @Nonnull String payload,
+              long networkNanos,
+              long decodeNanos,
+              long processingNanos);
+}
@@ -0,0 +1,152 @@
+package ru.tinkoff.piapi.core.orders;
+
+import ru.tinkoff.piapi.contract.v1.OrderExecutionReportStatus;
+import ru.tinkoff.piapi.contract.v1.OrderStateStreamResponse;
+import ru.tinkoff.piapi.contract.v1.PostOrderAsyncRequest;
+import ru.tinkoff.piapi.core.OrdersService;
+import ru.tinkoff.piapi.core.stream.OrdersStreamService;
+import ru.tinkoff.piapi.core.stream.StreamProcessor;
+import ru.tinkoff.piapi.core.utils.Helpers;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Исполнение заявок через {@link OrdersService#postAsyncOrder} с ожиданием итогового состояния по стриму заявок.
+ * <p>
+ * Каждая заявка регистрируется по ключу идемпотентности ({@code order_request_id}) до отправки, поэтому
+ * сообщения стрима, пришедшие раньше ответа на запрос, не теряются. Фьючерс заявки завершается первым сообщением
+ * стрима с итоговым статусом: исполнена, отклонена, отменена либо частично исполнена без остатка.
+ * Промежуточные состояния можно получать через обработчик обновлений.
+ * <p>
+ * Стрим подключается через {@link #subscribe(OrdersStreamService, Iterable)} либо передачей экземпляра как
+ * обработчика в {@link OrdersStreamService#subscribeOrderState}. При ошибке стрима ожидающие заявки завершаются
+ * этой ошибкой: их состояние нужно уточнить через {@link OrdersService#getOrderState}.
+ */
+public class AsyncOrderExecutor implements StreamProcessor<OrderStateStreamResponse> {
+
+  private final OrdersService ordersService;
+  private final Consumer<OrderStateStreamResponse.OrderState> updateListener;
+  private final Map<String, CompletableFuture<OrderStateStreamResponse.OrderState>> pending =
+    new ConcurrentHashMap<>();
+
+  public AsyncOrderExecutor(@Nonnull OrdersService ordersService) {
+    this(ordersService, null);
+  }
+
+  /**
+   * @param updateListener Обработчик всех состояний ожидаемых заявок, включая промежуточные.
+   */
+  public AsyncOrderExecutor(@Nonnull OrdersService ordersService,
+                            @Nullable Consumer<OrderStateStreamResponse.OrderState> updateListener) {
+    this.ordersService = ordersService;
+    this.updateListener = updateListener;
+  }
+
+  /**
+   * Подписка на стрим заявок по счетам.
+   *
+   * @return Ключ стрима для {@link OrdersStreamService#closeStream(String)}.
+   */
+  @Nonnull
+  public String subscribe(@Nonnull OrdersStreamService ordersStreamService, @Nonnull Iterable<String> accounts) {
+    return ordersStreamService.subscribeOrderState(this, this::onStreamError, accounts);
+  }
+
+  /**
+   * Выставление заявки. Если идентификатор заявки не задан, он генерируется.
+   * <p>
+   * Отмена возвращённого фьючерса прекращает ожидание, но не отменяет заявку на бирже.
+   *
+   * @return Итоговое состояние заявки из стрима.
+   */
+  @Nonnull
+  public CompletableFuture<OrderStateStreamResponse.OrderState> execute(@Nonnull PostOrderAsyncRequest request) {
+    var orderId = Helpers.preprocessInputOrderId(
+      request.getOrderId().isEmpty() ? UUID.randomUUID().toString() : request.getOrderId());
+    var result = new CompletableFuture<OrderStateStreamResponse.OrderState>();
+    if (pending.putIfAbsent(orderId, result) != null) {
+      throw new IllegalArgumentException("Заявка с идентификатором " + orderId + " уже ожидает исполнения");
+    }
+    result.whenComplete((state, error) -> pending.remove(orderId, result));
+    try {
+      ordersService.postAsyncOrder(
+          request.getInstrumentId(),
+          request.getQuantity(),
+          request.getPrice(),
+          request.getDirection(),
+          request.getAccountId(),
+          request.getOrderType(),
+          orderId,
+          request.hasTimeInForce() ? request.getTimeInForce() : null,
+          request.hasPriceType() ? request.getPriceType() : null)
+        .whenComplete((response, error) -> {
+          if (error != null) {
+            result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+              ? error.getCause()
+              : error);
+          }
+        });
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  /**
+   * Число заявок, итоговое состояние которых ещё не получено.
+   */
+  public int getPending() {
+    return pending.size();
+  }
+
+  @Override
+  public void process(OrderStateStreamResponse response) {
+    if (response.hasOrderState()) {
+      onOrderState(response.getOrderState());
+    }
+  }
+
+  /**
+   * Учёт состояния заявки из стрима. Состояния заявок, выставленных не через этот экземпляр, игнорируются.
+   */
+  public void onOrderState(@Nonnull OrderStateStreamResponse.OrderState state) {
+    var result = pending.get(state.getOrderRequestId());
+    if (result == null) {
+      return;
+    }
+    if (updateListener != null) {
+      updateListener.accept(state);
+    }
+    if (isFinal(state)) {
+      result.complete(state);
+    }
+  }
+
+  /**
+   * Завершение ожидающих заявок ошибкой стрима.
+   */
+  public void onStreamError(@Nonnull Throwable error) {
+    for (var result : new ArrayList<>(pending.values())) {
+      result.completeExceptionally(error);
+    }
+  }
+
+  /**
+   * Признак итогового состояния заявки, после которого изменений по ней не будет.
+   */
+  public static boolean isFinal(@Nonnull OrderStateStreamResponse.OrderState state) {
+    var status = state.getExecutionReportStatus();
+    return status == OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_FILL
+      || status == OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_REJECTED
+      || status == OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_CANCELLED
+      || status == OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_PARTIALLYFILL && state.getLotsLeft() == 0;
+  }
+}
@@ -0,0 +1,171 @@
+package ru.tinkoff.piapi.core.orders;
+
+import ru.tinkoff.piapi.contract.v1.OrderDirection;
+import ru.tinkoff.piapi.contract.v1.PostOrderRequest;
+import ru.tinkoff.piapi.contract.v1.PostOrderResponse;
+import ru.tinkoff.piapi.contract.v1.Quotation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static ru.tinkoff.piapi.core.utils.MapperUtils.nanosToQuotation;
+import static ru.tinkoff.piapi.core.utils.MapperUtils.quotationToNanos;
+
+/**
+ * Условная заявка локального {@link TriggerEngine}: биржевая заявка, которая выставляется, когда цена
+ * инструмента пересекает уровень срабатывания.
+ * <p>
+ * Направление срабатывания определяется типом и направлением заявки: стоп-лосс на продажу срабатывает
+ * при цене не выше уровня, на покупку — не ниже; тейк-профит — наоборот. Уровень трейлинг-стопа на продажу
+ * отстоит на отступ вниз от максимальной цены с момента добавления заявки в движок, на покупку — вверх
+ * от минимальной.
+ * <p>
+ * Инструмент берётся из {@code instrument_id} заявки и должен совпадать с {@code instrument_uid} или
+ * {@code figi} в стриме котировок.
+ */
+public final class ConditionalOrder {
+
+  public enum Type {
+    STOP_LOSS,
+    TAKE_PROFIT,
+    TRAILING_STOP
+  }
+
+  public enum Status {
+    PENDING,
+    TRIGGERED,
+    CANCELLED
+  }
+
+  private final Type type;
+  private final PostOrderRequest order;
+  /**
+   * Уровень срабатывания либо отступ трейлинг-стопа в нано-единицах.
+   */
+  private final long level;
+  /**
+   * Срабатывание при падении цены до уровня; иначе — при росте.
+   */
+  private final boolean falling;
+  private final AtomicReference<Status> status = new AtomicReference<>(Status.PENDING);
+  private final CompletableFuture<PostOrderResponse> result = new CompletableFuture<>();
+  @Nullable
+  volatile ConditionalOrder sibling;
+  volatile long triggerPrice;
+  volatile long triggeredAt;
+  volatile long submittedAt;
+
+  private ConditionalOrder(Type type, PostOrderRequest order, long level, boolean falling) {
+    if (order.getInstrumentId().isEmpty()) {
+      throw new IllegalArgumentException("В заявке не указан инструмент");
+    }
+    var direction = order.getDirection();
+    if (direction != OrderDirection.ORDER_DIRECTION_BUY && direction != OrderDirection.ORDER_DIRECTION_SELL) {
+      throw new IllegalArgumentException("Не указано направление заявки");
+    }
+    if (level <= 0) {
+      throw new IllegalArgumentException("Уровень срабатывания должен быть положительным");
+    }
+    this.type = type;
+    this.order = order;
+    this.level = level;
+    this.falling = falling;
+  }
+
+  /**
+   * Стоп-лосс: заявка выставляется, когда цена доходит до уровня в невыгодную для позиции сторону.
+   */
+  @Nonnull
+  public static ConditionalOrder stopLoss(@Nonnull PostOrderRequest order, @Nonnull Quotation stopPrice) {
+    return new ConditionalOrder(Type.STOP_LOSS, order, quotationToNanos(stopPrice), isSell(order));
+  }
+
+  /**
+   * Тейк-профит: заявка выставляется, когда цена доходит до уровня в выгодную для позиции сторону.
+   */
+  @Nonnull
+  public static ConditionalOrder takeProfit(@Nonnull PostOrderRequest order, @Nonnull Quotation takePrice) {
+    return new ConditionalOrder(Type.TAKE_PROFIT, order, quotationToNanos(takePrice), !isSell(order));
+  }
+
+  /**
+   * Трейлинг-стоп с отступом от экстремума цены в единицах цены.
+   */
+  @Nonnull
+  public static ConditionalOrder trailingStop(@Nonnull PostOrderRequest order, @Nonnull Quotation indent) {
+    return new ConditionalOrder(Type.TRAILING_STOP, order, quotationToNanos(indent), isSell(order));
+  }
+
+  @Nonnull
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Заявка, выставляемая при срабатывании.
+   */
+  @Nonnull
+  public PostOrderRequest getOrder() {
+    return order;
+  }
+
+  @Nonnull
+  public Status getStatus() {
+    return status.get();
+  }
+
+  /**
+   * Ответ на выставление заявки после срабатывания. Фьючерс отменяется при отмене условной заявки.
+   */
+  @Nonnull
+  public CompletableFuture<PostOrderResponse> getResult() {
+    return result;
+  }
+
+  /**
+   * Цена, на которой сработала заявка, либо {@code null}, если заявка не сработала.
+   */
+  @Nullable
+  public Quotation getTriggerPrice() {
+    return status.get() == Status.TRIGGERED ? nanosToQuotation(triggerPrice) : null;
+  }
+
+  /**
+   * Время в наносекундах от начала обработки цены, вызвавшей срабатывание, до отправки заявки,
+   * либо {@code -1}, если заявка ещё не отправлена.
+   */
+  public long getTriggerToSubmitNanos() {
+    var submitted = submittedAt;
+    return submitted == 0 ? -1 : submitted - triggeredAt;
+  }
+
+  long level() {
+    return level;
+  }
+
+  boolean isFalling() {
+    return falling;
+  }
+
+  boolean isPending() {
+    return status.get() == Status.PENDING;
+  }
+
+  boolean markTriggered() {
+    return status.compareAndSet(Status.PENDING, Status.TRIGGERED);
+  }
+
+  boolean markCancelled() {
+    if (status.compareAndSet(Status.PENDING, Status.CANCELLED)) {
+      result.cancel(false);
+      return true;
+    }
+    return false;
+  }
+
+  private static boolean isSell(PostOrderRequest order) {
+    return order.getDirection() == OrderDirection.ORDER_DIRECTION_SELL;
+  }
+}
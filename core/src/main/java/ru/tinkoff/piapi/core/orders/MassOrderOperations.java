@@ -0,0 +1,251 @@
+package ru.tinkoff.piapi.core.orders;
+
+import ru.tinkoff.piapi.contract.v1.OrderState;
+import ru.tinkoff.piapi.contract.v1.OrderStateStreamResponse;
+import ru.tinkoff.piapi.contract.v1.Quotation;
+import ru.tinkoff.piapi.contract.v1.StopOrder;
+import ru.tinkoff.piapi.core.OrdersService;
+import ru.tinkoff.piapi.core.StopOrdersService;
+import ru.tinkoff.piapi.core.stream.OrdersStreamService;
+import ru.tinkoff.piapi.core.stream.StreamProcessor;
+import ru.tinkoff.piapi.core.utils.RequestLimiter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Массовая отмена и замена заявок и стоп-заявок счёта.
+ * <p>
+ * Активные заявки и стоп-заявки запрашиваются одновременно, после чего запросы отмены отправляются
+ * через асинхронные методы сервисов, не дожидаясь ответов на предыдущие. Число одновременно выполняемых
+ * запросов ограничено, чтобы не выйти за лимиты API; остальные запросы ждут в очереди. Результат по каждой
+ * заявке возвращается в {@link MassOrderResult}: ошибка отмены одной заявки не прерывает операцию.
+ * <p>
+ * Фильтр по инструменту сравнивается с {@code figi} и {@code instrument_uid} заявки.
+ * <p>
+ * Если отмену нужно подтвердить по стриму заявок, экземпляр подключается к стриму через
+ * {@link #subscribe(OrdersStreamService, Iterable)}. Тогда результат отмены биржевой заявки готов, когда
+ * в стриме пришло её итоговое состояние либо истекло время ожидания подтверждения. Стоп-заявки в стрим
+ * не попадают и считаются отменёнными по ответу сервера.
+ */
+public class MassOrderOperations implements StreamProcessor<OrderStateStreamResponse> {
+
+  private final OrdersService ordersService;
+  private final StopOrdersService stopOrdersService;
+  private final OrderIdGenerator idGenerator = new OrderIdGenerator();
+  private final RequestLimiter limiter;
+  private final long confirmTimeoutMillis;
+  private final Map<String, CompletableFuture<OrderStateStreamResponse.OrderState>> confirmations =
+    new ConcurrentHashMap<>();
+
+  /**
+   * @param maxConcurrentRequests Максимальное число одновременно выполняемых запросов.
+   * @param confirmTimeout        Время ожидания подтверждения отмены по стриму.
+   */
+  public MassOrderOperations(@Nonnull OrdersService ordersService,
+                             @Nonnull StopOrdersService stopOrdersService,
+                             int maxConcurrentRequests,
+                             @Nonnull Duration confirmTimeout) {
+    this.ordersService = ordersService;
+    this.stopOrdersService = stopOrdersService;
+    this.limiter = new RequestLimiter(maxConcurrentRequests);
+    this.confirmTimeoutMillis = confirmTimeout.toMillis();
+  }
+
+  /**
+   * Подписка на стрим заявок по счетам для подтверждения отмен.
+   *
+   * @return Ключ стрима для {@link OrdersStreamService#closeStream(String)}.
+   */
+  @Nonnull
+  public String subscribe(@Nonnull OrdersStreamService ordersStreamService, @Nonnull Iterable<String> accounts) {
+    return ordersStreamService.subscribeOrderState(this, this::onStreamError, accounts);
+  }
+
+  /**
+   * Отмена всех активных заявок и стоп-заявок счёта.
+   *
+   * @param instrumentId figi / instrument_uid инструмента либо {@code null} для всех инструментов.
+   * @param confirm      Ожидать подтверждения отмены биржевых заявок по стриму.
+   * @return Результаты: сначала по биржевым заявкам, затем по стоп-заявкам.
+   */
+  @Nonnull
+  public CompletableFuture<List<MassOrderResult>> cancelAll(@Nonnull String accountId,
+                                                            @Nullable String instrumentId,
+                                                            boolean confirm) {
+    var orders = cancelOrders(accountId, instrumentId, confirm);
+    var stopOrders = cancelStopOrders(accountId, instrumentId);
+    return orders.thenCombine(stopOrders, (first, second) -> {
+      var results = new ArrayList<MassOrderResult>(first.size() + second.size());
+      results.addAll(first);
+      results.addAll(second);
+      return results;
+    });
+  }
+
+  /**
+   * Отмена всех активных биржевых заявок счёта.
+   *
+   * @param instrumentId figi / instrument_uid инструмента либо {@code null} для всех инструментов.
+   * @param confirm      Ожидать подтверждения отмены по стриму.
+   */
+  @Nonnull
+  public CompletableFuture<List<MassOrderResult>> cancelOrders(@Nonnull String accountId,
+                                                               @Nullable String instrumentId,
+                                                               boolean confirm) {
+    return ordersService.getOrders(accountId).thenCompose(orders -> {
+      var results = new ArrayList<CompletableFuture<MassOrderResult>>();
+      for (var order : orders) {
+        if (matches(order.getFigi(), order.getInstrumentUid(), instrumentId)) {
+          results.add(cancelOrder(accountId, order.getOrderId(), confirm));
+        }
+      }
+      return allOf(results);
+    });
+  }
+
+  /**
+   * Отмена всех активных стоп-заявок счёта.
+   *
+   * @param instrumentId figi / instrument_uid инструмента либо {@code null} для всех инструментов.
+   */
+  @Nonnull
+  public CompletableFuture<List<MassOrderResult>> cancelStopOrders(@Nonnull String accountId,
+                                                                   @Nullable String instrumentId) {
+    return stopOrdersService.getStopOrders(accountId).thenCompose(stopOrders -> {
+      var results = new ArrayList<CompletableFuture<MassOrderResult>>();
+      for (StopOrder stopOrder : stopOrders) {
+        if (matches(stopOrder.getFigi(), stopOrder.getInstrumentUid(), instrumentId)) {
+          results.add(cancelStopOrder(accountId, stopOrder.getStopOrderId()));
+        }
+      }
+      return allOf(results);
+    });
+  }
+
+  /**
+   * Замена всех активных биржевых заявок счёта на заявки с новой ценой и неисполненным остатком лотов.
+   *
+   * @param instrumentId figi / instrument_uid инструмента либо {@code null} для всех инструментов.
+   * @param newPrice     Новая цена заявки либо {@code null}, если заявку заменять не нужно.
+   */
+  @Nonnull
+  public CompletableFuture<List<MassOrderResult>> replaceAll(@Nonnull String accountId,
+                                                             @Nullable String instrumentId,
+                                                             @Nonnull Function<OrderState, Quotation> newPrice) {
+    return ordersService.getOrders(accountId).thenCompose(orders -> {
+      var results = new ArrayList<CompletableFuture<MassOrderResult>>();
+      for (var order : orders) {
+        if (!matches(order.getFigi(), order.getInstrumentUid(), instrumentId)) {
+          continue;
+        }
+        var price = newPrice.apply(order);
+        if (price != null) {
+          results.add(replaceOrder(accountId, order, price));
+        }
+      }
+      return allOf(results);
+    });
+  }
+
+  @Override
+  public void process(OrderStateStreamResponse response) {
+    if (response.hasOrderState()) {
+      onOrderState(response.getOrderState());
+    }
+  }
+
+  /**
+   * Учёт состояния заявки из стрима. Подтверждением отмены служит любое итоговое состояние заявки.
+   */
+  public void onOrderState(@Nonnull OrderStateStreamResponse.OrderState state) {
+    var confirmation = confirmations.get(state.getOrderId());
+    if (confirmation != null && AsyncOrderExecutor.isFinal(state)) {
+      confirmation.complete(state);
+    }
+  }
+
+  /**
+   * Завершение ожидающих подтверждений ошибкой стрима.
+   */
+  public void onStreamError(@Nonnull Throwable error) {
+    for (var confirmation : new ArrayList<>(confirmations.values())) {
+      confirmation.completeExceptionally(error);
+    }
+  }
+
+  private CompletableFuture<MassOrderResult> cancelOrder(String accountId, String orderId, boolean confirm) {
+    var confirmation = confirm ? confirmations.computeIfAbsent(orderId, ignored -> new CompletableFuture<>()) : null;
+    if (confirmation != null) {
+      confirmation.whenComplete((state, error) -> confirmations.remove(orderId, confirmation));
+    }
+    var startedAt = new long[1];
+    return limiter.submit(() -> {
+      startedAt[0] = System.nanoTime();
+      return ordersService.cancelOrder(accountId, orderId);
+    }).handle((time, error) -> {
+      if (error != null || confirmation == null) {
+        if (confirmation != null) {
+          confirmation.cancel(false);
+        }
+        return CompletableFuture.completedFuture(
+          new MassOrderResult(orderId, false, time, null, null, unwrap(error), elapsed(startedAt[0])));
+      }
+      return confirmation
+        .orTimeout(confirmTimeoutMillis, TimeUnit.MILLISECONDS)
+        .handle((state, confirmError) -> new MassOrderResult(
+          orderId, false, time, null, state, unwrap(confirmError), elapsed(startedAt[0])));
+    }).thenCompose(Function.identity());
+  }
+
+  private CompletableFuture<MassOrderResult> cancelStopOrder(String accountId, String stopOrderId) {
+    var startedAt = new long[1];
+    return limiter.submit(() -> {
+      startedAt[0] = System.nanoTime();
+      return stopOrdersService.cancelStopOrder(accountId, stopOrderId);
+    }).handle((time, error) ->
+      new MassOrderResult(stopOrderId, true, time, null, null, unwrap(error), elapsed(startedAt[0])));
+  }
+
+  private CompletableFuture<MassOrderResult> replaceOrder(String accountId, OrderState order, Quotation price) {
+    var startedAt = new long[1];
+    return limiter.submit(() -> {
+      startedAt[0] = System.nanoTime();
+      return ordersService.replaceOrder(accountId, order.getLotsRequested() - order.getLotsExecuted(), price,
+        idGenerator.next(), order.getOrderId(), null);
+    }).handle((response, error) ->
+      new MassOrderResult(order.getOrderId(), false, null, response, null, unwrap(error), elapsed(startedAt[0])));
+  }
+
+  private static boolean matches(String figi, String instrumentUid, @Nullable String instrumentId) {
+    return instrumentId == null || instrumentId.equals(figi) || instrumentId.equals(instrumentUid);
+  }
+
+  private static CompletableFuture<List<MassOrderResult>> allOf(List<CompletableFuture<MassOrderResult>> futures) {
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+      var results = new ArrayList<MassOrderResult>(futures.size());
+      for (var future : futures) {
+        results.add(future.join());
+      }
+      return results;
+    });
+  }
+
+  private static Duration elapsed(long startedAt) {
+    return Duration.ofNanos(System.nanoTime() - startedAt);
+  }
+
+  @Nullable
+  private static Throwable unwrap(@Nullable Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+  }
+}
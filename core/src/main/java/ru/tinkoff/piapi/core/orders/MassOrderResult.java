@@ -0,0 +1,64 @@
+package ru.tinkoff.piapi.core.orders;
+
+import lombok.Getter;
+import ru.tinkoff.piapi.contract.v1.OrderStateStreamResponse;
+import ru.tinkoff.piapi.contract.v1.PostOrderResponse;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Результат отмены или замены одной заявки в массовой операции {@link MassOrderOperations}.
+ */
+@Getter
+public class MassOrderResult {
+
+  /**
+   * Биржевой идентификатор заявки либо идентификатор стоп-заявки.
+   */
+  private final String orderId;
+  private final boolean stopOrder;
+  /**
+   * Время отмены по ответу сервера.
+   */
+  @Nullable
+  private final Instant cancelledAt;
+  /**
+   * Ответ на замену заявки.
+   */
+  @Nullable
+  private final PostOrderResponse replacement;
+  /**
+   * Итоговое состояние заявки из стрима, если отмена подтверждалась по стриму и подтверждение получено.
+   */
+  @Nullable
+  private final OrderStateStreamResponse.OrderState confirmedState;
+  @Nullable
+  private final Throwable error;
+  /**
+   * Время от отправки запроса до получения ответа и, если требовалось, подтверждения.
+   */
+  private final Duration latency;
+
+  MassOrderResult(@Nonnull String orderId,
+                  boolean stopOrder,
+                  @Nullable Instant cancelledAt,
+                  @Nullable PostOrderResponse replacement,
+                  @Nullable OrderStateStreamResponse.OrderState confirmedState,
+                  @Nullable Throwable error,
+                  @Nonnull Duration latency) {
+    this.orderId = orderId;
+    this.stopOrder = stopOrder;
+    this.cancelledAt = cancelledAt;
+    this.replacement = replacement;
+    this.confirmedState = confirmedState;
+    this.error = error;
+    this.latency = latency;
+  }
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+}
@@ -0,0 +1,44 @@
+package ru.tinkoff.piapi.core.orders;
+
+import javax.annotation.Nonnull;
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Генератор идентификаторов заявок в формате UUID без обращения к {@link SecureRandom} на каждый идентификатор.
+ * <p>
+ * Старшие 64 бита (с версией 4) выбираются случайно один раз при создании генератора, младшие содержат
+ * вариант RFC 4122 и счётчик. Идентификаторы одного генератора не повторяются, пока не исчерпан 62-битный
+ * счётчик; вероятность совпадения идентификаторов разных генераторов определяется 60 случайными битами префикса.
+ */
+public class OrderIdGenerator {
+
+  private static final long VERSION_MASK = 0xF000L;
+  private static final long VERSION_4 = 0x4000L;
+  private static final long VARIANT = 0x8000_0000_0000_0000L;
+  private static final long COUNTER_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+  private final long prefix;
+  private final AtomicLong counter = new AtomicLong();
+
+  public OrderIdGenerator() {
+    this(new SecureRandom());
+  }
+
+  /**
+   * @param seed Источник случайного префикса генератора.
+   */
+  public OrderIdGenerator(@Nonnull Random seed) {
+    this.prefix = (seed.nextLong() & ~VERSION_MASK) | VERSION_4;
+  }
+
+  /**
+   * Следующий идентификатор заявки.
+   */
+  @Nonnull
+  public String next() {
+    return new UUID(prefix, VARIANT | (counter.getAndIncrement() & COUNTER_MASK)).toString();
+  }
+}
@@ -0,0 +1,157 @@
+package ru.tinkoff.piapi.core.orders;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import ru.tinkoff.piapi.contract.v1.PostOrderRequest;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Журнал отправленных заявок в локальном файле, дописываемом только в конец.
+ * <p>
+ * Перед отправкой заявки в журнал записывается строка {@code S <order_id> <запрос в base64>}, после получения
+ * однозначного результата — строка {@code R <order_id>}. Заявки без второй строки считаются неразрешёнными:
+ * после сбоя их состояние нужно уточнить у сервера по ключу идемпотентности. Незавершённая последняя строка,
+ * оставшаяся после аварийной остановки, при открытии отбрасывается.
+ * <p>
+ * При {@code fsync = true} каждая запись сбрасывается на диск до возврата из метода.
+ */
+public class OrderIdJournal implements Closeable {
+
+  private static final String SENT = "S";
+  private static final String RESOLVED = "R";
+
+  private final Path file;
+  private final boolean fsync;
+  private final Map<String, PostOrderRequest> unresolved = new LinkedHashMap<>();
+  private FileChannel channel;
+
+  private OrderIdJournal(Path file, boolean fsync) {
+    this.file = file;
+    this.fsync = fsync;
+  }
+
+  /**
+   * Открытие журнала. Существующие записи читаются для восстановления неразрешённых заявок.
+   */
+  @Nonnull
+  public static OrderIdJournal open(@Nonnull Path file, boolean fsync) throws IOException {
+    var journal = new OrderIdJournal(file, fsync);
+    var length = Files.exists(file) ? journal.read() : 0;
+    journal.channel = openChannel(file);
+    if (journal.channel.size() > length) {
+      journal.channel.truncate(length);
+    }
+    return journal;
+  }
+
+  /**
+   * Запись об отправке заявки. Идентификатор заявки должен быть задан и не содержать пробельных символов.
+   */
+  public synchronized void recordSent(@Nonnull PostOrderRequest request) {
+    var orderId = request.getOrderId();
+    if (orderId.isEmpty() || orderId.chars().anyMatch(Character::isWhitespace)) {
+      throw new IllegalArgumentException("Некорректный идентификатор заявки: '" + orderId + "'");
+    }
+    append(SENT + ' ' + request.getOrderId() + ' '
+      + Base64.getEncoder().encodeToString(request.toByteArray()) + '\n');
+    unresolved.put(request.getOrderId(), request);
+  }
+
+  /**
+   * Запись о получении однозначного результата по заявке.
+   */
+  public synchronized void recordResolved(@Nonnull String orderId) {
+    if (unresolved.remove(orderId) != null) {
+      append(RESOLVED + ' ' + orderId + '\n');
+    }
+  }
+
+  /**
+   * Неразрешённые заявки в порядке отправки.
+   */
+  @Nonnull
+  public synchronized List<PostOrderRequest> getUnresolved() {
+    return new ArrayList<>(unresolved.values());
+  }
+
+  /**
+   * Перезапись журнала с сохранением только неразрешённых заявок.
+   */
+  public synchronized void compact() throws IOException {
+    var temp = file.resolveSibling(file.getFileName() + ".tmp");
+    var content = new StringBuilder();
+    for (var request : unresolved.values()) {
+      content.append(SENT).append(' ').append(request.getOrderId()).append(' ')
+        .append(Base64.getEncoder().encodeToString(request.toByteArray())).append('\n');
+    }
+    Files.writeString(temp, content, StandardCharsets.UTF_8);
+    channel.close();
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    channel = openChannel(file);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+  }
+
+  private void append(String line) {
+    try {
+      var buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      if (fsync) {
+        channel.force(false);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Не удалось записать журнал заявок " + file, e);
+    }
+  }
+
+  /**
+   * @return Длина в байтах прочитанной части журнала, заканчивающейся последним переводом строки.
+   */
+  private long read() throws IOException {
+    var bytes = Files.readAllBytes(file);
+    var end = bytes.length;
+    while (end > 0 && bytes[end - 1] != '\n') {
+      end--;
+    }
+    if (end == 0) {
+      return 0;
+    }
+    for (var line : new String(bytes, 0, end - 1, StandardCharsets.UTF_8).split("\n")) {
+      var parts = line.split(" ");
+      if (parts.length == 3 && parts[0].equals(SENT)) {
+        try {
+          unresolved.put(parts[1], PostOrderRequest.parseFrom(Base64.getDecoder().decode(parts[2])));
+        } catch (InvalidProtocolBufferException | IllegalArgumentException e) {
+          // повреждённая запись пропускается
+        }
+      } else if (parts.length == 2 && parts[0].equals(RESOLVED)) {
+        unresolved.remove(parts[1]);
+      }
+    }
+    return end;
+  }
+
+  private static FileChannel openChannel(Path file) throws IOException {
+    return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+  }
+}
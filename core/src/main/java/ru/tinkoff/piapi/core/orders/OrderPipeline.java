@@ -0,0 +1,218 @@
+package ru.tinkoff.piapi.core.orders;
+
+import ru.tinkoff.piapi.contract.v1.PostOrderRequest;
+import ru.tinkoff.piapi.contract.v1.PostOrderResponse;
+import ru.tinkoff.piapi.core.OrdersService;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Конвейер выставления заявок с ограниченным числом одновременно выполняемых запросов.
+ * <p>
+ * Заявки отправляются через {@link OrdersService#postOrder(PostOrderRequest)}, не дожидаясь ответов на предыдущие,
+ * пока число запросов в полёте не достигнет окна. Благодаря этому корзина из сотен заявок выставляется
+ * за время, кратное времени ответа сервера на окно заявок, а не на каждую заявку.
+ * <p>
+ * Заявки одного счёта отправляются строго в порядке поступления, и по каждому счёту в полёте одновременно
+ * находится не больше заданного числа заявок: при значении 1 следующая заявка счёта уходит только после ответа
+ * на предыдущую. Счета обслуживаются по очереди, так что большая корзина одного счёта не задерживает остальные.
+ * <p>
+ * Результат каждой заявки — {@link OrderResult}: конвейер не завершает фьючерсы исключением, ошибка выставления
+ * возвращается в результате вместе с задержками.
+ */
+public class OrderPipeline {
+
+  private final OrdersService ordersService;
+  private final OrderIdGenerator idGenerator = new OrderIdGenerator();
+  private final int maxInFlight;
+  private final int maxInFlightPerAccount;
+  private final Map<String, AccountQueue> accounts = new HashMap<>();
+  private final ArrayDeque<AccountQueue> ready = new ArrayDeque<>();
+  private final AtomicInteger dispatchRequests = new AtomicInteger();
+  private int inFlight;
+  private int queued;
+
+  /**
+   * @param maxInFlight           Максимальное число одновременно выполняемых запросов.
+   * @param maxInFlightPerAccount Максимальное число одновременно выполняемых запросов по одному счёту.
+   */
+  public OrderPipeline(@Nonnull OrdersService ordersService, int maxInFlight, int maxInFlightPerAccount) {
+    if (maxInFlight <= 0 || maxInFlightPerAccount <= 0) {
+      throw new IllegalArgumentException("Размер окна должен быть положительным");
+    }
+    this.ordersService = ordersService;
+    this.maxInFlight = maxInFlight;
+    this.maxInFlightPerAccount = maxInFlightPerAccount;
+  }
+
+  /**
+   * Постановка заявки в очередь. Если идентификатор заявки не задан, он генерируется сразу,
+   * чтобы заявку можно было найти по результату.
+   */
+  @Nonnull
+  public CompletableFuture<OrderResult> submit(@Nonnull PostOrderRequest request) {
+    if (request.getOrderId().isEmpty()) {
+      request = request.toBuilder().setOrderId(idGenerator.next()).build();
+    }
+    var task = new Task(request);
+    synchronized (accounts) {
+      var account = accounts.computeIfAbsent(request.getAccountId(), AccountQueue::new);
+      account.pending.add(task);
+      queued++;
+      markReady(account);
+    }
+    dispatch();
+    return task.result;
+  }
+
+  /**
+   * Постановка корзины заявок в очередь.
+   *
+   * @return Результаты в порядке заявок в корзине.
+   */
+  @Nonnull
+  public CompletableFuture<List<OrderResult>> submitAll(@Nonnull Collection<PostOrderRequest> requests) {
+    var futures = new ArrayList<CompletableFuture<OrderResult>>(requests.size());
+    for (var request : requests) {
+      futures.add(submit(request));
+    }
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+      var results = new ArrayList<OrderResult>(futures.size());
+      for (var future : futures) {
+        results.add(future.join());
+      }
+      return results;
+    });
+  }
+
+  /**
+   * Число отправленных заявок, ответ на которые ещё не получен.
+   */
+  public int getInFlight() {
+    synchronized (accounts) {
+      return inFlight;
+    }
+  }
+
+  /**
+   * Число заявок, ожидающих отправки.
+   */
+  public int getQueued() {
+    synchronized (accounts) {
+      return queued;
+    }
+  }
+
+  /**
+   * Отправка заявок, пока позволяют окна. Вызовы из обработчиков ответов не уходят в рекурсию:
+   * повторный запрос лишь отмечается и выполняется уже работающим циклом.
+   */
+  private void dispatch() {
+    if (dispatchRequests.getAndIncrement() != 0) {
+      return;
+    }
+    var missed = 1;
+    do {
+      List<Task> batch;
+      while (!(batch = takeReady()).isEmpty()) {
+        for (var task : batch) {
+          send(task);
+        }
+      }
+      missed = dispatchRequests.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private List<Task> takeReady() {
+    var batch = new ArrayList<Task>();
+    synchronized (accounts) {
+      while (inFlight < maxInFlight && !ready.isEmpty()) {
+        var account = ready.poll();
+        account.ready = false;
+        var task = account.pending.poll();
+        account.inFlight++;
+        inFlight++;
+        queued--;
+        batch.add(task);
+        task.account = account;
+        markReady(account);
+      }
+    }
+    return batch;
+  }
+
+  private void send(Task task) {
+    task.sentAt = System.nanoTime();
+    CompletableFuture<PostOrderResponse> response;
+    try {
+      response = ordersService.postOrder(task.request);
+    } catch (RuntimeException e) {
+      response = CompletableFuture.failedFuture(e);
+    }
+    response.whenComplete((value, error) -> complete(task, value, error));
+  }
+
+  private void complete(Task task, PostOrderResponse response, Throwable error) {
+    var completedAt = System.nanoTime();
+    synchronized (accounts) {
+      var account = task.account;
+      account.inFlight--;
+      inFlight--;
+      if (account.pending.isEmpty() && account.inFlight == 0) {
+        accounts.remove(account.accountId);
+      } else {
+        markReady(account);
+      }
+    }
+    if (error instanceof CompletionException && error.getCause() != null) {
+      error = error.getCause();
+    }
+    task.result.complete(new OrderResult(
+      task.request,
+      error == null ? response : null,
+      error,
+      Duration.ofNanos(task.sentAt - task.submittedAt),
+      Duration.ofNanos(completedAt - task.sentAt)));
+    dispatch();
+  }
+
+  private void markReady(AccountQueue account) {
+    if (!account.ready && !account.pending.isEmpty() && account.inFlight < maxInFlightPerAccount) {
+      account.ready = true;
+      ready.add(account);
+    }
+  }
+
+  private static final class AccountQueue {
+    private final String accountId;
+    private final ArrayDeque<Task> pending = new ArrayDeque<>();
+    private int inFlight;
+    private boolean ready;
+
+    AccountQueue(String accountId) {
+      this.accountId = accountId;
+    }
+  }
+
+  private static final class Task {
+    private final PostOrderRequest request;
+    private final CompletableFuture<OrderResult> result = new CompletableFuture<>();
+    private final long submittedAt = System.nanoTime();
+    private long sentAt;
+    private AccountQueue account;
+
+    Task(PostOrderRequest request) {
+      this.request = request;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package ru.tinkoff.piapi.core.orders;
+
+import lombok.Getter;
+import ru.tinkoff.piapi.contract.v1.PostOrderRequest;
+import ru.tinkoff.piapi.contract.v1.PostOrderResponse;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+/**
+ * Результат выставления заявки через {@link OrderPipeline}: ответ либо ошибка и время, затраченное на каждом этапе.
+ */
+@Getter
+public class OrderResult {
+
+  /**
+   * Отправленный запрос, включая сгенерированный идентификатор заявки.
+   */
+  private final PostOrderRequest request;
+  @Nullable
+  private final PostOrderResponse response;
+  @Nullable
+  private final Throwable error;
+  /**
+   * Время ожидания в очереди конвейера до отправки.
+   */
+  private final Duration queueTime;
+  /**
+   * Время от отправки запроса до получения ответа.
+   */
+  private final Duration latency;
+
+  OrderResult(@Nonnull PostOrderRequest request,
+              @Nullable PostOrderResponse response,
+              @Nullable Throwable error,
+              @Nonnull Duration queueTime,
+              @Nonnull Duration latency) {
+    this.request = request;
+    this.response = response;
+    this.error = error;
+    this.queueTime = queueTime;
+    this.latency = latency;
+  }
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+}
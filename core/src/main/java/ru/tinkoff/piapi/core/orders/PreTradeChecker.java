@@ -0,0 +1,394 @@
+package ru.tinkoff.piapi.core.orders;
+
+import ru.tinkoff.piapi.contract.v1.GetMaxLotsResponse;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.OrderDirection;
+import ru.tinkoff.piapi.contract.v1.OrderType;
+import ru.tinkoff.piapi.contract.v1.PostOrderRequest;
+import ru.tinkoff.piapi.contract.v1.PostStopOrderRequest;
+import ru.tinkoff.piapi.contract.v1.PriceType;
+import ru.tinkoff.piapi.contract.v1.Quotation;
+import ru.tinkoff.piapi.contract.v1.SecurityTradingStatus;
+import ru.tinkoff.piapi.contract.v1.StopOrderDirection;
+import ru.tinkoff.piapi.contract.v1.StopOrderType;
+import ru.tinkoff.piapi.contract.v1.TakeProfitType;
+import ru.tinkoff.piapi.core.OrdersService;
+import ru.tinkoff.piapi.core.instruments.InstrumentIdInterner;
+import ru.tinkoff.piapi.core.instruments.InstrumentMetadataTable;
+import ru.tinkoff.piapi.core.stream.StreamProcessor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static ru.tinkoff.piapi.core.utils.MapperUtils.nanosToQuotation;
+import static ru.tinkoff.piapi.core.utils.MapperUtils.quotationToNanos;
+
+/**
+ * Локальная проверка заявок перед отправкой по параметрам из {@link InstrumentMetadataTable}.
+ * <p>
+ * Заявки, которые сервер заведомо отклонит — инструмент недоступен через API или не торгуется, направление
+ * запрещено, количество лотов не положительно, цена не кратна шагу, — отсекаются без обращения к серверу
+ * и без расхода лимита запросов. Проверка выполняется над столбцами таблицы и не создаёт объектов,
+ * поэтому её можно вызывать перед каждой заявкой.
+ * <p>
+ * Если проверке передан {@link OrdersService}, количество лотов дополнительно сверяется с закэшированными
+ * ответами {@link OrdersService#getMaxLots}. Кэш заполняется только явно, методами
+ * {@link #refreshMaxLots(String, String)} и {@link #putMaxLots(String, String, GetMaxLotsResponse)}:
+ * сама проверка в сеть не ходит. Лимиты рассчитываются сервером по текущей цене и меняются после каждой
+ * сделки, поэтому после исполнения заявок их следует сбрасывать {@link #invalidateMaxLots(String)}.
+ * <p>
+ * Торговый статус в таблице соответствует моменту загрузки инструментов. Чтобы проверка учитывала перерывы
+ * в торгах и их окончание, проверку подключают обработчиком стрима котировок с подпиской на торговые статусы
+ * ({@code subscribeInfo}). Статусы из стрима хранятся в самой проверке, а не в таблице: таблица заполняется
+ * без синхронизации, а стрим обрабатывается в другом потоке. Полученный из стрима статус публикуется потокам,
+ * вызывающим проверку, и имеет приоритет над статусом из таблицы. Без подписки статус поддерживает вызывающий
+ * код через {@link InstrumentMetadataTable#setTradingStatus} в потоке, заполняющем таблицу.
+ * <p>
+ * Цена в валюте ({@link PriceType#PRICE_TYPE_CURRENCY}) не сверяется с шагом цены: для облигаций и фьючерсов
+ * шаг задан в пунктах.
+ */
+public class PreTradeChecker implements StreamProcessor<MarketDataResponse> {
+
+  private static final SecurityTradingStatus[] statuses = SecurityTradingStatus.values();
+
+  private final InstrumentMetadataTable table;
+  private final InstrumentIdInterner interner;
+  @Nullable
+  private final OrdersService ordersService;
+  private final long maxLotsTtlMillis;
+  private final Clock clock;
+  private final ConcurrentHashMap<String, ConcurrentHashMap<String, MaxLots>> maxLots = new ConcurrentHashMap<>();
+  private final Object liveStatusLock = new Object();
+  /**
+   * Торговые статусы из стрима по номерам инструментов: порядковый номер значения плюс один, 0 — статус
+   * не получен. Запись и замена массива при росте выполняются под {@link #liveStatusLock}, чтение — без блокировок.
+   */
+  private volatile AtomicIntegerArray liveStatus = new AtomicIntegerArray(0);
+
+  /**
+   * Проверка только по параметрам инструментов, без учёта доступного количества лотов.
+   */
+  public PreTradeChecker(@Nonnull InstrumentMetadataTable table) {
+    this(table, null, Duration.ZERO, Clock.systemUTC());
+  }
+
+  /**
+   * @param maxLotsTtl Время, в течение которого ответ {@code getMaxLots} считается актуальным.
+   */
+  public PreTradeChecker(@Nonnull InstrumentMetadataTable table,
+                         @Nonnull OrdersService ordersService,
+                         @Nonnull Duration maxLotsTtl) {
+    this(table, ordersService, maxLotsTtl, Clock.systemUTC());
+  }
+
+  PreTradeChecker(@Nonnull InstrumentMetadataTable table,
+                  @Nullable OrdersService ordersService,
+                  @Nonnull Duration maxLotsTtl,
+                  @Nonnull Clock clock) {
+    if (maxLotsTtl.isNegative()) {
+      throw new IllegalArgumentException("Время жизни кэша не может быть отрицательным");
+    }
+    this.table = table;
+    this.interner = table.getInterner();
+    this.ordersService = ordersService;
+    this.maxLotsTtlMillis = maxLotsTtl.toMillis();
+    this.clock = clock;
+  }
+
+  /**
+   * Обновление торгового статуса инструмента по сообщению стрима котировок. Прочие сообщения и незарегистрированные
+   * инструменты игнорируются. Может вызываться из любого потока.
+   */
+  @Override
+  public void process(MarketDataResponse response) {
+    if (!response.hasTradingStatus()) {
+      return;
+    }
+    var id = interner.idOf(response);
+    if (id == InstrumentIdInterner.UNKNOWN) {
+      return;
+    }
+    var status = response.getTradingStatus().getTradingStatus().ordinal() + 1;
+    synchronized (liveStatusLock) {
+      var current = liveStatus;
+      if (id >= current.length()) {
+        var grown = new AtomicIntegerArray(Math.max(id + 1, Math.max(16, current.length() * 2)));
+        for (int i = 0; i < current.length(); i++) {
+          grown.set(i, current.get(i));
+        }
+        liveStatus = current = grown;
+      }
+      current.set(id, status);
+    }
+  }
+
+  /**
+   * Проверка биржевой заявки.
+   */
+  @Nonnull
+  public PreTradeResult check(@Nonnull PostOrderRequest request) {
+    var instrumentId = instrumentId(request);
+    var id = interner.idOf(instrumentId);
+    var direction = request.getDirection();
+    var buy = direction == OrderDirection.ORDER_DIRECTION_BUY;
+    if (!buy && direction != OrderDirection.ORDER_DIRECTION_SELL) {
+      return PreTradeResult.INVALID_DIRECTION;
+    }
+    var result = checkInstrument(id, buy, request.getQuantity());
+    if (result != PreTradeResult.ACCEPTED) {
+      return result;
+    }
+    if (request.getOrderType() == OrderType.ORDER_TYPE_LIMIT) {
+      result = checkPrice(id, request.hasPrice() ? quotationToNanos(request.getPrice()) : 0, request.getPriceType());
+      if (result != PreTradeResult.ACCEPTED) {
+        return result;
+      }
+    }
+    return checkMaxLots(id, request.getAccountId(), instrumentId, buy,
+      request.getOrderType() == OrderType.ORDER_TYPE_MARKET, request.getQuantity());
+  }
+
+  /**
+   * Проверка стоп-заявки. Стоп-цена обязательна для всех заявок, кроме трейлинг-стопа,
+   * цена исполнения — для {@link StopOrderType#STOP_ORDER_TYPE_STOP_LIMIT}.
+   */
+  @Nonnull
+  public PreTradeResult check(@Nonnull PostStopOrderRequest request) {
+    var instrumentId = instrumentId(request);
+    var id = interner.idOf(instrumentId);
+    var direction = request.getDirection();
+    var buy = direction == StopOrderDirection.STOP_ORDER_DIRECTION_BUY;
+    if (!buy && direction != StopOrderDirection.STOP_ORDER_DIRECTION_SELL) {
+      return PreTradeResult.INVALID_DIRECTION;
+    }
+    var result = checkInstrument(id, buy, request.getQuantity());
+    if (result != PreTradeResult.ACCEPTED) {
+      return result;
+    }
+    var trailing = request.getTakeProfitType() == TakeProfitType.TAKE_PROFIT_TYPE_TRAILING;
+    if (!trailing || request.hasStopPrice()) {
+      result = checkPrice(id, request.hasStopPrice() ? quotationToNanos(request.getStopPrice()) : 0,
+        request.getPriceType());
+      if (result != PreTradeResult.ACCEPTED) {
+        return result;
+      }
+    }
+    if (request.getStopOrderType() == StopOrderType.STOP_ORDER_TYPE_STOP_LIMIT || request.hasPrice()) {
+      result = checkPrice(id, request.hasPrice() ? quotationToNanos(request.getPrice()) : 0, request.getPriceType());
+      if (result != PreTradeResult.ACCEPTED) {
+        return result;
+      }
+    }
+    return checkMaxLots(id, request.getAccountId(), instrumentId, buy, false, request.getQuantity());
+  }
+
+  /**
+   * Округление цены лимитной заявки до шага цены инструмента: для покупки вниз, для продажи вверх,
+   * чтобы заявка не исполнилась по цене хуже указанной.
+   *
+   * @return Исходный запрос, если округление не требуется, иначе копия с округлённой ценой.
+   */
+  @Nonnull
+  public PostOrderRequest normalize(@Nonnull PostOrderRequest request) {
+    if (request.getOrderType() != OrderType.ORDER_TYPE_LIMIT || !request.hasPrice()) {
+      return request;
+    }
+    var price = round(instrumentId(request), request.getPrice(), request.getPriceType(),
+      request.getDirection() == OrderDirection.ORDER_DIRECTION_BUY);
+    return price == null ? request : request.toBuilder().setPrice(price).build();
+  }
+
+  /**
+   * Округление цен стоп-заявки до шага цены инструмента: для покупки вниз, для продажи вверх.
+   *
+   * @return Исходный запрос, если округление не требуется, иначе копия с округлёнными ценами.
+   */
+  @Nonnull
+  public PostStopOrderRequest normalize(@Nonnull PostStopOrderRequest request) {
+    var buy = request.getDirection() == StopOrderDirection.STOP_ORDER_DIRECTION_BUY;
+    var instrumentId = instrumentId(request);
+    var price = request.hasPrice() ? round(instrumentId, request.getPrice(), request.getPriceType(), buy) : null;
+    var stopPrice = request.hasStopPrice()
+      ? round(instrumentId, request.getStopPrice(), request.getPriceType(), buy)
+      : null;
+    if (price == null && stopPrice == null) {
+      return request;
+    }
+    var builder = request.toBuilder();
+    if (price != null) {
+      builder.setPrice(price);
+    }
+    if (stopPrice != null) {
+      builder.setStopPrice(stopPrice);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Запрос (синхронный) доступного количества лотов по текущей цене и сохранение ответа в кэше.
+   */
+  @Nonnull
+  public GetMaxLotsResponse refreshMaxLots(@Nonnull String accountId, @Nonnull String instrumentId) {
+    var response = requireOrdersService().getMaxLotsSync(accountId, instrumentId, null);
+    putMaxLots(accountId, instrumentId, response);
+    return response;
+  }
+
+  /**
+   * Запрос (асинхронный) доступного количества лотов по текущей цене и сохранение ответа в кэше.
+   */
+  @Nonnull
+  public CompletableFuture<GetMaxLotsResponse> refreshMaxLotsAsync(@Nonnull String accountId,
+                                                                  @Nonnull String instrumentId) {
+    return requireOrdersService().getMaxLots(accountId, instrumentId, null)
+      .thenApply(response -> {
+        putMaxLots(accountId, instrumentId, response);
+        return response;
+      });
+  }
+
+  /**
+   * Сохранение ответа {@code getMaxLots}, полученного вне проверки.
+   * Идентификатор инструмента должен совпадать с указываемым в заявках.
+   */
+  public void putMaxLots(@Nonnull String accountId,
+                         @Nonnull String instrumentId,
+                         @Nonnull GetMaxLotsResponse response) {
+    maxLots.computeIfAbsent(accountId, ignored -> new ConcurrentHashMap<>())
+      .put(instrumentId, new MaxLots(response, clock.millis() + maxLotsTtlMillis));
+  }
+
+  /**
+   * Сброс закэшированных лимитов счёта, например после исполнения заявки.
+   */
+  public void invalidateMaxLots(@Nonnull String accountId) {
+    maxLots.remove(accountId);
+  }
+
+  private PreTradeResult checkInstrument(int id, boolean buy, long quantity) {
+    if (id == InstrumentIdInterner.UNKNOWN || !table.contains(id)) {
+      return PreTradeResult.UNKNOWN_INSTRUMENT;
+    }
+    var flags = table.flags(id);
+    if ((flags & InstrumentMetadataTable.API_TRADE_AVAILABLE) == 0) {
+      return PreTradeResult.API_TRADE_NOT_AVAILABLE;
+    }
+    switch (tradingStatus(id)) {
+      case SECURITY_TRADING_STATUS_NOT_AVAILABLE_FOR_TRADING:
+      case SECURITY_TRADING_STATUS_DEALER_NOT_AVAILABLE_FOR_TRADING:
+      case SECURITY_TRADING_STATUS_BREAK_IN_TRADING:
+      case SECURITY_TRADING_STATUS_DEALER_BREAK_IN_TRADING:
+      case SECURITY_TRADING_STATUS_SESSION_CLOSE:
+        return PreTradeResult.NOT_AVAILABLE_FOR_TRADING;
+      default:
+        break;
+    }
+    if ((flags & (buy ? InstrumentMetadataTable.BUY_AVAILABLE : InstrumentMetadataTable.SELL_AVAILABLE)) == 0) {
+      return buy ? PreTradeResult.BUY_NOT_AVAILABLE : PreTradeResult.SELL_NOT_AVAILABLE;
+    }
+    if (quantity <= 0) {
+      return PreTradeResult.INVALID_QUANTITY;
+    }
+    return PreTradeResult.ACCEPTED;
+  }
+
+  private PreTradeResult checkPrice(int id, long price, PriceType priceType) {
+    if (price <= 0) {
+      return PreTradeResult.INVALID_PRICE;
+    }
+    var increment = table.minPriceIncrement(id);
+    if (priceType != PriceType.PRICE_TYPE_CURRENCY && increment > 0 && price % increment != 0) {
+      return PreTradeResult.INVALID_PRICE_INCREMENT;
+    }
+    return PreTradeResult.ACCEPTED;
+  }
+
+  private PreTradeResult checkMaxLots(int id, String accountId, String instrumentId,
+                                      boolean buy, boolean market, long quantity) {
+    if (ordersService == null) {
+      return PreTradeResult.ACCEPTED;
+    }
+    var accountLimits = maxLots.get(accountId);
+    var limits = accountLimits == null ? null : accountLimits.get(instrumentId);
+    if (limits == null || limits.expiresAt < clock.millis()) {
+      return PreTradeResult.ACCEPTED;
+    }
+    if (buy) {
+      return quantity > (market ? limits.buyMaxMarketLots : limits.buyMaxLots)
+        ? PreTradeResult.MAX_LOTS_EXCEEDED
+        : PreTradeResult.ACCEPTED;
+    }
+    if (quantity <= limits.sellMaxLots) {
+      return PreTradeResult.ACCEPTED;
+    }
+    if (!table.hasFlags(id, InstrumentMetadataTable.SHORT_ENABLED)) {
+      return PreTradeResult.SHORT_NOT_ENABLED;
+    }
+    return quantity > limits.sellMarginMaxLots ? PreTradeResult.MAX_LOTS_EXCEEDED : PreTradeResult.ACCEPTED;
+  }
+
+  @Nullable
+  private Quotation round(String instrumentId, Quotation price, PriceType priceType, boolean down) {
+    var id = interner.idOf(instrumentId);
+    if (id == InstrumentIdInterner.UNKNOWN || !table.contains(id) || priceType == PriceType.PRICE_TYPE_CURRENCY) {
+      return null;
+    }
+    var increment = table.minPriceIncrement(id);
+    var nanos = quotationToNanos(price);
+    if (increment <= 0 || nanos % increment == 0) {
+      return null;
+    }
+    var rounded = Math.floorDiv(nanos, increment) * increment;
+    return nanosToQuotation(down ? rounded : rounded + increment);
+  }
+
+  private OrdersService requireOrdersService() {
+    if (ordersService == null) {
+      throw new IllegalStateException("Проверка создана без сервиса заявок");
+    }
+    return ordersService;
+  }
+
+  private SecurityTradingStatus tradingStatus(int id) {
+    var current = liveStatus;
+    var status = id < current.length() ? current.get(id) : 0;
+    return status == 0 ? table.tradingStatus(id) : statuses[status - 1];
+  }
+
+  /**
+   * Идентификатор инструмента заявки. Устаревшее поле {@code figi} ещё заполняют клиенты, написанные до появления
+   * {@code instrument_id}, поэтому оно используется, если {@code instrument_id} не задан.
+   */
+  @SuppressWarnings("deprecation")
+  private static String instrumentId(PostOrderRequest request) {
+    return request.getInstrumentId().isEmpty() ? request.getFigi() : request.getInstrumentId();
+  }
+
+  @SuppressWarnings("deprecation")
+  private static String instrumentId(PostStopOrderRequest request) {
+    return request.getInstrumentId().isEmpty() ? request.getFigi() : request.getInstrumentId();
+  }
+
+  private static final class MaxLots {
+    private final long buyMaxLots;
+    private final long buyMaxMarketLots;
+    private final long sellMaxLots;
+    private final long sellMarginMaxLots;
+    private final long expiresAt;
+
+    MaxLots(GetMaxLotsResponse response, long expiresAt) {
+      this.buyMaxLots = Math.max(response.getBuyLimits().getBuyMaxLots(),
+        response.getBuyMarginLimits().getBuyMaxLots());
+      this.buyMaxMarketLots = Math.max(response.getBuyLimits().getBuyMaxMarketLots(),
+        response.getBuyMarginLimits().getBuyMaxMarketLots());
+      this.sellMaxLots = response.getSellLimits().getSellMaxLots();
+      this.sellMarginMaxLots = Math.max(sellMaxLots, response.getSellMarginLimits().getSellMaxLots());
+      this.expiresAt = expiresAt;
+    }
+  }
+}
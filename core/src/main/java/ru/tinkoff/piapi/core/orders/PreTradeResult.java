@@ -0,0 +1,36 @@
+package ru.tinkoff.piapi.core.orders;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Результат локальной проверки заявки {@link PreTradeChecker}.
+ */
+public enum PreTradeResult {
+  ACCEPTED("Заявка прошла проверку"),
+  UNKNOWN_INSTRUMENT("Инструмент отсутствует в таблице параметров"),
+  API_TRADE_NOT_AVAILABLE("Инструмент недоступен для торговли через API"),
+  NOT_AVAILABLE_FOR_TRADING("Торги инструментом не ведутся"),
+  BUY_NOT_AVAILABLE("Покупка инструмента недоступна"),
+  SELL_NOT_AVAILABLE("Продажа инструмента недоступна"),
+  SHORT_NOT_ENABLED("Продажа в шорт недоступна для инструмента"),
+  INVALID_DIRECTION("Не указано направление заявки"),
+  INVALID_QUANTITY("Количество лотов должно быть положительным"),
+  INVALID_PRICE("Цена заявки не указана или не положительна"),
+  INVALID_PRICE_INCREMENT("Цена не кратна минимальному шагу цены инструмента"),
+  MAX_LOTS_EXCEEDED("Количество лотов превышает доступное для счёта");
+
+  private final String description;
+
+  PreTradeResult(String description) {
+    this.description = description;
+  }
+
+  @Nonnull
+  public String getDescription() {
+    return description;
+  }
+
+  public boolean isAccepted() {
+    return this == ACCEPTED;
+  }
+}
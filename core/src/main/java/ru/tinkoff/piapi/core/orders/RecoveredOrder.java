@@ -0,0 +1,31 @@
+package ru.tinkoff.piapi.core.orders;
+
+import lombok.Getter;
+import ru.tinkoff.piapi.contract.v1.OrderState;
+import ru.tinkoff.piapi.contract.v1.PostOrderRequest;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Заявка из журнала, состояние которой уточнено у сервера при восстановлении после сбоя.
+ */
+@Getter
+public class RecoveredOrder {
+
+  private final PostOrderRequest request;
+  /**
+   * Состояние заявки на сервере либо {@code null}, если заявка не была выставлена.
+   */
+  @Nullable
+  private final OrderState state;
+
+  RecoveredOrder(@Nonnull PostOrderRequest request, @Nullable OrderState state) {
+    this.request = request;
+    this.state = state;
+  }
+
+  public boolean isPlaced() {
+    return state != null;
+  }
+}
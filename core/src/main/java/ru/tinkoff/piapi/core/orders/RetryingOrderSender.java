@@ -0,0 +1,174 @@
+package ru.tinkoff.piapi.core.orders;
+
+import io.grpc.Status;
+import ru.tinkoff.piapi.contract.v1.OrderIdType;
+import ru.tinkoff.piapi.contract.v1.PostOrderRequest;
+import ru.tinkoff.piapi.contract.v1.PostOrderResponse;
+import ru.tinkoff.piapi.core.OrdersService;
+import ru.tinkoff.piapi.core.exception.ApiRuntimeException;
+import ru.tinkoff.piapi.core.utils.Helpers;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выставление заявок с безопасными повторами.
+ * <p>
+ * Заявке заранее назначается идентификатор из {@link OrderIdGenerator}, и запрос записывается в
+ * {@link OrderIdJournal} до отправки. Если запрос завершился статусом {@code UNAVAILABLE} или
+ * {@code DEADLINE_EXCEEDED} (в том числе по таймауту клиента), неизвестно, дошла ли заявка до сервера, поэтому
+ * запрос повторяется с тем же идентификатором: сервер по ключу идемпотентности не создаст вторую заявку.
+ * <p>
+ * Заявка отмечается в журнале разрешённой, когда получен ответ сервера или ошибка, не оставляющая сомнений
+ * в результате. Если все попытки исчерпаны, заявка остаётся неразрешённой, и её состояние уточняет
+ * {@link #recover()} — например, при следующем запуске приложения.
+ */
+public class RetryingOrderSender {
+
+  private final OrdersService ordersService;
+  private final OrderIdJournal journal;
+  private final OrderIdGenerator idGenerator;
+  private final int maxAttempts;
+  private final Duration retryDelay;
+
+  /**
+   * @param maxAttempts Максимальное число попыток отправки одной заявки.
+   * @param retryDelay  Пауза перед повторной попыткой.
+   */
+  public RetryingOrderSender(@Nonnull OrdersService ordersService,
+                             @Nonnull OrderIdJournal journal,
+                             @Nonnull OrderIdGenerator idGenerator,
+                             int maxAttempts,
+                             @Nonnull Duration retryDelay) {
+    if (maxAttempts <= 0) {
+      throw new IllegalArgumentException("Число попыток должно быть положительным");
+    }
+    this.ordersService = ordersService;
+    this.journal = journal;
+    this.idGenerator = idGenerator;
+    this.maxAttempts = maxAttempts;
+    this.retryDelay = retryDelay;
+  }
+
+  /**
+   * Выставление (синхронное) заявки с повторами. Если идентификатор заявки не задан, он назначается генератором.
+   */
+  @Nonnull
+  public PostOrderResponse postOrderSync(@Nonnull PostOrderRequest request) {
+    var prepared = prepare(request);
+    for (int attempt = 1; ; attempt++) {
+      try {
+        var response = ordersService.postOrderSync(prepared);
+        journal.recordResolved(prepared.getOrderId());
+        return response;
+      } catch (RuntimeException e) {
+        if (!isRetryable(e)) {
+          journal.recordResolved(prepared.getOrderId());
+          throw e;
+        }
+        if (attempt >= maxAttempts) {
+          throw e;
+        }
+        try {
+          Thread.sleep(retryDelay.toMillis());
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * Выставление (асинхронное) заявки с повторами. Если идентификатор заявки не задан, он назначается генератором.
+   */
+  @Nonnull
+  public CompletableFuture<PostOrderResponse> postOrder(@Nonnull PostOrderRequest request) {
+    var prepared = prepare(request);
+    var result = new CompletableFuture<PostOrderResponse>();
+    attempt(prepared, 1, result);
+    return result;
+  }
+
+  /**
+   * Уточнение состояния неразрешённых заявок журнала по ключу идемпотентности.
+   * Заявки, по которым сервер не ответил однозначно, остаются в журнале до следующего вызова.
+   *
+   * @return Заявки, состояние которых удалось уточнить.
+   */
+  @Nonnull
+  public List<RecoveredOrder> recover() {
+    var recovered = new ArrayList<RecoveredOrder>();
+    for (var request : journal.getUnresolved()) {
+      try {
+        var state = ordersService.getOrderStateSync(
+          request.getAccountId(), request.getOrderId(), null, OrderIdType.ORDER_ID_TYPE_REQUEST);
+        recovered.add(new RecoveredOrder(request, state));
+      } catch (ApiRuntimeException e) {
+        if (Status.fromThrowable(e.getThrowable()).getCode() != Status.Code.NOT_FOUND) {
+          continue;
+        }
+        recovered.add(new RecoveredOrder(request, null));
+      }
+      journal.recordResolved(request.getOrderId());
+    }
+    return recovered;
+  }
+
+  /**
+   * Признак ошибки, после которой неизвестно, выставлена ли заявка, и запрос можно повторить.
+   */
+  public static boolean isRetryable(@Nonnull Throwable error) {
+    if (error instanceof CompletionException && error.getCause() != null) {
+      error = error.getCause();
+    }
+    if (error instanceof ApiRuntimeException && ((ApiRuntimeException) error).getThrowable() != null) {
+      error = ((ApiRuntimeException) error).getThrowable();
+    }
+    var code = Status.fromThrowable(error).getCode();
+    return code == Status.Code.UNAVAILABLE || code == Status.Code.DEADLINE_EXCEEDED;
+  }
+
+  private PostOrderRequest prepare(PostOrderRequest request) {
+    // Сервис заявок обрезает идентификатор до 36 символов, и журнал должен хранить тот же ключ идемпотентности.
+    var orderId = Helpers.preprocessInputOrderId(request.getOrderId());
+    if (orderId.isEmpty()) {
+      orderId = idGenerator.next();
+    }
+    var prepared = orderId.equals(request.getOrderId()) ? request : request.toBuilder().setOrderId(orderId).build();
+    journal.recordSent(prepared);
+    return prepared;
+  }
+
+  private void attempt(PostOrderRequest request, int attempt, CompletableFuture<PostOrderResponse> result) {
+    CompletableFuture<PostOrderResponse> response;
+    try {
+      response = ordersService.postOrder(request);
+    } catch (RuntimeException e) {
+      response = CompletableFuture.failedFuture(e);
+    }
+    response.whenComplete((value, error) -> {
+      if (error == null) {
+        journal.recordResolved(request.getOrderId());
+        result.complete(value);
+      } else if (!isRetryable(error)) {
+        journal.recordResolved(request.getOrderId());
+        result.completeExceptionally(unwrap(error));
+      } else if (attempt >= maxAttempts) {
+        result.completeExceptionally(unwrap(error));
+      } else {
+        CompletableFuture.delayedExecutor(retryDelay.toMillis(), TimeUnit.MILLISECONDS)
+          .execute(() -> attempt(request, attempt + 1, result));
+      }
+    });
+  }
+
+  private static Throwable unwrap(Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+  }
+}
@@ -0,0 +1,30 @@
+package ru.tinkoff.piapi.core.orders;
+
+import ru.tinkoff.piapi.contract.v1.StopOrder;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Обработчик изменений стоп-заявок, обнаруженных {@link StopOrderTracker}.
+ */
+public interface StopOrderListener {
+
+  /**
+   * Появилась новая активная стоп-заявка.
+   */
+  default void onCreated(@Nonnull String accountId, @Nonnull StopOrder stopOrder) {
+  }
+
+  /**
+   * Стоп-заявка сработала: по ней выставлена биржевая заявка.
+   */
+  default void onTriggered(@Nonnull String accountId, @Nonnull StopOrder stopOrder) {
+  }
+
+  /**
+   * Стоп-заявка отменена или истекла. Если заявка не найдена в истории,
+   * передаётся последнее известное активное состояние.
+   */
+  default void onCancelled(@Nonnull String accountId, @Nonnull StopOrder stopOrder) {
+  }
+}
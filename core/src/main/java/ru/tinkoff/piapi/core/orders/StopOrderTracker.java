@@ -0,0 +1,305 @@
+package ru.tinkoff.piapi.core.orders;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.tinkoff.piapi.contract.v1.StopOrder;
+import ru.tinkoff.piapi.contract.v1.StopOrderStatusOption;
+import ru.tinkoff.piapi.core.StopOrdersService;
+import ru.tinkoff.piapi.core.utils.DateUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отслеживание активных стоп-заявок счетов опросом {@link StopOrdersService#getStopOrders(String)}.
+ * <p>
+ * Стрима стоп-заявок нет, поэтому список активных заявок каждого счёта периодически запрашивается заново
+ * и сравнивается с предыдущим по {@code stop_order_id} за линейное время. Новые заявки передаются в
+ * {@link StopOrderListener#onCreated}. Для исчезнувших запрашивается история со статусом
+ * {@link StopOrderStatusOption#STOP_ORDER_STATUS_ALL}: исполненные передаются в {@link StopOrderListener#onTriggered},
+ * отменённые и истёкшие — в {@link StopOrderListener#onCancelled}. Если историю получить не удалось либо заявки
+ * в ней ещё нет или она в истории ещё активна, исчезнувшая заявка уточняется при следующих опросах. Первый опрос
+ * счёта только запоминает текущие заявки.
+ * <p>
+ * Счета опрашиваются независимо и одновременно через асинхронные вызовы. Интервал опроса счёта адаптивный:
+ * после обнаруженного изменения он сбрасывается до минимального, иначе удваивается до максимального.
+ * Опрос по таймеру запускается {@link #start()}, внеочередной — {@link #poll(String)}.
+ * <p>
+ * Последний полученный список доступен из памяти через {@link #getStopOrders(String)} и
+ * {@link #getStopOrder(String)}. Обработчик вызывается в потоке ответа сервера.
+ */
+public class StopOrderTracker implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(StopOrderTracker.class);
+
+  private final StopOrdersService stopOrdersService;
+  private final StopOrderListener listener;
+  private final long minIntervalNanos;
+  private final long maxIntervalNanos;
+  private final Map<String, AccountState> accounts = new LinkedHashMap<>();
+  private final Map<String, StopOrder> stopOrders = new ConcurrentHashMap<>();
+  private ScheduledExecutorService timer;
+  private volatile boolean closed;
+
+  /**
+   * @param minInterval Интервал опроса счёта после обнаруженного изменения.
+   * @param maxInterval Наибольший интервал опроса счёта без изменений.
+   */
+  public StopOrderTracker(@Nonnull StopOrdersService stopOrdersService,
+                          @Nonnull Collection<String> accounts,
+                          @Nonnull Duration minInterval,
+                          @Nonnull Duration maxInterval,
+                          @Nonnull StopOrderListener listener) {
+    if (minInterval.isNegative() || minInterval.isZero() || maxInterval.compareTo(minInterval) < 0) {
+      throw new IllegalArgumentException("Интервалы опроса должны быть положительными, минимальный не больше максимального");
+    }
+    this.stopOrdersService = stopOrdersService;
+    this.listener = listener;
+    this.minIntervalNanos = minInterval.toNanos();
+    this.maxIntervalNanos = maxInterval.toNanos();
+    for (var accountId : accounts) {
+      this.accounts.put(accountId, new AccountState(accountId, minIntervalNanos));
+    }
+  }
+
+  /**
+   * Запуск опроса всех счетов по таймеру.
+   */
+  public synchronized void start() {
+    if (closed) {
+      throw new IllegalStateException("Трекер закрыт");
+    }
+    if (timer != null) {
+      return;
+    }
+    timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      var thread = new Thread(runnable, "stop-order-tracker");
+      thread.setDaemon(true);
+      return thread;
+    });
+    for (var state : accounts.values()) {
+      timer.execute(() -> tick(state));
+    }
+  }
+
+  /**
+   * Внеочередной опрос счёта. Если опрос счёта уже выполняется, возвращается его результат.
+   *
+   * @return {@code true}, если обнаружены изменения.
+   */
+  @Nonnull
+  public CompletableFuture<Boolean> poll(@Nonnull String accountId) {
+    return poll(account(accountId));
+  }
+
+  /**
+   * Активные стоп-заявки счёта по последнему опросу.
+   */
+  @Nonnull
+  public List<StopOrder> getStopOrders(@Nonnull String accountId) {
+    return new ArrayList<>(account(accountId).active.values());
+  }
+
+  /**
+   * Активная стоп-заявка по идентификатору либо {@code null}, если такой заявки нет.
+   */
+  @Nullable
+  public StopOrder getStopOrder(@Nonnull String stopOrderId) {
+    return stopOrders.get(stopOrderId);
+  }
+
+  /**
+   * Текущий интервал опроса счёта.
+   */
+  @Nonnull
+  public Duration getInterval(@Nonnull String accountId) {
+    var state = account(accountId);
+    synchronized (state) {
+      return Duration.ofNanos(state.intervalNanos);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    closed = true;
+    if (timer != null) {
+      timer.shutdownNow();
+    }
+  }
+
+  private AccountState account(String accountId) {
+    var state = accounts.get(accountId);
+    if (state == null) {
+      throw new IllegalArgumentException("Счёт " + accountId + " не отслеживается");
+    }
+    return state;
+  }
+
+  private void tick(AccountState state) {
+    if (closed) {
+      return;
+    }
+    poll(state).whenComplete((changed, error) -> {
+      long delay;
+      synchronized (state) {
+        delay = state.intervalNanos;
+      }
+      synchronized (this) {
+        if (!closed) {
+          timer.schedule(() -> tick(state), delay, TimeUnit.NANOSECONDS);
+        }
+      }
+    });
+  }
+
+  private CompletableFuture<Boolean> poll(AccountState state) {
+    CompletableFuture<Boolean> result;
+    synchronized (state) {
+      if (state.inFlight != null) {
+        return state.inFlight;
+      }
+      result = state.inFlight = new CompletableFuture<>();
+    }
+    CompletableFuture<List<StopOrder>> response;
+    try {
+      response = stopOrdersService.getStopOrders(state.accountId);
+    } catch (RuntimeException e) {
+      response = CompletableFuture.failedFuture(e);
+    }
+    response.thenCompose(list -> apply(state, list)).whenComplete((changed, error) -> {
+      synchronized (state) {
+        state.inFlight = null;
+        state.intervalNanos = error == null && changed
+          ? minIntervalNanos
+          : Math.min(state.intervalNanos * 2, maxIntervalNanos);
+      }
+      if (error != null) {
+        logger.warn("Не удалось опросить стоп-заявки счёта {}", state.accountId, error);
+        result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+          ? error.getCause()
+          : error);
+      } else {
+        result.complete(changed);
+      }
+    });
+    return result;
+  }
+
+  private CompletableFuture<Boolean> apply(AccountState state, List<StopOrder> list) {
+    var previous = state.active;
+    var current = new HashMap<String, StopOrder>(list.size() * 2);
+    var created = new ArrayList<StopOrder>();
+    for (var stopOrder : list) {
+      current.put(stopOrder.getStopOrderId(), stopOrder);
+      if (!previous.containsKey(stopOrder.getStopOrderId())) {
+        created.add(stopOrder);
+      }
+    }
+    var gone = state.unresolved;
+    var retried = gone.size();
+    state.unresolved = new ArrayList<>();
+    for (var stopOrder : previous.values()) {
+      if (!current.containsKey(stopOrder.getStopOrderId())) {
+        gone.add(stopOrder);
+      }
+    }
+    state.active = Collections.unmodifiableMap(current);
+    stopOrders.putAll(current);
+    for (var stopOrder : gone) {
+      stopOrders.remove(stopOrder.getStopOrderId());
+    }
+    var changed = !created.isEmpty() || gone.size() > retried;
+    if (state.initialized) {
+      for (var stopOrder : created) {
+        notify(() -> listener.onCreated(state.accountId, stopOrder));
+      }
+    }
+    state.initialized = true;
+    if (gone.isEmpty()) {
+      return CompletableFuture.completedFuture(changed);
+    }
+    return resolve(state, gone).thenApply(ignored -> changed);
+  }
+
+  /**
+   * Уточнение итогового статуса исчезнувших из списка активных заявок по истории.
+   */
+  private CompletableFuture<Void> resolve(AccountState state, List<StopOrder> gone) {
+    var from = Instant.MAX;
+    for (var stopOrder : gone) {
+      var created = DateUtils.timestampToInstant(stopOrder.getCreateDate());
+      if (created.isBefore(from)) {
+        from = created;
+      }
+    }
+    CompletableFuture<List<StopOrder>> history;
+    try {
+      history = stopOrdersService.getStopOrders(state.accountId, from, null,
+        StopOrderStatusOption.STOP_ORDER_STATUS_ALL);
+    } catch (RuntimeException e) {
+      history = CompletableFuture.failedFuture(e);
+    }
+    return history.handle((list, error) -> {
+      if (error != null) {
+        logger.warn("Не удалось получить историю стоп-заявок счёта {}", state.accountId, error);
+        state.unresolved.addAll(gone);
+        return null;
+      }
+      var finalStates = new HashMap<String, StopOrder>(list.size() * 2);
+      for (var stopOrder : list) {
+        finalStates.put(stopOrder.getStopOrderId(), stopOrder);
+      }
+      for (var stopOrder : gone) {
+        var finalState = finalStates.get(stopOrder.getStopOrderId());
+        if (finalState == null || finalState.getStatus() == StopOrderStatusOption.STOP_ORDER_STATUS_ACTIVE) {
+          // История отстаёт от списка активных заявок: итог станет известен при следующем опросе.
+          state.unresolved.add(stopOrder);
+          continue;
+        }
+        if (finalState.getStatus() == StopOrderStatusOption.STOP_ORDER_STATUS_EXECUTED) {
+          notify(() -> listener.onTriggered(state.accountId, finalState));
+        } else {
+          notify(() -> listener.onCancelled(state.accountId, finalState));
+        }
+      }
+      return null;
+    });
+  }
+
+  private void notify(Runnable event) {
+    try {
+      event.run();
+    } catch (RuntimeException e) {
+      logger.warn("Ошибка в обработчике стоп-заявок", e);
+    }
+  }
+
+  private static final class AccountState {
+    private final String accountId;
+    private volatile Map<String, StopOrder> active = Collections.emptyMap();
+    private List<StopOrder> unresolved = new ArrayList<>();
+    private boolean initialized;
+    private long intervalNanos;
+    private CompletableFuture<Boolean> inFlight;
+
+    AccountState(String accountId, long intervalNanos) {
+      this.accountId = accountId;
+      this.intervalNanos = intervalNanos;
+    }
+  }
+}
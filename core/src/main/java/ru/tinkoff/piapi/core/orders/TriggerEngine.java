@@ -0,0 +1,433 @@
+package ru.tinkoff.piapi.core.orders;
+
+import ru.tinkoff.piapi.contract.v1.LastPrice;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.PostOrderResponse;
+import ru.tinkoff.piapi.contract.v1.Trade;
+import ru.tinkoff.piapi.core.OrdersService;
+import ru.tinkoff.piapi.core.metrics.LatencyHistogram;
+import ru.tinkoff.piapi.core.stream.StreamProcessor;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ru.tinkoff.piapi.core.utils.MapperUtils.quotationToNanos;
+
+/**
+ * Локальный движок условных заявок: стоп-лосс, тейк-профит, трейлинг-стоп и пары OCO
+ * (сработавшая заявка отменяет вторую).
+ * <p>
+ * Подключается как обработчик стрима котировок и проверяет условия на каждой последней цене ({@link LastPrice})
+ * и обезличенной сделке ({@link Trade}). Заявки каждого инструмента хранятся в двух кучах по уровню
+ * срабатывания на массивах примитивов: для срабатывания при падении цены — с максимальным уровнем в вершине,
+ * при росте — с минимальным. Проверка цены снимает с вершин только сработавшие заявки, поэтому её стоимость
+ * не зависит от числа несработавших. Уровень трейлинг-стопа сдвигается с каждой ценой, такие заявки
+ * проверяются перебором.
+ * <p>
+ * Сработавшая заявка отправляется через {@link OrdersService#postOrder(ru.tinkoff.piapi.contract.v1.PostOrderRequest)}
+ * сразу в потоке обработки стрима, без ожидания ответа. Время от начала обработки цены до отправки
+ * учитывается в {@link #getTriggerLatency()} и в самой заявке.
+ * <p>
+ * Если после добавления заявки цена уже известна и условие выполнено, заявка срабатывает на следующей цене.
+ * Отменённые заявки удаляются из куч при достижении их уровня, а когда их становится больше половины заявок
+ * инструмента, кучи перестраиваются без них. Инструменты без заявок удаляются из движка вместе с последней ценой.
+ */
+public class TriggerEngine implements StreamProcessor<MarketDataResponse> {
+
+  private final OrdersService ordersService;
+  private final Map<String, Book> books = new ConcurrentHashMap<>();
+  private final LatencyHistogram triggerLatency = new LatencyHistogram();
+  private final AtomicInteger pending = new AtomicInteger();
+
+  public TriggerEngine(@Nonnull OrdersService ordersService) {
+    this.ordersService = ordersService;
+  }
+
+  /**
+   * Добавление условной заявки.
+   */
+  @Nonnull
+  public ConditionalOrder add(@Nonnull ConditionalOrder order) {
+    checkPending(order);
+    pending.incrementAndGet();
+    order.getResult().whenComplete((response, error) -> pending.decrementAndGet());
+    while (true) {
+      var book = books.computeIfAbsent(order.getOrder().getInstrumentId(), Book::new);
+      synchronized (book) {
+        if (!book.removed) {
+          book.add(order);
+          return order;
+        }
+      }
+    }
+  }
+
+  /**
+   * Добавление пары заявок, из которых может сработать только одна: срабатывание первой отменяет вторую.
+   */
+  public void addOco(@Nonnull ConditionalOrder first, @Nonnull ConditionalOrder second) {
+    if (first == second) {
+      throw new IllegalArgumentException("Заявки пары OCO должны различаться");
+    }
+    checkPending(first);
+    checkPending(second);
+    if (first.sibling != null || second.sibling != null) {
+      throw new IllegalArgumentException("Заявка уже входит в пару OCO");
+    }
+    first.sibling = second;
+    second.sibling = first;
+    add(first);
+    add(second);
+  }
+
+  /**
+   * Отмена условной заявки.
+   *
+   * @return {@code false}, если заявка уже сработала или отменена.
+   */
+  public boolean cancel(@Nonnull ConditionalOrder order) {
+    if (!order.markCancelled()) {
+      return false;
+    }
+    onCancelled(order);
+    return true;
+  }
+
+  /**
+   * Число условных заявок, по которым ещё нет результата: не сработавших и отправленных без ответа.
+   */
+  public int getPending() {
+    return pending.get();
+  }
+
+  /**
+   * Число инструментов, по которым есть условные заявки.
+   */
+  public int getInstrumentCount() {
+    return books.size();
+  }
+
+  /**
+   * Распределение времени от начала обработки цены до отправки сработавшей заявки, в наносекундах.
+   */
+  @Nonnull
+  public LatencyHistogram getTriggerLatency() {
+    return triggerLatency;
+  }
+
+  @Override
+  public void process(MarketDataResponse response) {
+    if (response.hasLastPrice()) {
+      onLastPrice(response.getLastPrice());
+    } else if (response.hasTrade()) {
+      onTrade(response.getTrade());
+    }
+  }
+
+  public void onLastPrice(@Nonnull LastPrice lastPrice) {
+    onPrice(lastPrice.getInstrumentUid(), lastPrice.getFigi(), quotationToNanos(lastPrice.getPrice()));
+  }
+
+  public void onTrade(@Nonnull Trade trade) {
+    onPrice(trade.getInstrumentUid(), trade.getFigi(), quotationToNanos(trade.getPrice()));
+  }
+
+  private void onPrice(String instrumentUid, String figi, long price) {
+    var startedAt = System.nanoTime();
+    List<ConditionalOrder> triggered = null;
+    var book = instrumentUid.isEmpty() ? null : books.get(instrumentUid);
+    if (book != null) {
+      synchronized (book) {
+        triggered = book.onPrice(price, null);
+        removeIfEmpty(book);
+      }
+    }
+    book = figi.isEmpty() ? null : books.get(figi);
+    if (book != null) {
+      synchronized (book) {
+        triggered = book.onPrice(price, triggered);
+        removeIfEmpty(book);
+      }
+    }
+    if (triggered != null) {
+      for (var order : triggered) {
+        fire(order, price, startedAt);
+      }
+    }
+  }
+
+  private void fire(ConditionalOrder order, long price, long startedAt) {
+    if (!order.markTriggered()) {
+      return;
+    }
+    var sibling = order.sibling;
+    if (sibling != null && sibling.markCancelled()) {
+      onCancelled(sibling);
+    }
+    order.triggerPrice = price;
+    order.triggeredAt = startedAt;
+    CompletableFuture<PostOrderResponse> response;
+    try {
+      response = ordersService.postOrder(order.getOrder());
+    } catch (RuntimeException e) {
+      response = CompletableFuture.failedFuture(e);
+    }
+    var submittedAt = System.nanoTime();
+    order.submittedAt = submittedAt;
+    triggerLatency.record(submittedAt - startedAt);
+    response.whenComplete((value, error) -> {
+      if (error != null) {
+        order.getResult().completeExceptionally(
+          error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+      } else {
+        order.getResult().complete(value);
+      }
+    });
+  }
+
+  private void onCancelled(ConditionalOrder order) {
+    var book = books.get(order.getOrder().getInstrumentId());
+    if (book == null) {
+      return;
+    }
+    synchronized (book) {
+      if (++book.cancelled * 2 > book.size()) {
+        book.compact();
+        removeIfEmpty(book);
+      }
+    }
+  }
+
+  /**
+   * Удаление инструмента без заявок. Вызывается под блокировкой книги; {@link #add} повторяет поиск книги,
+   * если застал её удалённой.
+   */
+  private void removeIfEmpty(Book book) {
+    if (book.size() == 0) {
+      book.removed = true;
+      books.remove(book.instrumentId, book);
+    }
+  }
+
+  private static void checkPending(ConditionalOrder order) {
+    if (!order.isPending()) {
+      throw new IllegalArgumentException("Заявка уже сработала или отменена");
+    }
+  }
+
+  /**
+   * Условные заявки одного инструмента.
+   */
+  private static final class Book {
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    private final String instrumentId;
+    private final PriceHeap falling = new PriceHeap(true);
+    private final PriceHeap rising = new PriceHeap(false);
+    private final List<ConditionalOrder> trailing = new ArrayList<>();
+    private long[] extremes = new long[4];
+    private long lastPrice = NO_PRICE;
+    /**
+     * Оценка числа отменённых заявок, ещё лежащих в книге.
+     */
+    private int cancelled;
+    private boolean removed;
+
+    Book(String instrumentId) {
+      this.instrumentId = instrumentId;
+    }
+
+    int size() {
+      return falling.size + rising.size + trailing.size();
+    }
+
+    void add(ConditionalOrder order) {
+      if (order.getType() == ConditionalOrder.Type.TRAILING_STOP) {
+        if (trailing.size() == extremes.length) {
+          extremes = Arrays.copyOf(extremes, extremes.length * 2);
+        }
+        extremes[trailing.size()] = lastPrice;
+        trailing.add(order);
+      } else if (order.isFalling()) {
+        falling.push(order.level(), order);
+      } else {
+        rising.push(order.level(), order);
+      }
+    }
+
+    List<ConditionalOrder> onPrice(long price, List<ConditionalOrder> triggered) {
+      lastPrice = price;
+      while (falling.size > 0 && falling.peekLevel() >= price) {
+        triggered = collect(falling.pop(), triggered);
+      }
+      while (rising.size > 0 && rising.peekLevel() <= price) {
+        triggered = collect(rising.pop(), triggered);
+      }
+      var size = trailing.size();
+      var kept = 0;
+      for (int i = 0; i < size; i++) {
+        var order = trailing.get(i);
+        if (!order.isPending()) {
+          dropCancelled();
+          continue;
+        }
+        var extreme = extremes[i];
+        var fire = false;
+        if (order.isFalling()) {
+          extreme = extreme == NO_PRICE ? price : Math.max(extreme, price);
+          fire = price <= extreme - order.level();
+        } else {
+          extreme = extreme == NO_PRICE ? price : Math.min(extreme, price);
+          fire = price >= extreme + order.level();
+        }
+        if (fire) {
+          triggered = collect(order, triggered);
+          continue;
+        }
+        trailing.set(kept, order);
+        extremes[kept] = extreme;
+        kept++;
+      }
+      if (kept < size) {
+        trailing.subList(kept, size).clear();
+      }
+      return triggered;
+    }
+
+    /**
+     * Перестроение книги без сработавших и отменённых заявок.
+     */
+    void compact() {
+      falling.retainPending();
+      rising.retainPending();
+      var kept = 0;
+      for (int i = 0; i < trailing.size(); i++) {
+        var order = trailing.get(i);
+        if (order.isPending()) {
+          trailing.set(kept, order);
+          extremes[kept] = extremes[i];
+          kept++;
+        }
+      }
+      trailing.subList(kept, trailing.size()).clear();
+      cancelled = 0;
+    }
+
+    private void dropCancelled() {
+      if (cancelled > 0) {
+        cancelled--;
+      }
+    }
+
+    private List<ConditionalOrder> collect(ConditionalOrder order, List<ConditionalOrder> triggered) {
+      if (!order.isPending()) {
+        dropCancelled();
+        return triggered;
+      }
+      if (triggered == null) {
+        triggered = new ArrayList<>(2);
+      }
+      triggered.add(order);
+      return triggered;
+    }
+  }
+
+  /**
+   * Двоичная куча заявок по уровню срабатывания.
+   */
+  private static final class PriceHeap {
+    private final boolean max;
+    private long[] levels = new long[16];
+    private ConditionalOrder[] orders = new ConditionalOrder[16];
+    private int size;
+
+    PriceHeap(boolean max) {
+      this.max = max;
+    }
+
+    void push(long level, ConditionalOrder order) {
+      if (size == levels.length) {
+        levels = Arrays.copyOf(levels, size * 2);
+        orders = Arrays.copyOf(orders, size * 2);
+      }
+      var i = size++;
+      while (i > 0) {
+        var parent = (i - 1) >>> 1;
+        if (!above(level, levels[parent])) {
+          break;
+        }
+        levels[i] = levels[parent];
+        orders[i] = orders[parent];
+        i = parent;
+      }
+      levels[i] = level;
+      orders[i] = order;
+    }
+
+    long peekLevel() {
+      return levels[0];
+    }
+
+    ConditionalOrder pop() {
+      var top = orders[0];
+      var last = --size;
+      var level = levels[last];
+      var order = orders[last];
+      orders[last] = null;
+      if (size > 0) {
+        siftDown(0, level, order);
+      }
+      return top;
+    }
+
+    /**
+     * Удаление сработавших и отменённых заявок с восстановлением кучи за линейное время.
+     */
+    void retainPending() {
+      var kept = 0;
+      for (int i = 0; i < size; i++) {
+        if (orders[i].isPending()) {
+          levels[kept] = levels[i];
+          orders[kept] = orders[i];
+          kept++;
+        }
+      }
+      Arrays.fill(orders, kept, size, null);
+      size = kept;
+      for (int i = (size >>> 1) - 1; i >= 0; i--) {
+        siftDown(i, levels[i], orders[i]);
+      }
+    }
+
+    private void siftDown(int i, long level, ConditionalOrder order) {
+      while (true) {
+        var child = 2 * i + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && above(levels[child + 1], levels[child])) {
+          child++;
+        }
+        if (!above(levels[child], level)) {
+          break;
+        }
+        levels[i] = levels[child];
+        orders[i] = orders[child];
+        i = child;
+      }
+      levels[i] = level;
+      orders[i] = order;
+    }
+
+    private boolean above(long a, long b) {
+      return max ? a > b : a < b;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package ru.tinkoff.piapi.core.stream;
+
+import io.grpc.Context;
+import io.grpc.stub.StreamObserver;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.MarketDataServerSideStreamRequest;
+import ru.tinkoff.piapi.contract.v1.MarketDataStreamServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.SubscriptionAction;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.Consumer;
+
+/**
+ * Server-side стрим биржевой информации с фиксированным набором подписок.
+ * <p>
+ * Все подписки передаются одним запросом при открытии стрима и не меняются до его закрытия,
+ * поэтому исходящий поток запросов не нужен. Для изменения подписок стрим открывается заново
+ * через {@link MarketDataStreamService#newServerSideStream}.
+ */
+public class MarketDataServerSideStream {
+
+  private final MarketDataServerSideStreamRequest request;
+  private final Context.CancellableContext context;
+
+  MarketDataServerSideStream(@Nonnull MarketDataStreamServiceGrpc.MarketDataStreamServiceStub stub,
+                             @Nonnull MarketDataServerSideStreamRequest request,
+                             @Nonnull StreamProcessor<MarketDataResponse> streamProcessor,
+                             @Nullable Consumer<Throwable> onErrorCallback,
+                             @Nullable StreamWatchdog watchdog,
+                             @Nonnull String streamId) {
+    this.request = withSubscribeActions(request);
+    this.context = Context.current().fork().withCancellation();
+    StreamObserver<MarketDataResponse> responseObserver =
+      new StreamObserverWithProcessor<>(streamProcessor, onErrorCallback);
+    if (watchdog != null) {
+      responseObserver = watchdog.watch("marketdata-server-side " + streamId, context, responseObserver,
+        MarketDataResponse::hasPing);
+    }
+    var observer = responseObserver;
+    context.run(() -> stub.marketDataServerSideStream(this.request, observer));
+  }
+
+  /**
+   * Запрос, с которым открыт стрим.
+   */
+  @Nonnull
+  public MarketDataServerSideStreamRequest getRequest() {
+    return request;
+  }
+
+  public void cancel() {
+    context.cancel(new RuntimeException("canceled by user"));
+  }
+
+  /**
+   * Проставление действия "подписаться" в переданных подписках, где действие не указано.
+   */
+  private static MarketDataServerSideStreamRequest withSubscribeActions(MarketDataServerSideStreamRequest request) {
+    var subscribe = SubscriptionAction.SUBSCRIPTION_ACTION_SUBSCRIBE;
+    var unspecified = SubscriptionAction.SUBSCRIPTION_ACTION_UNSPECIFIED;
+    var builder = request.toBuilder();
+    if (request.hasSubscribeCandlesRequest()
+      && request.getSubscribeCandlesRequest().getSubscriptionAction() == unspecified) {
+      builder.getSubscribeCandlesRequestBuilder().setSubscriptionAction(subscribe);
+    }
+    if (request.hasSubscribeOrderBookRequest()
+      && request.getSubscribeOrderBookRequest().getSubscriptionAction() == unspecified) {
+      builder.getSubscribeOrderBookRequestBuilder().setSubscriptionAction(subscribe);
+    }
+    if (request.hasSubscribeTradesRequest()
+      && request.getSubscribeTradesRequest().getSubscriptionAction() == unspecified) {
+      builder.getSubscribeTradesRequestBuilder().setSubscriptionAction(subscribe);
+    }
+    if (request.hasSubscribeInfoRequest()
+      && request.getSubscribeInfoRequest().getSubscriptionAction() == unspecified) {
+      builder.getSubscribeInfoRequestBuilder().setSubscriptionAction(subscribe);
+    }
+    if (request.hasSubscribeLastPriceRequest()
+      && request.getSubscribeLastPriceRequest().getSubscriptionAction() == unspecified) {
+      builder.getSubscribeLastPriceRequestBuilder().setSubscriptionAction(subscribe);
+    }
+    return builder.build();
+  }
+}
@@ -1,6 +1,7 @@
 package ru.tinkoff.piapi.core.stream;
 
 import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.MarketDataServerSideStreamRequest;
 import ru.tinkoff.piapi.contract.v1.MarketDataStreamServiceGrpc;
 
 import javax.annotation.Nonnull;
@@ -13,9 +14,17 @@ public class MarketDataStreamService {
 
   private final MarketDataStreamServiceGrpc.MarketDataStreamServiceStub stub;
   private final Map<String, MarketDataSubscriptionService> streamMap = new ConcurrentHashMap<>();
+  private final Map<String, MarketDataServerSideStream> serverSideStreamMap = new ConcurrentHashMap<>();
+  private final StreamWatchdog watchdog;
 
   public MarketDataStreamService(MarketDataStreamServiceGrpc.MarketDataStreamServiceStub stub) {
+    this(stub, null);
+  }
+
+  public MarketDataStreamService(MarketDataStreamServiceGrpc.MarketDataStreamServiceStub stub,
+                                 @Nullable StreamWatchdog watchdog) {
     this.stub = stub;
+    this.watchdog = watchdog;
   }
 
   public int streamCount() {
@@ -37,8 +46,38 @@ public class MarketDataStreamService {
       var existSubscriptionService = streamMap.get(id);
       existSubscriptionService.cancel();
     }
-    var subscriptionService = new MarketDataSubscriptionService(stub, streamProcessor, onErrorCallback);
+    var subscriptionService = new MarketDataSubscriptionService(stub, streamProcessor, onErrorCallback, watchdog, id);
     streamMap.put(id, subscriptionService);
     return subscriptionService;
   }
+
+  /**
+   * Открытие server-side стрима с фиксированным набором подписок.
+   * <p>
+   * Подписки, в которых не указано действие, оформляются как подписка.
+   * Стрим с тем же идентификатором, открытый ранее, закрывается.
+   *
+   * @param id              Идентификатор стрима.
+   * @param request         Подписки на свечи, стаканы, сделки, торговые статусы и цены последних сделок.
+   * @param streamProcessor Обработчик пришедших сообщений в стриме.
+   * @param onErrorCallback Обработчик ошибок в стриме.
+   * @return Открытый стрим.
+   */
+  @Nonnull
+  public MarketDataServerSideStream newServerSideStream(@Nonnull String id,
+                                                        @Nonnull MarketDataServerSideStreamRequest request,
+                                                        @Nonnull StreamProcessor<MarketDataResponse> streamProcessor,
+                                                        @Nullable Consumer<Throwable> onErrorCallback) {
+    var existing = serverSideStreamMap.get(id);
+    if (existing != null) {
+      existing.cancel();
+    }
+    var stream = new MarketDataServerSideStream(stub, request, streamProcessor, onErrorCallback, watchdog, id);
+    serverSideStreamMap.put(id, stream);
+    return stream;
+  }
+
+  public MarketDataServerSideStream getServerSideStreamById(String id) {
+    return serverSideStreamMap.get(id);
+  }
 }
@@ -22,10 +22,28 @@ public class MarketDataSubscriptionService {
     @Nonnull MarketDataStreamServiceGrpc.MarketDataStreamServiceStub stub,
     @Nonnull StreamProcessor<MarketDataResponse> streamProcessor,
     @Nullable Consumer<Throwable> onErrorCallback) {
+    this(stub, streamProcessor, onErrorCallback, null, "");
+  }
+
+  /**
+   * @param watchdog Сторож активности стрима либо {@code null}.
+   * @param streamId Идентификатор стрима для сторожа.
+   */
+  public MarketDataSubscriptionService(
+    @Nonnull MarketDataStreamServiceGrpc.MarketDataStreamServiceStub stub,
+    @Nonnull StreamProcessor<MarketDataResponse> streamProcessor,
+    @Nullable Consumer<Throwable> onErrorCallback,
+    @Nullable StreamWatchdog watchdog,
+    @Nonnull String streamId) {
     var context = Context.current().fork().withCancellation();
     var ctx = context.attach();
     try {
-      this.observer = stub.marketDataStream(new StreamObserverWithProcessor<>(streamProcessor, onErrorCallback));
+      StreamObserver<MarketDataResponse> responseObserver =
+        new StreamObserverWithProcessor<>(streamProcessor, onErrorCallback);
+      if (watchdog != null) {
+        responseObserver = watchdog.watch("marketdata " + streamId, context, responseObserver, MarketDataResponse::hasPing);
+      }
+      this.observer = stub.marketDataStream(responseObserver);
       contextRef.set(context);
     } finally {
       context.detach(ctx);
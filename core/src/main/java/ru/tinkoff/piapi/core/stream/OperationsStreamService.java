@@ -1,6 +1,7 @@
 package ru.tinkoff.piapi.core.stream;
 
 import io.grpc.Context;
+import io.grpc.stub.StreamObserver;
 import ru.tinkoff.piapi.contract.v1.OperationsStreamServiceGrpc;
 import ru.tinkoff.piapi.contract.v1.PortfolioStreamRequest;
 import ru.tinkoff.piapi.contract.v1.PortfolioStreamResponse;
@@ -12,15 +13,23 @@ import javax.annotation.Nullable;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class OperationsStreamService {
 
   private final OperationsStreamServiceGrpc.OperationsStreamServiceStub stub;
   private final AtomicReference<Context.CancellableContext> positionsCtx = new AtomicReference<>();
   private final AtomicReference<Context.CancellableContext> portfolioCtx = new AtomicReference<>();
+  private final StreamWatchdog watchdog;
 
   public OperationsStreamService(OperationsStreamServiceGrpc.OperationsStreamServiceStub stub) {
+    this(stub, null);
+  }
+
+  public OperationsStreamService(OperationsStreamServiceGrpc.OperationsStreamServiceStub stub,
+                                 @Nullable StreamWatchdog watchdog) {
     this.stub = stub;
+    this.watchdog = watchdog;
   }
 
   /**
@@ -76,7 +85,8 @@ public class OperationsStreamService {
     var context = Context.current().fork().withCancellation();
     var ctx = context.attach();
     try {
-      stub.positionsStream(request, new StreamObserverWithProcessor<>(streamProcessor, onErrorCallback));
+      stub.positionsStream(request,
+        watch("positions", context, new StreamObserverWithProcessor<>(streamProcessor, onErrorCallback), PositionsStreamResponse::hasPing));
       positionsCtx.set(context);
     } finally {
       context.detach(ctx);
@@ -136,7 +146,8 @@ public class OperationsStreamService {
     var context = Context.current().fork().withCancellation();
     var ctx = context.attach();
     try {
-      stub.portfolioStream(request, new StreamObserverWithProcessor<>(streamProcessor, onErrorCallback));
+      stub.portfolioStream(request,
+        watch("portfolio", context, new StreamObserverWithProcessor<>(streamProcessor, onErrorCallback), PortfolioStreamResponse::hasPing));
       portfolioCtx.set(context);
     } finally {
       context.detach(ctx);
@@ -151,6 +162,13 @@ public class OperationsStreamService {
     cancelContext(positionsCtx.get());
   }
 
+  private <T> StreamObserver<T> watch(String name,
+                                      Context.CancellableContext context,
+                                      StreamObserver<T> observer,
+                                      Predicate<T> isPing) {
+    return watchdog == null ? observer : watchdog.watch(name, context, observer, isPing);
+  }
+
   void cancelContext(Context.CancellableContext context) {
     if (context != null)
       context.cancel(new RuntimeException("canceled by user"));
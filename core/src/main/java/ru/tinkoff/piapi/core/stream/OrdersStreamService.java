@@ -1,6 +1,7 @@
 package ru.tinkoff.piapi.core.stream;
 
 import io.grpc.Context;
+import io.grpc.stub.StreamObserver;
 import ru.tinkoff.piapi.contract.v1.OrderStateStreamRequest;
 import ru.tinkoff.piapi.contract.v1.OrderStateStreamResponse;
 import ru.tinkoff.piapi.contract.v1.OrdersStreamServiceGrpc;
@@ -14,13 +15,21 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class OrdersStreamService {
   private final OrdersStreamServiceGrpc.OrdersStreamServiceStub stub;
   private final Map<String, Runnable> disposeMap = new ConcurrentHashMap<>();
+  private final StreamWatchdog watchdog;
 
   public OrdersStreamService(@Nonnull OrdersStreamServiceGrpc.OrdersStreamServiceStub stub) {
+    this(stub, null);
+  }
+
+  public OrdersStreamService(@Nonnull OrdersStreamServiceGrpc.OrdersStreamServiceStub stub,
+                             @Nullable StreamWatchdog watchdog) {
     this.stub = stub;
+    this.watchdog = watchdog;
   }
 
   public String subscribeTrades(@Nonnull StreamProcessor<TradesStreamResponse> streamProcessor,
@@ -81,7 +90,8 @@ public class OrdersStreamService {
     disposeMap.put(streamKey, () -> context.cancel(new RuntimeException("canceled by user")));
     context.run(() -> stub.tradesStream(
       request,
-      new StreamObserverWithProcessor<>(streamProcessor, onErrorCallback)
+      watch("trades " + streamKey, context, new StreamObserverWithProcessor<>(streamProcessor, onErrorCallback),
+        TradesStreamResponse::hasPing)
     ));
 
     return streamKey;
@@ -135,7 +145,8 @@ public class OrdersStreamService {
     disposeMap.put(streamKey, () -> context.cancel(new RuntimeException("canceled by user")));
     context.run(() -> stub.orderStateStream(
       request,
-      new StreamObserverWithProcessor<>(streamProcessor, onErrorCallback)
+      watch("order-state " + streamKey, context, new StreamObserverWithProcessor<>(streamProcessor, onErrorCallback),
+        OrderStateStreamResponse::hasPing)
     ));
 
     return streamKey;
@@ -143,5 +154,10 @@ public class OrdersStreamService {
 
   }
 
-
+  private <T> StreamObserver<T> watch(String name,
+                                      Context.CancellableContext context,
+                                      StreamObserver<T> observer,
+                                      Predicate<T> isPing) {
+    return watchdog == null ? observer : watchdog.watch(name, context, observer, isPing);
+  }
 }
@@ -0,0 +1,161 @@
+package ru.tinkoff.piapi.core.stream;
+
+import io.grpc.Context;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.tinkoff.piapi.core.exception.StreamStaleException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Контроль активности стримов по сообщениям Ping.
+ * <p>
+ * Сервер периодически отправляет в стримы сообщения Ping. Если стрим не получает ни пингов, ни данных
+ * дольше, чем {@code missedPings} интервалов пинга, он считается зависшим: его контекст отменяется
+ * с причиной {@link StreamStaleException}, которая приходит в onErrorCallback стрима, а сторожу
+ * передаётся имя стрима через {@code onStale}.
+ * <p>
+ * Один экземпляр обслуживает любое количество стримов одним потоком-таймером. Стримы проверяются
+ * на каждом такте, длительность такта — половина интервала пинга. Подключается через
+ * {@link ru.tinkoff.piapi.core.InvestApi#withStreamWatchdog(StreamWatchdog)}.
+ */
+public class StreamWatchdog implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(StreamWatchdog.class);
+
+  private final long timeoutNanos;
+  private final Consumer<String> onStale;
+  private final Set<WatchedStream<?>> streams = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService timer;
+
+  /**
+   * @param pingInterval Интервал, с которым сервер присылает пинги.
+   * @param missedPings  Количество пропущенных пингов, после которого стрим считается зависшим.
+   */
+  public StreamWatchdog(@Nonnull Duration pingInterval, int missedPings) {
+    this(pingInterval, missedPings, null);
+  }
+
+  /**
+   * @param pingInterval Интервал, с которым сервер присылает пинги.
+   * @param missedPings  Количество пропущенных пингов, после которого стрим считается зависшим.
+   * @param onStale      Обработчик, получающий имя закрытого сторожем стрима.
+   */
+  public StreamWatchdog(@Nonnull Duration pingInterval, int missedPings, @Nullable Consumer<String> onStale) {
+    if (pingInterval.isNegative() || pingInterval.isZero() || missedPings < 1) {
+      throw new IllegalArgumentException("Интервал пинга и количество пропущенных пингов должны быть положительными.");
+    }
+    this.timeoutNanos = pingInterval.toNanos() * missedPings;
+    this.onStale = onStale;
+    this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      var thread = new Thread(runnable, "stream-watchdog");
+      thread.setDaemon(true);
+      return thread;
+    });
+    var tickNanos = Math.max(pingInterval.toNanos() / 2, TimeUnit.MILLISECONDS.toNanos(10));
+    timer.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Постановка стрима под наблюдение.
+   *
+   * @param name     Имя стрима для логов и {@code onStale}.
+   * @param context  Контекст, в котором открыт стрим. Отменяется, если стрим завис.
+   * @param observer Исходный наблюдатель стрима.
+   * @param isPing   Признак сообщения Ping.
+   * @param <T>      Тип сообщений стрима.
+   * @return Наблюдатель, который нужно передать в вызов вместо исходного.
+   */
+  @Nonnull
+  public <T> StreamObserver<T> watch(@Nonnull String name,
+                                     @Nonnull Context.CancellableContext context,
+                                     @Nonnull StreamObserver<T> observer,
+                                     @Nonnull Predicate<T> isPing) {
+    var stream = new WatchedStream<>(name, context, observer, isPing);
+    streams.add(stream);
+    return stream;
+  }
+
+  /**
+   * Количество стримов под наблюдением.
+   */
+  public int watchedCount() {
+    return streams.size();
+  }
+
+  @Override
+  public void close() {
+    timer.shutdownNow();
+    streams.clear();
+  }
+
+  private void tick() {
+    var now = System.nanoTime();
+    for (var stream : streams) {
+      if (stream.context.isCancelled()) {
+        streams.remove(stream);
+        continue;
+      }
+      var silence = now - Math.max(stream.lastPingNanos, stream.lastDataNanos);
+      if (silence > timeoutNanos) {
+        streams.remove(stream);
+        var cause = new StreamStaleException(stream.name, Duration.ofNanos(silence));
+        logger.warn(cause.getMessage());
+        stream.context.cancel(cause);
+        if (onStale != null) {
+          onStale.accept(stream.name);
+        }
+      }
+    }
+  }
+
+  private class WatchedStream<T> implements StreamObserver<T> {
+    private final String name;
+    private final Context.CancellableContext context;
+    private final StreamObserver<T> delegate;
+    private final Predicate<T> isPing;
+    private volatile long lastPingNanos;
+    private volatile long lastDataNanos;
+
+    WatchedStream(String name, Context.CancellableContext context, StreamObserver<T> delegate, Predicate<T> isPing) {
+      this.name = name;
+      this.context = context;
+      this.delegate = delegate;
+      this.isPing = isPing;
+      this.lastPingNanos = System.nanoTime();
+      this.lastDataNanos = lastPingNanos;
+    }
+
+    @Override
+    public void onNext(T value) {
+      if (isPing.test(value)) {
+        lastPingNanos = System.nanoTime();
+      } else {
+        lastDataNanos = System.nanoTime();
+      }
+      delegate.onNext(value);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      streams.remove(this);
+      delegate.onError(t);
+    }
+
+    @Override
+    public void onCompleted() {
+      streams.remove(this);
+      delegate.onCompleted();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package ru.tinkoff.piapi.core.stream.journal;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Формат сегментов журнала.
+ * <p>
+ * Сегмент — файл фиксированного размера. Первые {@link #SEGMENT_HEADER_LENGTH} байт занимает заголовок:
+ * <pre>
+ *   0  int   magic
+ *   4  int   версия формата
+ *   8  long  порядковый номер сегмента
+ *  16  long  время активации сегмента, наносекунды от epoch (UTC)
+ *  24  long  System.nanoTime() в момент активации
+ * </pre>
+ * Далее идут записи, выровненные по {@link #ALIGNMENT} байт:
+ * <pre>
+ *   0  int   длина сообщения в байтах
+ *   4  int   тип сообщения (номер поля oneof payload)
+ *   8  long  System.nanoTime() получения сообщения
+ *  16  byte[] сообщение protobuf
+ * </pre>
+ * Длина {@code 0} означает конец записанных данных, {@link #END_OF_SEGMENT} — что сегмент закрыт
+ * и продолжение находится в следующем сегменте. Все числа записываются в little-endian.
+ */
+final class JournalFormat {
+
+  static final int MAGIC = 0x4A414950;
+  static final int VERSION = 1;
+
+  static final int MAGIC_OFFSET = 0;
+  static final int VERSION_OFFSET = 4;
+  static final int SEQUENCE_OFFSET = 8;
+  static final int EPOCH_NANOS_OFFSET = 16;
+  static final int NANO_TIME_OFFSET = 24;
+  static final int SEGMENT_HEADER_LENGTH = 64;
+
+  static final int LENGTH_OFFSET = 0;
+  static final int TYPE_OFFSET = 4;
+  static final int TIMESTAMP_OFFSET = 8;
+  static final int RECORD_HEADER_LENGTH = 16;
+
+  static final int END_OF_SEGMENT = -1;
+  static final int ALIGNMENT = 8;
+
+  static final String FILE_SUFFIX = ".journal";
+
+  static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+  static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class, BYTE_ORDER);
+
+  private JournalFormat() {
+  }
+
+  static int align(int length) {
+    return (length + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+
+  static String fileName(String prefix, long sequence) {
+    return String.format("%s-%010d%s", prefix, sequence, FILE_SUFFIX);
+  }
+
+  static long sequenceOf(String prefix, String fileName) {
+    if (!fileName.startsWith(prefix + "-") || !fileName.endsWith(FILE_SUFFIX)) {
+      return -1;
+    }
+    var number = fileName.substring(prefix.length() + 1, fileName.length() - FILE_SUFFIX.length());
+    try {
+      return Long.parseLong(number);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+}
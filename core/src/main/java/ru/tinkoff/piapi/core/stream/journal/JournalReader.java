@@ -0,0 +1,169 @@
+package ru.tinkoff.piapi.core.stream.journal;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Parser;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static ru.tinkoff.piapi.core.stream.journal.JournalFormat.*;
+
+/**
+ * Последовательное чтение записей журнала, созданного {@link JournalWriter}.
+ * <p>
+ * Сегменты отображаются в память только для чтения и читаются по очереди. Время записи доступно
+ * как в исходном {@link System#nanoTime()} ({@link #nanoTime()}), так и в наносекундах от epoch
+ * ({@link #epochNanos()}), что позволяет сводить журналы разных процессов на общую шкалу времени.
+ */
+public class JournalReader {
+
+  private final List<Path> segments;
+  private int segmentIndex = -1;
+  private MappedByteBuffer buffer;
+  private ByteBuffer payloadView;
+  private long epochOffset;
+  private int position;
+  private int length;
+  private int type;
+  private long nanoTime;
+
+  /**
+   * @param segments Сегменты журнала в порядке записи.
+   */
+  public JournalReader(@Nonnull List<Path> segments) {
+    this.segments = List.copyOf(segments);
+  }
+
+  /**
+   * Создание читателя для всех сегментов с заданным префиксом в каталоге.
+   *
+   * @param directory Каталог с сегментами.
+   * @param prefix    Префикс имён файлов, переданный {@link JournalWriter}.
+   * @return Читатель журнала.
+   */
+  @Nonnull
+  public static JournalReader forPrefix(@Nonnull Path directory, @Nonnull String prefix) {
+    try (Stream<Path> files = Files.list(directory)) {
+      return new JournalReader(files
+        .filter(path -> sequenceOf(prefix, path.getFileName().toString()) >= 0)
+        .sorted(Comparator.comparingLong(path -> sequenceOf(prefix, path.getFileName().toString())))
+        .collect(Collectors.toList()));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Переход к следующей записи.
+   *
+   * @return {@code false}, если записей больше нет.
+   */
+  public boolean next() {
+    if (buffer != null) {
+      position += RECORD_HEADER_LENGTH + align(length);
+    }
+    while (true) {
+      if (buffer == null && !openNextSegment()) {
+        return false;
+      }
+      var recordLength = position + RECORD_HEADER_LENGTH <= buffer.limit()
+        ? (int) INT_VIEW.getAcquire(buffer, position + LENGTH_OFFSET)
+        : END_OF_SEGMENT;
+      if (recordLength > 0) {
+        length = recordLength;
+        type = buffer.getInt(position + TYPE_OFFSET);
+        nanoTime = buffer.getLong(position + TIMESTAMP_OFFSET);
+        return true;
+      }
+      // Сегмент закрыт либо запись в него оборвалась: продолжаем со следующего.
+      buffer = null;
+      if (segmentIndex + 1 >= segments.size()) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Тип текущей записи (номер поля oneof payload).
+   */
+  public int type() {
+    return type;
+  }
+
+  /**
+   * Время получения текущей записи по {@link System#nanoTime()} процесса, который её записал.
+   */
+  public long nanoTime() {
+    return nanoTime;
+  }
+
+  /**
+   * Время получения текущей записи в наносекундах от epoch (UTC).
+   */
+  public long epochNanos() {
+    return nanoTime + epochOffset;
+  }
+
+  /**
+   * Длина сообщения текущей записи в байтах.
+   */
+  public int length() {
+    return length;
+  }
+
+  /**
+   * Десериализация сообщения текущей записи.
+   *
+   * @param parser Парсер сообщения, например {@code MarketDataResponse.parser()}.
+   * @param <T>    Тип сообщения.
+   * @return Сообщение.
+   */
+  @Nonnull
+  public <T> T parse(@Nonnull Parser<T> parser) {
+    var start = position + RECORD_HEADER_LENGTH;
+    payloadView.limit(start + length).position(start);
+    try {
+      return parser.parseFrom(CodedInputStream.newInstance(payloadView));
+    } catch (InvalidProtocolBufferException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private boolean openNextSegment() {
+    while (++segmentIndex < segments.size()) {
+      var path = segments.get(segmentIndex);
+      MappedByteBuffer mapped;
+      try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      mapped.order(BYTE_ORDER);
+      if (mapped.limit() < SEGMENT_HEADER_LENGTH || mapped.getInt(MAGIC_OFFSET) != MAGIC) {
+        // Заготовленный, но не активированный сегмент.
+        continue;
+      }
+      if (mapped.getInt(VERSION_OFFSET) != VERSION) {
+        throw new IllegalStateException("Неподдерживаемая версия журнала: " + path);
+      }
+      buffer = mapped;
+      payloadView = mapped.duplicate();
+      epochOffset = mapped.getLong(EPOCH_NANOS_OFFSET) - mapped.getLong(NANO_TIME_OFFSET);
+      position = SEGMENT_HEADER_LENGTH;
+      length = 0;
+      return true;
+    }
+    return false;
+  }
+}
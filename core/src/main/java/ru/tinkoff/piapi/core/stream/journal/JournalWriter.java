@@ -0,0 +1,235 @@
+package ru.tinkoff.piapi.core.stream.journal;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static ru.tinkoff.piapi.core.stream.journal.JournalFormat.*;
+
+/**
+ * Журнал сообщений стрима в виде последовательности memory-mapped сегментов фиксированного размера.
+ * <p>
+ * Запись выполняется в вызывающем потоке без блокировок и без аллокаций: сообщение сериализуется
+ * переиспользуемым {@link CodedOutputStream} сразу в отображённый в память файл. Подготовка следующего
+ * сегмента и сброс заполненного на диск выполняются в фоновом потоке.
+ * <p>
+ * Экземпляр рассчитан на одного писателя: gRPC доставляет сообщения одного стрима последовательно,
+ * поэтому для каждого стрима нужен свой журнал.
+ * <p>
+ * Сегмент закрывается, когда в нём не остаётся места для очередной записи или когда с момента его
+ * активации прошло больше {@code rollInterval}.
+ */
+public class JournalWriter implements AutoCloseable {
+
+  public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+  public static final Duration DEFAULT_ROLL_INTERVAL = Duration.ofHours(1);
+
+  private static final int ENCODER_BUFFER_SIZE = 4096;
+
+  private final Path directory;
+  private final String prefix;
+  private final int segmentSize;
+  private final long rollIntervalNanos;
+  private final ExecutorService background;
+  private final SegmentOutputStream output = new SegmentOutputStream();
+  private final CodedOutputStream encoder = CodedOutputStream.newInstance(output, ENCODER_BUFFER_SIZE);
+
+  private MappedByteBuffer buffer;
+  private long sequence;
+  private long segmentStartNanos;
+  private CompletableFuture<Segment> next;
+  private boolean closed;
+
+  public JournalWriter(@Nonnull Path directory, @Nonnull String prefix) {
+    this(directory, prefix, DEFAULT_SEGMENT_SIZE, DEFAULT_ROLL_INTERVAL);
+  }
+
+  /**
+   * @param directory    Каталог для сегментов. Создаётся при необходимости.
+   * @param prefix       Префикс имён файлов сегментов.
+   * @param segmentSize  Размер сегмента в байтах.
+   * @param rollInterval Максимальное время жизни сегмента.
+   */
+  public JournalWriter(@Nonnull Path directory,
+                       @Nonnull String prefix,
+                       int segmentSize,
+                       @Nonnull Duration rollInterval) {
+    if (segmentSize < SEGMENT_HEADER_LENGTH + RECORD_HEADER_LENGTH + ALIGNMENT) {
+      throw new IllegalArgumentException("Размер сегмента слишком мал: " + segmentSize);
+    }
+    this.directory = directory;
+    this.prefix = prefix;
+    this.segmentSize = segmentSize;
+    this.rollIntervalNanos = rollInterval.toNanos();
+    this.background = Executors.newSingleThreadExecutor(runnable -> {
+      var thread = new Thread(runnable, "journal-" + prefix);
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      Files.createDirectories(directory);
+      this.sequence = lastSequence() + 1;
+    } catch (IOException e) {
+      background.shutdown();
+      throw new RuntimeException(e);
+    }
+    activate(allocate(sequence), System.nanoTime());
+  }
+
+  /**
+   * Запись сообщения в журнал.
+   *
+   * @param message  Сообщение.
+   * @param type     Тип сообщения, сохраняется в заголовке записи для фильтрации без десериализации.
+   * @param nanoTime Время получения сообщения по {@link System#nanoTime()}.
+   */
+  public void append(@Nonnull MessageLite message, int type, long nanoTime) {
+    if (closed) {
+      throw new IllegalStateException("Журнал закрыт.");
+    }
+    var length = message.getSerializedSize();
+    var recordLength = RECORD_HEADER_LENGTH + align(length);
+    if (recordLength > segmentSize - SEGMENT_HEADER_LENGTH - ALIGNMENT) {
+      throw new IllegalArgumentException("Сообщение не помещается в сегмент: " + length + " байт");
+    }
+    if (buffer.position() + recordLength > segmentSize - ALIGNMENT
+      || nanoTime - segmentStartNanos >= rollIntervalNanos) {
+      roll(nanoTime);
+    }
+    var start = buffer.position();
+    buffer.putInt(start + TYPE_OFFSET, type);
+    buffer.putLong(start + TIMESTAMP_OFFSET, nanoTime);
+    buffer.position(start + RECORD_HEADER_LENGTH);
+    try {
+      message.writeTo(encoder);
+      encoder.flush();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    buffer.position(start + recordLength);
+    // Длина публикуется последней: читатель, увидевший ненулевую длину, увидит и всю запись.
+    INT_VIEW.setRelease(buffer, start + LENGTH_OFFSET, length);
+  }
+
+  /**
+   * Путь к текущему сегменту.
+   */
+  @Nonnull
+  public Path currentSegment() {
+    return directory.resolve(fileName(prefix, sequence));
+  }
+
+  /**
+   * Закрытие журнала: сброс текущего сегмента на диск и удаление заготовленного следующего сегмента.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    INT_VIEW.setRelease(buffer, buffer.position() + LENGTH_OFFSET, END_OF_SEGMENT);
+    buffer.force();
+    // Заготовленный сегмент удаляется синхронно: журнал, открытый сразу после закрытия,
+    // не должен увидеть его при поиске последнего номера сегмента.
+    try {
+      Files.deleteIfExists(next.join().path);
+    } catch (CompletionException | IOException ignored) {
+    }
+    background.shutdown();
+    try {
+      background.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void roll(long nanoTime) {
+    var previous = buffer;
+    INT_VIEW.setRelease(previous, previous.position() + LENGTH_OFFSET, END_OF_SEGMENT);
+    background.execute(previous::force);
+    activate(next.join(), nanoTime);
+  }
+
+  private void activate(Segment segment, long nanoTime) {
+    buffer = segment.buffer;
+    sequence = segment.sequence;
+    segmentStartNanos = nanoTime;
+    var now = Instant.now();
+    buffer.putInt(VERSION_OFFSET, VERSION);
+    buffer.putLong(SEQUENCE_OFFSET, sequence);
+    buffer.putLong(EPOCH_NANOS_OFFSET, now.getEpochSecond() * 1_000_000_000L + now.getNano());
+    buffer.putLong(NANO_TIME_OFFSET, nanoTime);
+    INT_VIEW.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+    buffer.position(SEGMENT_HEADER_LENGTH);
+    output.target = buffer;
+    var nextSequence = sequence + 1;
+    next = CompletableFuture.supplyAsync(() -> allocate(nextSequence), background);
+  }
+
+  private Segment allocate(long segmentSequence) {
+    var path = directory.resolve(fileName(prefix, segmentSequence));
+    try (var channel = FileChannel.open(path,
+      StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      var mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+      mapped.order(BYTE_ORDER);
+      return new Segment(segmentSequence, path, mapped);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private long lastSequence() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+        .mapToLong(path -> sequenceOf(prefix, path.getFileName().toString()))
+        .max()
+        .orElse(-1);
+    }
+  }
+
+  private static class Segment {
+    private final long sequence;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+
+    Segment(long sequence, Path path, MappedByteBuffer buffer) {
+      this.sequence = sequence;
+      this.path = path;
+      this.buffer = buffer;
+    }
+  }
+
+  /**
+   * Приёмник для {@link CodedOutputStream}, пишущий в текущий сегмент с его текущей позиции.
+   */
+  private static class SegmentOutputStream extends OutputStream {
+    private MappedByteBuffer target;
+
+    @Override
+    public void write(int b) {
+      target.put((byte) b);
+    }
+
+    @Override
+    public void write(@Nonnull byte[] bytes, int offset, int length) {
+      target.put(bytes, offset, length);
+    }
+  }
+}
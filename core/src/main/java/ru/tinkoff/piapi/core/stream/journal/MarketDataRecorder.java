@@ -0,0 +1,44 @@
+package ru.tinkoff.piapi.core.stream.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.core.stream.StreamProcessor;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Обработчик стрима котировок, записывающий каждое сообщение в {@link JournalWriter}
+ * перед передачей его исходному обработчику.
+ * <p>
+ * Ошибка записи не прерывает обработку: она логируется, запись в журнал прекращается,
+ * а сообщения продолжают поступать в исходный обработчик.
+ */
+public class MarketDataRecorder implements StreamProcessor<MarketDataResponse> {
+
+  private static final Logger logger = LoggerFactory.getLogger(MarketDataRecorder.class);
+
+  private final StreamProcessor<MarketDataResponse> delegate;
+  private final JournalWriter writer;
+  private boolean failed;
+
+  public MarketDataRecorder(@Nonnull StreamProcessor<MarketDataResponse> delegate,
+                            @Nonnull JournalWriter writer) {
+    this.delegate = delegate;
+    this.writer = writer;
+  }
+
+  @Override
+  public void process(MarketDataResponse response) {
+    var receivedAt = System.nanoTime();
+    if (!failed) {
+      try {
+        writer.append(response, response.getPayloadCase().getNumber(), receivedAt);
+      } catch (RuntimeException e) {
+        failed = true;
+        logger.error("Запись стрима котировок в журнал остановлена.", e);
+      }
+    }
+    delegate.process(response);
+  }
+}
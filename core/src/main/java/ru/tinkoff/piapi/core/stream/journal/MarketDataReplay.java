@@ -0,0 +1,140 @@
+package ru.tinkoff.piapi.core.stream.journal;
+
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.core.stream.StreamProcessor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Детерминированное воспроизведение записанных {@link JournalWriter} стримов котировок.
+ * <p>
+ * Записи нескольких журналов сливаются по времени получения (при равном времени порядок определяется
+ * порядком журналов в списке), поэтому один и тот же набор журналов всегда воспроизводится в одном
+ * и том же порядке. Темп задаётся множителем скорости: {@link #ORIGINAL_SPEED} сохраняет исходные
+ * интервалы между сообщениями, {@link #MAX_SPEED} передаёт сообщения без пауз.
+ * <p>
+ * Воспроизведение подключается вместо
+ * {@link ru.tinkoff.piapi.core.stream.MarketDataStreamService#newStream MarketDataStreamService.newStream}:
+ * сообщения получает тот же {@link StreamProcessor}, а ошибки передаются в onErrorCallback.
+ * Экземпляр воспроизводит журналы один раз.
+ */
+public class MarketDataReplay {
+
+  public static final double ORIGINAL_SPEED = 1.0;
+  public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+
+  /**
+   * Ожидания короче этого порога выполняются активным ожиданием, а не парковкой потока.
+   */
+  private static final long SPIN_THRESHOLD_NANOS = 100_000;
+
+  private final JournalReader[] readers;
+  private final boolean[] exhausted;
+  private final double speed;
+  private volatile boolean cancelled;
+
+  /**
+   * @param readers Журналы для воспроизведения.
+   * @param speed   Множитель скорости: 1 — исходный темп, N — в N раз быстрее,
+   *                {@link #MAX_SPEED} — без пауз.
+   */
+  public MarketDataReplay(@Nonnull List<JournalReader> readers, double speed) {
+    if (!(speed > 0)) {
+      throw new IllegalArgumentException("Множитель скорости должен быть положительным: " + speed);
+    }
+    this.readers = readers.toArray(new JournalReader[0]);
+    this.exhausted = new boolean[this.readers.length];
+    this.speed = speed;
+  }
+
+  /**
+   * Воспроизведение в вызывающем потоке.
+   *
+   * @param processor Обработчик сообщений.
+   * @return Количество переданных сообщений.
+   */
+  public long run(@Nonnull StreamProcessor<MarketDataResponse> processor) {
+    for (int i = 0; i < readers.length; i++) {
+      exhausted[i] = !readers[i].next();
+    }
+    var count = 0L;
+    var firstEpochNanos = 0L;
+    var startNanos = 0L;
+    int current;
+    while (!cancelled && (current = earliest()) >= 0) {
+      var reader = readers[current];
+      var epochNanos = reader.epochNanos();
+      if (count == 0) {
+        firstEpochNanos = epochNanos;
+        startNanos = System.nanoTime();
+      } else if (speed != MAX_SPEED) {
+        awaitUntil(startNanos + (long) ((epochNanos - firstEpochNanos) / speed));
+      }
+      processor.process(reader.parse(MarketDataResponse.parser()));
+      count++;
+      exhausted[current] = !reader.next();
+    }
+    return count;
+  }
+
+  /**
+   * Воспроизведение в отдельном потоке.
+   *
+   * @param processor       Обработчик сообщений.
+   * @param onErrorCallback Обработчик ошибок воспроизведения и ошибок, выброшенных обработчиком сообщений.
+   * @return Future, завершающийся количеством переданных сообщений.
+   */
+  @Nonnull
+  public CompletableFuture<Long> start(@Nonnull StreamProcessor<MarketDataResponse> processor,
+                                       @Nullable Consumer<Throwable> onErrorCallback) {
+    var result = new CompletableFuture<Long>();
+    var thread = new Thread(() -> {
+      try {
+        result.complete(run(processor));
+      } catch (Throwable e) {
+        if (onErrorCallback != null) {
+          onErrorCallback.accept(e);
+        }
+        result.completeExceptionally(e);
+      }
+    }, "market-data-replay");
+    thread.setDaemon(true);
+    thread.start();
+    return result;
+  }
+
+  /**
+   * Остановка воспроизведения. Сообщение, переданное обработчику в момент вызова, будет обработано.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  private int earliest() {
+    var result = -1;
+    var min = Long.MAX_VALUE;
+    for (int i = 0; i < readers.length; i++) {
+      if (!exhausted[i] && (result < 0 || readers[i].epochNanos() < min)) {
+        result = i;
+        min = readers[i].epochNanos();
+      }
+    }
+    return result;
+  }
+
+  private void awaitUntil(long deadlineNanos) {
+    long remaining;
+    while (!cancelled && (remaining = deadlineNanos - System.nanoTime()) > 0) {
+      if (remaining > SPIN_THRESHOLD_NANOS) {
+        LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+      } else {
+        Thread.onSpinWait();
+      }
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package ru.tinkoff.piapi.core.stream.journal;
+
+import io.grpc.stub.StreamObserver;
+import ru.tinkoff.piapi.contract.v1.MarketDataRequest;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.MarketDataStreamServiceGrpc;
+
+import javax.annotation.Nonnull;
+import java.util.function.Supplier;
+
+/**
+ * Реализация сервиса стрима котировок, отдающая клиенту записанные журналы.
+ * <p>
+ * Позволяет прогонять код, работающий через {@link ru.tinkoff.piapi.core.InvestApi} и
+ * {@link ru.tinkoff.piapi.core.stream.MarketDataStreamService}, на записанных данных без изменений:
+ * сервис регистрируется на in-process сервере, а {@code InvestApi} создаётся поверх его канала.
+ * Воспроизведение начинается после первого запроса клиента; состав подписок не учитывается,
+ * клиент получает все записанные сообщения. По окончании журналов стрим завершается.
+ */
+public class MarketDataReplayService extends MarketDataStreamServiceGrpc.MarketDataStreamServiceImplBase {
+
+  private final Supplier<MarketDataReplay> replayFactory;
+
+  /**
+   * @param replayFactory Фабрика воспроизведений; вызывается для каждого открытого стрима.
+   */
+  public MarketDataReplayService(@Nonnull Supplier<MarketDataReplay> replayFactory) {
+    this.replayFactory = replayFactory;
+  }
+
+  @Override
+  public StreamObserver<MarketDataRequest> marketDataStream(StreamObserver<MarketDataResponse> responseObserver) {
+    var replay = replayFactory.get();
+    return new StreamObserver<>() {
+      private boolean started;
+
+      @Override
+      public synchronized void onNext(MarketDataRequest request) {
+        if (started) {
+          return;
+        }
+        started = true;
+        replay.start(responseObserver::onNext, responseObserver::onError)
+          .thenRun(responseObserver::onCompleted);
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        replay.cancel();
+      }
+
+      @Override
+      public void onCompleted() {
+        replay.cancel();
+      }
+    };
+  }
+}
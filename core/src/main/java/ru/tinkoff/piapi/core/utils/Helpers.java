@@ -67,7 +67,13 @@ public class Helpers {
     return ((StatusRuntimeException) exception).getTrailers();
   }
 
-  private static String getErrorId(Status status) {
+  /**
+   * Идентификатор ошибки API по статусу GRPC-вызова.
+   *
+   * @param status Статус завершения вызова.
+   * @return Идентификатор ошибки из справочника errors.json.
+   */
+  public static String getErrorId(Status status) {
     if ("RESOURCE_EXHAUSTED".equals(status.getCode().name())) {
       return "80002";
     }
@@ -92,6 +92,50 @@ public class MapperUtils {
     return mapUnitsAndNanos(value.getUnits(), value.getNano());
   }
 
+  /**
+   * Конвертирует Quotation в число миллиардных долей. Например {units: 10, nanos: 900000000} -&gt; 10900000000.
+   * Представление точное и не требует аллокаций, пригодно для значений по модулю до 9.2 млрд.
+   *
+   * @param value значение в формате Quotation
+   * @return Значение в миллиардных долях
+   */
+  public static long quotationToNanos(Quotation value) {
+    return value.getUnits() * 1_000_000_000L + value.getNano();
+  }
+
+  /**
+   * Конвертирует MoneyValue в число миллиардных долей без учёта валюты. Например {units: 10, nanos: 900000000} -&gt; 10900000000.
+   *
+   * @param value значение в формате MoneyValue
+   * @return Значение в миллиардных долях
+   */
+  public static long moneyValueToNanos(MoneyValue value) {
+    return value.getUnits() * 1_000_000_000L + value.getNano();
+  }
+
+  /**
+   * Конвертирует число миллиардных долей в Quotation. Например 10900000000 -&gt; {units: 10, nanos: 900000000}
+   *
+   * @param value значение в миллиардных долях
+   * @return Значение в формате Quotation
+   */
+  public static Quotation nanosToQuotation(long value) {
+    return Quotation.newBuilder()
+      .setUnits(value / 1_000_000_000L)
+      .setNano((int) (value % 1_000_000_000L))
+      .build();
+  }
+
+  /**
+   * Конвертирует число миллиардных долей в BigDecimal. Например 10900000000 -&gt; 10.9
+   *
+   * @param value значение в миллиардных долях
+   * @return Значение в формате BigDecimal
+   */
+  public static BigDecimal nanosToBigDecimal(long value) {
+    return BigDecimal.valueOf(value, 9).stripTrailingZeros();
+  }
+
   public static BigDecimal mapUnitsAndNanos(long units, int nanos) {
     if (units == 0 && nanos == 0) {
       return BigDecimal.ZERO;
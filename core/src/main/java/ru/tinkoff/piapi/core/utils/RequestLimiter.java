@@ -0,0 +1,115 @@
+package ru.tinkoff.piapi.core.utils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Ограничение числа одновременно выполняемых асинхронных запросов.
+ * <p>
+ * Запросы сверх лимита ждут в очереди без блокировки потоков и запускаются по завершении предыдущих.
+ * Запуск из обработчиков ответов не уходит в рекурсию: повторный вызов лишь отмечается счётчиком
+ * и выполняется уже работающим циклом, поэтому глубина стека не растёт с длиной очереди.
+ */
+public class RequestLimiter {
+
+  private final int maxConcurrentRequests;
+  private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+  private final AtomicInteger drainRequests = new AtomicInteger();
+  private int inFlight;
+
+  /**
+   * @param maxConcurrentRequests Максимальное число одновременно выполняемых запросов.
+   */
+  public RequestLimiter(int maxConcurrentRequests) {
+    if (maxConcurrentRequests <= 0) {
+      throw new IllegalArgumentException("Число одновременных запросов должно быть положительным");
+    }
+    this.maxConcurrentRequests = maxConcurrentRequests;
+  }
+
+  /**
+   * Выполнение запроса, когда освободится место.
+   *
+   * @return Результат запроса. Ошибка передаётся без обёртки {@link CompletionException}.
+   */
+  @Nonnull
+  public <T> CompletableFuture<T> submit(@Nonnull Supplier<CompletableFuture<T>> call) {
+    var result = new CompletableFuture<T>();
+    Runnable task = () -> {
+      CompletableFuture<T> response;
+      try {
+        response = call.get();
+      } catch (RuntimeException e) {
+        response = CompletableFuture.failedFuture(e);
+      }
+      response.whenComplete((value, error) -> {
+        synchronized (queue) {
+          inFlight--;
+        }
+        if (error != null) {
+          result.completeExceptionally(unwrap(error));
+        } else {
+          result.complete(value);
+        }
+        drain();
+      });
+    };
+    synchronized (queue) {
+      queue.add(task);
+    }
+    drain();
+    return result;
+  }
+
+  /**
+   * Число выполняемых сейчас запросов.
+   */
+  public int getInFlight() {
+    synchronized (queue) {
+      return inFlight;
+    }
+  }
+
+  /**
+   * Число запросов, ожидающих свободного места.
+   */
+  public int getQueued() {
+    synchronized (queue) {
+      return queue.size();
+    }
+  }
+
+  private void drain() {
+    if (drainRequests.getAndIncrement() != 0) {
+      return;
+    }
+    var missed = 1;
+    do {
+      Runnable task;
+      while ((task = poll()) != null) {
+        task.run();
+      }
+      missed = drainRequests.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  @Nullable
+  private Runnable poll() {
+    synchronized (queue) {
+      if (inFlight >= maxConcurrentRequests || queue.isEmpty()) {
+        return null;
+      }
+      inFlight++;
+      return queue.poll();
+    }
+  }
+
+  private static Throwable unwrap(Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+  }
+}
@@ -10,6 +10,10 @@ import org.junit.Rule;
 import java.io.IOException;
 import java.util.function.Function;
 
+/**
+ * Базовый класс тестов сервисов на JUnit 4: клиент создаётся поверх in-process сервера, закрываемого
+ * {@link GrpcCleanupRule}. Новые тесты на JUnit 5 подключают {@link InProcessGrpcExtension}.
+ */
 abstract class GrpcClientTester<T> {
   @Rule
   public final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
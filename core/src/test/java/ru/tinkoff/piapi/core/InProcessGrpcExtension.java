@@ -0,0 +1,80 @@
+package ru.tinkoff.piapi.core;
+
+import io.grpc.BindableService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Расширение JUnit 5 для тестов с in-process gRPC-сервером.
+ * <p>
+ * Сервер и клиентский канал работают на directExecutor, поэтому ответы тестовых сервисов доставляются
+ * в вызывающем потоке. Все созданные серверы и каналы закрываются после каждого теста.
+ * Подключается полем {@code @RegisterExtension final InProcessGrpcExtension grpc = new InProcessGrpcExtension();}.
+ * <p>
+ * Новые тесты на JUnit 5 используют это расширение. {@link GrpcClientTester} остаётся для тестов сервисов
+ * на JUnit 4 с {@code GrpcCleanupRule} и для новых тестов не предназначен.
+ */
+public class InProcessGrpcExtension implements AfterEachCallback {
+
+  private final List<Server> servers = new ArrayList<>();
+  private final List<ManagedChannel> channels = new ArrayList<>();
+
+  /**
+   * Запуск сервера с указанными сервисами.
+   *
+   * @return Канал к запущенному серверу.
+   */
+  public ManagedChannel start(BindableService... services) {
+    return start(builder -> {
+      for (var service : services) {
+        builder.addService(service);
+      }
+    });
+  }
+
+  /**
+   * Запуск сервера с указанными сервисами, например обёрнутыми серверными перехватчиками.
+   *
+   * @return Канал к запущенному серверу.
+   */
+  public ManagedChannel start(ServerServiceDefinition... services) {
+    return start(builder -> {
+      for (var service : services) {
+        builder.addService(service);
+      }
+    });
+  }
+
+  @Override
+  public void afterEach(ExtensionContext context) {
+    channels.forEach(ManagedChannel::shutdownNow);
+    servers.forEach(Server::shutdownNow);
+    channels.clear();
+    servers.clear();
+  }
+
+  private ManagedChannel start(Consumer<InProcessServerBuilder> services) {
+    var serverName = InProcessServerBuilder.generateName();
+    var builder = InProcessServerBuilder.forName(serverName).directExecutor();
+    services.accept(builder);
+    try {
+      servers.add(builder.build().start());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    var channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+    channels.add(channel);
+    return channel;
+  }
+}
@@ -35,6 +35,7 @@ import ru.tinkoff.piapi.contract.v1.Etf;
 import ru.tinkoff.piapi.contract.v1.EtfResponse;
 import ru.tinkoff.piapi.contract.v1.EtfsResponse;
 import ru.tinkoff.piapi.contract.v1.FavoriteInstrument;
+import ru.tinkoff.piapi.contract.v1.FilterOptionsRequest;
 import ru.tinkoff.piapi.contract.v1.FindInstrumentRequest;
 import ru.tinkoff.piapi.contract.v1.FindInstrumentResponse;
 import ru.tinkoff.piapi.contract.v1.Future;
@@ -42,6 +43,8 @@ import ru.tinkoff.piapi.contract.v1.FutureResponse;
 import ru.tinkoff.piapi.contract.v1.FuturesResponse;
 import ru.tinkoff.piapi.contract.v1.GetAccruedInterestsRequest;
 import ru.tinkoff.piapi.contract.v1.GetAccruedInterestsResponse;
+import ru.tinkoff.piapi.contract.v1.GetAssetFundamentalsRequest;
+import ru.tinkoff.piapi.contract.v1.GetAssetFundamentalsResponse;
 import ru.tinkoff.piapi.contract.v1.GetBrandRequest;
 import ru.tinkoff.piapi.contract.v1.GetBrandsRequest;
 import ru.tinkoff.piapi.contract.v1.GetBrandsResponse;
@@ -62,6 +65,8 @@ import ru.tinkoff.piapi.contract.v1.InstrumentStatus;
 import ru.tinkoff.piapi.contract.v1.InstrumentsRequest;
 import ru.tinkoff.piapi.contract.v1.InstrumentsServiceGrpc;
 import ru.tinkoff.piapi.contract.v1.MoneyValue;
+import ru.tinkoff.piapi.contract.v1.Option;
+import ru.tinkoff.piapi.contract.v1.OptionsResponse;
 import ru.tinkoff.piapi.contract.v1.Quotation;
 import ru.tinkoff.piapi.contract.v1.Share;
 import ru.tinkoff.piapi.contract.v1.ShareResponse;
@@ -1943,4 +1948,90 @@ public class InstrumentsServiceTest extends GrpcClientTester<InstrumentsService>
       verify(grpcService, never()).getDividends(any(), any());
     }
   }
+
+  @Nested
+  class GetOptionsByTest {
+
+    @Test
+    void get_Test() {
+      var expected = OptionsResponse.newBuilder()
+        .addInstruments(Option.newBuilder().setUid("option_uid").setBasicAssetPositionUid("position_uid").build())
+        .build();
+      var grpcService = mock(InstrumentsServiceGrpc.InstrumentsServiceImplBase.class, delegatesTo(
+        new InstrumentsServiceGrpc.InstrumentsServiceImplBase() {
+          @Override
+          public void optionsBy(FilterOptionsRequest request,
+                                StreamObserver<OptionsResponse> responseObserver) {
+            responseObserver.onNext(expected);
+            responseObserver.onCompleted();
+          }
+        }));
+      var service = mkClientBasedOnServer(grpcService);
+
+      var inArg = FilterOptionsRequest.newBuilder()
+        .setBasicAssetUid("asset_uid")
+        .build();
+
+      assertIterableEquals(expected.getInstrumentsList(), service.getOptionsBySync(inArg.getBasicAssetUid(), null));
+      assertIterableEquals(expected.getInstrumentsList(), service.getOptionsBy(inArg.getBasicAssetUid(), null).join());
+
+      verify(grpcService, times(2)).optionsBy(eq(inArg), any());
+    }
+
+    @Test
+    void get_shouldThrowInCaseOfNotFound_Test() {
+      var grpcService = mock(InstrumentsServiceGrpc.InstrumentsServiceImplBase.class, delegatesTo(
+        new InstrumentsServiceGrpc.InstrumentsServiceImplBase() {
+          @Override
+          public void optionsBy(FilterOptionsRequest request,
+                                StreamObserver<OptionsResponse> responseObserver) {
+            responseObserver.onError(new StatusRuntimeException(Status.NOT_FOUND.withDescription("50002")));
+          }
+        }));
+      var service = mkClientBasedOnServer(grpcService);
+
+      var inArg = FilterOptionsRequest.newBuilder()
+        .setBasicAssetPositionUid("position_uid")
+        .build();
+
+      assertThrowsApiRuntimeException("50002", () -> service.getOptionsBySync(null, inArg.getBasicAssetPositionUid()));
+      assertThrowsAsyncApiRuntimeException("50002", () -> service.getOptionsBy(null, inArg.getBasicAssetPositionUid()).join());
+
+      verify(grpcService, times(2)).optionsBy(eq(inArg), any());
+    }
+  }
+
+  @Nested
+  class GetAssetFundamentalsTest {
+
+    @Test
+    void get_Test() {
+      var expected = GetAssetFundamentalsResponse.newBuilder()
+        .addFundamentals(GetAssetFundamentalsResponse.StatisticResponse.newBuilder()
+          .setAssetUid("asset_uid")
+          .setMarketCapitalization(1_000_000)
+          .build())
+        .build();
+      var grpcService = mock(InstrumentsServiceGrpc.InstrumentsServiceImplBase.class, delegatesTo(
+        new InstrumentsServiceGrpc.InstrumentsServiceImplBase() {
+          @Override
+          public void getAssetFundamentals(GetAssetFundamentalsRequest request,
+                                           StreamObserver<GetAssetFundamentalsResponse> responseObserver) {
+            responseObserver.onNext(expected);
+            responseObserver.onCompleted();
+          }
+        }));
+      var service = mkClientBasedOnServer(grpcService);
+
+      var inArg = GetAssetFundamentalsRequest.newBuilder()
+        .addAssets("asset_uid")
+        .addAssets("other_uid")
+        .build();
+
+      assertIterableEquals(expected.getFundamentalsList(), service.getAssetFundamentalsSync(inArg.getAssetsList()));
+      assertIterableEquals(expected.getFundamentalsList(), service.getAssetFundamentals(inArg.getAssetsList()).join());
+
+      verify(grpcService, times(2)).getAssetFundamentals(eq(inArg), any());
+    }
+  }
 }
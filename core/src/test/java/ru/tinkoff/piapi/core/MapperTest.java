@@ -77,4 +77,13 @@ public class MapperTest {
     var expectedValue = BigDecimal.valueOf(60); //30 / 10 * 20
     assertEquals(0, actualValue.compareTo(expectedValue));
   }
+
+  @Test
+  public void quotationToNanosTest() {
+    var value = Quotation.newBuilder().setUnits(-10).setNano(-900000000).build();
+    var nanos = MapperUtils.quotationToNanos(value);
+    assertEquals(-10_900_000_000L, nanos);
+    assertEquals(value, MapperUtils.nanosToQuotation(nanos));
+    assertEquals(BigDecimal.valueOf(-10.9), MapperUtils.nanosToBigDecimal(nanos));
+  }
 }
@@ -29,6 +29,7 @@ import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.AdditionalAnswers.delegatesTo;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -86,6 +87,40 @@ public class OrdersServiceTest extends GrpcClientTester<OrdersService> {
     verify(grpcService, times(2)).postOrder(eq(inArg), any());
   }
 
+  @Test
+  void postOrderByRequest_Test() {
+    var expected = PostOrderResponse.newBuilder()
+      .setOrderId("orderId")
+      .setFigi("figi")
+      .build();
+    var grpcService = mock(OrdersServiceGrpc.OrdersServiceImplBase.class, delegatesTo(
+      new OrdersServiceGrpc.OrdersServiceImplBase() {
+        @Override
+        public void postOrder(PostOrderRequest request,
+                              StreamObserver<PostOrderResponse> responseObserver) {
+          responseObserver.onNext(expected);
+          responseObserver.onCompleted();
+        }
+      }));
+    var service = mkClientBasedOnServer(grpcService);
+
+    var inArg = PostOrderRequest.newBuilder()
+      .setAccountId("accountId")
+      .setInstrumentId(expected.getFigi())
+      .setQuantity(1)
+      .setDirection(OrderDirection.ORDER_DIRECTION_SELL)
+      .setOrderType(OrderType.ORDER_TYPE_MARKET)
+      .setOrderId("orderId")
+      .build();
+
+    assertEquals(expected, service.postOrderSync(inArg));
+    assertEquals(expected, service.postOrder(inArg).join());
+    assertEquals(expected, service.postOrder(inArg.toBuilder().clearOrderId().build()).join());
+
+    verify(grpcService, times(2)).postOrder(eq(inArg), any());
+    verify(grpcService, times(3)).postOrder(argThat(request -> !request.getOrderId().isEmpty()), any());
+  }
+
   @Test
   void postOrder_forbiddenInReadonly_Test() {
     var grpcService = mock(OrdersServiceGrpc.OrdersServiceImplBase.class);
@@ -0,0 +1,74 @@
+package ru.tinkoff.piapi.core;
+
+import org.junit.jupiter.api.Test;
+import ru.tinkoff.piapi.core.utils.RequestLimiter;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RequestLimiterTest {
+
+  @Test
+  void runsQueuedRequestsWithinLimit_Test() {
+    var limiter = new RequestLimiter(2);
+    var held = new ArrayList<CompletableFuture<Integer>>();
+    var results = new ArrayList<CompletableFuture<Integer>>();
+    for (int i = 0; i < 5; i++) {
+      results.add(limiter.submit(() -> {
+        var response = new CompletableFuture<Integer>();
+        held.add(response);
+        return response;
+      }));
+    }
+    assertEquals(2, held.size());
+    assertEquals(2, limiter.getInFlight());
+    assertEquals(3, limiter.getQueued());
+
+    for (int i = 0; i < 5; i++) {
+      held.get(i).complete(i);
+      assertEquals(Math.min(5, i + 3), held.size());
+    }
+    for (int i = 0; i < 5; i++) {
+      assertEquals(i, results.get(i).join());
+    }
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  void drainsSynchronousCompletionsWithoutRecursion_Test() {
+    var limiter = new RequestLimiter(1);
+    var results = new ArrayList<CompletableFuture<Integer>>();
+    var gate = new CompletableFuture<Integer>();
+    results.add(limiter.submit(() -> gate));
+    for (int i = 1; i < 100_000; i++) {
+      var value = i;
+      results.add(limiter.submit(() -> CompletableFuture.completedFuture(value)));
+    }
+    assertEquals(99_999, limiter.getQueued());
+
+    gate.complete(0);
+    assertEquals(0, limiter.getQueued());
+    assertEquals(99_999, results.get(99_999).join());
+  }
+
+  @Test
+  void passesUnwrappedErrors_Test() {
+    var limiter = new RequestLimiter(1);
+    var error = new IllegalStateException("failed");
+    var failed = limiter.submit(() -> CompletableFuture.supplyAsync(() -> {
+      throw error;
+    }));
+    var thrown = limiter.<Integer>submit(() -> {
+      throw error;
+    });
+
+    assertSame(error, assertThrows(CompletionException.class, failed::join).getCause());
+    assertSame(error, assertThrows(CompletionException.class, thrown::join).getCause());
+    assertThrows(IllegalArgumentException.class, () -> new RequestLimiter(0));
+  }
+}
@@ -0,0 +1,167 @@
+package ru.tinkoff.piapi.core;
+
+import io.grpc.Channel;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.AccessLevel;
+import ru.tinkoff.piapi.contract.v1.Account;
+import ru.tinkoff.piapi.contract.v1.GetAccountsRequest;
+import ru.tinkoff.piapi.contract.v1.GetAccountsResponse;
+import ru.tinkoff.piapi.contract.v1.GetLastPricesRequest;
+import ru.tinkoff.piapi.contract.v1.GetLastPricesResponse;
+import ru.tinkoff.piapi.contract.v1.GetOrdersRequest;
+import ru.tinkoff.piapi.contract.v1.GetOrdersResponse;
+import ru.tinkoff.piapi.contract.v1.MarketDataServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.OrdersServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.UsersServiceGrpc;
+import ru.tinkoff.piapi.core.exception.ApiRuntimeException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShardedInvestApiTest {
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+  private final List<Backend> backends = List.of(
+    new Backend(account("shared", AccessLevel.ACCOUNT_ACCESS_LEVEL_READ_ONLY), account("first", AccessLevel.ACCOUNT_ACCESS_LEVEL_FULL_ACCESS)),
+    new Backend(account("shared", AccessLevel.ACCOUNT_ACCESS_LEVEL_FULL_ACCESS), account("hidden", AccessLevel.ACCOUNT_ACCESS_LEVEL_NO_ACCESS)));
+  private ShardedInvestApi api;
+
+  @BeforeEach
+  void setUp() {
+    var channels = new ArrayList<Channel>();
+    for (var backend : backends) {
+      channels.add(grpc.start(backend.users, backend.orders, backend.marketData));
+    }
+    api = ShardedInvestApi.create(channels);
+  }
+
+  @Test
+  void pinsAccountsToOwningToken_Test() {
+    api.discoverAccounts().join();
+    assertEquals(1, api.getAccountShard("shared"));
+    assertEquals(0, api.getAccountShard("first"));
+    assertEquals(-1, api.getAccountShard("hidden"));
+
+    api.getOrdersService("shared").getOrdersSync("shared");
+    api.getOrdersService("first").getOrdersSync("first");
+    assertEquals(List.of("first"), backends.get(0).orders.accounts);
+    assertEquals(List.of("shared"), backends.get(1).orders.accounts);
+    assertThrows(IllegalArgumentException.class, () -> api.forAccount("hidden"));
+
+    api.registerAccount("manual", 0);
+    assertSame(api.getShard(0), api.forAccount("manual"));
+    assertThrows(IllegalArgumentException.class, () -> api.registerAccount("manual", 2));
+  }
+
+  @Test
+  void routesReadsByLoadAndInstrument_Test() {
+    backends.get(0).marketData.hold = true;
+    api.getShard(0).getMarketDataService().getLastPrices(List.of("BBG004730N88"));
+    assertEquals(1, api.getInFlight(0));
+    for (int i = 0; i < 10; i++) {
+      api.getMarketDataService().getLastPricesSync(List.of("BBG004730N88"));
+    }
+    assertEquals(10, backends.get(1).marketData.requests);
+    backends.get(0).marketData.held.remove(0).run();
+    assertEquals(0, api.getInFlight(0));
+
+    backends.get(0).marketData.hold = false;
+    for (int i = 0; i < 10; i++) {
+      api.getMarketDataService().getLastPricesSync(List.of("BBG004730N88"));
+    }
+    assertEquals(6, backends.get(0).marketData.requests);
+    assertEquals(15, backends.get(1).marketData.requests);
+
+    var used = new HashSet<InvestApi>();
+    for (int i = 0; i < 100; i++) {
+      var instrumentId = "BBG00" + i;
+      assertSame(api.forInstrument(instrumentId), api.forInstrument(instrumentId));
+      used.add(api.forInstrument(instrumentId));
+    }
+    assertEquals(2, used.size());
+    assertSame(api.forInstrument("BBG004730N88").getMarketDataService(), api.getMarketDataService("BBG004730N88"));
+  }
+
+  @Test
+  void destroysOnlyOwnChannels_Test() {
+    api.destroy(1);
+    api.getShard(0).getUserService().getAccountsSync();
+
+    var owned = ShardedInvestApi.createWithTokens(List.of("first", "second"), "sharded-test");
+    owned.destroy(1);
+    for (int i = 0; i < owned.getShardCount(); i++) {
+      var users = owned.getShard(i).getUserService();
+      var error = assertThrows(ApiRuntimeException.class, users::getAccountsSync);
+      assertEquals("Channel shutdown invoked", Status.fromThrowable(error.getThrowable()).getDescription());
+    }
+  }
+
+  private static Account account(String id, AccessLevel accessLevel) {
+    return Account.newBuilder().setId(id).setAccessLevel(accessLevel).build();
+  }
+
+  private static class Backend {
+    private final UsersService users;
+    private final OrdersService orders = new OrdersService();
+    private final MarketDataService marketData = new MarketDataService();
+
+    Backend(Account... accounts) {
+      this.users = new UsersService(List.of(accounts));
+    }
+  }
+
+  private static class UsersService extends UsersServiceGrpc.UsersServiceImplBase {
+    private final List<Account> accounts;
+
+    UsersService(List<Account> accounts) {
+      this.accounts = accounts;
+    }
+
+    @Override
+    public void getAccounts(GetAccountsRequest request, StreamObserver<GetAccountsResponse> responseObserver) {
+      responseObserver.onNext(GetAccountsResponse.newBuilder().addAllAccounts(accounts).build());
+      responseObserver.onCompleted();
+    }
+  }
+
+  private static class OrdersService extends OrdersServiceGrpc.OrdersServiceImplBase {
+    private final List<String> accounts = new ArrayList<>();
+
+    @Override
+    public void getOrders(GetOrdersRequest request, StreamObserver<GetOrdersResponse> responseObserver) {
+      accounts.add(request.getAccountId());
+      responseObserver.onNext(GetOrdersResponse.getDefaultInstance());
+      responseObserver.onCompleted();
+    }
+  }
+
+  private static class MarketDataService extends MarketDataServiceGrpc.MarketDataServiceImplBase {
+    private final List<Runnable> held = new ArrayList<>();
+    private boolean hold;
+    private int requests;
+
+    @Override
+    public void getLastPrices(GetLastPricesRequest request, StreamObserver<GetLastPricesResponse> responseObserver) {
+      requests++;
+      Runnable reply = () -> {
+        responseObserver.onNext(GetLastPricesResponse.getDefaultInstance());
+        responseObserver.onCompleted();
+      };
+      if (hold) {
+        held.add(reply);
+      } else {
+        reply.run();
+      }
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package ru.tinkoff.piapi.core.cache;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.GetOrderBookRequest;
+import ru.tinkoff.piapi.contract.v1.GetOrderBookResponse;
+import ru.tinkoff.piapi.contract.v1.MarketDataServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.OrdersServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.PostOrderRequest;
+import ru.tinkoff.piapi.contract.v1.PostOrderResponse;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestCollapsingInterceptorTest {
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+  private final MarketDataService marketDataService = new MarketDataService();
+  private final OrdersService ordersService = new OrdersService();
+  private final RequestCollapsingInterceptor interceptor = new RequestCollapsingInterceptor();
+  private ManagedChannel channel;
+  private Channel intercepted;
+  private InvestApi api;
+
+  @BeforeEach
+  void setUp() {
+    channel = grpc.start(marketDataService, ordersService);
+    intercepted = ClientInterceptors.intercept(channel, interceptor);
+    api = InvestApi.create(intercepted);
+  }
+
+  @Test
+  void collapsesIdenticalReads_Test() throws Exception {
+    var marketData = api.getMarketDataService();
+    var first = marketData.getOrderBook("BBG004730N88", 10);
+    var second = marketData.getOrderBook("BBG004730N88", 10);
+    var other = marketData.getOrderBook("BBG004730N88", 20);
+    var blocking = CompletableFuture.supplyAsync(() -> marketData.getOrderBookSync("BBG004730N88", 10));
+    while (interceptor.getCollapsedCount() < 2) {
+      Thread.sleep(1);
+    }
+    assertEquals(2, marketDataService.held.size());
+    assertEquals(2, interceptor.getInFlightCount());
+    assertFalse(first.isDone());
+
+    marketDataService.release(0);
+    assertSame(first.join(), second.join());
+    assertSame(first.join(), blocking.get(5, TimeUnit.SECONDS));
+    assertEquals(10, first.join().getDepth());
+    assertFalse(other.isDone());
+    marketDataService.release(0);
+    assertEquals(20, other.join().getDepth());
+    assertEquals(0, interceptor.getInFlightCount());
+
+    var third = marketData.getOrderBook("BBG004730N88", 10);
+    assertEquals(1, marketDataService.held.size());
+    assertEquals(3, marketDataService.requests.size());
+    marketDataService.held.remove(0).fail();
+    assertThrows(CompletionException.class, third::join);
+    assertEquals(5, interceptor.getCallCount());
+    assertEquals(2, interceptor.getCollapsedCount());
+  }
+
+  @Test
+  void neverCollapsesWrites_Test() throws Exception {
+    var request = PostOrderRequest.newBuilder()
+      .setInstrumentId("BBG004730N88")
+      .setAccountId("account")
+      .setOrderId("order")
+      .setQuantity(1)
+      .build();
+    var first = api.getOrdersService().postOrder(request);
+    var second = api.getOrdersService().postOrder(request);
+    assertEquals(2, ordersService.held.size());
+    assertEquals(0, interceptor.getCallCount());
+    ordersService.held.forEach(Runnable::run);
+    first.join();
+    second.join();
+
+    var orderBookRequest = GetOrderBookRequest.newBuilder().setInstrumentId("BBG004730N88").setDepth(10).build();
+    var cancelled = ClientCalls.futureUnaryCall(
+      intercepted.newCall(MarketDataServiceGrpc.getGetOrderBookMethod(), CallOptions.DEFAULT), orderBookRequest);
+    var waiting = ClientCalls.futureUnaryCall(
+      intercepted.newCall(MarketDataServiceGrpc.getGetOrderBookMethod(), CallOptions.DEFAULT), orderBookRequest);
+    cancelled.cancel(true);
+    assertEquals(1, interceptor.getInFlightCount());
+    marketDataService.release(0);
+    assertEquals(10, waiting.get().getDepth());
+
+    var abandoned = ClientCalls.futureUnaryCall(
+      intercepted.newCall(MarketDataServiceGrpc.getGetOrderBookMethod(), CallOptions.DEFAULT), orderBookRequest);
+    abandoned.cancel(true);
+    assertEquals(0, interceptor.getInFlightCount());
+    assertTrue(abandoned.isCancelled());
+  }
+
+  @Test
+  void enforcesDeadlinePerRequest_Test() throws Exception {
+    var request = GetOrderBookRequest.newBuilder().setInstrumentId("BBG004730N88").setDepth(10).build();
+    var method = MarketDataServiceGrpc.getGetOrderBookMethod();
+    var first = ClientCalls.futureUnaryCall(
+      intercepted.newCall(method, CallOptions.DEFAULT.withDeadlineAfter(50, TimeUnit.MILLISECONDS)), request);
+    var joined = ClientCalls.futureUnaryCall(
+      intercepted.newCall(method, CallOptions.DEFAULT.withDeadlineAfter(1, TimeUnit.MINUTES)), request);
+    var impatient = ClientCalls.futureUnaryCall(
+      intercepted.newCall(method, CallOptions.DEFAULT.withDeadlineAfter(50, TimeUnit.MILLISECONDS)), request);
+    assertEquals(1, marketDataService.held.size());
+    assertEquals(2, interceptor.getCollapsedCount());
+
+    for (var expired : List.of(first, impatient)) {
+      var error = assertThrows(ExecutionException.class, () -> expired.get(5, TimeUnit.SECONDS));
+      assertEquals(Status.Code.DEADLINE_EXCEEDED, Status.fromThrowable(error.getCause()).getCode());
+    }
+    assertFalse(joined.isDone());
+    assertEquals(1, interceptor.getInFlightCount());
+
+    marketDataService.release(0);
+    assertEquals(10, joined.get(5, TimeUnit.SECONDS).getDepth());
+    assertEquals(1, marketDataService.requests.size());
+  }
+
+  private static class MarketDataService extends MarketDataServiceGrpc.MarketDataServiceImplBase {
+    private final List<GetOrderBookRequest> requests = new ArrayList<>();
+    private final List<HeldReply> held = new ArrayList<>();
+
+    synchronized void release(int index) {
+      held.remove(index).reply();
+    }
+
+    @Override
+    public synchronized void getOrderBook(GetOrderBookRequest request,
+                                          StreamObserver<GetOrderBookResponse> responseObserver) {
+      requests.add(request);
+      held.add(new HeldReply(request, responseObserver));
+    }
+  }
+
+  private static class HeldReply {
+    private final GetOrderBookRequest request;
+    private final StreamObserver<GetOrderBookResponse> responseObserver;
+
+    HeldReply(GetOrderBookRequest request, StreamObserver<GetOrderBookResponse> responseObserver) {
+      this.request = request;
+      this.responseObserver = responseObserver;
+    }
+
+    void reply() {
+      responseObserver.onNext(GetOrderBookResponse.newBuilder()
+        .setFigi(request.getInstrumentId())
+        .setDepth(request.getDepth())
+        .build());
+      responseObserver.onCompleted();
+    }
+
+    void fail() {
+      responseObserver.onError(Status.UNAVAILABLE.withDescription("70001").asRuntimeException());
+    }
+  }
+
+  private static class OrdersService extends OrdersServiceGrpc.OrdersServiceImplBase {
+    private final List<Runnable> held = new ArrayList<>();
+
+    @Override
+    public void postOrder(PostOrderRequest request, StreamObserver<PostOrderResponse> responseObserver) {
+      held.add(() -> {
+        responseObserver.onNext(PostOrderResponse.newBuilder().setOrderId(request.getOrderId()).build());
+        responseObserver.onCompleted();
+      });
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package ru.tinkoff.piapi.core.cache;
+
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.CountryResponse;
+import ru.tinkoff.piapi.contract.v1.Dividend;
+import ru.tinkoff.piapi.contract.v1.GetCountriesRequest;
+import ru.tinkoff.piapi.contract.v1.GetCountriesResponse;
+import ru.tinkoff.piapi.contract.v1.GetDividendsRequest;
+import ru.tinkoff.piapi.contract.v1.GetDividendsResponse;
+import ru.tinkoff.piapi.contract.v1.InstrumentsServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.OrdersServiceGrpc;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ResponseCacheInterceptorTest {
+
+  private static final Instant from = Instant.parse("2023-01-01T00:00:00Z");
+  private static final Instant to = Instant.parse("2024-01-01T00:00:00Z");
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+  private final InstrumentsService grpcService = new InstrumentsService();
+  private final MutableClock clock = new MutableClock();
+  private ManagedChannel channel;
+
+  @BeforeEach
+  void setUp() {
+    channel = grpc.start(grpcService);
+  }
+
+  @Test
+  void servesFreshAndStaleResponses_Test() {
+    var cache = new ResponseCacheInterceptor(100, ResponseCacheInterceptor.referenceTtls(), Duration.ofMinutes(10), clock);
+    var instruments = InvestApi.create(ClientInterceptors.intercept(channel, cache)).getInstrumentsService();
+
+    assertEquals("C1", country(instruments.getCountriesSync().get(0)));
+    assertEquals("C1", country(instruments.getCountries().join().get(0)));
+    assertEquals(1, grpcService.countriesRequests);
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+
+    clock.advance(Duration.ofDays(1).plusMinutes(1));
+    assertEquals("C1", country(instruments.getCountriesSync().get(0)));
+    assertEquals(2, grpcService.countriesRequests);
+    assertEquals("C2", country(instruments.getCountriesSync().get(0)));
+    assertEquals(1, cache.getStaleHitCount());
+    assertEquals(1, cache.getRefreshCount());
+
+    clock.advance(Duration.ofDays(1).plusMinutes(1));
+    grpcService.failures = 1;
+    assertEquals("C2", country(instruments.getCountriesSync().get(0)));
+    assertEquals("C2", country(instruments.getCountriesSync().get(0)));
+    assertEquals(4, grpcService.countriesRequests);
+    assertEquals("C4", country(instruments.getCountriesSync().get(0)));
+
+    clock.advance(Duration.ofDays(2));
+    assertEquals("C5", country(instruments.getCountriesSync().get(0)));
+    assertEquals(2, cache.getMissCount());
+
+    instruments.getDividendsSync("first", from, to);
+    instruments.getDividendsSync("second", from, to);
+    instruments.getDividendsSync("first", from, to);
+    assertEquals(2, grpcService.dividendsRequests.size());
+    assertEquals(3, cache.size());
+    assertEquals(7.0 / 11, cache.getHitRate(), 1e-9);
+
+    cache.invalidateAll();
+    instruments.getCountriesSync();
+    assertEquals(6, grpcService.countriesRequests);
+  }
+
+  @Test
+  void boundsSizeKeepingFrequentEntries_Test() {
+    var ttls = new HashMap<String, Duration>();
+    ttls.put(InstrumentsServiceGrpc.getGetDividendsMethod().getFullMethodName(), Duration.ofHours(1));
+    var cache = new ResponseCacheInterceptor(10, ttls, Duration.ZERO, clock);
+    var instruments = InvestApi.create(ClientInterceptors.intercept(channel, cache)).getInstrumentsService();
+
+    for (int i = 0; i < 5; i++) {
+      instruments.getDividendsSync("hot", from, to);
+    }
+    for (int i = 0; i < 50; i++) {
+      instruments.getDividendsSync("cold" + i, from, to);
+    }
+    assertEquals(10, cache.size());
+    assertEquals(41, cache.getEvictionCount());
+    var requests = grpcService.dividendsRequests.size();
+    instruments.getDividendsSync("hot", from, to);
+    assertEquals(requests, grpcService.dividendsRequests.size());
+    instruments.getCountriesSync();
+    instruments.getCountriesSync();
+    assertEquals(2, grpcService.countriesRequests);
+
+    assertThrows(IllegalArgumentException.class, () -> new ResponseCacheInterceptor(10,
+      Map.of(OrdersServiceGrpc.getPostOrderMethod().getFullMethodName(), Duration.ofMinutes(1)), Duration.ZERO));
+    assertThrows(IllegalArgumentException.class, () -> new ResponseCacheInterceptor(0, ttls, Duration.ZERO));
+  }
+
+  @Test
+  void separatesConnections_Test() {
+    var cache = new ResponseCacheInterceptor(100, ResponseCacheInterceptor.referenceTtls(), Duration.ZERO, clock);
+    var otherService = new InstrumentsService();
+    var otherChannel = ClientInterceptors.intercept(grpc.start(otherService), cache);
+    var first = InvestApi.create(ClientInterceptors.intercept(channel, cache)).getInstrumentsService();
+    var second = InvestApi.create(otherChannel).getInstrumentsService();
+
+    assertEquals("C1", country(first.getCountriesSync().get(0)));
+    assertEquals("C1", country(second.getCountriesSync().get(0)));
+    assertEquals(1, otherService.countriesRequests);
+
+    var tokenHeaders = new Metadata();
+    InvestApi.addAuthHeader(tokenHeaders, "token");
+    var withToken = InvestApi.create(ClientInterceptors.intercept(ClientInterceptors.intercept(channel, cache),
+      MetadataUtils.newAttachHeadersInterceptor(tokenHeaders))).getInstrumentsService();
+    assertEquals("C2", country(withToken.getCountriesSync().get(0)));
+    assertEquals("C2", country(withToken.getCountriesSync().get(0)));
+    assertEquals("C1", country(first.getCountriesSync().get(0)));
+    assertEquals(2, grpcService.countriesRequests);
+    assertEquals(3, cache.size());
+  }
+
+  private static String country(CountryResponse country) {
+    return country.getAlfaTwo();
+  }
+
+  private static class InstrumentsService extends InstrumentsServiceGrpc.InstrumentsServiceImplBase {
+    private final List<String> dividendsRequests = new ArrayList<>();
+    private int countriesRequests;
+    private int failures;
+
+    @Override
+    public void getCountries(GetCountriesRequest request, StreamObserver<GetCountriesResponse> responseObserver) {
+      countriesRequests++;
+      if (failures > 0) {
+        failures--;
+        responseObserver.onError(Status.UNAVAILABLE.withDescription("70001").asRuntimeException());
+        return;
+      }
+      responseObserver.onNext(GetCountriesResponse.newBuilder()
+        .addCountries(CountryResponse.newBuilder().setAlfaTwo("C" + countriesRequests))
+        .build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void getDividends(GetDividendsRequest request, StreamObserver<GetDividendsResponse> responseObserver) {
+      dividendsRequests.add(request.getFigi());
+      responseObserver.onNext(GetDividendsResponse.newBuilder()
+        .addDividends(Dividend.newBuilder().setDividendType(request.getFigi()))
+        .build());
+      responseObserver.onCompleted();
+    }
+  }
+
+  private static class MutableClock extends Clock {
+    private volatile Instant instant = Instant.parse("2023-10-06T10:00:00Z");
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package ru.tinkoff.piapi.core.candles;
+
+import com.google.protobuf.Timestamp;
+import org.junit.jupiter.api.Test;
+import ru.tinkoff.piapi.contract.v1.Candle;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.SubscriptionInterval;
+import ru.tinkoff.piapi.contract.v1.Trade;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.tinkoff.piapi.core.utils.MapperUtils.bigDecimalToQuotation;
+
+public class CandleAggregatorTest {
+
+  private static final String uid = "e6123145-9665-43e0-8413-cd61b8aa9b13";
+  private static final long start = Instant.parse("2023-10-02T07:00:00Z").toEpochMilli();
+  private static final long minute = 60_000;
+
+  private final List<String> events = new ArrayList<>();
+
+  @Test
+  void aggregatesMinuteCandlesIntoTimeBars_Test() {
+    var fiveMinutes = BarSpec.time(Duration.ofMinutes(5));
+    var aggregator = new CandleAggregator(List.of(fiveMinutes), 10, this::record);
+
+    aggregator.process(candle(0, "100", "101", "99", "100.5", 10));
+    aggregator.process(candle(0, "100", "102", "99", "101", 15));
+    aggregator.process(candle(1, "101", "101", "98", "99", 5));
+    aggregator.process(candle(1, "101", "103", "98", "102", 7));
+    aggregator.process(candle(0, "100", "110", "90", "95", 100));
+    aggregator.process(candle(5, "102", "102", "102", "102", 1));
+
+    var series = aggregator.getSeries(uid, fiveMinutes);
+    assertEquals(2, series.size());
+    assertEquals(start, series.time(1));
+    assertEquals(nanos(100), series.open(1));
+    assertEquals(nanos(103), series.high(1));
+    assertEquals(nanos(98), series.low(1));
+    assertEquals(nanos(102), series.close(1));
+    assertEquals(22, series.volume(1));
+    assertEquals(2, series.count(1));
+    assertEquals(start + 5 * minute, series.time(0));
+    assertFalse(series.isLastClosed());
+    assertEquals(List.of(
+      "PT5M false 100500000000 10", "PT5M false 101000000000 15", "PT5M false 99000000000 20",
+      "PT5M false 102000000000 22", "PT5M true 102000000000 22", "PT5M false 102000000000 1"), events);
+  }
+
+  @Test
+  void closeExpiredClosesTimeBarsAndFlushesMinute_Test() {
+    var daily = BarSpec.time(Duration.ofDays(1), Duration.ofHours(-3));
+    var ticks = BarSpec.ticks(2);
+    var aggregator = new CandleAggregator(List.of(daily, ticks), 10, this::record);
+
+    aggregator.onCandle(candle(0, "100", "101", "99", "100", 10).getCandle());
+    aggregator.onCandle(candle(1, "100", "101", "99", "101", 10).getCandle());
+    assertEquals(Instant.parse("2023-10-01T21:00:00Z").toEpochMilli(), aggregator.getSeries(uid, daily).time(0));
+    assertEquals(1, aggregator.getSeries(uid, ticks).count(0));
+
+    aggregator.closeExpired(Instant.ofEpochMilli(start + 2 * minute));
+    assertEquals(2, aggregator.getSeries(uid, ticks).count(0));
+    assertTrue(aggregator.getSeries(uid, ticks).isLastClosed());
+    assertFalse(aggregator.getSeries(uid, daily).isLastClosed());
+
+    aggregator.closeExpired(Instant.parse("2023-10-02T21:00:00Z"));
+    assertTrue(aggregator.getSeries(uid, daily).isLastClosed());
+    aggregator.onCandle(candle(1, "100", "200", "99", "150", 10).getCandle());
+    assertEquals(nanos(101), aggregator.getSeries(uid, daily).close(0));
+  }
+
+  @Test
+  void aggregatesTradesIntoVolumeAndTickBars_Test() {
+    var volume = BarSpec.volume(10);
+    var ticks = BarSpec.ticks(3);
+    var aggregator = new CandleAggregator(List.of(volume, ticks), 2, this::record);
+
+    aggregator.process(trade(0, "10", 4));
+    aggregator.process(trade(1, "11", 5));
+    aggregator.process(trade(2, "9", 3));
+    aggregator.process(trade(3, "12", 8));
+
+    var volumeBars = aggregator.getSeries(uid, volume);
+    assertEquals(2, volumeBars.size());
+    assertEquals(12, volumeBars.volume(1));
+    assertEquals(nanos(10), volumeBars.open(1));
+    assertEquals(nanos(11), volumeBars.high(1));
+    assertEquals(nanos(9), volumeBars.low(1));
+    assertEquals(nanos(9), volumeBars.close(1));
+    assertEquals(8, volumeBars.volume(0));
+    assertEquals(start + 3 * minute + 1500, volumeBars.time(0));
+
+    var tickBars = aggregator.getSeries(uid, ticks);
+    assertEquals(3, tickBars.count(1));
+    assertEquals(1, tickBars.count(0));
+    assertEquals(1, events.stream().filter(event -> event.startsWith("TICKS:3 true")).count());
+  }
+
+  @Test
+  void ringBufferKeepsLatestBars_Test() {
+    var spec = BarSpec.time(Duration.ofMinutes(2));
+    var aggregator = new CandleAggregator(List.of(spec), 3, this::record);
+    for (int i = 0; i < 10; i++) {
+      aggregator.onTrade(trade(2 * i, String.valueOf(100 + i), 1).getTrade());
+    }
+
+    var series = aggregator.getSeries(uid, spec);
+    assertEquals(3, series.size());
+    assertEquals(nanos(109), series.close(0));
+    assertEquals(nanos(107), series.close(2));
+    assertEquals(start + 14 * minute, series.time(2));
+    assertThrows(IndexOutOfBoundsException.class, () -> series.close(3));
+    assertNull(aggregator.getSeries("unknown", spec));
+  }
+
+  private void record(BarSeries series, boolean closed) {
+    events.add(series.getSpec() + " " + closed + " " + series.close(0) + " " + series.volume(0));
+  }
+
+  private static long nanos(long units) {
+    return units * 1_000_000_000L;
+  }
+
+  private static MarketDataResponse candle(int minuteIndex, String open, String high, String low, String close,
+                                           long volume) {
+    return MarketDataResponse.newBuilder()
+      .setCandle(Candle.newBuilder()
+        .setInstrumentUid(uid)
+        .setInterval(SubscriptionInterval.SUBSCRIPTION_INTERVAL_ONE_MINUTE)
+        .setOpen(bigDecimalToQuotation(new BigDecimal(open)))
+        .setHigh(bigDecimalToQuotation(new BigDecimal(high)))
+        .setLow(bigDecimalToQuotation(new BigDecimal(low)))
+        .setClose(bigDecimalToQuotation(new BigDecimal(close)))
+        .setVolume(volume)
+        .setTime(timestamp(start + minuteIndex * minute)))
+      .build();
+  }
+
+  private static MarketDataResponse trade(int minuteIndex, String price, long quantity) {
+    return MarketDataResponse.newBuilder()
+      .setTrade(Trade.newBuilder()
+        .setFigi("BBG004730N88")
+        .setInstrumentUid(uid)
+        .setPrice(bigDecimalToQuotation(new BigDecimal(price)))
+        .setQuantity(quantity)
+        .setTime(timestamp(start + minuteIndex * minute + 1500)))
+      .build();
+  }
+
+  private static Timestamp timestamp(long millis) {
+    return Timestamp.newBuilder().setSeconds(millis / 1000).setNanos((int) (millis % 1000) * 1_000_000).build();
+  }
+}
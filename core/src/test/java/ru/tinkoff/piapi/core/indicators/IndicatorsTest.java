@@ -0,0 +1,390 @@
+package ru.tinkoff.piapi.core.indicators;
+
+import com.google.protobuf.Timestamp;
+import io.grpc.ManagedChannel;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.CandleInterval;
+import ru.tinkoff.piapi.contract.v1.GetCandlesRequest;
+import ru.tinkoff.piapi.contract.v1.GetCandlesResponse;
+import ru.tinkoff.piapi.contract.v1.GetTechAnalysisRequest;
+import ru.tinkoff.piapi.contract.v1.GetTechAnalysisRequest.IndicatorType;
+import ru.tinkoff.piapi.contract.v1.GetTechAnalysisRequest.TypeOfPrice;
+import ru.tinkoff.piapi.contract.v1.GetTechAnalysisResponse;
+import ru.tinkoff.piapi.contract.v1.HistoricCandle;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.MarketDataServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.Quotation;
+import ru.tinkoff.piapi.contract.v1.Trade;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+import ru.tinkoff.piapi.core.candles.BarSpec;
+import ru.tinkoff.piapi.core.candles.CandleAggregator;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.tinkoff.piapi.core.utils.MapperUtils.bigDecimalToQuotation;
+import static ru.tinkoff.piapi.core.utils.MapperUtils.quotationToBigDecimal;
+
+public class IndicatorsTest {
+
+  private static final String uid = "e6123145-9665-43e0-8413-cd61b8aa9b13";
+  private static final Instant from = Instant.parse("2023-10-02T07:00:00Z");
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+  private final List<HistoricCandle> candles = candles(400);
+  private ManagedChannel channel;
+  private InvestApi api;
+
+  @BeforeEach
+  void setUp() {
+    channel = grpc.start(new ReferenceMarketDataService(candles));
+    api = InvestApi.create(channel);
+  }
+
+  @Test
+  void matchesHandCalculatedValues_Test() {
+    var sma = new SimpleMovingAverage(3);
+    var ema = new ExponentialMovingAverage(3);
+    var rsi = new RelativeStrengthIndex(2);
+    var bands = new BollingerBands(2, 2);
+    for (var price : new double[]{1, 2, 1, 3}) {
+      sma.add(price);
+      ema.add(price);
+      rsi.add(price);
+      bands.add(price);
+    }
+
+    assertEquals(2, sma.getValue(), 1e-12);
+    assertEquals(13.0 / 6, ema.getValue(), 1e-12);
+    assertEquals(250.0 / 3, rsi.getValue(), 1e-12);
+    assertEquals(2, bands.getMiddle(), 1e-12);
+    assertEquals(4, bands.getUpper(), 1e-12);
+    assertEquals(0, bands.getLower(), 1e-12);
+
+    var notReady = new SimpleMovingAverage(5);
+    notReady.add(1);
+    assertFalse(notReady.isReady());
+    assertTrue(Double.isNaN(notReady.getValue()));
+    assertFalse(notReady.toItem(Timestamp.getDefaultInstance()).hasSignal());
+  }
+
+  @Test
+  void matchesServerTechAnalysis_Test() {
+    assertMatchesServer(api, requests());
+  }
+
+  @Test
+  void matchesServerTechAnalysisOnFlatPrices_Test() {
+    var prices = new ArrayList<Double>();
+    for (int i = 0; i < 30; i++) {
+      prices.add(250.0);
+    }
+    for (int i = 0; i < 10; i++) {
+      prices.add(250.0 + i + 1);
+    }
+    for (int i = 0; i < 30; i++) {
+      prices.add(260.0);
+    }
+    for (int i = 0; i < 10; i++) {
+      prices.add(260.0 - i - 1);
+    }
+    var flat = new ArrayList<HistoricCandle>();
+    for (int i = 0; i < prices.size(); i++) {
+      flat.add(HistoricCandle.newBuilder()
+        .setOpen(price(prices.get(i)))
+        .setHigh(price(prices.get(i)))
+        .setLow(price(prices.get(i)))
+        .setClose(price(prices.get(i)))
+        .setTime(Timestamp.newBuilder().setSeconds(from.getEpochSecond() + 60L * i))
+        .setIsComplete(true)
+        .build());
+    }
+    var flatApi = InvestApi.create(grpc.start(new ReferenceMarketDataService(flat)));
+
+    assertMatchesServer(flatApi, requests());
+
+    var rsi = new RelativeStrengthIndex(14);
+    for (int i = 0; i < 15; i++) {
+      rsi.add(250);
+    }
+    assertEquals(50, rsi.getValue(), 1e-12);
+  }
+
+  private static List<GetTechAnalysisRequest> requests() {
+    return List.of(
+      request(IndicatorType.INDICATOR_TYPE_SMA, TypeOfPrice.TYPE_OF_PRICE_CLOSE).setLength(20).build(),
+      request(IndicatorType.INDICATOR_TYPE_EMA, TypeOfPrice.TYPE_OF_PRICE_AVG).setLength(12).build(),
+      request(IndicatorType.INDICATOR_TYPE_RSI, TypeOfPrice.TYPE_OF_PRICE_CLOSE).setLength(14).build(),
+      request(IndicatorType.INDICATOR_TYPE_BB, TypeOfPrice.TYPE_OF_PRICE_HIGH).setLength(20)
+        .setDeviation(GetTechAnalysisRequest.Deviation.newBuilder()
+          .setDeviationMultiplier(bigDecimalToQuotation(new BigDecimal("2.5"))))
+        .build(),
+      request(IndicatorType.INDICATOR_TYPE_MACD, TypeOfPrice.TYPE_OF_PRICE_CLOSE)
+        .setSmoothing(GetTechAnalysisRequest.Smoothing.newBuilder()
+          .setFastLength(12).setSlowLength(26).setSignalSmoothing(9))
+        .build());
+  }
+
+  private static void assertMatchesServer(InvestApi api, List<GetTechAnalysisRequest> requests) {
+    var history = api.getMarketDataService().getCandlesSync(uid, from, from.plus(Duration.ofDays(1)),
+      CandleInterval.CANDLE_INTERVAL_1_MIN);
+    for (var request : requests) {
+      var expected = api.getMarketDataService().getTechAnalysisSync(request).getTechnicalIndicatorsList();
+      var indicator = Indicators.create(request);
+      assertEquals(history.size(), expected.size());
+      for (int i = 0; i < history.size(); i++) {
+        indicator.add(Indicators.price(history.get(i), request.getTypeOfPrice()));
+        assertItemEquals(expected.get(i), indicator.toItem(history.get(i).getTime()), request.getIndicatorType() + " #" + i);
+      }
+    }
+  }
+
+  @Test
+  void seedsFromHistoryAndUpdatesFromClosedBars_Test() {
+    var oneMinute = BarSpec.time(Duration.ofMinutes(1));
+    var seeded = new ExponentialMovingAverage(10);
+    Indicators.seed(seeded, candles.subList(0, 300), TypeOfPrice.TYPE_OF_PRICE_CLOSE);
+    var aggregator = new CandleAggregator(List.of(oneMinute), 10,
+      Indicators.listener(uid, oneMinute, TypeOfPrice.TYPE_OF_PRICE_CLOSE, seeded));
+    for (int i = 300; i < candles.size(); i++) {
+      aggregator.process(MarketDataResponse.newBuilder()
+        .setTrade(Trade.newBuilder()
+          .setInstrumentUid(uid)
+          .setPrice(candles.get(i).getClose())
+          .setQuantity(1)
+          .setTime(candles.get(i).getTime()))
+        .build());
+    }
+
+    var reference = new ExponentialMovingAverage(10);
+    Indicators.seed(reference, candles.subList(0, candles.size() - 1), TypeOfPrice.TYPE_OF_PRICE_CLOSE);
+    assertEquals(candles.size() - 1, seeded.count());
+    assertEquals(reference.getValue(), seeded.getValue(), 1e-9);
+  }
+
+  private static void assertItemEquals(GetTechAnalysisResponse.TechAnalysisItem expected,
+                                       GetTechAnalysisResponse.TechAnalysisItem actual,
+                                       String message) {
+    assertEquals(expected.getTimestamp(), actual.getTimestamp(), message);
+    assertQuotationEquals(expected.hasSignal(), expected.getSignal(), actual.hasSignal(), actual.getSignal(), message);
+    assertQuotationEquals(expected.hasMacd(), expected.getMacd(), actual.hasMacd(), actual.getMacd(), message);
+    assertQuotationEquals(expected.hasMiddleBand(), expected.getMiddleBand(),
+      actual.hasMiddleBand(), actual.getMiddleBand(), message);
+    assertQuotationEquals(expected.hasUpperBand(), expected.getUpperBand(),
+      actual.hasUpperBand(), actual.getUpperBand(), message);
+    assertQuotationEquals(expected.hasLowerBand(), expected.getLowerBand(),
+      actual.hasLowerBand(), actual.getLowerBand(), message);
+  }
+
+  private static void assertQuotationEquals(boolean expectedPresent, Quotation expected,
+                                            boolean actualPresent, Quotation actual, String message) {
+    assertEquals(expectedPresent, actualPresent, message);
+    if (expectedPresent) {
+      assertEquals(quotationToBigDecimal(expected).doubleValue(), quotationToBigDecimal(actual).doubleValue(), 1e-6, message);
+    }
+  }
+
+  private static GetTechAnalysisRequest.Builder request(IndicatorType type, TypeOfPrice typeOfPrice) {
+    return GetTechAnalysisRequest.newBuilder()
+      .setIndicatorType(type)
+      .setInstrumentUid(uid)
+      .setInterval(GetTechAnalysisRequest.IndicatorInterval.INDICATOR_INTERVAL_ONE_MINUTE)
+      .setTypeOfPrice(typeOfPrice);
+  }
+
+  private static List<HistoricCandle> candles(int count) {
+    var random = new Random(42);
+    var result = new ArrayList<HistoricCandle>();
+    var close = 250.0;
+    for (int i = 0; i < count; i++) {
+      var open = close;
+      close = Math.max(1, open + random.nextGaussian());
+      var high = Math.max(open, close) + random.nextDouble();
+      var low = Math.min(open, close) - random.nextDouble();
+      result.add(HistoricCandle.newBuilder()
+        .setOpen(price(open))
+        .setHigh(price(high))
+        .setLow(price(low))
+        .setClose(price(close))
+        .setVolume(random.nextInt(1000))
+        .setTime(Timestamp.newBuilder().setSeconds(from.getEpochSecond() + 60L * i))
+        .setIsComplete(true)
+        .build());
+    }
+    return result;
+  }
+
+  private static Quotation price(double value) {
+    return bigDecimalToQuotation(BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP));
+  }
+
+  /**
+   * Сервер, рассчитывающий индикаторы по определениям: каждое значение заново по всему окну или всей истории.
+   */
+  private static class ReferenceMarketDataService extends MarketDataServiceGrpc.MarketDataServiceImplBase {
+
+    private final List<HistoricCandle> candles;
+
+    ReferenceMarketDataService(List<HistoricCandle> candles) {
+      this.candles = candles;
+    }
+
+    @Override
+    public void getCandles(GetCandlesRequest request, StreamObserver<GetCandlesResponse> responseObserver) {
+      responseObserver.onNext(GetCandlesResponse.newBuilder().addAllCandles(candles).build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void getTechAnalysis(GetTechAnalysisRequest request,
+                                StreamObserver<GetTechAnalysisResponse> responseObserver) {
+      var prices = new double[candles.size()];
+      for (int i = 0; i < prices.length; i++) {
+        prices[i] = price(candles.get(i), request.getTypeOfPrice());
+      }
+      var response = GetTechAnalysisResponse.newBuilder();
+      for (int i = 0; i < prices.length; i++) {
+        var item = GetTechAnalysisResponse.TechAnalysisItem.newBuilder().setTimestamp(candles.get(i).getTime());
+        var length = request.getLength();
+        switch (request.getIndicatorType()) {
+          case INDICATOR_TYPE_SMA:
+            if (i >= length - 1) {
+              item.setSignal(quotation(mean(prices, i, length)));
+            }
+            break;
+          case INDICATOR_TYPE_EMA:
+            if (i >= length - 1) {
+              item.setSignal(quotation(ema(prices, i, length)));
+            }
+            break;
+          case INDICATOR_TYPE_RSI:
+            if (i >= length) {
+              item.setSignal(quotation(rsi(prices, i, length)));
+            }
+            break;
+          case INDICATOR_TYPE_BB:
+            if (i >= length - 1) {
+              var mean = mean(prices, i, length);
+              var squares = 0.0;
+              for (int j = i - length + 1; j <= i; j++) {
+                squares += (prices[j] - mean) * (prices[j] - mean);
+              }
+              var deviation = Math.sqrt(squares / length)
+                * quotationToBigDecimal(request.getDeviation().getDeviationMultiplier()).doubleValue();
+              item.setMiddleBand(quotation(mean))
+                .setUpperBand(quotation(mean + deviation))
+                .setLowerBand(quotation(mean - deviation));
+            }
+            break;
+          case INDICATOR_TYPE_MACD:
+            var smoothing = request.getSmoothing();
+            var slow = smoothing.getSlowLength();
+            if (i >= slow - 1) {
+              var macd = new double[i - slow + 2];
+              for (int j = slow - 1; j <= i; j++) {
+                macd[j - slow + 1] = ema(prices, j, smoothing.getFastLength()) - ema(prices, j, slow);
+              }
+              item.setMacd(quotation(macd[macd.length - 1]));
+              if (macd.length >= smoothing.getSignalSmoothing()) {
+                item.setSignal(quotation(ema(macd, macd.length - 1, smoothing.getSignalSmoothing())));
+              }
+            }
+            break;
+          default:
+            break;
+        }
+        response.addTechnicalIndicators(item);
+      }
+      responseObserver.onNext(response.build());
+      responseObserver.onCompleted();
+    }
+
+    private static double price(HistoricCandle candle, TypeOfPrice typeOfPrice) {
+      switch (typeOfPrice) {
+        case TYPE_OF_PRICE_CLOSE:
+          return quotationToBigDecimal(candle.getClose()).doubleValue();
+        case TYPE_OF_PRICE_OPEN:
+          return quotationToBigDecimal(candle.getOpen()).doubleValue();
+        case TYPE_OF_PRICE_HIGH:
+          return quotationToBigDecimal(candle.getHigh()).doubleValue();
+        case TYPE_OF_PRICE_LOW:
+          return quotationToBigDecimal(candle.getLow()).doubleValue();
+        case TYPE_OF_PRICE_AVG:
+          return quotationToBigDecimal(candle.getOpen())
+            .add(quotationToBigDecimal(candle.getHigh()))
+            .add(quotationToBigDecimal(candle.getLow()))
+            .add(quotationToBigDecimal(candle.getClose()))
+            .divide(BigDecimal.valueOf(4), 9, RoundingMode.HALF_UP)
+            .doubleValue();
+        default:
+          throw new IllegalArgumentException(typeOfPrice.toString());
+      }
+    }
+
+    private static Quotation quotation(double value) {
+      var units = (long) Math.floor(value);
+      var nano = Math.round((value - units) * 1e9);
+      if (nano == 1_000_000_000) {
+        units++;
+        nano = 0;
+      }
+      if (units < 0 && nano > 0) {
+        units++;
+        nano -= 1_000_000_000;
+      }
+      return Quotation.newBuilder().setUnits(units).setNano((int) nano).build();
+    }
+
+    private static double mean(double[] values, int last, int length) {
+      var sum = 0.0;
+      for (int j = last - length + 1; j <= last; j++) {
+        sum += values[j];
+      }
+      return sum / length;
+    }
+
+    private static double ema(double[] values, int last, int length) {
+      var alpha = 2.0 / (length + 1);
+      var result = mean(values, length - 1, length);
+      for (int j = length; j <= last; j++) {
+        result = alpha * values[j] + (1 - alpha) * result;
+      }
+      return result;
+    }
+
+    private static double rsi(double[] values, int last, int length) {
+      var gain = 0.0;
+      var loss = 0.0;
+      for (int j = 1; j <= last; j++) {
+        var change = values[j] - values[j - 1];
+        var up = Math.max(change, 0);
+        var down = Math.max(-change, 0);
+        if (j <= length) {
+          gain += up / length;
+          loss += down / length;
+        } else {
+          gain = (gain * (length - 1) + up) / length;
+          loss = (loss * (length - 1) + down) / length;
+        }
+      }
+      if (loss == 0) {
+        // Цена в окне не менялась: ни роста, ни падения, индекс нейтрален.
+        return gain == 0 ? 50 : 100;
+      }
+      return 100 - 100 / (1 + gain / loss);
+    }
+  }
+}
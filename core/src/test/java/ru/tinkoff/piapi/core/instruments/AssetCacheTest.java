@@ -0,0 +1,187 @@
+package ru.tinkoff.piapi.core.instruments;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.AssetFull;
+import ru.tinkoff.piapi.contract.v1.AssetRequest;
+import ru.tinkoff.piapi.contract.v1.AssetResponse;
+import ru.tinkoff.piapi.contract.v1.Brand;
+import ru.tinkoff.piapi.contract.v1.GetAssetFundamentalsRequest;
+import ru.tinkoff.piapi.contract.v1.GetAssetFundamentalsResponse;
+import ru.tinkoff.piapi.contract.v1.GetBrandRequest;
+import ru.tinkoff.piapi.contract.v1.InstrumentsServiceGrpc;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+import ru.tinkoff.piapi.core.exception.ApiRuntimeException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AssetCacheTest {
+
+  private final InstrumentsService grpcService = new InstrumentsService();
+  private final MutableClock clock = new MutableClock();
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+
+  @Test
+  void batchesMissesAndServesHitsFromCache_Test() throws Exception {
+    var cache = new AssetCache(mkInstrumentsService(), Duration.ofMinutes(10), 4, clock);
+    var uids = IntStream.range(0, 250).mapToObj(i -> "asset-" + i).collect(Collectors.toList());
+    var request = new ArrayList<>(uids);
+    request.add("none-1");
+    request.add("asset-0");
+
+    var result = cache.getFundamentalsSync(request);
+    assertEquals(250, result.size());
+    assertEquals(List.copyOf(uids), List.copyOf(result.keySet()));
+    assertEquals(3, grpcService.fundamentalsRequests.size());
+    assertEquals(List.of(100, 100, 51), grpcService.fundamentalsRequests.stream()
+      .map(GetAssetFundamentalsRequest::getAssetsCount)
+      .collect(Collectors.toList()));
+
+    assertEquals(2, cache.getFundamentalsSync(List.of("asset-7", "asset-8", "none-1")).size());
+    assertEquals(3, grpcService.fundamentalsRequests.size());
+
+    assertEquals(2, cache.getFundamentalsSync(List.of("asset-7", "asset-300")).size());
+    assertEquals(List.of("asset-300"), grpcService.fundamentalsRequests.get(3).getAssetsList());
+
+    clock.advance(Duration.ofMinutes(10));
+    cache.getFundamentals(List.of("asset-7")).get();
+    assertEquals(List.of("asset-7"), grpcService.fundamentalsRequests.get(4).getAssetsList());
+
+    cache.evictExpired();
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void limitsConcurrentRequests_Test() {
+    grpcService.holdFundamentals = true;
+    var cache = new AssetCache(mkInstrumentsService(), Duration.ofMinutes(10), 2, clock);
+    var uids = IntStream.range(0, 450).mapToObj(i -> "asset-" + i).collect(Collectors.toList());
+
+    var future = cache.getFundamentals(uids);
+    assertEquals(2, grpcService.heldFundamentals.size());
+    while (!grpcService.heldFundamentals.isEmpty()) {
+      assertTrue(grpcService.heldFundamentals.size() <= 2);
+      grpcService.releaseFundamentals();
+    }
+    assertEquals(450, future.join().size());
+    assertEquals(5, grpcService.fundamentalsRequests.size());
+  }
+
+  @Test
+  void cachesAssetsAndBrandsAndDoesNotCacheErrors_Test() {
+    var cache = new AssetCache(mkInstrumentsService(), Duration.ofMinutes(10), 4, clock);
+
+    assertEquals("asset-1", cache.getAssetSync("asset-1").getUid());
+    assertEquals("asset-1", cache.getAsset("asset-1").join().getUid());
+    assertEquals("brand-1", cache.getBrandSync("brand-1").getUid());
+    assertEquals("brand-1", cache.getBrandSync("brand-1").getUid());
+    assertEquals(1, grpcService.assetRequests.get());
+    assertEquals(1, grpcService.brandRequests.get());
+
+    assertThrows(ApiRuntimeException.class, () -> cache.getAssetSync("none-1"));
+    assertThrows(ApiRuntimeException.class, () -> cache.getAssetSync("none-1"));
+    assertEquals(3, grpcService.assetRequests.get());
+    assertFalse(cache.getAsset("asset-1").isCompletedExceptionally());
+  }
+
+  private ru.tinkoff.piapi.core.InstrumentsService mkInstrumentsService() {
+    return InvestApi.create(grpc.start(grpcService)).getInstrumentsService();
+  }
+
+  private static class InstrumentsService extends InstrumentsServiceGrpc.InstrumentsServiceImplBase {
+    private final List<GetAssetFundamentalsRequest> fundamentalsRequests = new CopyOnWriteArrayList<>();
+    private final List<Runnable> heldFundamentals = new CopyOnWriteArrayList<>();
+    private final AtomicInteger assetRequests = new AtomicInteger();
+    private final AtomicInteger brandRequests = new AtomicInteger();
+    private volatile boolean holdFundamentals;
+
+    @Override
+    public void getAssetFundamentals(GetAssetFundamentalsRequest request,
+                                     StreamObserver<GetAssetFundamentalsResponse> responseObserver) {
+      fundamentalsRequests.add(request);
+      var response = GetAssetFundamentalsResponse.newBuilder();
+      for (var uid : request.getAssetsList()) {
+        if (!uid.startsWith("none")) {
+          response.addFundamentals(GetAssetFundamentalsResponse.StatisticResponse.newBuilder()
+            .setAssetUid(uid)
+            .setBeta(1.1));
+        }
+      }
+      Runnable reply = () -> {
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+      };
+      if (holdFundamentals) {
+        heldFundamentals.add(reply);
+      } else {
+        reply.run();
+      }
+    }
+
+    void releaseFundamentals() {
+      heldFundamentals.remove(0).run();
+    }
+
+    @Override
+    public void getAssetBy(AssetRequest request, StreamObserver<AssetResponse> responseObserver) {
+      assetRequests.incrementAndGet();
+      if (request.getId().startsWith("none")) {
+        responseObserver.onError(Status.NOT_FOUND.withDescription("50002").asRuntimeException());
+        return;
+      }
+      responseObserver.onNext(AssetResponse.newBuilder()
+        .setAsset(AssetFull.newBuilder().setUid(request.getId()))
+        .build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void getBrandBy(GetBrandRequest request, StreamObserver<Brand> responseObserver) {
+      brandRequests.incrementAndGet();
+      responseObserver.onNext(Brand.newBuilder().setUid(request.getId()).build());
+      responseObserver.onCompleted();
+    }
+  }
+
+  private static class MutableClock extends Clock {
+    private volatile Instant instant = Instant.parse("2023-10-06T10:00:00Z");
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package ru.tinkoff.piapi.core.instruments;
+
+import org.junit.jupiter.api.Test;
+import ru.tinkoff.piapi.contract.v1.Candle;
+import ru.tinkoff.piapi.contract.v1.CandleSubscription;
+import ru.tinkoff.piapi.contract.v1.Future;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.Option;
+import ru.tinkoff.piapi.contract.v1.Ping;
+import ru.tinkoff.piapi.contract.v1.Share;
+import ru.tinkoff.piapi.contract.v1.SubscribeCandlesResponse;
+import ru.tinkoff.piapi.contract.v1.Trade;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InstrumentIdInternerTest {
+
+  private static final Share sber = Share.newBuilder()
+    .setFigi("BBG004730N88")
+    .setUid("e6123145-9665-43e0-8413-cd61b8aa9b13")
+    .setPositionUid("41eb2102-5333-4713-bf15-72b204c4bf7b")
+    .setTicker("SBER")
+    .setClassCode("TQBR")
+    .build();
+
+  @Test
+  void registersAllIdentifiers_Test() {
+    var interner = new InstrumentIdInterner();
+    var sberId = interner.register(sber);
+    var futureId = interner.register(Future.newBuilder()
+      .setFigi("FUTSBRF06240")
+      .setUid("b7d1e9f0-0000-4000-8000-000000000001")
+      .setTicker("SBER")
+      .setClassCode("SPBFUT")
+      .build());
+    var optionId = interner.register(Option.newBuilder()
+      .setUid("b7d1e9f0-0000-4000-8000-000000000002")
+      .setTicker("SR300CF4")
+      .setClassCode("SPBOPT")
+      .build());
+
+    assertEquals(0, sberId);
+    assertEquals(1, futureId);
+    assertEquals(2, optionId);
+    assertEquals(3, interner.size());
+    assertEquals(sberId, interner.idOf("BBG004730N88"));
+    assertEquals(sberId, interner.idOf("e6123145-9665-43e0-8413-cd61b8aa9b13"));
+    assertEquals(sberId, interner.idOf("41eb2102-5333-4713-bf15-72b204c4bf7b"));
+    assertEquals(sberId, interner.idOf("SBER_TQBR"));
+    assertEquals(sberId, interner.idOf("SBER"));
+    assertEquals(futureId, interner.idOf("SBER_SPBFUT"));
+    assertEquals(optionId, interner.idOf("SR300CF4"));
+    assertEquals(InstrumentIdInterner.UNKNOWN, interner.idOf("GAZP"));
+    assertEquals(InstrumentIdInterner.UNKNOWN, interner.idOf(""));
+    assertEquals("SPBFUT", interner.getClassCode(futureId));
+    assertEquals("", interner.getFigi(optionId));
+    assertThrows(IndexOutOfBoundsException.class, () -> interner.getFigi(3));
+  }
+
+  @Test
+  void mergesIdentifiersFromSubscriptions_Test() {
+    var interner = new InstrumentIdInterner();
+    interner.registerSubscriptions(MarketDataResponse.newBuilder()
+      .setSubscribeCandlesResponse(SubscribeCandlesResponse.newBuilder()
+        .addCandlesSubscriptions(CandleSubscription.newBuilder()
+          .setFigi(sber.getFigi())
+          .setInstrumentUid(sber.getUid())))
+      .build());
+    var id = interner.register(sber);
+
+    assertEquals(0, id);
+    assertEquals(1, interner.size());
+    assertEquals("SBER", interner.getTicker(id));
+    assertEquals(sber.getPositionUid(), interner.getPositionUid(id));
+    assertEquals(id, interner.idOf(MarketDataResponse.newBuilder()
+      .setCandle(Candle.newBuilder().setInstrumentUid(sber.getUid()))
+      .build()));
+    assertEquals(id, interner.idOf(MarketDataResponse.newBuilder()
+      .setTrade(Trade.newBuilder().setFigi(sber.getFigi()))
+      .build()));
+    assertEquals(InstrumentIdInterner.UNKNOWN, interner.idOf(MarketDataResponse.newBuilder()
+      .setPing(Ping.getDefaultInstance())
+      .build()));
+  }
+
+  @Test
+  void lookupsWhileRegistering_Test() throws InterruptedException {
+    var interner = new InstrumentIdInterner();
+    var count = 20_000;
+    var failure = new AtomicReference<String>();
+    var started = new CountDownLatch(1);
+    var readers = new ArrayList<Thread>();
+    for (int r = 0; r < 4; r++) {
+      var reader = new Thread(() -> {
+        started.countDown();
+        while (interner.size() < count) {
+          var size = interner.size();
+          for (int i = Math.max(0, size - 100); i < size; i++) {
+            if (interner.idOf("FIGI" + i) != i || !interner.getUid(i).equals("UID" + i)) {
+              failure.set("FIGI" + i);
+            }
+          }
+        }
+      });
+      reader.start();
+      readers.add(reader);
+    }
+    started.await();
+    for (int i = 0; i < count; i++) {
+      interner.register("FIGI" + i, "UID" + i, "", "T" + i, "TQBR");
+    }
+    for (var reader : readers) {
+      reader.join();
+    }
+
+    assertNull(failure.get());
+    assertEquals(count, interner.size());
+    assertEquals(count - 1, interner.idOf("T" + (count - 1) + "_TQBR"));
+  }
+}
@@ -0,0 +1,109 @@
+package ru.tinkoff.piapi.core.instruments;
+
+import org.junit.jupiter.api.Test;
+import ru.tinkoff.piapi.contract.v1.Bond;
+import ru.tinkoff.piapi.contract.v1.Future;
+import ru.tinkoff.piapi.contract.v1.Instrument;
+import ru.tinkoff.piapi.contract.v1.InstrumentType;
+import ru.tinkoff.piapi.contract.v1.Quotation;
+import ru.tinkoff.piapi.contract.v1.SecurityTradingStatus;
+import ru.tinkoff.piapi.contract.v1.Share;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InstrumentMetadataTableTest {
+
+  @Test
+  void storesColumnsByInternedId_Test() {
+    var interner = new InstrumentIdInterner();
+    var table = new InstrumentMetadataTable(interner);
+    var sber = table.put(Share.newBuilder()
+      .setFigi("BBG004730N88")
+      .setUid("e6123145-9665-43e0-8413-cd61b8aa9b13")
+      .setTicker("SBER")
+      .setClassCode("TQBR")
+      .setLot(10)
+      .setMinPriceIncrement(Quotation.newBuilder().setNano(10_000_000))
+      .setCurrency("rub")
+      .setExchange("MOEX_EVENING_WEEKEND")
+      .setTradingStatus(SecurityTradingStatus.SECURITY_TRADING_STATUS_NORMAL_TRADING)
+      .setApiTradeAvailableFlag(true)
+      .setBuyAvailableFlag(true)
+      .setSellAvailableFlag(true)
+      .setShortEnabledFlag(true)
+      .setWeekendFlag(true)
+      .build());
+    var bond = table.put(Bond.newBuilder()
+      .setFigi("BBG00T22WKV5")
+      .setUid("00486cd8-3c6b-4b8e-bb10-e4b0f2bc73ba")
+      .setLot(1)
+      .setMinPriceIncrement(Quotation.newBuilder().setNano(1_000_000))
+      .setCurrency("usd")
+      .setExchange("MOEX")
+      .setForQualInvestorFlag(true)
+      .build());
+    var future = table.put(Future.newBuilder()
+      .setFigi("FUTSBRF06240")
+      .setLot(1)
+      .setMinPriceIncrement(Quotation.newBuilder().setUnits(1))
+      .setCurrency("rub")
+      .setExchange("FORTS")
+      .build());
+
+    assertEquals(interner.idOf("SBER_TQBR"), sber);
+    assertEquals(10, table.lot(sber));
+    assertEquals(10_000_000, table.minPriceIncrement(sber));
+    assertEquals(1_000_000_000, table.minPriceIncrement(future));
+    assertEquals("rub", table.currencyName(table.currencyId(sber)));
+    assertEquals(table.currencyId(sber), table.currencyId(future));
+    assertEquals("usd", table.currencyName(table.currencyId(bond)));
+    assertEquals("FORTS", table.exchangeName(table.exchangeId(future)));
+    assertEquals(InstrumentType.INSTRUMENT_TYPE_SHARE, table.kind(sber));
+    assertEquals(InstrumentType.INSTRUMENT_TYPE_FUTURES, table.kind(future));
+    assertEquals(SecurityTradingStatus.SECURITY_TRADING_STATUS_NORMAL_TRADING, table.tradingStatus(sber));
+    assertTrue(table.hasFlags(sber, InstrumentMetadataTable.API_TRADE_AVAILABLE | InstrumentMetadataTable.SHORT_ENABLED));
+    assertFalse(table.hasFlags(sber, InstrumentMetadataTable.FOR_QUAL_INVESTOR));
+    assertEquals(InstrumentMetadataTable.FOR_QUAL_INVESTOR, table.flags(bond));
+    assertEquals(0, table.flags(future));
+
+    table.setTradingStatus(sber, SecurityTradingStatus.SECURITY_TRADING_STATUS_BREAK_IN_TRADING);
+    assertEquals(SecurityTradingStatus.SECURITY_TRADING_STATUS_BREAK_IN_TRADING, table.tradingStatus(sber));
+  }
+
+  @Test
+  void growsAndRejectsUnknownIds_Test() {
+    var interner = new InstrumentIdInterner();
+    var unloaded = interner.register("BBG000000000", "", "", "", "");
+    var table = new InstrumentMetadataTable(interner);
+    for (int i = 0; i < 100; i++) {
+      table.put(Share.newBuilder().setFigi("FIGI" + i).setLot(i + 1).build());
+    }
+
+    assertEquals(100, table.lot(interner.idOf("FIGI99")));
+    assertFalse(table.contains(unloaded));
+    assertFalse(table.contains(InstrumentIdInterner.UNKNOWN));
+    assertThrows(IllegalArgumentException.class, () -> table.lot(unloaded));
+  }
+
+  @Test
+  void storesUnrecognizedEnumValues_Test() {
+    var table = new InstrumentMetadataTable(new InstrumentIdInterner());
+    var share = table.put(Share.newBuilder().setFigi("BBG004730N88").setTradingStatusValue(999).build());
+    var instrument = table.put(Instrument.newBuilder()
+      .setFigi("BBG00T22WKV5")
+      .setInstrumentKindValue(300)
+      .setTradingStatusValue(257)
+      .build());
+
+    assertEquals(SecurityTradingStatus.UNRECOGNIZED, table.tradingStatus(share));
+    assertEquals(InstrumentType.UNRECOGNIZED, table.kind(instrument));
+    assertEquals(SecurityTradingStatus.UNRECOGNIZED, table.tradingStatus(instrument));
+
+    table.setTradingStatus(share, SecurityTradingStatus.SECURITY_TRADING_STATUS_NORMAL_TRADING);
+    table.setTradingStatus(share, SecurityTradingStatus.UNRECOGNIZED);
+    assertEquals(SecurityTradingStatus.UNRECOGNIZED, table.tradingStatus(share));
+  }
+}
@@ -0,0 +1,165 @@
+package ru.tinkoff.piapi.core.instruments;
+
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.Bond;
+import ru.tinkoff.piapi.contract.v1.BondsResponse;
+import ru.tinkoff.piapi.contract.v1.CurrenciesResponse;
+import ru.tinkoff.piapi.contract.v1.EtfsResponse;
+import ru.tinkoff.piapi.contract.v1.FuturesResponse;
+import ru.tinkoff.piapi.contract.v1.InstrumentShort;
+import ru.tinkoff.piapi.contract.v1.InstrumentType;
+import ru.tinkoff.piapi.contract.v1.InstrumentsRequest;
+import ru.tinkoff.piapi.contract.v1.InstrumentsServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.OptionsResponse;
+import ru.tinkoff.piapi.contract.v1.Share;
+import ru.tinkoff.piapi.contract.v1.SharesResponse;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InstrumentSearchIndexTest {
+
+  private static final InstrumentShort sber = instrument("SBER", "TQBR", "Сбер Банк", "BBG004730N88",
+    "e6123145-9665-43e0-8413-cd61b8aa9b13", "RU0009029540", InstrumentType.INSTRUMENT_TYPE_SHARE, true);
+  private static final InstrumentShort sberp = instrument("SBERP", "TQBR", "Сбер Банк - привилегированные акции",
+    "BBG0047315Y7", "c3d5a8b1-3c5f-4a2d-9f6e-000000000001", "RU0009029557", InstrumentType.INSTRUMENT_TYPE_SHARE, true);
+  private static final InstrumentShort bond = instrument("RU000A0JX0J2", "TQCB", "Сбербанк выпуск 1",
+    "BBG00GRK6X33", "c3d5a8b1-3c5f-4a2d-9f6e-000000000002", "RU000A0JX0J2", InstrumentType.INSTRUMENT_TYPE_BOND, false);
+  private static final InstrumentShort gazp = instrument("GAZP", "TQBR", "Газпром", "BBG004730RP0",
+    "962e2a95-02a9-4171-abd7-aa198dbe643a", "RU0007661625", InstrumentType.INSTRUMENT_TYPE_SHARE, true);
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+
+  @Test
+  void findsByIdentifiersTickerAndName_Test() {
+    var index = new InstrumentSearchIndex();
+    index.update(List.of(gazp, bond, sberp, sber));
+
+    assertEquals(List.of(sber), index.find("bbg004730n88"));
+    assertEquals(List.of(sber), index.find("RU0009029540"));
+    assertEquals(List.of(sber), index.find("SBER_TQBR"));
+    assertEquals(List.of(sber, sberp), index.find("sber"));
+    assertEquals(List.of(bond, sber, sberp), index.find("сбер"));
+    assertEquals(List.of(sberp), index.find("привилег"));
+    assertEquals(List.of(gazp), index.find(" газ "));
+    assertEquals(List.of(), index.find("лукойл"));
+    assertEquals(List.of(), index.find(""));
+    assertEquals(gazp, index.get("962e2a95-02a9-4171-abd7-aa198dbe643a"));
+    assertNull(index.get("GAZP"));
+  }
+
+  @Test
+  void appliesFiltersAndLimit_Test() {
+    var index = new InstrumentSearchIndex();
+    index.update(List.of(gazp, bond, sberp, sber));
+
+    assertEquals(List.of(bond), index.find("сбер", InstrumentType.INSTRUMENT_TYPE_BOND, false, 10));
+    assertEquals(List.of(sber, sberp), index.find("сбер", null, true, 10));
+    assertEquals(List.of(bond), index.find("сбер", InstrumentType.INSTRUMENT_TYPE_UNSPECIFIED, false, 1));
+  }
+
+  @Test
+  void refreshesFromInstrumentsServiceInBackground_Test() throws Exception {
+    var channel = grpc.start(new InstrumentsService());
+    var executor = Executors.newSingleThreadExecutor();
+    try {
+      var index = new InstrumentSearchIndex();
+      index.update(List.of(gazp));
+      index.refreshAsync(InvestApi.create(channel).getInstrumentsService(), executor).get();
+
+      assertEquals(2, index.size());
+      var found = index.find("sber");
+      assertEquals(1, found.size());
+      assertEquals("share", found.get(0).getInstrumentType());
+      assertEquals(InstrumentType.INSTRUMENT_TYPE_SHARE, found.get(0).getInstrumentKind());
+      assertEquals("Сбер Банк", found.get(0).getName());
+      assertTrue(found.get(0).getApiTradeAvailableFlag());
+      assertEquals(List.of(InstrumentType.INSTRUMENT_TYPE_BOND),
+        index.find("ОФЗ").stream().map(InstrumentShort::getInstrumentKind).collect(Collectors.toList()));
+
+      var before = index.find("sber").get(0);
+      index.refresh(InvestApi.create(channel).getInstrumentsService());
+      assertSame(before, index.find("sber").get(0));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static InstrumentShort instrument(String ticker, String classCode, String name, String figi, String uid,
+                                            String isin, InstrumentType kind, boolean apiTradeAvailable) {
+    return InstrumentShort.newBuilder()
+      .setTicker(ticker)
+      .setClassCode(classCode)
+      .setName(name)
+      .setFigi(figi)
+      .setUid(uid)
+      .setIsin(isin)
+      .setInstrumentKind(kind)
+      .setApiTradeAvailableFlag(apiTradeAvailable)
+      .build();
+  }
+
+  private static class InstrumentsService extends InstrumentsServiceGrpc.InstrumentsServiceImplBase {
+    @Override
+    public void shares(InstrumentsRequest request, StreamObserver<SharesResponse> responseObserver) {
+      responseObserver.onNext(SharesResponse.newBuilder()
+        .addInstruments(Share.newBuilder()
+          .setTicker("SBER")
+          .setClassCode("TQBR")
+          .setName("Сбер Банк")
+          .setFigi("BBG004730N88")
+          .setUid("e6123145-9665-43e0-8413-cd61b8aa9b13")
+          .setApiTradeAvailableFlag(true))
+        .build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void bonds(InstrumentsRequest request, StreamObserver<BondsResponse> responseObserver) {
+      responseObserver.onNext(BondsResponse.newBuilder()
+        .addInstruments(Bond.newBuilder()
+          .setTicker("SU26238RMFS4")
+          .setClassCode("TQOB")
+          .setName("ОФЗ 26238")
+          .setFigi("BBG00ZPPNH63")
+          .setUid("1f8a5e4d-0000-4000-8000-000000000003"))
+        .build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void etfs(InstrumentsRequest request, StreamObserver<EtfsResponse> responseObserver) {
+      responseObserver.onNext(EtfsResponse.getDefaultInstance());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void currencies(InstrumentsRequest request, StreamObserver<CurrenciesResponse> responseObserver) {
+      responseObserver.onNext(CurrenciesResponse.getDefaultInstance());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void futures(InstrumentsRequest request, StreamObserver<FuturesResponse> responseObserver) {
+      responseObserver.onNext(FuturesResponse.getDefaultInstance());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void options(InstrumentsRequest request, StreamObserver<OptionsResponse> responseObserver) {
+      responseObserver.onNext(OptionsResponse.getDefaultInstance());
+      responseObserver.onCompleted();
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package ru.tinkoff.piapi.core.instruments;
+
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.FilterOptionsRequest;
+import ru.tinkoff.piapi.contract.v1.InstrumentsServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.LastPrice;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.Option;
+import ru.tinkoff.piapi.contract.v1.OptionDirection;
+import ru.tinkoff.piapi.contract.v1.OptionsResponse;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+import ru.tinkoff.piapi.core.utils.DateUtils;
+import ru.tinkoff.piapi.core.utils.MapperUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class OptionsChainTest {
+
+  private static final String SBER = "e6123145-9665-43e0-8413-cd61b8aa9b13";
+  private static final Instant OCTOBER = Instant.parse("2023-10-19T15:50:00Z");
+  private static final Instant NOVEMBER = Instant.parse("2023-11-16T15:50:00Z");
+
+  private static final Option call260 = option("c260", OCTOBER, "260", OptionDirection.OPTION_DIRECTION_CALL);
+  private static final Option put260 = option("p260", OCTOBER, "260", OptionDirection.OPTION_DIRECTION_PUT);
+  private static final Option call265 = option("c265", OCTOBER, "265", OptionDirection.OPTION_DIRECTION_CALL);
+  private static final Option put270 = option("p270", OCTOBER, "270", OptionDirection.OPTION_DIRECTION_PUT);
+  private static final Option call262 = option("c262.5", NOVEMBER, "262.5", OptionDirection.OPTION_DIRECTION_CALL);
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+
+  @Test
+  void answersExpirationAndStrikeQueries_Test() {
+    var chain = new OptionsChain();
+    chain.update(SBER, List.of(call262, put270, call265, put260, call260));
+
+    assertEquals(List.of(OCTOBER, NOVEMBER), chain.getExpirations(SBER));
+    assertEquals(OCTOBER, chain.getNearestExpiration(SBER, Instant.parse("2023-10-01T00:00:00Z")));
+    assertEquals(NOVEMBER, chain.getNearestExpiration(SBER, OCTOBER.plusMillis(1)));
+    assertNull(chain.getNearestExpiration(SBER, NOVEMBER.plusMillis(1)));
+    assertEquals(List.of(new BigDecimal("260"), new BigDecimal("265"), new BigDecimal("270")),
+      chain.getStrikes(SBER, OCTOBER));
+
+    assertEquals(new BigDecimal("265"), chain.getNearestStrike(SBER, OCTOBER, new BigDecimal("266.3")));
+    assertEquals(new BigDecimal("260"), chain.getNearestStrike(SBER, OCTOBER, new BigDecimal("262.5")));
+    assertEquals(new BigDecimal("270"), chain.getNearestStrike(SBER, OCTOBER, new BigDecimal("1000")));
+    assertNull(chain.getNearestStrike(SBER, Instant.parse("2023-10-20T00:00:00Z"), new BigDecimal("260")));
+
+    assertSame(put260, chain.getOption(SBER, OCTOBER, new BigDecimal("260.0"), OptionDirection.OPTION_DIRECTION_PUT));
+    assertNull(chain.getOption(SBER, OCTOBER, new BigDecimal("270"), OptionDirection.OPTION_DIRECTION_CALL));
+    assertSame(put270, chain.getNearestOption(SBER, OCTOBER, new BigDecimal("266"), OptionDirection.OPTION_DIRECTION_PUT));
+    assertSame(call265, chain.getNearestOption(SBER, OCTOBER, new BigDecimal("269"), OptionDirection.OPTION_DIRECTION_CALL));
+    assertSame(call262, chain.getNearestOption(SBER, OCTOBER.plusSeconds(1), new BigDecimal("269"),
+      OptionDirection.OPTION_DIRECTION_CALL));
+    assertNull(chain.getNearestOption(SBER, OCTOBER.plusSeconds(1), new BigDecimal("269"),
+      OptionDirection.OPTION_DIRECTION_PUT));
+    assertEquals(List.of(), chain.getExpirations("unknown"));
+  }
+
+  @Test
+  void keepsLastPricesAcrossRefresh_Test() throws Exception {
+    var instrumentsService = InvestApi.create(grpc.start(new InstrumentsService())).getInstrumentsService();
+    var chain = new OptionsChain();
+    chain.refresh(instrumentsService, SBER);
+
+    chain.process(lastPrice("c260", "7.35"));
+    chain.process(lastPrice("BBG004730N88", "265"));
+    assertEquals(new BigDecimal("7.35"), chain.getLastPrice("c260"));
+    assertNull(chain.getLastPrice("p260"));
+    assertNull(chain.getLastPrice("BBG004730N88"));
+
+    chain.refresh(instrumentsService, SBER);
+    assertEquals(new BigDecimal("7.35"), chain.getLastPrice("c260"));
+    assertEquals(Set.of(SBER), chain.getBasicAssets());
+
+    chain.update(SBER, List.of(put260));
+    assertNull(chain.getLastPrice("c260"));
+    chain.process(lastPrice("c260", "8"));
+    assertNull(chain.getLastPrice("c260"));
+  }
+
+  private static MarketDataResponse lastPrice(String uid, String price) {
+    return MarketDataResponse.newBuilder()
+      .setLastPrice(LastPrice.newBuilder()
+        .setInstrumentUid(uid)
+        .setPrice(MapperUtils.bigDecimalToQuotation(new BigDecimal(price))))
+      .build();
+  }
+
+  private static Option option(String uid, Instant expiration, String strike, OptionDirection direction) {
+    return Option.newBuilder()
+      .setUid(uid)
+      .setTicker(uid.toUpperCase())
+      .setExpirationDate(DateUtils.instantToTimestamp(expiration))
+      .setStrikePrice(MapperUtils.bigDecimalToMoneyValue(new BigDecimal(strike), "rub"))
+      .setDirection(direction)
+      .build();
+  }
+
+  private static class InstrumentsService extends InstrumentsServiceGrpc.InstrumentsServiceImplBase {
+    @Override
+    public void optionsBy(FilterOptionsRequest request, StreamObserver<OptionsResponse> responseObserver) {
+      var response = OptionsResponse.newBuilder();
+      if (SBER.equals(request.getBasicAssetUid())) {
+        response.addAllInstruments(List.of(call260, put260, call265, put270));
+      }
+      responseObserver.onNext(response.build());
+      responseObserver.onCompleted();
+    }
+  }
+}
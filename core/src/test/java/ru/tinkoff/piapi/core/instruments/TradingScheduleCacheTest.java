@@ -0,0 +1,101 @@
+package ru.tinkoff.piapi.core.instruments;
+
+import com.google.protobuf.Timestamp;
+import org.junit.jupiter.api.Test;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.SecurityTradingStatus;
+import ru.tinkoff.piapi.contract.v1.TradingDay;
+import ru.tinkoff.piapi.contract.v1.TradingInterval;
+import ru.tinkoff.piapi.contract.v1.TradingSchedule;
+import ru.tinkoff.piapi.contract.v1.TradingStatus;
+import ru.tinkoff.piapi.core.utils.DateUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TradingScheduleCacheTest {
+
+  private static final TradingSchedule moex = TradingSchedule.newBuilder()
+    .setExchange("MOEX")
+    .addDays(TradingDay.newBuilder()
+      .setDate(timestamp("2023-10-06T00:00:00Z"))
+      .setIsTradingDay(true)
+      .setStartTime(timestamp("2023-10-06T06:50:00Z"))
+      .setEndTime(timestamp("2023-10-06T15:39:59Z"))
+      .setEveningStartTime(timestamp("2023-10-06T16:05:00Z"))
+      .setEveningEndTime(timestamp("2023-10-06T20:49:59Z")))
+    .addDays(TradingDay.newBuilder()
+      .setDate(timestamp("2023-10-07T00:00:00Z"))
+      .setIsTradingDay(false))
+    .addDays(TradingDay.newBuilder()
+      .setDate(timestamp("2023-10-09T00:00:00Z"))
+      .setIsTradingDay(true)
+      .addIntervals(interval("regular", "2023-10-09T06:50:00Z", "2023-10-09T15:39:59Z"))
+      .addIntervals(interval("opening_auction", "2023-10-09T06:50:00Z", "2023-10-09T07:00:00Z"))
+      .addIntervals(interval("closing_auction", "2023-10-09T15:40:00Z", "2023-10-09T15:50:00Z")))
+    .build();
+
+  @Test
+  void answersSessionQueries_Test() {
+    var cache = new TradingScheduleCache(Duration.ofDays(7));
+    cache.update(List.of(moex));
+
+    assertEquals(TradingScheduleCache.SESSION_MAIN, cache.getSession("MOEX", Instant.parse("2023-10-06T10:00:00Z")));
+    assertEquals(TradingScheduleCache.SESSION_EVENING, cache.getSession("MOEX", Instant.parse("2023-10-06T16:05:00Z")));
+    assertFalse(cache.isOpen("MOEX", Instant.parse("2023-10-06T15:50:00Z")));
+    assertFalse(cache.isOpen("MOEX", Instant.parse("2023-10-07T10:00:00Z")));
+    assertTrue(cache.isOpen("MOEX", Instant.parse("2023-10-09T06:55:00Z")));
+    assertEquals("regular", cache.getSession("MOEX", Instant.parse("2023-10-09T12:00:00Z")));
+    assertEquals("closing_auction", cache.getSession("MOEX", Instant.parse("2023-10-09T15:45:00Z")));
+    assertFalse(cache.isOpen("SPB", Instant.parse("2023-10-09T12:00:00Z")));
+
+    assertEquals(Instant.parse("2023-10-06T16:05:00Z"), cache.getNextOpen("MOEX", Instant.parse("2023-10-06T15:50:00Z")));
+    assertEquals(Duration.ofMinutes(15), cache.getTimeToOpen("MOEX", Instant.parse("2023-10-06T15:50:00Z")));
+    assertEquals(Duration.ZERO, cache.getTimeToOpen("MOEX", Instant.parse("2023-10-06T10:00:00Z")));
+    assertEquals(Instant.parse("2023-10-09T06:50:00Z"), cache.getNextOpen("MOEX", Instant.parse("2023-10-07T10:00:00Z")));
+    assertNull(cache.getNextOpen("MOEX", Instant.parse("2023-10-09T16:00:00Z")));
+  }
+
+  @Test
+  void liveTradingStatusOverridesSchedule_Test() {
+    var cache = new TradingScheduleCache(Duration.ofDays(7));
+    cache.update(List.of(moex));
+    var open = Instant.parse("2023-10-06T10:00:00Z");
+    var uid = "e6123145-9665-43e0-8413-cd61b8aa9b13";
+
+    assertTrue(cache.isLimitOrderAvailable(uid, "MOEX", open));
+    cache.process(MarketDataResponse.newBuilder()
+      .setTradingStatus(TradingStatus.newBuilder()
+        .setInstrumentUid(uid)
+        .setFigi("BBG004730N88")
+        .setTradingStatus(SecurityTradingStatus.SECURITY_TRADING_STATUS_OPENING_AUCTION_PERIOD)
+        .setLimitOrderAvailableFlag(true)
+        .setMarketOrderAvailableFlag(false))
+      .build());
+
+    assertTrue(cache.isLimitOrderAvailable(uid, "MOEX", open));
+    assertFalse(cache.isMarketOrderAvailable("BBG004730N88", "MOEX", open));
+    assertEquals(SecurityTradingStatus.SECURITY_TRADING_STATUS_OPENING_AUCTION_PERIOD,
+      cache.getTradingStatus(uid).getTradingStatus());
+    assertTrue(cache.isMarketOrderAvailable("BBG0047315Y7", "MOEX", open));
+  }
+
+  private static TradingInterval interval(String type, String start, String end) {
+    return TradingInterval.newBuilder()
+      .setType(type)
+      .setInterval(TradingInterval.TimeInterval.newBuilder()
+        .setStartTs(timestamp(start))
+        .setEndTs(timestamp(end)))
+      .build();
+  }
+
+  private static Timestamp timestamp(String value) {
+    return DateUtils.instantToTimestamp(Instant.parse(value));
+  }
+}
@@ -0,0 +1,50 @@
+package ru.tinkoff.piapi.core.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+  @Test
+  void bucketsAreContiguous_Test() {
+    for (int index = 1; index <= LatencyHistogram.indexOf(Long.MAX_VALUE); index++) {
+      var lowest = LatencyHistogram.lowestEquivalentValue(index);
+      assertEquals(index, LatencyHistogram.indexOf(lowest));
+      assertEquals(index - 1, LatencyHistogram.indexOf(lowest - 1));
+    }
+  }
+
+  @Test
+  void percentilesWithinPrecision_Test() {
+    var histogram = new LatencyHistogram();
+    for (long value = 1; value <= 100_000; value++) {
+      histogram.record(value * 1_000);
+    }
+
+    assertEquals(100_000, histogram.count());
+    assertEquals(100_000_000, histogram.max());
+    assertEquals(50_000_500, histogram.mean(), 1);
+    assertWithin(50_000_000, histogram.valueAtPercentile(50));
+    assertWithin(99_000_000, histogram.valueAtPercentile(99));
+    assertEquals(100_000_000, histogram.valueAtPercentile(100));
+  }
+
+  @Test
+  void negativeValuesCountAsZero_Test() {
+    var histogram = new LatencyHistogram();
+    histogram.record(-5);
+
+    assertEquals(1, histogram.count());
+    assertEquals(0, histogram.valueAtPercentile(100));
+
+    histogram.reset();
+    assertEquals(0, histogram.count());
+    assertEquals(0, histogram.valueAtPercentile(50));
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(Math.abs(actual - expected) <= expected / 64, "expected " + expected + ", actual " + actual);
+  }
+}
@@ -0,0 +1,162 @@
+package ru.tinkoff.piapi.core.metrics;
+
+import io.grpc.ClientInterceptors;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.Account;
+import ru.tinkoff.piapi.contract.v1.GetAccountsRequest;
+import ru.tinkoff.piapi.contract.v1.GetAccountsResponse;
+import ru.tinkoff.piapi.contract.v1.GetInfoRequest;
+import ru.tinkoff.piapi.contract.v1.GetInfoResponse;
+import ru.tinkoff.piapi.contract.v1.UsersServiceGrpc;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+import ru.tinkoff.piapi.core.exception.ApiRuntimeException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsInterceptorTest {
+
+  private static final Metadata.Key<String> limitKey =
+    Metadata.Key.of("x-ratelimit-limit", Metadata.ASCII_STRING_MARSHALLER);
+  private static final Metadata.Key<String> remainingKey =
+    Metadata.Key.of("x-ratelimit-remaining", Metadata.ASCII_STRING_MARSHALLER);
+  private static final Metadata.Key<String> resetKey =
+    Metadata.Key.of("x-ratelimit-reset", Metadata.ASCII_STRING_MARSHALLER);
+
+  private final Map<String, RecordingMetrics> recorded = new ConcurrentHashMap<>();
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+  private InvestApi api;
+
+  @BeforeEach
+  void setUp() {
+    var channel = grpc.start(ServerInterceptors.intercept(new UsersService(), new RateLimitHeaders()));
+    api = InvestApi.create(ClientInterceptors.intercept(channel,
+      new MetricsInterceptor((service, method) -> recorded.computeIfAbsent(method, key -> new RecordingMetrics(service)))));
+  }
+
+  @Test
+  void recordsSuccessfulCalls_Test() {
+    api.getUserService().getAccountsSync();
+    api.getUserService().getAccountsSync();
+
+    var metrics = recorded.get("GetAccounts");
+    assertEquals("tinkoff.public.invest.api.contract.v1.UsersService", metrics.service);
+    assertEquals(2, metrics.started);
+    assertEquals(List.of(Status.Code.OK, Status.Code.OK), metrics.codes);
+    assertEquals(2, metrics.errorIds.size());
+    assertTrue(metrics.errorIds.stream().allMatch(id -> id == null));
+    assertTrue(metrics.latencies.stream().allMatch(latency -> latency > 0));
+    assertEquals(List.of(0, 0), metrics.sent);
+    assertEquals(2, metrics.received.size());
+    assertTrue(metrics.received.get(0) > 0);
+    assertEquals(List.of(List.of(100, 99, 60), List.of(100, 99, 60)), metrics.rateLimits);
+  }
+
+  @Test
+  void recordsErrorIdAndRateLimitFromTrailers_Test() {
+    assertThrows(ApiRuntimeException.class, () -> api.getUserService().getInfoSync());
+
+    var metrics = recorded.get("GetInfo");
+    assertEquals(List.of(Status.Code.RESOURCE_EXHAUSTED), metrics.codes);
+    assertEquals(List.of("80002"), metrics.errorIds);
+    assertEquals(List.of(List.of(100, 0, 15)), metrics.rateLimits);
+  }
+
+  private static class RecordingMetrics implements MethodMetrics {
+    private final String service;
+    private int started;
+    private final List<Status.Code> codes = new ArrayList<>();
+    private final List<String> errorIds = new ArrayList<>();
+    private final List<Long> latencies = new ArrayList<>();
+    private final List<Integer> sent = new ArrayList<>();
+    private final List<Integer> received = new ArrayList<>();
+    private final List<List<Integer>> rateLimits = new ArrayList<>();
+
+    RecordingMetrics(String service) {
+      this.service = service;
+    }
+
+    @Override
+    public void callStarted() {
+      started++;
+    }
+
+    @Override
+    public void callCompleted(@Nonnull Status.Code code, @Nullable String errorId, long latencyNanos) {
+      codes.add(code);
+      errorIds.add(errorId);
+      latencies.add(latencyNanos);
+    }
+
+    @Override
+    public void messageSent(int bytes) {
+      sent.add(bytes);
+    }
+
+    @Override
+    public void messageReceived(int bytes) {
+      received.add(bytes);
+    }
+
+    @Override
+    public void rateLimit(int limit, int remaining, int resetSeconds) {
+      rateLimits.add(List.of(limit, remaining, resetSeconds));
+    }
+  }
+
+  private static class UsersService extends UsersServiceGrpc.UsersServiceImplBase {
+    @Override
+    public void getAccounts(GetAccountsRequest request, StreamObserver<GetAccountsResponse> responseObserver) {
+      responseObserver.onNext(GetAccountsResponse.newBuilder()
+        .addAccounts(Account.newBuilder().setId("2000000000").setName("Брокерский счёт"))
+        .build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void getInfo(GetInfoRequest request, StreamObserver<GetInfoResponse> responseObserver) {
+      var trailers = new Metadata();
+      trailers.put(limitKey, "100, 100;w=60");
+      trailers.put(remainingKey, "0");
+      trailers.put(resetKey, "15");
+      responseObserver.onError(Status.RESOURCE_EXHAUSTED.asRuntimeException(trailers));
+    }
+  }
+
+  private static class RateLimitHeaders implements ServerInterceptor {
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+      return next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+        @Override
+        public void sendHeaders(Metadata responseHeaders) {
+          responseHeaders.put(limitKey, "100");
+          responseHeaders.put(remainingKey, "99");
+          responseHeaders.put(resetKey, "60");
+          super.sendHeaders(responseHeaders);
+        }
+      }, headers);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package ru.tinkoff.piapi.core.metrics;
+
+import com.google.protobuf.Timestamp;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.MarketDataRequest;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.MarketDataStreamServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.Trade;
+import ru.tinkoff.piapi.contract.v1.TradingStatus;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamLatencyProcessorTest {
+
+  private static final int TRADES = 10;
+  private static final long TRADE_AGE_NANOS = Duration.ofMillis(50).toNanos();
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+  private ManagedChannel channel;
+
+  @BeforeEach
+  void setUp() {
+    channel = grpc.start(new TradesService());
+  }
+
+  @Test
+  void recordsNetworkDecodeAndProcessingLatency_Test() throws InterruptedException {
+    var recorder = new HistogramStreamLatencyRecorder();
+    var api = InvestApi.create(ClientInterceptors.intercept(channel, new StreamDecodeInterceptor()));
+
+    subscribe(api, recorder);
+
+    var trades = recorder.get("marketdata", "TRADE");
+    assertEquals(TRADES, trades.getNetwork().count());
+    assertTrue(trades.getNetwork().valueAtPercentile(50) >= TRADE_AGE_NANOS * 63 / 64);
+    assertEquals(TRADES, trades.getDecode().count());
+    assertEquals(TRADES, trades.getProcessing().count());
+    assertTrue(trades.getProcessing().valueAtPercentile(50) >= Duration.ofMillis(1).toNanos() * 63 / 64);
+
+    var status = recorder.get("marketdata", "TRADING_STATUS");
+    assertEquals(0, status.getNetwork().count());
+    assertEquals(1, status.getProcessing().count());
+    assertNull(recorder.get("marketdata", "CANDLE"));
+  }
+
+  @Test
+  void skipsDecodeLatencyWithoutInterceptor_Test() throws InterruptedException {
+    var recorder = new HistogramStreamLatencyRecorder();
+
+    subscribe(InvestApi.create(channel), recorder);
+
+    var trades = recorder.get("marketdata", "TRADE");
+    assertEquals(TRADES, trades.getNetwork().count());
+    assertEquals(0, trades.getDecode().count());
+    assertEquals(TRADES, trades.getProcessing().count());
+  }
+
+  private static void subscribe(InvestApi api, StreamLatencyRecorder recorder) throws InterruptedException {
+    var done = new CountDownLatch(TRADES + 1);
+    var processor = StreamLatencyProcessor.<MarketDataResponse>forMarketData(response -> {
+      if (response.hasTrade()) {
+        sleep();
+      }
+      done.countDown();
+    }, recorder);
+    api.getMarketDataStreamService()
+      .newStream("latency", processor, null)
+      .subscribeTrades(List.of("BBG000B9XRY4"));
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(1);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class TradesService extends MarketDataStreamServiceGrpc.MarketDataStreamServiceImplBase {
+    @Override
+    public StreamObserver<MarketDataRequest> marketDataStream(StreamObserver<MarketDataResponse> responseObserver) {
+      return new StreamObserver<>() {
+        @Override
+        public void onNext(MarketDataRequest request) {
+          for (int i = 0; i < TRADES; i++) {
+            var time = Instant.now().minusNanos(TRADE_AGE_NANOS);
+            responseObserver.onNext(MarketDataResponse.newBuilder()
+              .setTrade(Trade.newBuilder()
+                .setFigi("BBG000B9XRY4")
+                .setQuantity(i + 1)
+                .setTime(Timestamp.newBuilder().setSeconds(time.getEpochSecond()).setNanos(time.getNano())))
+              .build());
+          }
+          responseObserver.onNext(MarketDataResponse.newBuilder()
+            .setTradingStatus(TradingStatus.newBuilder().setFigi("BBG000B9XRY4"))
+            .build());
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+          responseObserver.onCompleted();
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package ru.tinkoff.piapi.core.orders;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.OrderDirection;
+import ru.tinkoff.piapi.contract.v1.OrderExecutionReportStatus;
+import ru.tinkoff.piapi.contract.v1.OrderStateStreamRequest;
+import ru.tinkoff.piapi.contract.v1.OrderStateStreamResponse;
+import ru.tinkoff.piapi.contract.v1.OrderType;
+import ru.tinkoff.piapi.contract.v1.OrdersServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.OrdersStreamServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.PostOrderAsyncRequest;
+import ru.tinkoff.piapi.contract.v1.PostOrderAsyncResponse;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+import ru.tinkoff.piapi.core.exception.ApiRuntimeException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncOrderExecutorTest {
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+  private final List<StreamObserver<OrderStateStreamResponse>> streams = new ArrayList<>();
+  private final List<PostOrderAsyncRequest> received = new ArrayList<>();
+  private ManagedChannel channel;
+  private InvestApi api;
+
+  @BeforeEach
+  void setUp() {
+    channel = grpc.start(new OrdersService(), new OrdersStreamService());
+    api = InvestApi.create(channel);
+  }
+
+  @Test
+  void completesOrdersByStreamStates_Test() {
+    var updates = new ArrayList<OrderExecutionReportStatus>();
+    var executor = new AsyncOrderExecutor(api.getOrdersService(), state -> updates.add(state.getExecutionReportStatus()));
+    executor.subscribe(api.getOrdersStreamService(), List.of("account"));
+
+    var filled = executor.execute(order("fill"));
+    var partial = executor.execute(order("partial"));
+    var generated = executor.execute(order(""));
+    assertEquals(3, executor.getPending());
+    assertEquals(36, received.get(2).getOrderId().length());
+
+    push(state("unknown", OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_FILL, 0));
+    push(state("fill", OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_NEW, 2));
+    push(state("partial", OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_PARTIALLYFILL, 1));
+    assertFalse(filled.isDone());
+    assertFalse(partial.isDone());
+
+    push(state("fill", OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_FILL, 0));
+    push(state("partial", OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_PARTIALLYFILL, 0));
+    push(state(received.get(2).getOrderId(), OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_REJECTED, 2));
+
+    assertEquals(OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_FILL, filled.join().getExecutionReportStatus());
+    assertEquals(0, partial.join().getLotsLeft());
+    assertEquals(OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_REJECTED, generated.join().getExecutionReportStatus());
+    assertEquals(0, executor.getPending());
+    assertEquals(5, updates.size());
+  }
+
+  @Test
+  void failsOrdersOnRequestAndStreamErrors_Test() {
+    var executor = new AsyncOrderExecutor(api.getOrdersService());
+    executor.subscribe(api.getOrdersStreamService(), List.of("account"));
+
+    var rejected = executor.execute(order("reject"));
+    var thrown = assertThrows(CompletionException.class, rejected::join);
+    assertInstanceOf(ApiRuntimeException.class, thrown.getCause());
+
+    var waiting = executor.execute(order("wait"));
+    assertThrows(IllegalArgumentException.class, () -> executor.execute(order("wait")));
+    streams.get(0).onError(Status.UNAVAILABLE.asRuntimeException());
+    assertTrue(waiting.isCompletedExceptionally());
+    assertEquals(0, executor.getPending());
+  }
+
+  private void push(OrderStateStreamResponse.OrderState state) {
+    streams.get(0).onNext(OrderStateStreamResponse.newBuilder().setOrderState(state).build());
+  }
+
+  private static PostOrderAsyncRequest order(String orderId) {
+    return PostOrderAsyncRequest.newBuilder()
+      .setAccountId("account")
+      .setInstrumentId("BBG004730N88")
+      .setQuantity(2)
+      .setDirection(OrderDirection.ORDER_DIRECTION_BUY)
+      .setOrderType(OrderType.ORDER_TYPE_MARKET)
+      .setOrderId(orderId)
+      .build();
+  }
+
+  private static OrderStateStreamResponse.OrderState state(String orderRequestId,
+                                                           OrderExecutionReportStatus status,
+                                                           long lotsLeft) {
+    return OrderStateStreamResponse.OrderState.newBuilder()
+      .setOrderRequestId(orderRequestId)
+      .setExecutionReportStatus(status)
+      .setLotsRequested(2)
+      .setLotsLeft(lotsLeft)
+      .build();
+  }
+
+  private class OrdersService extends OrdersServiceGrpc.OrdersServiceImplBase {
+    @Override
+    public void postOrderAsync(PostOrderAsyncRequest request,
+                               StreamObserver<PostOrderAsyncResponse> responseObserver) {
+      received.add(request);
+      if (request.getOrderId().equals("reject")) {
+        responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("30079").asRuntimeException());
+        return;
+      }
+      responseObserver.onNext(PostOrderAsyncResponse.newBuilder()
+        .setOrderRequestId(request.getOrderId())
+        .setExecutionReportStatus(OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_NEW)
+        .build());
+      responseObserver.onCompleted();
+    }
+  }
+
+  private class OrdersStreamService extends OrdersStreamServiceGrpc.OrdersStreamServiceImplBase {
+    @Override
+    public void orderStateStream(OrderStateStreamRequest request,
+                                 StreamObserver<OrderStateStreamResponse> responseObserver) {
+      streams.add(responseObserver);
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package ru.tinkoff.piapi.core.orders;
+
+import com.google.protobuf.Timestamp;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.CancelOrderRequest;
+import ru.tinkoff.piapi.contract.v1.CancelOrderResponse;
+import ru.tinkoff.piapi.contract.v1.CancelStopOrderRequest;
+import ru.tinkoff.piapi.contract.v1.CancelStopOrderResponse;
+import ru.tinkoff.piapi.contract.v1.GetOrdersRequest;
+import ru.tinkoff.piapi.contract.v1.GetOrdersResponse;
+import ru.tinkoff.piapi.contract.v1.GetStopOrdersRequest;
+import ru.tinkoff.piapi.contract.v1.GetStopOrdersResponse;
+import ru.tinkoff.piapi.contract.v1.OrderExecutionReportStatus;
+import ru.tinkoff.piapi.contract.v1.OrderState;
+import ru.tinkoff.piapi.contract.v1.OrderStateStreamResponse;
+import ru.tinkoff.piapi.contract.v1.OrdersServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.PostOrderResponse;
+import ru.tinkoff.piapi.contract.v1.Quotation;
+import ru.tinkoff.piapi.contract.v1.ReplaceOrderRequest;
+import ru.tinkoff.piapi.contract.v1.StopOrder;
+import ru.tinkoff.piapi.contract.v1.StopOrdersServiceGrpc;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+import ru.tinkoff.piapi.core.exception.ApiRuntimeException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MassOrderOperationsTest {
+
+  private static final String SBER = "BBG004730N88";
+  private static final String GAZP = "BBG004730RP0";
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+  private final OrdersService ordersGrpcService = new OrdersService();
+  private final StopOrdersService stopOrdersGrpcService = new StopOrdersService();
+  private ManagedChannel channel;
+  private InvestApi api;
+
+  @BeforeEach
+  void setUp() {
+    channel = grpc.start(ordersGrpcService, stopOrdersGrpcService);
+    api = InvestApi.create(channel);
+
+    for (int i = 0; i < 6; i++) {
+      ordersGrpcService.orders.add(OrderState.newBuilder()
+        .setOrderId("order-" + i)
+        .setFigi(i == 5 ? GAZP : SBER)
+        .setLotsRequested(10)
+        .setLotsExecuted(i)
+        .build());
+    }
+    stopOrdersGrpcService.stopOrders.add(StopOrder.newBuilder().setStopOrderId("stop-0").setFigi(SBER).build());
+    stopOrdersGrpcService.stopOrders.add(StopOrder.newBuilder().setStopOrderId("stop-1").setFigi(GAZP).build());
+  }
+
+  @Test
+  void cancelsConcurrentlyWithinLimit_Test() {
+    var operations = new MassOrderOperations(api.getOrdersService(), api.getStopOrdersService(), 2, Duration.ofSeconds(1));
+    ordersGrpcService.hold = true;
+    ordersGrpcService.failing.add("order-3");
+
+    var future = operations.cancelAll("account", SBER, false);
+    assertEquals(2, ordersGrpcService.held.size());
+    assertFalse(future.isDone());
+    while (!ordersGrpcService.held.isEmpty()) {
+      assertTrue(ordersGrpcService.held.size() <= 2);
+      ordersGrpcService.held.remove(0).run();
+    }
+
+    var results = future.join();
+    assertEquals(List.of("order-0", "order-1", "order-2", "order-3", "order-4", "stop-0"), results.stream()
+      .map(MassOrderResult::getOrderId)
+      .collect(Collectors.toList()));
+    assertTrue(results.get(5).isStopOrder());
+    assertEquals(List.of("stop-0"), stopOrdersGrpcService.cancelled);
+    assertInstanceOf(ApiRuntimeException.class, results.get(3).getError());
+    assertEquals(5, results.stream().filter(MassOrderResult::isSuccess).count());
+    assertEquals(1_700_000_000L, results.get(0).getCancelledAt().getEpochSecond());
+
+    ordersGrpcService.hold = false;
+    ordersGrpcService.cancelled.clear();
+    operations.cancelAll("account", null, false).join();
+    assertEquals(6, ordersGrpcService.cancelled.size());
+  }
+
+  @Test
+  void confirmsCancelsByStreamAndReplaces_Test() {
+    var operations = new MassOrderOperations(api.getOrdersService(), api.getStopOrdersService(), 10, Duration.ofMillis(50));
+    ordersGrpcService.orders.subList(2, 6).clear();
+
+    var future = operations.cancelOrders("account", null, true);
+    assertEquals(List.of("order-0", "order-1"), ordersGrpcService.cancelled);
+    assertFalse(future.isDone());
+    operations.process(OrderStateStreamResponse.newBuilder()
+      .setOrderState(OrderStateStreamResponse.OrderState.newBuilder()
+        .setOrderId("order-0")
+        .setExecutionReportStatus(OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_CANCELLED))
+      .build());
+
+    var results = future.join();
+    assertTrue(results.get(0).isSuccess());
+    assertEquals(OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_CANCELLED,
+      results.get(0).getConfirmedState().getExecutionReportStatus());
+    assertInstanceOf(TimeoutException.class, results.get(1).getError());
+    assertNull(results.get(1).getConfirmedState());
+
+    var price = Quotation.newBuilder().setUnits(250).build();
+    var replaced = operations.replaceAll("account", SBER, order -> order.getOrderId().equals("order-1") ? null : price)
+      .join();
+    assertEquals(1, replaced.size());
+    assertEquals("new-order-0", replaced.get(0).getReplacement().getOrderId());
+    var request = ordersGrpcService.replaced.get(0);
+    assertEquals(10, request.getQuantity());
+    assertEquals(price, request.getPrice());
+    assertEquals(36, request.getIdempotencyKey().length());
+  }
+
+  private static class OrdersService extends OrdersServiceGrpc.OrdersServiceImplBase {
+    private final List<OrderState> orders = new ArrayList<>();
+    private final List<String> failing = new ArrayList<>();
+    private final List<String> cancelled = new ArrayList<>();
+    private final List<ReplaceOrderRequest> replaced = new ArrayList<>();
+    private final List<Runnable> held = new ArrayList<>();
+    private boolean hold;
+
+    @Override
+    public void getOrders(GetOrdersRequest request, StreamObserver<GetOrdersResponse> responseObserver) {
+      responseObserver.onNext(GetOrdersResponse.newBuilder().addAllOrders(orders).build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void cancelOrder(CancelOrderRequest request, StreamObserver<CancelOrderResponse> responseObserver) {
+      cancelled.add(request.getOrderId());
+      Runnable reply = () -> {
+        if (failing.contains(request.getOrderId())) {
+          responseObserver.onError(Status.NOT_FOUND.withDescription("30059").asRuntimeException());
+          return;
+        }
+        responseObserver.onNext(CancelOrderResponse.newBuilder()
+          .setTime(Timestamp.newBuilder().setSeconds(1_700_000_000L))
+          .build());
+        responseObserver.onCompleted();
+      };
+      if (hold) {
+        held.add(reply);
+      } else {
+        reply.run();
+      }
+    }
+
+    @Override
+    public void replaceOrder(ReplaceOrderRequest request, StreamObserver<PostOrderResponse> responseObserver) {
+      replaced.add(request);
+      responseObserver.onNext(PostOrderResponse.newBuilder().setOrderId("new-" + request.getOrderId()).build());
+      responseObserver.onCompleted();
+    }
+  }
+
+  private static class StopOrdersService extends StopOrdersServiceGrpc.StopOrdersServiceImplBase {
+    private final List<StopOrder> stopOrders = new ArrayList<>();
+    private final List<String> cancelled = new ArrayList<>();
+
+    @Override
+    public void getStopOrders(GetStopOrdersRequest request, StreamObserver<GetStopOrdersResponse> responseObserver) {
+      responseObserver.onNext(GetStopOrdersResponse.newBuilder().addAllStopOrders(stopOrders).build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public void cancelStopOrder(CancelStopOrderRequest request,
+                                StreamObserver<CancelStopOrderResponse> responseObserver) {
+      cancelled.add(request.getStopOrderId());
+      responseObserver.onNext(CancelStopOrderResponse.getDefaultInstance());
+      responseObserver.onCompleted();
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package ru.tinkoff.piapi.core.orders;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.OrderDirection;
+import ru.tinkoff.piapi.contract.v1.OrderType;
+import ru.tinkoff.piapi.contract.v1.OrdersServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.PostOrderRequest;
+import ru.tinkoff.piapi.contract.v1.PostOrderResponse;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+import ru.tinkoff.piapi.core.OrdersService;
+import ru.tinkoff.piapi.core.exception.ApiRuntimeException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderPipelineTest {
+
+  private final HoldingOrdersService grpcService = new HoldingOrdersService();
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+
+  @Test
+  void keepsWindowAndAccountOrder_Test() {
+    var pipeline = new OrderPipeline(mkOrdersService(), 3, 2);
+    var requests = new ArrayList<PostOrderRequest>();
+    for (int i = 0; i < 6; i++) {
+      requests.add(order("first", "first-" + i));
+    }
+    requests.add(order("second", "second-0"));
+    requests.add(order("second", "second-1"));
+
+    var results = pipeline.submitAll(requests);
+    assertEquals(List.of("first-0", "first-1", "second-0"), orderIds(grpcService.received));
+    assertEquals(3, pipeline.getInFlight());
+    assertEquals(5, pipeline.getQueued());
+
+    while (!grpcService.held.isEmpty()) {
+      assertTrue(grpcService.held.size() <= 3);
+      grpcService.releaseFirst();
+    }
+
+    var received = orderIds(grpcService.received);
+    assertEquals(8, received.size());
+    assertEquals(requests.stream().filter(r -> r.getAccountId().equals("first")).map(PostOrderRequest::getOrderId)
+      .collect(Collectors.toList()), received.stream().filter(id -> id.startsWith("first")).collect(Collectors.toList()));
+    var list = results.join();
+    assertEquals(orderIds(requests), list.stream().map(r -> r.getRequest().getOrderId()).collect(Collectors.toList()));
+    assertTrue(list.stream().allMatch(OrderResult::isSuccess));
+    assertEquals("first-5", list.get(5).getResponse().getOrderRequestId());
+    assertFalse(list.get(5).getQueueTime().isNegative());
+    assertEquals(0, pipeline.getInFlight());
+    assertEquals(0, pipeline.getQueued());
+  }
+
+  @Test
+  void reportsErrorsPerOrderAndGeneratesOrderIds_Test() {
+    grpcService.hold = false;
+    var pipeline = new OrderPipeline(mkOrdersService(), 2, 1);
+
+    var results = pipeline.submitAll(List.of(order("first", ""), order("first", "reject"), order("first", "last")))
+      .join();
+
+    assertEquals(36, results.get(0).getRequest().getOrderId().length());
+    assertTrue(results.get(0).isSuccess());
+    assertNull(results.get(1).getResponse());
+    assertInstanceOf(ApiRuntimeException.class, results.get(1).getError());
+    assertTrue(results.get(2).isSuccess());
+    assertEquals(List.of(results.get(0).getRequest().getOrderId(), "reject", "last"), orderIds(grpcService.received));
+  }
+
+  private OrdersService mkOrdersService() {
+    return InvestApi.create(grpc.start(grpcService)).getOrdersService();
+  }
+
+  private static PostOrderRequest order(String accountId, String orderId) {
+    return PostOrderRequest.newBuilder()
+      .setAccountId(accountId)
+      .setInstrumentId("BBG004730N88")
+      .setQuantity(1)
+      .setDirection(OrderDirection.ORDER_DIRECTION_BUY)
+      .setOrderType(OrderType.ORDER_TYPE_MARKET)
+      .setOrderId(orderId)
+      .build();
+  }
+
+  private static List<String> orderIds(List<PostOrderRequest> requests) {
+    return requests.stream().map(PostOrderRequest::getOrderId).collect(Collectors.toList());
+  }
+
+  private static class HoldingOrdersService extends OrdersServiceGrpc.OrdersServiceImplBase {
+    private final List<PostOrderRequest> received = new ArrayList<>();
+    private final List<Runnable> held = new ArrayList<>();
+    private boolean hold = true;
+
+    @Override
+    public void postOrder(PostOrderRequest request, StreamObserver<PostOrderResponse> responseObserver) {
+      received.add(request);
+      Runnable reply = () -> {
+        if (request.getOrderId().equals("reject")) {
+          responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("30079").asRuntimeException());
+          return;
+        }
+        responseObserver.onNext(PostOrderResponse.newBuilder()
+          .setOrderId("exchange-" + request.getOrderId())
+          .setOrderRequestId(request.getOrderId())
+          .build());
+        responseObserver.onCompleted();
+      };
+      if (hold) {
+        held.add(reply);
+      } else {
+        reply.run();
+      }
+    }
+
+    void releaseFirst() {
+      held.remove(0).run();
+    }
+  }
+}
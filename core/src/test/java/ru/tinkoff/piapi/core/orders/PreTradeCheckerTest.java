@@ -0,0 +1,243 @@
+package ru.tinkoff.piapi.core.orders;
+
+import io.grpc.ManagedChannel;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.GetMaxLotsRequest;
+import ru.tinkoff.piapi.contract.v1.GetMaxLotsResponse;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.OrderDirection;
+import ru.tinkoff.piapi.contract.v1.OrderType;
+import ru.tinkoff.piapi.contract.v1.OrdersServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.PostOrderRequest;
+import ru.tinkoff.piapi.contract.v1.PostStopOrderRequest;
+import ru.tinkoff.piapi.contract.v1.PriceType;
+import ru.tinkoff.piapi.contract.v1.Quotation;
+import ru.tinkoff.piapi.contract.v1.SecurityTradingStatus;
+import ru.tinkoff.piapi.contract.v1.Share;
+import ru.tinkoff.piapi.contract.v1.StopOrderDirection;
+import ru.tinkoff.piapi.contract.v1.StopOrderType;
+import ru.tinkoff.piapi.contract.v1.TradingStatus;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+import ru.tinkoff.piapi.core.instruments.InstrumentIdInterner;
+import ru.tinkoff.piapi.core.instruments.InstrumentMetadataTable;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class PreTradeCheckerTest {
+
+  private static final String SBER = "BBG004730N88";
+  private static final String VTBR = "BBG004730ZJ9";
+  private static final String DELISTED = "BBG000000001";
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+  private final OrdersService grpcService = new OrdersService();
+  private final InstrumentMetadataTable table = new InstrumentMetadataTable(new InstrumentIdInterner());
+  private ManagedChannel channel;
+  private ru.tinkoff.piapi.core.OrdersService ordersService;
+
+  @BeforeEach
+  void setUp() {
+    channel = grpc.start(grpcService);
+    ordersService = InvestApi.create(channel).getOrdersService();
+
+    table.put(share(SBER, "SBER", 10_000_000, true).setShortEnabledFlag(true).build());
+    table.put(share(VTBR, "VTBR", 5_000, true).setBuyAvailableFlag(false).build());
+    table.put(share(DELISTED, "DLST", 10_000_000, false).build());
+  }
+
+  @Test
+  void rejectsAndRoundsLocally_Test() {
+    var checker = new PreTradeChecker(table);
+
+    assertEquals(PreTradeResult.ACCEPTED, checker.check(limit(SBER, OrderDirection.ORDER_DIRECTION_BUY, 1, 250, 120_000_000)));
+    assertEquals(PreTradeResult.ACCEPTED, checker.check(market(SBER, OrderDirection.ORDER_DIRECTION_SELL, 3)));
+    assertEquals(PreTradeResult.UNKNOWN_INSTRUMENT, checker.check(market("BBG00UNKNOWN", OrderDirection.ORDER_DIRECTION_BUY, 1)));
+    assertEquals(PreTradeResult.API_TRADE_NOT_AVAILABLE, checker.check(market(DELISTED, OrderDirection.ORDER_DIRECTION_BUY, 1)));
+    assertEquals(PreTradeResult.BUY_NOT_AVAILABLE, checker.check(market(VTBR, OrderDirection.ORDER_DIRECTION_BUY, 1)));
+    assertEquals(PreTradeResult.INVALID_DIRECTION, checker.check(market(SBER, OrderDirection.ORDER_DIRECTION_UNSPECIFIED, 1)));
+    assertEquals(PreTradeResult.INVALID_QUANTITY, checker.check(market(SBER, OrderDirection.ORDER_DIRECTION_BUY, 0)));
+    assertEquals(PreTradeResult.INVALID_PRICE, checker.check(limit(SBER, OrderDirection.ORDER_DIRECTION_BUY, 1, 0, 0)));
+
+    var offStep = limit(SBER, OrderDirection.ORDER_DIRECTION_BUY, 1, 250, 123_000_000);
+    assertEquals(PreTradeResult.INVALID_PRICE_INCREMENT, checker.check(offStep));
+    assertEquals(PreTradeResult.ACCEPTED, checker.check(offStep.toBuilder().setPriceType(PriceType.PRICE_TYPE_CURRENCY).build()));
+    assertEquals(Quotation.newBuilder().setUnits(250).setNano(120_000_000).build(), checker.normalize(offStep).getPrice());
+    var sell = offStep.toBuilder().setDirection(OrderDirection.ORDER_DIRECTION_SELL).build();
+    assertEquals(Quotation.newBuilder().setUnits(250).setNano(130_000_000).build(), checker.normalize(sell).getPrice());
+    var aligned = limit(SBER, OrderDirection.ORDER_DIRECTION_BUY, 1, 250, 120_000_000);
+    assertSame(aligned, checker.normalize(aligned));
+
+    var stop = PostStopOrderRequest.newBuilder()
+      .setInstrumentId(SBER)
+      .setAccountId("account")
+      .setQuantity(1)
+      .setDirection(StopOrderDirection.STOP_ORDER_DIRECTION_SELL)
+      .setStopOrderType(StopOrderType.STOP_ORDER_TYPE_STOP_LIMIT)
+      .setStopPrice(Quotation.newBuilder().setUnits(240).setNano(10_000_000))
+      .build();
+    assertEquals(PreTradeResult.INVALID_PRICE, checker.check(stop));
+    stop = stop.toBuilder().setPrice(Quotation.newBuilder().setUnits(239).setNano(999_000_000)).build();
+    assertEquals(PreTradeResult.INVALID_PRICE_INCREMENT, checker.check(stop));
+    var normalized = checker.normalize(stop);
+    assertEquals(PreTradeResult.ACCEPTED, checker.check(normalized));
+    assertEquals(Quotation.newBuilder().setUnits(240).setNano(10_000_000).build(), normalized.getStopPrice());
+    assertEquals(Quotation.newBuilder().setUnits(240).build(), normalized.getPrice());
+
+    table.setTradingStatus(table.getInterner().idOf(SBER), SecurityTradingStatus.SECURITY_TRADING_STATUS_BREAK_IN_TRADING);
+    assertEquals(PreTradeResult.NOT_AVAILABLE_FOR_TRADING, checker.check(market(SBER, OrderDirection.ORDER_DIRECTION_BUY, 1)));
+  }
+
+  @Test
+  void updatesTradingStatusFromStream_Test() {
+    var checker = new PreTradeChecker(table);
+    var order = market(SBER, OrderDirection.ORDER_DIRECTION_BUY, 1);
+
+    checker.process(tradingStatus(SBER, SecurityTradingStatus.SECURITY_TRADING_STATUS_BREAK_IN_TRADING));
+    assertEquals(PreTradeResult.NOT_AVAILABLE_FOR_TRADING, checker.check(order));
+    checker.process(tradingStatus("BBG00UNKNOWN", SecurityTradingStatus.SECURITY_TRADING_STATUS_NORMAL_TRADING));
+    checker.process(MarketDataResponse.getDefaultInstance());
+    assertEquals(PreTradeResult.NOT_AVAILABLE_FOR_TRADING, checker.check(order));
+
+    checker.process(tradingStatus(SBER, SecurityTradingStatus.SECURITY_TRADING_STATUS_NORMAL_TRADING));
+    assertEquals(PreTradeResult.ACCEPTED, checker.check(order));
+  }
+
+  @Test
+  void keepsStreamStatusWhileTableGrows_Test() throws Exception {
+    var checker = new PreTradeChecker(table);
+    var order = market(SBER, OrderDirection.ORDER_DIRECTION_BUY, 1);
+
+    var stream = new Thread(() -> {
+      for (int i = 0; i < 1_000; i++) {
+        checker.process(tradingStatus(SBER, SecurityTradingStatus.SECURITY_TRADING_STATUS_BREAK_IN_TRADING));
+      }
+    });
+    stream.start();
+    for (int i = 0; i < 200; i++) {
+      table.put(share(String.format("BBG1%08d", i), "T" + i, 10_000_000, true).build());
+    }
+    stream.join();
+
+    assertEquals(SecurityTradingStatus.SECURITY_TRADING_STATUS_NORMAL_TRADING,
+      table.tradingStatus(table.getInterner().idOf(SBER)));
+    assertEquals(PreTradeResult.NOT_AVAILABLE_FOR_TRADING, checker.check(order));
+  }
+
+  @Test
+  void checksCachedMaxLots_Test() {
+    var clock = new MutableClock();
+    var checker = new PreTradeChecker(table, ordersService, Duration.ofSeconds(5), clock);
+
+    assertEquals(PreTradeResult.ACCEPTED, checker.check(market(SBER, OrderDirection.ORDER_DIRECTION_BUY, 1_000)));
+    checker.refreshMaxLots("account", SBER);
+    checker.putMaxLots("account", VTBR, GetMaxLotsResponse.newBuilder()
+      .setSellLimits(GetMaxLotsResponse.SellLimitsView.newBuilder().setSellMaxLots(5))
+      .setSellMarginLimits(GetMaxLotsResponse.SellLimitsView.newBuilder().setSellMaxLots(50))
+      .build());
+    assertEquals(1, grpcService.received.size());
+
+    assertEquals(PreTradeResult.ACCEPTED, checker.check(limit(SBER, OrderDirection.ORDER_DIRECTION_BUY, 20, 250, 0)));
+    assertEquals(PreTradeResult.MAX_LOTS_EXCEEDED, checker.check(limit(SBER, OrderDirection.ORDER_DIRECTION_BUY, 21, 250, 0)));
+    assertEquals(PreTradeResult.MAX_LOTS_EXCEEDED, checker.check(market(SBER, OrderDirection.ORDER_DIRECTION_BUY, 16)));
+    assertEquals(PreTradeResult.ACCEPTED, checker.check(market(SBER, OrderDirection.ORDER_DIRECTION_SELL, 30)));
+    assertEquals(PreTradeResult.MAX_LOTS_EXCEEDED, checker.check(market(SBER, OrderDirection.ORDER_DIRECTION_SELL, 31)));
+    assertEquals(PreTradeResult.ACCEPTED, checker.check(market(VTBR, OrderDirection.ORDER_DIRECTION_SELL, 5)));
+    assertEquals(PreTradeResult.SHORT_NOT_ENABLED, checker.check(market(VTBR, OrderDirection.ORDER_DIRECTION_SELL, 6)));
+
+    clock.advance(Duration.ofSeconds(6));
+    assertEquals(PreTradeResult.ACCEPTED, checker.check(market(SBER, OrderDirection.ORDER_DIRECTION_BUY, 1_000)));
+    checker.refreshMaxLots("account", SBER);
+    checker.invalidateMaxLots("account");
+    assertEquals(PreTradeResult.ACCEPTED, checker.check(market(SBER, OrderDirection.ORDER_DIRECTION_BUY, 1_000)));
+    assertEquals(2, grpcService.received.size());
+  }
+
+  private static MarketDataResponse tradingStatus(String figi, SecurityTradingStatus status) {
+    return MarketDataResponse.newBuilder()
+      .setTradingStatus(TradingStatus.newBuilder().setFigi(figi).setTradingStatus(status))
+      .build();
+  }
+
+  private static Share.Builder share(String figi, String ticker, int minPriceIncrementNano, boolean apiTradeAvailable) {
+    return Share.newBuilder()
+      .setFigi(figi)
+      .setTicker(ticker)
+      .setClassCode("TQBR")
+      .setLot(10)
+      .setMinPriceIncrement(Quotation.newBuilder().setNano(minPriceIncrementNano))
+      .setTradingStatus(SecurityTradingStatus.SECURITY_TRADING_STATUS_NORMAL_TRADING)
+      .setApiTradeAvailableFlag(apiTradeAvailable)
+      .setBuyAvailableFlag(true)
+      .setSellAvailableFlag(true);
+  }
+
+  private static PostOrderRequest market(String instrumentId, OrderDirection direction, long quantity) {
+    return PostOrderRequest.newBuilder()
+      .setAccountId("account")
+      .setInstrumentId(instrumentId)
+      .setQuantity(quantity)
+      .setDirection(direction)
+      .setOrderType(OrderType.ORDER_TYPE_MARKET)
+      .build();
+  }
+
+  private static PostOrderRequest limit(String instrumentId, OrderDirection direction, long quantity, long units, int nano) {
+    return market(instrumentId, direction, quantity).toBuilder()
+      .setOrderType(OrderType.ORDER_TYPE_LIMIT)
+      .setPrice(Quotation.newBuilder().setUnits(units).setNano(nano))
+      .build();
+  }
+
+  private static class OrdersService extends OrdersServiceGrpc.OrdersServiceImplBase {
+    private final List<GetMaxLotsRequest> received = new ArrayList<>();
+
+    @Override
+    public synchronized void getMaxLots(GetMaxLotsRequest request, StreamObserver<GetMaxLotsResponse> responseObserver) {
+      received.add(request);
+      responseObserver.onNext(GetMaxLotsResponse.newBuilder()
+        .setBuyLimits(GetMaxLotsResponse.BuyLimitsView.newBuilder().setBuyMaxLots(10).setBuyMaxMarketLots(9))
+        .setBuyMarginLimits(GetMaxLotsResponse.BuyLimitsView.newBuilder().setBuyMaxLots(20).setBuyMaxMarketLots(15))
+        .setSellLimits(GetMaxLotsResponse.SellLimitsView.newBuilder().setSellMaxLots(4))
+        .setSellMarginLimits(GetMaxLotsResponse.SellLimitsView.newBuilder().setSellMaxLots(30))
+        .build());
+      responseObserver.onCompleted();
+    }
+  }
+
+  private static class MutableClock extends Clock {
+    private volatile Instant instant = Instant.parse("2023-10-06T10:00:00Z");
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
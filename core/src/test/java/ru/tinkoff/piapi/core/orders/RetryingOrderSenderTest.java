@@ -0,0 +1,211 @@
+package ru.tinkoff.piapi.core.orders;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import ru.tinkoff.piapi.contract.v1.GetOrderStateRequest;
+import ru.tinkoff.piapi.contract.v1.OrderDirection;
+import ru.tinkoff.piapi.contract.v1.OrderExecutionReportStatus;
+import ru.tinkoff.piapi.contract.v1.OrderIdType;
+import ru.tinkoff.piapi.contract.v1.OrderState;
+import ru.tinkoff.piapi.contract.v1.OrderType;
+import ru.tinkoff.piapi.contract.v1.OrdersServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.PostOrderRequest;
+import ru.tinkoff.piapi.contract.v1.PostOrderResponse;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+import ru.tinkoff.piapi.core.exception.ApiRuntimeException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryingOrderSenderTest {
+
+  @TempDir
+  Path directory;
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+  private final OrdersService grpcService = new OrdersService();
+  private ManagedChannel channel;
+  private ru.tinkoff.piapi.core.OrdersService ordersService;
+
+  @BeforeEach
+  void setUp() {
+    channel = grpc.start(grpcService);
+    ordersService = InvestApi.create(channel).getOrdersService();
+  }
+
+  @Test
+  void generatesDistinctUuids_Test() {
+    var generator = new OrderIdGenerator(new Random(42));
+    var ids = new HashSet<String>();
+    for (int i = 0; i < 10_000; i++) {
+      var id = generator.next();
+      assertEquals(36, id.length());
+      assertEquals(4, UUID.fromString(id).version());
+      assertEquals(2, UUID.fromString(id).variant());
+      ids.add(id);
+    }
+    assertEquals(10_000, ids.size());
+  }
+
+  @Test
+  void retriesWithSameOrderId_Test() throws Exception {
+    var file = directory.resolve("orders.log");
+    try (var journal = OrderIdJournal.open(file, true)) {
+      var sender = new RetryingOrderSender(ordersService, journal, new OrderIdGenerator(), 3, Duration.ofMillis(1));
+      grpcService.failures.addAll(List.of(Status.UNAVAILABLE, Status.DEADLINE_EXCEEDED));
+
+      var response = sender.postOrderSync(order(""));
+      assertEquals(3, grpcService.received.size());
+      assertEquals(1, grpcService.received.stream().map(PostOrderRequest::getOrderId).distinct().count());
+      assertEquals(grpcService.received.get(0).getOrderId(), response.getOrderRequestId());
+
+      grpcService.failures.add(Status.UNAVAILABLE);
+      sender.postOrder(order("async-order")).join();
+      assertEquals(List.of("async-order", "async-order"), orderIds().subList(3, 5));
+      assertTrue(journal.getUnresolved().isEmpty());
+
+      grpcService.failures.addAll(List.of(Status.UNAVAILABLE, Status.UNAVAILABLE, Status.UNAVAILABLE));
+      assertThrows(ApiRuntimeException.class, () -> sender.postOrderSync(order("lost")));
+      grpcService.failures.add(Status.INVALID_ARGUMENT);
+      var rejected = assertThrows(CompletionException.class, () -> sender.postOrder(order("rejected")).join());
+      assertInstanceOf(ApiRuntimeException.class, rejected.getCause());
+      assertEquals(List.of("lost"), journal.getUnresolved().stream()
+        .map(PostOrderRequest::getOrderId)
+        .collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  void journalsOrderIdSentToServer_Test() throws Exception {
+    var longId = "0123456789".repeat(4);
+    try (var journal = OrderIdJournal.open(directory.resolve("orders.log"), true)) {
+      var sender = new RetryingOrderSender(ordersService, journal, new OrderIdGenerator(), 2, Duration.ZERO);
+      grpcService.failures.addAll(List.of(Status.UNAVAILABLE, Status.UNAVAILABLE));
+
+      assertThrows(ApiRuntimeException.class, () -> sender.postOrderSync(order(longId)));
+      assertEquals(List.of(longId.substring(0, 36), longId.substring(0, 36)), orderIds());
+      assertEquals(orderIds().subList(0, 1), journal.getUnresolved().stream()
+        .map(PostOrderRequest::getOrderId)
+        .collect(Collectors.toList()));
+
+      sender.postOrderSync(order("   "));
+      assertEquals(36, orderIds().get(2).length());
+    }
+  }
+
+  @Test
+  void reconcilesJournalAfterCrash_Test() throws Exception {
+    var file = directory.resolve("orders.log");
+    try (var journal = OrderIdJournal.open(file, false)) {
+      journal.recordSent(order("placed"));
+      journal.recordSent(order("resolved"));
+      journal.recordSent(order("missing"));
+      journal.recordSent(order("unreachable"));
+      journal.recordResolved("resolved");
+    }
+    Files.writeString(file, "S torn-wri", StandardOpenOption.APPEND);
+
+    try (var journal = OrderIdJournal.open(file, false)) {
+      assertEquals(List.of("placed", "missing", "unreachable"), journal.getUnresolved().stream()
+        .map(PostOrderRequest::getOrderId)
+        .collect(Collectors.toList()));
+      var sender = new RetryingOrderSender(ordersService, journal, new OrderIdGenerator(), 1, Duration.ZERO);
+
+      var recovered = sender.recover();
+      assertEquals(2, recovered.size());
+      assertTrue(recovered.get(0).isPlaced());
+      assertEquals(OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_FILL,
+        recovered.get(0).getState().getExecutionReportStatus());
+      assertFalse(recovered.get(1).isPlaced());
+      assertEquals("missing", recovered.get(1).getRequest().getOrderId());
+      assertEquals(List.of(OrderIdType.ORDER_ID_TYPE_REQUEST), grpcService.stateRequests.stream()
+        .map(GetOrderStateRequest::getOrderIdType)
+        .distinct()
+        .collect(Collectors.toList()));
+      journal.compact();
+    }
+
+    try (var journal = OrderIdJournal.open(file, false)) {
+      assertEquals(List.of("unreachable"), journal.getUnresolved().stream()
+        .map(PostOrderRequest::getOrderId)
+        .collect(Collectors.toList()));
+      assertEquals(1, Files.readAllLines(file).size());
+    }
+  }
+
+  private List<String> orderIds() {
+    return grpcService.received.stream().map(PostOrderRequest::getOrderId).collect(Collectors.toList());
+  }
+
+  private static PostOrderRequest order(String orderId) {
+    return PostOrderRequest.newBuilder()
+      .setAccountId("account")
+      .setInstrumentId("BBG004730N88")
+      .setQuantity(1)
+      .setDirection(OrderDirection.ORDER_DIRECTION_BUY)
+      .setOrderType(OrderType.ORDER_TYPE_MARKET)
+      .setOrderId(orderId)
+      .build();
+  }
+
+  private static class OrdersService extends OrdersServiceGrpc.OrdersServiceImplBase {
+    private final List<Status> failures = new ArrayList<>();
+    private final List<PostOrderRequest> received = new ArrayList<>();
+    private final List<GetOrderStateRequest> stateRequests = new ArrayList<>();
+
+    @Override
+    public synchronized void postOrder(PostOrderRequest request, StreamObserver<PostOrderResponse> responseObserver) {
+      received.add(request);
+      if (!failures.isEmpty()) {
+        responseObserver.onError(failures.remove(0).withDescription("70001").asRuntimeException());
+        return;
+      }
+      responseObserver.onNext(PostOrderResponse.newBuilder()
+        .setOrderId("exchange-" + request.getOrderId())
+        .setOrderRequestId(request.getOrderId())
+        .build());
+      responseObserver.onCompleted();
+    }
+
+    @Override
+    public synchronized void getOrderState(GetOrderStateRequest request, StreamObserver<OrderState> responseObserver) {
+      stateRequests.add(request);
+      switch (request.getOrderId()) {
+        case "placed":
+          responseObserver.onNext(OrderState.newBuilder()
+            .setOrderRequestId(request.getOrderId())
+            .setExecutionReportStatus(OrderExecutionReportStatus.EXECUTION_REPORT_STATUS_FILL)
+            .build());
+          responseObserver.onCompleted();
+          break;
+        case "missing":
+          responseObserver.onError(Status.NOT_FOUND.withDescription("50005").asRuntimeException());
+          break;
+        default:
+          responseObserver.onError(Status.UNAVAILABLE.withDescription("70001").asRuntimeException());
+      }
+    }
+  }
+}
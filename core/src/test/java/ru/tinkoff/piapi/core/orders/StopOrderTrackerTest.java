@@ -0,0 +1,196 @@
+package ru.tinkoff.piapi.core.orders;
+
+import com.google.protobuf.Timestamp;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.GetStopOrdersRequest;
+import ru.tinkoff.piapi.contract.v1.GetStopOrdersResponse;
+import ru.tinkoff.piapi.contract.v1.StopOrder;
+import ru.tinkoff.piapi.contract.v1.StopOrderStatusOption;
+import ru.tinkoff.piapi.contract.v1.StopOrdersServiceGrpc;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StopOrderTrackerTest {
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+  private final StopOrdersService grpcService = new StopOrdersService();
+  private final List<String> events = new CopyOnWriteArrayList<>();
+  private final StopOrderListener listener = new StopOrderListener() {
+    @Override
+    public void onCreated(String accountId, StopOrder stopOrder) {
+      events.add("created " + accountId + " " + stopOrder.getStopOrderId());
+    }
+
+    @Override
+    public void onTriggered(String accountId, StopOrder stopOrder) {
+      events.add("triggered " + accountId + " " + stopOrder.getStopOrderId());
+    }
+
+    @Override
+    public void onCancelled(String accountId, StopOrder stopOrder) {
+      events.add("cancelled " + accountId + " " + stopOrder.getStopOrderId() + " " + stopOrder.getStatus());
+    }
+  };
+  private ManagedChannel channel;
+  private ru.tinkoff.piapi.core.StopOrdersService stopOrdersService;
+
+  @BeforeEach
+  void setUp() {
+    channel = grpc.start(grpcService);
+    stopOrdersService = InvestApi.create(channel).getStopOrdersService();
+  }
+
+  @Test
+  void diffsSnapshotsAndAdaptsInterval_Test() {
+    var tracker = new StopOrderTracker(stopOrdersService, List.of("first", "second"),
+      Duration.ofMillis(100), Duration.ofMillis(400), listener);
+    grpcService.active("first", stopOrder("a", 10), stopOrder("b", 20));
+    grpcService.active("second", stopOrder("c", 30));
+
+    assertTrue(tracker.poll("first").join());
+    assertTrue(tracker.poll("second").join());
+    assertTrue(events.isEmpty());
+    assertEquals(2, tracker.getStopOrders("first").size());
+    assertEquals("c", tracker.getStopOrder("c").getStopOrderId());
+
+    grpcService.active("first", stopOrder("b", 20), stopOrder("d", 40));
+    grpcService.history.put("first", List.of(
+      stopOrder("a", 10).toBuilder().setStatus(StopOrderStatusOption.STOP_ORDER_STATUS_EXECUTED).build(),
+      stopOrder("b", 20)));
+    assertTrue(tracker.poll("first").join());
+    assertEquals(List.of("created first d", "triggered first a"), events);
+    assertEquals(10, grpcService.historyFrom.get(0).getSeconds());
+    assertNull(tracker.getStopOrder("a"));
+    assertEquals("d", tracker.getStopOrder("d").getStopOrderId());
+    assertEquals(Duration.ofMillis(100), tracker.getInterval("first"));
+
+    assertFalse(tracker.poll("first").join());
+    assertEquals(Duration.ofMillis(200), tracker.getInterval("first"));
+    assertFalse(tracker.poll("first").join());
+    assertFalse(tracker.poll("first").join());
+    assertEquals(Duration.ofMillis(400), tracker.getInterval("first"));
+
+    events.clear();
+    grpcService.active("second");
+    grpcService.historyFailures = 1;
+    assertTrue(tracker.poll("second").join());
+    assertTrue(events.isEmpty());
+    assertNull(tracker.getStopOrder("c"));
+    grpcService.history.put("second", List.of(
+      stopOrder("c", 30).toBuilder().setStatus(StopOrderStatusOption.STOP_ORDER_STATUS_CANCELED).build()));
+    tracker.poll("second").join();
+    assertEquals(List.of("cancelled second c STOP_ORDER_STATUS_CANCELED"), events);
+
+    assertThrows(IllegalArgumentException.class, () -> tracker.poll("unknown"));
+  }
+
+  @Test
+  void retriesStopOrdersMissingFromHistory_Test() {
+    var tracker = new StopOrderTracker(stopOrdersService, List.of("first"),
+      Duration.ofMillis(100), Duration.ofMillis(400), listener);
+    grpcService.active("first", stopOrder("a", 10), stopOrder("b", 20));
+    tracker.poll("first").join();
+
+    grpcService.active("first");
+    grpcService.history.put("first", List.of(stopOrder("b", 20)));
+    assertTrue(tracker.poll("first").join());
+    assertTrue(events.isEmpty());
+    assertNull(tracker.getStopOrder("a"));
+
+    assertFalse(tracker.poll("first").join());
+    assertTrue(events.isEmpty());
+    assertEquals(Duration.ofMillis(200), tracker.getInterval("first"));
+
+    grpcService.history.put("first", List.of(
+      stopOrder("a", 10).toBuilder().setStatus(StopOrderStatusOption.STOP_ORDER_STATUS_EXECUTED).build(),
+      stopOrder("b", 20).toBuilder().setStatus(StopOrderStatusOption.STOP_ORDER_STATUS_EXPIRED).build()));
+    tracker.poll("first").join();
+    assertEquals(List.of("triggered first a", "cancelled first b STOP_ORDER_STATUS_EXPIRED"), events);
+
+    events.clear();
+    tracker.poll("first").join();
+    assertTrue(events.isEmpty());
+  }
+
+  @Test
+  void pollsOnTimer_Test() throws Exception {
+    var created = new CountDownLatch(1);
+    try (var tracker = new StopOrderTracker(stopOrdersService, List.of("first"),
+      Duration.ofMillis(10), Duration.ofMillis(20), new StopOrderListener() {
+      @Override
+      public void onCreated(String accountId, StopOrder stopOrder) {
+        created.countDown();
+      }
+    })) {
+      tracker.start();
+      while (grpcService.requests.get() < 2) {
+        Thread.sleep(5);
+      }
+      grpcService.active("first", stopOrder("a", 10));
+      assertTrue(created.await(5, TimeUnit.SECONDS));
+      assertEquals(1, tracker.getStopOrders("first").size());
+    }
+  }
+
+  private static StopOrder stopOrder(String stopOrderId, long createdAt) {
+    return StopOrder.newBuilder()
+      .setStopOrderId(stopOrderId)
+      .setCreateDate(Timestamp.newBuilder().setSeconds(createdAt))
+      .setStatus(StopOrderStatusOption.STOP_ORDER_STATUS_ACTIVE)
+      .build();
+  }
+
+  private static class StopOrdersService extends StopOrdersServiceGrpc.StopOrdersServiceImplBase {
+    private final Map<String, List<StopOrder>> active = new ConcurrentHashMap<>();
+    private final Map<String, List<StopOrder>> history = new ConcurrentHashMap<>();
+    private final List<Timestamp> historyFrom = new ArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int historyFailures;
+
+    void active(String accountId, StopOrder... stopOrders) {
+      active.put(accountId, List.of(stopOrders));
+    }
+
+    @Override
+    public synchronized void getStopOrders(GetStopOrdersRequest request,
+                                           StreamObserver<GetStopOrdersResponse> responseObserver) {
+      requests.incrementAndGet();
+      List<StopOrder> stopOrders;
+      if (request.getStatus() == StopOrderStatusOption.STOP_ORDER_STATUS_ALL) {
+        historyFrom.add(request.getFrom());
+        if (historyFailures > 0) {
+          historyFailures--;
+          responseObserver.onError(Status.UNAVAILABLE.withDescription("70001").asRuntimeException());
+          return;
+        }
+        stopOrders = history.getOrDefault(request.getAccountId(), List.of());
+      } else {
+        stopOrders = active.getOrDefault(request.getAccountId(), List.of());
+      }
+      responseObserver.onNext(GetStopOrdersResponse.newBuilder().addAllStopOrders(stopOrders).build());
+      responseObserver.onCompleted();
+    }
+  }
+}
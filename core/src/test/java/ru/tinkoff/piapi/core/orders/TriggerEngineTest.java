@@ -0,0 +1,187 @@
+package ru.tinkoff.piapi.core.orders;
+
+import io.grpc.ManagedChannel;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.LastPrice;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.OrderDirection;
+import ru.tinkoff.piapi.contract.v1.OrderType;
+import ru.tinkoff.piapi.contract.v1.OrdersServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.PostOrderRequest;
+import ru.tinkoff.piapi.contract.v1.PostOrderResponse;
+import ru.tinkoff.piapi.contract.v1.Quotation;
+import ru.tinkoff.piapi.contract.v1.Trade;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TriggerEngineTest {
+
+  private static final String SBER_UID = "e6123145-9665-43e0-8413-cd61b8aa9b13";
+  private static final String SBER_FIGI = "BBG004730N88";
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+  private final OrdersService grpcService = new OrdersService();
+  private ManagedChannel channel;
+  private TriggerEngine engine;
+
+  @BeforeEach
+  void setUp() {
+    channel = grpc.start(grpcService);
+    engine = new TriggerEngine(InvestApi.create(channel).getOrdersService());
+  }
+
+  @Test
+  void firesStopsAndTakeProfitsInPriceOrder_Test() {
+    var stops = new ArrayList<ConditionalOrder>();
+    for (int i = 0; i < 20; i++) {
+      stops.add(engine.add(ConditionalOrder.stopLoss(order("stop-" + i, OrderDirection.ORDER_DIRECTION_SELL),
+        price(200 + i))));
+    }
+    var takeProfit = engine.add(ConditionalOrder.takeProfit(order("take", OrderDirection.ORDER_DIRECTION_SELL), price(260)));
+    var buyStop = engine.add(ConditionalOrder.stopLoss(order("buy-stop", OrderDirection.ORDER_DIRECTION_BUY), price(255)));
+    assertTrue(engine.cancel(stops.get(18)));
+    assertEquals(21, engine.getPending());
+
+    lastPrice(230);
+    assertTrue(grpcService.received.isEmpty());
+
+    lastPrice(216);
+    assertEquals(List.of("stop-19", "stop-17", "stop-16"), orderIds());
+    assertEquals(ConditionalOrder.Status.TRIGGERED, stops.get(16).getStatus());
+    assertEquals(price(216), stops.get(16).getTriggerPrice());
+    assertEquals("exchange-stop-16", stops.get(16).getResult().join().getOrderId());
+    assertTrue(stops.get(16).getTriggerToSubmitNanos() >= 0);
+    assertEquals(ConditionalOrder.Status.CANCELLED, stops.get(18).getStatus());
+    assertTrue(stops.get(18).getResult().isCancelled());
+    assertEquals(ConditionalOrder.Status.PENDING, stops.get(15).getStatus());
+    assertNull(stops.get(15).getTriggerPrice());
+
+    grpcService.received.clear();
+    engine.process(MarketDataResponse.newBuilder()
+      .setTrade(Trade.newBuilder().setFigi(SBER_FIGI).setInstrumentUid(SBER_UID).setPrice(price(261)))
+      .build());
+    assertEquals(List.of("take", "buy-stop"), orderIds());
+    assertEquals(ConditionalOrder.Status.TRIGGERED, takeProfit.getStatus());
+    assertEquals(ConditionalOrder.Status.TRIGGERED, buyStop.getStatus());
+    assertEquals(16, engine.getPending());
+    assertEquals(5, engine.getTriggerLatency().count());
+    assertFalse(engine.cancel(takeProfit));
+  }
+
+  @Test
+  void trailsAndCancelsOcoSibling_Test() {
+    var trailing = engine.add(ConditionalOrder.trailingStop(order("trailing", OrderDirection.ORDER_DIRECTION_SELL), price(5)));
+    var stop = ConditionalOrder.stopLoss(order("oco-stop", OrderDirection.ORDER_DIRECTION_SELL), price(240));
+    var take = ConditionalOrder.takeProfit(order("oco-take", OrderDirection.ORDER_DIRECTION_SELL), price(270));
+    engine.addOco(stop, take);
+
+    lastPrice(250);
+    lastPrice(262);
+    lastPrice(258);
+    assertTrue(grpcService.received.isEmpty());
+    lastPrice(271);
+    assertEquals(List.of("oco-take"), orderIds());
+    assertEquals(ConditionalOrder.Status.CANCELLED, stop.getStatus());
+
+    lastPrice(240);
+    assertEquals(List.of("oco-take", "trailing"), orderIds());
+    assertEquals(price(240), trailing.getTriggerPrice());
+    assertEquals(0, engine.getPending());
+    assertThrows(IllegalArgumentException.class, () -> engine.add(stop));
+    assertThrows(IllegalArgumentException.class,
+      () -> ConditionalOrder.stopLoss(order("no-direction", OrderDirection.ORDER_DIRECTION_UNSPECIFIED), price(1)));
+  }
+
+  @Test
+  void purgesCancelledOrdersAndEmptyInstruments_Test() {
+    var stops = new ArrayList<ConditionalOrder>();
+    for (int i = 0; i < 100; i++) {
+      stops.add(engine.add(ConditionalOrder.stopLoss(order("stop-" + i, OrderDirection.ORDER_DIRECTION_SELL),
+        price(100 + i))));
+    }
+    var trailing = engine.add(ConditionalOrder.trailingStop(order("trailing", OrderDirection.ORDER_DIRECTION_SELL), price(5)));
+    assertEquals(1, engine.getInstrumentCount());
+    for (var stop : stops) {
+      assertTrue(engine.cancel(stop));
+    }
+    assertTrue(engine.cancel(trailing));
+    assertEquals(0, engine.getInstrumentCount());
+    assertEquals(0, engine.getPending());
+
+    var stop = engine.add(ConditionalOrder.stopLoss(order("stop", OrderDirection.ORDER_DIRECTION_SELL), price(150)));
+    lastPrice(150);
+    assertEquals(List.of("stop"), orderIds());
+    assertEquals(ConditionalOrder.Status.TRIGGERED, stop.getStatus());
+    assertEquals(0, engine.getInstrumentCount());
+  }
+
+  @Test
+  void validatesOcoPairBeforeLinking_Test() {
+    var first = ConditionalOrder.stopLoss(order("oco-stop", OrderDirection.ORDER_DIRECTION_SELL), price(240));
+    var cancelled = ConditionalOrder.takeProfit(order("cancelled", OrderDirection.ORDER_DIRECTION_SELL), price(270));
+    engine.cancel(cancelled);
+    assertThrows(IllegalArgumentException.class, () -> engine.addOco(first, cancelled));
+    assertEquals(0, engine.getPending());
+
+    var take = ConditionalOrder.takeProfit(order("oco-take", OrderDirection.ORDER_DIRECTION_SELL), price(270));
+    engine.addOco(first, take);
+    assertThrows(IllegalArgumentException.class, () -> engine.addOco(take,
+      ConditionalOrder.stopLoss(order("other", OrderDirection.ORDER_DIRECTION_SELL), price(230))));
+    lastPrice(239);
+    assertEquals(List.of("oco-stop"), orderIds());
+    assertEquals(ConditionalOrder.Status.CANCELLED, take.getStatus());
+    assertEquals(0, engine.getPending());
+  }
+
+  private void lastPrice(long units) {
+    engine.process(MarketDataResponse.newBuilder()
+      .setLastPrice(LastPrice.newBuilder().setFigi(SBER_FIGI).setInstrumentUid(SBER_UID).setPrice(price(units)))
+      .build());
+  }
+
+  private List<String> orderIds() {
+    return grpcService.received.stream().map(PostOrderRequest::getOrderId).collect(Collectors.toList());
+  }
+
+  private static Quotation price(long units) {
+    return Quotation.newBuilder().setUnits(units).build();
+  }
+
+  private static PostOrderRequest order(String orderId, OrderDirection direction) {
+    return PostOrderRequest.newBuilder()
+      .setAccountId("account")
+      .setInstrumentId(orderId.startsWith("buy") ? SBER_FIGI : SBER_UID)
+      .setQuantity(1)
+      .setDirection(direction)
+      .setOrderType(OrderType.ORDER_TYPE_MARKET)
+      .setOrderId(orderId)
+      .build();
+  }
+
+  private static class OrdersService extends OrdersServiceGrpc.OrdersServiceImplBase {
+    private final List<PostOrderRequest> received = new ArrayList<>();
+
+    @Override
+    public synchronized void postOrder(PostOrderRequest request, StreamObserver<PostOrderResponse> responseObserver) {
+      received.add(request);
+      responseObserver.onNext(PostOrderResponse.newBuilder()
+        .setOrderId("exchange-" + request.getOrderId())
+        .build());
+      responseObserver.onCompleted();
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package ru.tinkoff.piapi.core.stream;
+
+import io.grpc.Context;
+import io.grpc.ManagedChannel;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.Candle;
+import ru.tinkoff.piapi.contract.v1.CandleInstrument;
+import ru.tinkoff.piapi.contract.v1.LastPriceInstrument;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.MarketDataServerSideStreamRequest;
+import ru.tinkoff.piapi.contract.v1.MarketDataStreamServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.SubscribeCandlesRequest;
+import ru.tinkoff.piapi.contract.v1.SubscribeLastPriceRequest;
+import ru.tinkoff.piapi.contract.v1.SubscriptionAction;
+import ru.tinkoff.piapi.contract.v1.SubscriptionInterval;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MarketDataServerSideStreamTest {
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+  private final CompletableFuture<MarketDataServerSideStreamRequest> received = new CompletableFuture<>();
+  private final CompletableFuture<Void> cancelled = new CompletableFuture<>();
+  private ManagedChannel channel;
+
+  @BeforeEach
+  void setUp() {
+    channel = grpc.start(new MarketDataStreamServiceGrpc.MarketDataStreamServiceImplBase() {
+      @Override
+      public void marketDataServerSideStream(MarketDataServerSideStreamRequest request,
+                                             StreamObserver<MarketDataResponse> responseObserver) {
+        received.complete(request);
+        Context.current().addListener(context -> cancelled.complete(null), Runnable::run);
+        for (var instrument : request.getSubscribeCandlesRequest().getInstrumentsList()) {
+          responseObserver.onNext(MarketDataResponse.newBuilder()
+            .setCandle(Candle.newBuilder().setInstrumentUid(instrument.getInstrumentId()))
+            .build());
+        }
+      }
+    });
+  }
+
+  @Test
+  void opensStreamWithSubscribeActions_Test() throws Exception {
+    var messages = new CopyOnWriteArrayList<MarketDataResponse>();
+    var service = InvestApi.createReadonly(channel).getMarketDataStreamService();
+    var request = MarketDataServerSideStreamRequest.newBuilder()
+      .setSubscribeCandlesRequest(SubscribeCandlesRequest.newBuilder()
+        .addInstruments(CandleInstrument.newBuilder()
+          .setInstrumentId("e6123145-9665-43e0-8413-cd61b8aa9b13")
+          .setInterval(SubscriptionInterval.SUBSCRIPTION_INTERVAL_ONE_MINUTE)))
+      .setSubscribeLastPriceRequest(SubscribeLastPriceRequest.newBuilder()
+        .setSubscriptionAction(SubscriptionAction.SUBSCRIPTION_ACTION_UNSUBSCRIBE)
+        .addInstruments(LastPriceInstrument.newBuilder().setInstrumentId("BBG004730N88")))
+      .build();
+
+    var stream = service.newServerSideStream("dashboard", request, messages::add, null);
+
+    var sent = received.get(5, TimeUnit.SECONDS);
+    assertEquals(SubscriptionAction.SUBSCRIPTION_ACTION_SUBSCRIBE, sent.getSubscribeCandlesRequest().getSubscriptionAction());
+    assertEquals(SubscriptionAction.SUBSCRIPTION_ACTION_UNSUBSCRIBE, sent.getSubscribeLastPriceRequest().getSubscriptionAction());
+    assertFalse(sent.hasSubscribeTradesRequest());
+    assertEquals(sent, stream.getRequest());
+    assertEquals(1, messages.size());
+    assertEquals("e6123145-9665-43e0-8413-cd61b8aa9b13", messages.get(0).getCandle().getInstrumentUid());
+    assertSame(stream, service.getServerSideStreamById("dashboard"));
+  }
+
+  @Test
+  void cancelClosesStream_Test() throws Exception {
+    var errors = new CompletableFuture<Throwable>();
+    var stream = InvestApi.createReadonly(channel).getMarketDataStreamService()
+      .newServerSideStream("dashboard", MarketDataServerSideStreamRequest.getDefaultInstance(), response -> {
+      }, errors::complete);
+    received.get(5, TimeUnit.SECONDS);
+
+    stream.cancel();
+
+    cancelled.get(5, TimeUnit.SECONDS);
+    assertTrue(errors.isDone());
+  }
+}
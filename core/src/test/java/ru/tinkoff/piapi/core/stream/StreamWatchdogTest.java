@@ -0,0 +1,141 @@
+package ru.tinkoff.piapi.core.stream;
+
+import io.grpc.ManagedChannel;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.tinkoff.piapi.contract.v1.MarketDataRequest;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.MarketDataStreamServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.OperationsStreamServiceGrpc;
+import ru.tinkoff.piapi.contract.v1.Ping;
+import ru.tinkoff.piapi.contract.v1.PortfolioStreamRequest;
+import ru.tinkoff.piapi.contract.v1.PortfolioStreamResponse;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+import ru.tinkoff.piapi.core.exception.StreamStaleException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+public class StreamWatchdogTest {
+
+  private static final Duration PING_INTERVAL = Duration.ofMillis(40);
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+  private final ScheduledExecutorService pinger = Executors.newSingleThreadScheduledExecutor();
+  private volatile boolean sendPings;
+  private ManagedChannel channel;
+
+  @BeforeEach
+  void setUp() {
+    channel = grpc.start(new MarketDataService(), new OperationsService());
+  }
+
+  @AfterEach
+  void tearDown() {
+    pinger.shutdownNow();
+  }
+
+  @Test
+  void cancelsSilentMarketDataStream_Test() throws Exception {
+    var stale = new CompletableFuture<String>();
+    var error = new CompletableFuture<Throwable>();
+    try (var watchdog = new StreamWatchdog(PING_INTERVAL, 2, stale::complete)) {
+      var api = InvestApi.create(channel).withStreamWatchdog(watchdog);
+      api.getMarketDataStreamService()
+        .newStream("quotes", response -> {
+        }, error::complete)
+        .subscribeLastPrices(List.of("BBG000B9XRY4"));
+
+      assertEquals("marketdata quotes", stale.get(5, TimeUnit.SECONDS));
+      assertInstanceOf(StreamStaleException.class, error.get(5, TimeUnit.SECONDS).getCause());
+      assertEquals(0, watchdog.watchedCount());
+    }
+  }
+
+  @Test
+  void keepsPingedStreamOpen_Test() throws Exception {
+    sendPings = true;
+    var stale = new CompletableFuture<String>();
+    try (var watchdog = new StreamWatchdog(PING_INTERVAL, 2, stale::complete)) {
+      var api = InvestApi.create(channel).withStreamWatchdog(watchdog);
+      api.getMarketDataStreamService()
+        .newStream("quotes", response -> {
+        }, stale::completeExceptionally)
+        .subscribeLastPrices(List.of("BBG000B9XRY4"));
+
+      Thread.sleep(PING_INTERVAL.toMillis() * 8);
+      assertFalse(stale.isDone());
+      assertEquals(1, watchdog.watchedCount());
+    }
+  }
+
+  @Test
+  void cancelsSilentPortfolioStream_Test() throws Exception {
+    var error = new CompletableFuture<Throwable>();
+    try (var watchdog = new StreamWatchdog(PING_INTERVAL, 2)) {
+      var api = InvestApi.create(channel).withStreamWatchdog(watchdog);
+      api.getOperationsStreamService().subscribePortfolio(response -> {
+      }, error::complete, "2000000000");
+
+      assertInstanceOf(StreamStaleException.class, error.get(5, TimeUnit.SECONDS).getCause());
+    }
+  }
+
+  @Test
+  void forgetsStreamCancelledByUser_Test() throws Exception {
+    try (var watchdog = new StreamWatchdog(PING_INTERVAL, 2)) {
+      var api = InvestApi.create(channel).withStreamWatchdog(watchdog);
+      var stream = api.getMarketDataStreamService().newStream("quotes", response -> {
+      }, null);
+      assertEquals(1, watchdog.watchedCount());
+
+      stream.cancel();
+
+      assertEquals(0, watchdog.watchedCount());
+    }
+  }
+
+  private class MarketDataService extends MarketDataStreamServiceGrpc.MarketDataStreamServiceImplBase {
+    @Override
+    public StreamObserver<MarketDataRequest> marketDataStream(StreamObserver<MarketDataResponse> responseObserver) {
+      if (sendPings) {
+        pinger.scheduleAtFixedRate(
+          () -> responseObserver.onNext(MarketDataResponse.newBuilder().setPing(Ping.getDefaultInstance()).build()),
+          0, PING_INTERVAL.toMillis() / 2, TimeUnit.MILLISECONDS);
+      }
+      return new StreamObserver<>() {
+        @Override
+        public void onNext(MarketDataRequest value) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+      };
+    }
+  }
+
+  private static class OperationsService extends OperationsStreamServiceGrpc.OperationsStreamServiceImplBase {
+    @Override
+    public void portfolioStream(PortfolioStreamRequest request, StreamObserver<PortfolioStreamResponse> responseObserver) {
+      responseObserver.onNext(PortfolioStreamResponse.newBuilder().setPing(Ping.getDefaultInstance()).build());
+    }
+  }
+}
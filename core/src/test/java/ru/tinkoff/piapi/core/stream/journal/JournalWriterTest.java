@@ -0,0 +1,131 @@
+package ru.tinkoff.piapi.core.stream.journal;
+
+import com.google.protobuf.Timestamp;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.tinkoff.piapi.contract.v1.Candle;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.contract.v1.Quotation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JournalWriterTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void rollsBySize_Test() throws IOException {
+    var expected = candles(200);
+    try (var writer = new JournalWriter(directory, "md", 4096, Duration.ofHours(1))) {
+      for (int i = 0; i < expected.size(); i++) {
+        writer.append(expected.get(i), expected.get(i).getPayloadCase().getNumber(), 1_000L + i);
+      }
+    }
+
+    var segments = segments();
+    assertTrue(segments.size() > 1);
+    var actual = new ArrayList<MarketDataResponse>();
+    var timestamps = new ArrayList<Long>();
+    for (var segment : segments) {
+      readSegment(segment, actual, timestamps);
+    }
+    assertEquals(expected, actual);
+    for (int i = 0; i < timestamps.size(); i++) {
+      assertEquals(1_000L + i, timestamps.get(i));
+    }
+  }
+
+  @Test
+  void rollsByTime_Test() throws IOException {
+    var messages = candles(3);
+    try (var writer = new JournalWriter(directory, "md", 1 << 20, Duration.ofSeconds(1))) {
+      var start = System.nanoTime();
+      writer.append(messages.get(0), 5, start);
+      writer.append(messages.get(1), 5, start + 10);
+      writer.append(messages.get(2), 5, start + Duration.ofSeconds(2).toNanos());
+    }
+
+    var segments = segments();
+    assertEquals(2, segments.size());
+    var first = new ArrayList<MarketDataResponse>();
+    readSegment(segments.get(0), first, new ArrayList<>());
+    assertEquals(messages.subList(0, 2), first);
+  }
+
+  @Test
+  void continuesSequenceAfterRestart_Test() throws IOException {
+    new JournalWriter(directory, "md").close();
+    new JournalWriter(directory, "md").close();
+
+    var names = segments().stream().map(p -> p.getFileName().toString()).collect(Collectors.toList());
+    assertEquals(List.of("md-0000000000.journal", "md-0000000001.journal"), names);
+  }
+
+  @Test
+  void recorderPassesMessagesThrough_Test() throws IOException {
+    var received = new ArrayList<MarketDataResponse>();
+    var messages = candles(5);
+    try (var writer = new JournalWriter(directory, "md")) {
+      var recorder = new MarketDataRecorder(received::add, writer);
+      messages.forEach(recorder::process);
+    }
+
+    var recorded = new ArrayList<MarketDataResponse>();
+    readSegment(segments().get(0), recorded, new ArrayList<>());
+    assertEquals(messages, received);
+    assertEquals(messages, recorded);
+  }
+
+  private List<Path> segments() throws IOException {
+    try (var files = Files.list(directory)) {
+      return files.sorted().collect(Collectors.toList());
+    }
+  }
+
+  private static void readSegment(Path path,
+                                  List<MarketDataResponse> messages,
+                                  List<Long> timestamps) throws IOException {
+    var buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(JournalFormat.BYTE_ORDER);
+    assertEquals(JournalFormat.MAGIC, buffer.getInt(JournalFormat.MAGIC_OFFSET));
+    var position = JournalFormat.SEGMENT_HEADER_LENGTH;
+    while (true) {
+      var length = buffer.getInt(position + JournalFormat.LENGTH_OFFSET);
+      if (length <= 0) {
+        return;
+      }
+      assertEquals(MarketDataResponse.PayloadCase.CANDLE.getNumber(), buffer.getInt(position + JournalFormat.TYPE_OFFSET));
+      timestamps.add(buffer.getLong(position + JournalFormat.TIMESTAMP_OFFSET));
+      var payload = new byte[length];
+      buffer.position(position + JournalFormat.RECORD_HEADER_LENGTH);
+      buffer.get(payload);
+      messages.add(MarketDataResponse.parseFrom(payload));
+      position += JournalFormat.RECORD_HEADER_LENGTH + JournalFormat.align(length);
+    }
+  }
+
+  static List<MarketDataResponse> candles(int count) {
+    var result = new ArrayList<MarketDataResponse>();
+    for (int i = 0; i < count; i++) {
+      result.add(MarketDataResponse.newBuilder()
+        .setCandle(Candle.newBuilder()
+          .setFigi("BBG000B9XRY4")
+          .setOpen(Quotation.newBuilder().setUnits(100 + i).build())
+          .setClose(Quotation.newBuilder().setUnits(101 + i).setNano(500_000_000).build())
+          .setVolume(i)
+          .setTime(Timestamp.newBuilder().setSeconds(1_700_000_000L + 60L * i)))
+        .build());
+    }
+    return result;
+  }
+}
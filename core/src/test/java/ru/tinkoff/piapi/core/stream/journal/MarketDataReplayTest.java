@@ -0,0 +1,120 @@
+package ru.tinkoff.piapi.core.stream.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import ru.tinkoff.piapi.contract.v1.MarketDataResponse;
+import ru.tinkoff.piapi.core.InProcessGrpcExtension;
+import ru.tinkoff.piapi.core.InvestApi;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MarketDataReplayTest {
+
+  private static final long STEP_NANOS = Duration.ofMillis(2).toNanos();
+
+  @RegisterExtension
+  final InProcessGrpcExtension grpc = new InProcessGrpcExtension();
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void readerReadsAllSegments_Test() {
+    var expected = JournalWriterTest.candles(200);
+    try (var writer = new JournalWriter(directory, "md", 4096, Duration.ofHours(1))) {
+      for (int i = 0; i < expected.size(); i++) {
+        writer.append(expected.get(i), expected.get(i).getPayloadCase().getNumber(), 1_000L + i);
+      }
+    }
+
+    var reader = JournalReader.forPrefix(directory, "md");
+    var actual = new ArrayList<MarketDataResponse>();
+    while (reader.next()) {
+      assertEquals(MarketDataResponse.PayloadCase.CANDLE.getNumber(), reader.type());
+      assertEquals(1_000L + actual.size(), reader.nanoTime());
+      actual.add(reader.parse(MarketDataResponse.parser()));
+    }
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  void mergesJournalsByTime_Test() {
+    var expected = JournalWriterTest.candles(20);
+    recordInterleaved(expected);
+
+    var actual = new ArrayList<MarketDataResponse>();
+    var count = new MarketDataReplay(readers(), MarketDataReplay.MAX_SPEED).run(actual::add);
+
+    assertEquals(expected.size(), count);
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  void keepsOriginalPace_Test() {
+    var messages = JournalWriterTest.candles(11);
+    recordInterleaved(messages);
+
+    var start = System.nanoTime();
+    new MarketDataReplay(readers(), MarketDataReplay.ORIGINAL_SPEED).run(response -> {
+    });
+    var elapsed = System.nanoTime() - start;
+
+    assertTrue(elapsed >= (messages.size() - 1) * STEP_NANOS - STEP_NANOS / 2, "elapsed " + elapsed);
+  }
+
+  @Test
+  void cancelStopsReplay_Test() {
+    recordInterleaved(JournalWriterTest.candles(20));
+
+    var replay = new MarketDataReplay(readers(), MarketDataReplay.MAX_SPEED);
+    var count = replay.run(response -> replay.cancel());
+
+    assertEquals(1, count);
+  }
+
+  @Test
+  void servesRecordedStreamThroughInvestApi_Test() throws Exception {
+    var expected = JournalWriterTest.candles(20);
+    recordInterleaved(expected);
+
+    var channel = grpc.start(
+      new MarketDataReplayService(() -> new MarketDataReplay(readers(), MarketDataReplay.MAX_SPEED)));
+    var received = new CopyOnWriteArrayList<MarketDataResponse>();
+    var done = new CountDownLatch(expected.size());
+    var api = InvestApi.create(channel);
+    api.getMarketDataStreamService()
+      .newStream("replay", response -> {
+        received.add(response);
+        done.countDown();
+      }, null)
+      .subscribeCandles(List.of("BBG000B9XRY4"));
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(expected, received);
+  }
+
+  private void recordInterleaved(List<MarketDataResponse> messages) {
+    var base = System.nanoTime();
+    try (var even = new JournalWriter(directory, "even");
+         var odd = new JournalWriter(directory, "odd")) {
+      for (int i = 0; i < messages.size(); i++) {
+        var writer = i % 2 == 0 ? even : odd;
+        writer.append(messages.get(i), messages.get(i).getPayloadCase().getNumber(), base + i * STEP_NANOS);
+      }
+    }
+  }
+
+  private List<JournalReader> readers() {
+    return List.of(JournalReader.forPrefix(directory, "odd"), JournalReader.forPrefix(directory, "even"));
+  }
+}
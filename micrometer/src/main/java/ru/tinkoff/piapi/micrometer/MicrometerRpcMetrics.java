@@ -0,0 +1,191 @@
+package ru.tinkoff.piapi.micrometer;
+
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import ru.tinkoff.piapi.core.metrics.MethodMetrics;
+import ru.tinkoff.piapi.core.metrics.RpcMetrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Публикация метрик вызовов API в Micrometer.
+ * <p>
+ * Для каждого метода регистрируются:
+ * <ul>
+ *   <li>{@code invest.api.calls} — таймер вызовов с тегом {@code status};</li>
+ *   <li>{@code invest.api.calls.active} — количество выполняющихся вызовов;</li>
+ *   <li>{@code invest.api.errors} — счётчик ошибок с тегом {@code error_id}: числовой код ошибки API
+ *   либо {@code other} для ошибок транспорта и прочих ошибок без кода;</li>
+ *   <li>{@code invest.api.messages.sent} и {@code invest.api.messages.received} — размеры сообщений;</li>
+ *   <li>{@code invest.api.ratelimit.limit}, {@code invest.api.ratelimit.remaining},
+ *   {@code invest.api.ratelimit.reset} — последние значения заголовков ограничения частоты запросов.</li>
+ * </ul>
+ * Все метрики имеют теги {@code service} (короткое имя сервиса) и {@code method}.
+ * Метры создаются при первом использовании, дальнейшая запись не выделяет память.
+ * <p>
+ * Значения датчиков хранятся по одному на реестр и набор тегов. Поэтому несколько экземпляров с общим реестром
+ * (например, по перехватчику на каждое подключение {@link ru.tinkoff.piapi.core.ShardedInvestApi}) публикуют
+ * общие значения: число выполняющихся вызовов суммируется, а ограничения частоты запросов показывают последний
+ * полученный ответ.
+ */
+public class MicrometerRpcMetrics implements RpcMetrics {
+
+  private static final int STATUS_COUNT = Status.Code.values().length;
+  /**
+   * Значение тега {@code error_id} для ошибок без числового кода API. Описания таких ошибок произвольны
+   * (адреса, длительности), и тег по ним неограниченно размножал бы метры.
+   */
+  static final String OTHER_ERROR = "other";
+
+  /**
+   * Micrometer сохраняет объект датчика, зарегистрированный первым, и повторная регистрация с новым объектом
+   * не публикует его значения, поэтому объекты датчиков разделяются между экземплярами.
+   */
+  private static final Map<MeterRegistry, Map<Tags, Gauges>> gauges = new WeakHashMap<>();
+
+  private final MeterRegistry registry;
+
+  public MicrometerRpcMetrics(@Nonnull MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Nonnull
+  @Override
+  public MethodMetrics method(@Nonnull String service, @Nonnull String method) {
+    var tags = Tags.of("service", service.substring(service.lastIndexOf('.') + 1), "method", method);
+    return new MicrometerMethodMetrics(registry, tags, gauges(registry, tags));
+  }
+
+  private static Gauges gauges(MeterRegistry registry, Tags tags) {
+    synchronized (gauges) {
+      return gauges.computeIfAbsent(registry, ignored -> new ConcurrentHashMap<>())
+        .computeIfAbsent(tags, ignored -> new Gauges(registry, tags));
+    }
+  }
+
+  /**
+   * Объекты датчиков метода, зарегистрированные в реестре.
+   */
+  private static final class Gauges {
+    private final AtomicInteger active;
+    private final AtomicLong limit;
+    private final AtomicLong remaining;
+    private final AtomicLong reset;
+
+    Gauges(MeterRegistry registry, Tags tags) {
+      this.active = registry.gauge("invest.api.calls.active", tags, new AtomicInteger());
+      this.limit = registry.gauge("invest.api.ratelimit.limit", tags, new AtomicLong());
+      this.remaining = registry.gauge("invest.api.ratelimit.remaining", tags, new AtomicLong());
+      this.reset = registry.gauge("invest.api.ratelimit.reset", tags, new AtomicLong());
+    }
+  }
+
+  static class MicrometerMethodMetrics implements MethodMetrics {
+    private final MeterRegistry registry;
+    private final Tags tags;
+    private final AtomicReferenceArray<Timer> calls = new AtomicReferenceArray<>(STATUS_COUNT);
+    private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+    private final AtomicInteger active;
+    private final DistributionSummary sent;
+    private final DistributionSummary received;
+    private final AtomicLong limit;
+    private final AtomicLong remaining;
+    private final AtomicLong reset;
+
+    private MicrometerMethodMetrics(MeterRegistry registry, Tags tags, Gauges gauges) {
+      this.registry = registry;
+      this.tags = tags;
+      this.active = gauges.active;
+      this.sent = messageSize("invest.api.messages.sent");
+      this.received = messageSize("invest.api.messages.received");
+      this.limit = gauges.limit;
+      this.remaining = gauges.remaining;
+      this.reset = gauges.reset;
+    }
+
+    @Override
+    public void callStarted() {
+      active.incrementAndGet();
+    }
+
+    @Override
+    public void callCompleted(@Nonnull Status.Code code, @Nullable String errorId, long latencyNanos) {
+      active.decrementAndGet();
+      var timer = calls.get(code.ordinal());
+      if (timer == null) {
+        timer = Timer.builder("invest.api.calls")
+          .tags(tags)
+          .tag("status", code.name())
+          .publishPercentileHistogram()
+          .register(registry);
+        calls.set(code.ordinal(), timer);
+      }
+      timer.record(latencyNanos, TimeUnit.NANOSECONDS);
+      if (errorId != null) {
+        var tag = isApiErrorId(errorId) ? errorId : OTHER_ERROR;
+        var counter = errors.get(tag);
+        if (counter == null) {
+          counter = errors.computeIfAbsent(tag, id -> Counter.builder("invest.api.errors")
+            .tags(tags)
+            .tag("error_id", id)
+            .register(registry));
+        }
+        counter.increment();
+      }
+    }
+
+    @Override
+    public void messageSent(int bytes) {
+      sent.record(bytes);
+    }
+
+    @Override
+    public void messageReceived(int bytes) {
+      received.record(bytes);
+    }
+
+    @Override
+    public void rateLimit(int limit, int remaining, int resetSeconds) {
+      if (limit >= 0) {
+        this.limit.set(limit);
+      }
+      if (remaining >= 0) {
+        this.remaining.set(remaining);
+      }
+      if (resetSeconds >= 0) {
+        this.reset.set(resetSeconds);
+      }
+    }
+
+    private static boolean isApiErrorId(String errorId) {
+      if (errorId.isEmpty()) {
+        return false;
+      }
+      for (int i = 0; i < errorId.length(); i++) {
+        if (errorId.charAt(i) < '0' || errorId.charAt(i) > '9') {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private DistributionSummary messageSize(String name) {
+      return DistributionSummary.builder(name)
+        .baseUnit("bytes")
+        .tags(tags)
+        .register(registry);
+    }
+  }
+}
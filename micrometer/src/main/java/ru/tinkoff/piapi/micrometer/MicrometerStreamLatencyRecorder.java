@@ -0,0 +1,63 @@
+package ru.tinkoff.piapi.micrometer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import ru.tinkoff.piapi.core.metrics.StreamLatencyRecorder;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Публикация задержек сообщений стримов в Micrometer.
+ * <p>
+ * Задержки записываются в таймеры {@code invest.api.stream.latency} с тегами {@code stream},
+ * {@code payload} и {@code stage} ({@code network}, {@code decode}, {@code processing}).
+ * Отрицательная сетевая задержка, возникающая при расхождении часов, записывается как 0.
+ */
+public class MicrometerStreamLatencyRecorder implements StreamLatencyRecorder {
+
+  private final MeterRegistry registry;
+  private final Map<String, Map<String, Timer[]>> timers = new ConcurrentHashMap<>();
+
+  public MicrometerStreamLatencyRecorder(@Nonnull MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void record(@Nonnull String stream,
+                     @Nonnull String payload,
+                     long networkNanos,
+                     long decodeNanos,
+                     long processingNanos) {
+    var payloads = timers.get(stream);
+    var stages = payloads == null ? null : payloads.get(payload);
+    if (stages == null) {
+      stages = timers
+        .computeIfAbsent(stream, key -> new ConcurrentHashMap<>())
+        .computeIfAbsent(payload, key -> new Timer[]{
+          timer(stream, payload, "network"),
+          timer(stream, payload, "decode"),
+          timer(stream, payload, "processing")});
+    }
+    record(stages[0], networkNanos);
+    record(stages[1], decodeNanos);
+    record(stages[2], processingNanos);
+  }
+
+  private static void record(Timer timer, long nanos) {
+    if (nanos != UNKNOWN) {
+      timer.record(Math.max(nanos, 0), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private Timer timer(String stream, String payload, String stage) {
+    return Timer.builder("invest.api.stream.latency")
+      .tag("stream", stream)
+      .tag("payload", payload)
+      .tag("stage", stage)
+      .publishPercentileHistogram()
+      .register(registry);
+  }
+}
@@ -0,0 +1,77 @@
+package ru.tinkoff.piapi.micrometer;
+
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.tinkoff.piapi.core.metrics.StreamLatencyRecorder;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MicrometerMetricsTest {
+
+  @Test
+  void publishesRpcMetrics_Test() {
+    var registry = new SimpleMeterRegistry();
+    var metrics = new MicrometerRpcMetrics(registry)
+      .method("tinkoff.public.invest.api.contract.v1.OrdersService", "PostOrder");
+
+    for (int i = 0; i < 4; i++) {
+      metrics.callStarted();
+    }
+    metrics.messageSent(120);
+    metrics.messageReceived(300);
+    metrics.rateLimit(100, 98, 42);
+    metrics.callCompleted(Status.Code.OK, null, 2_000_000);
+    metrics.callCompleted(Status.Code.INVALID_ARGUMENT, "30042", 1_000_000);
+    metrics.callCompleted(Status.Code.UNAVAILABLE, "io exception", 1_000_000);
+    metrics.callCompleted(Status.Code.DEADLINE_EXCEEDED, "deadline exceeded after 9.98s", 1_000_000);
+
+    var calls = registry.get("invest.api.calls").tag("service", "OrdersService").tag("method", "PostOrder");
+    assertEquals(1, calls.tag("status", "OK").timer().count());
+    assertEquals(2, calls.tag("status", "OK").timer().totalTime(TimeUnit.MILLISECONDS), 0.001);
+    assertEquals(1, registry.get("invest.api.calls").tag("status", "INVALID_ARGUMENT").timer().count());
+    assertEquals(0, registry.get("invest.api.calls.active").gauge().value());
+    assertEquals(1, registry.get("invest.api.errors").tag("error_id", "30042").counter().count());
+    assertEquals(2, registry.get("invest.api.errors").tag("error_id", "other").counter().count());
+    assertEquals(2, registry.get("invest.api.errors").counters().size());
+    assertEquals(120, registry.get("invest.api.messages.sent").summary().totalAmount());
+    assertEquals(300, registry.get("invest.api.messages.received").summary().totalAmount());
+    assertEquals(100, registry.get("invest.api.ratelimit.limit").gauge().value());
+    assertEquals(98, registry.get("invest.api.ratelimit.remaining").gauge().value());
+    assertEquals(42, registry.get("invest.api.ratelimit.reset").gauge().value());
+  }
+
+  @Test
+  void sharesGaugesBetweenInstances_Test() {
+    var registry = new SimpleMeterRegistry();
+    var first = new MicrometerRpcMetrics(registry).method("tinkoff.public.invest.api.contract.v1.UsersService", "GetInfo");
+    var second = new MicrometerRpcMetrics(registry).method("tinkoff.public.invest.api.contract.v1.UsersService", "GetInfo");
+
+    first.callStarted();
+    second.callStarted();
+    second.callStarted();
+    second.rateLimit(200, 150, 30);
+
+    assertEquals(3, registry.get("invest.api.calls.active").gauge().value());
+    assertEquals(150, registry.get("invest.api.ratelimit.remaining").gauge().value());
+    first.rateLimit(200, 120, 20);
+    assertEquals(120, registry.get("invest.api.ratelimit.remaining").gauge().value());
+  }
+
+  @Test
+  void publishesStreamLatency_Test() {
+    var registry = new SimpleMeterRegistry();
+    var recorder = new MicrometerStreamLatencyRecorder(registry);
+
+    recorder.record("marketdata", "TRADE", 5_000_000, 20_000, 100_000);
+    recorder.record("marketdata", "TRADE", -1_000, StreamLatencyRecorder.UNKNOWN, 300_000);
+
+    var latency = registry.get("invest.api.stream.latency").tag("stream", "marketdata").tag("payload", "TRADE");
+    assertEquals(2, latency.tag("stage", "network").timer().count());
+    assertEquals(5, latency.tag("stage", "network").timer().totalTime(TimeUnit.MILLISECONDS), 0.001);
+    assertEquals(1, registry.get("invest.api.stream.latency").tag("stage", "decode").timer().count());
+    assertEquals(2, registry.get("invest.api.stream.latency").tag("stage", "processing").timer().count());
+  }
+}